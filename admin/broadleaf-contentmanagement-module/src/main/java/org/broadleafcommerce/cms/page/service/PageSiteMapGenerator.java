@@ -19,6 +19,8 @@ package org.broadleafcommerce.cms.page.service;
 
 import org.broadleafcommerce.cms.page.dao.PageDao;
 import org.broadleafcommerce.cms.page.domain.Page;
+import org.broadleafcommerce.cms.page.domain.PageImpl;
+import org.broadleafcommerce.common.dao.GenericEntityDao;
 import org.broadleafcommerce.common.file.service.BroadleafFileUtils;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.service.SiteMapBuilder;
@@ -45,6 +47,9 @@ public class PageSiteMapGenerator implements SiteMapGenerator {
     @Resource(name = "blPageDao")
     protected PageDao pageDao;
 
+    @Resource(name = "blGenericEntityDao")
+    protected GenericEntityDao genericEntityDao;
+
     @Value("${page.site.map.generator.row.limit}")
     protected int rowLimit;
 
@@ -53,6 +58,11 @@ public class PageSiteMapGenerator implements SiteMapGenerator {
         return SiteMapGeneratorType.PAGE.equals(siteMapGeneratorConfiguration.getSiteMapGeneratorType());
     }
 
+    @Override
+    public Date getLastModifiedDate(SiteMapGeneratorConfiguration smgc) {
+        return genericEntityDao.readLastUpdatedDate(PageImpl.class);
+    }
+
     @Override
     public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder) {
 
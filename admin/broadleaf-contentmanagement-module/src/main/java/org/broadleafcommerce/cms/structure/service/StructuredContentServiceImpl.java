@@ -35,6 +35,7 @@ import org.broadleafcommerce.cms.structure.domain.StructuredContentItemCriteria;
 import org.broadleafcommerce.cms.structure.domain.StructuredContentRule;
 import org.broadleafcommerce.cms.structure.domain.StructuredContentType;
 import org.broadleafcommerce.common.cache.CacheStatType;
+import org.broadleafcommerce.common.cache.CoalescingCacheLoader;
 import org.broadleafcommerce.common.cache.StatisticsService;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.file.service.StaticAssetPathService;
@@ -43,6 +44,8 @@ import org.broadleafcommerce.common.locale.service.LocaleService;
 import org.broadleafcommerce.common.locale.util.LocaleUtil;
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.common.rule.MvelExpressionWarmupProvider;
+import org.broadleafcommerce.common.rule.MvelHelper;
 import org.broadleafcommerce.common.rule.RuleProcessor;
 import org.broadleafcommerce.common.sandbox.domain.SandBox;
 import org.broadleafcommerce.common.site.domain.Site;
@@ -52,16 +55,20 @@ import org.broadleafcommerce.common.util.FormatUtil;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.hibernate.Criteria;
 import org.hibernate.criterion.Projections;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.annotation.Resource;
 import javax.cache.Cache;
@@ -71,7 +78,7 @@ import javax.cache.CacheManager;
  * @author bpolster
  */
 @Service("blStructuredContentService")
-public class StructuredContentServiceImpl implements StructuredContentService {
+public class StructuredContentServiceImpl implements StructuredContentService, MvelExpressionWarmupProvider {
 
     protected static final Log LOG = LogFactory.getLog(StructuredContentServiceImpl.class);
 
@@ -107,6 +114,20 @@ public class StructuredContentServiceImpl implements StructuredContentService {
 
     protected Cache structuredContentCache;
 
+    /**
+     * Whether concurrent misses for the same content key are coalesced into a single query
+     */
+    @Value("${structured.content.cache.coalescing.enabled:true}")
+    protected boolean cacheCoalescingEnabled = true;
+
+    /**
+     * Weight of the load time when deciding to refresh a content list before it expires; 0 disables early refresh
+     */
+    @Value("${structured.content.cache.early.refresh.beta:1.0}")
+    protected double cacheEarlyRefreshBeta = 1.0D;
+
+    protected volatile CoalescingCacheLoader structuredContentCacheLoader;
+
     @Override
     public StructuredContent findStructuredContentById(Long contentId) {
         return structuredContentDao.findStructuredContentById(contentId);
@@ -268,25 +289,16 @@ public class StructuredContentServiceImpl implements StructuredContentService {
     @Override
     public List<StructuredContentDTO> lookupStructuredContentItemsByType(StructuredContentType contentType, Locale locale,
                                                                          Integer count, Map<String, Object> ruleDTOs, boolean secure) {
-        List<StructuredContentDTO> contentDTOList = null;
         Locale languageOnlyLocale = findLanguageOnlyLocale(locale);
         BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
         Long site = (context.getNonPersistentSite() != null) ? context.getNonPersistentSite().getId() : null;
         String cacheKey = buildTypeKeyWithSecure(context.getSandBox(), site, languageOnlyLocale, contentType.getName(), secure);
 
-        if (context.isProductionSandBox()) {
-            contentDTOList = getStructuredContentListFromCache(cacheKey);
-        }
-
-        if (contentDTOList == null) {
+        List<StructuredContentDTO> contentDTOList = lookupStructuredContentList(cacheKey, context.isProductionSandBox(), () -> {
             List<StructuredContent> contentList = structuredContentDao.findActiveStructuredContentByType(contentType,
                     locale, languageOnlyLocale);
-            contentDTOList = buildStructuredContentDTOList(contentList, secure);
-
-            if (context.isProductionSandBox()) {
-                addStructuredContentListToCache(cacheKey, contentDTOList);
-            }
-        }
+            return buildStructuredContentDTOList(contentList, secure);
+        });
 
         return evaluateAndPriortizeContent(contentDTOList, count, ruleDTOs);
     }
@@ -295,27 +307,58 @@ public class StructuredContentServiceImpl implements StructuredContentService {
     public List<StructuredContentDTO> lookupStructuredContentItemsByName(StructuredContentType contentType, String contentName,
                                                                          Locale locale, Integer count, Map<String, Object> ruleDTOs,
                                                                          boolean secure) {
-        List<StructuredContentDTO> contentDTOList = null;
         Locale languageOnlyLocale = findLanguageOnlyLocale(locale);
         BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
         Long site = (context.getNonPersistentSite() != null) ? context.getNonPersistentSite().getId() : null;
         String cacheKey = buildNameKey(context.getSandBox(), site, languageOnlyLocale, contentType.getName(), contentName, secure);
 
-        if (context.isProductionSandBox()) {
-            contentDTOList = getStructuredContentListFromCache(cacheKey);
-        }
-
-        if (contentDTOList == null) {
+        List<StructuredContentDTO> contentDTOList = lookupStructuredContentList(cacheKey, context.isProductionSandBox(), () -> {
             List<StructuredContent> productionContentList = structuredContentDao.findActiveStructuredContentByNameAndType(
                     contentType, contentName, locale, languageOnlyLocale);
-            contentDTOList = buildStructuredContentDTOList(productionContentList, secure);
+            return buildStructuredContentDTOList(productionContentList, secure);
+        });
 
-            if (context.isProductionSandBox()) {
-                addStructuredContentListToCache(cacheKey, contentDTOList);
-            }
+        return evaluateAndPriortizeContent(contentDTOList, count, ruleDTOs);
+    }
+
+    /**
+     * Returns the content list cached under the key, loading it on a miss. In the production sandbox concurrent misses
+     * for the same key share a single load, and popular keys are refreshed shortly before they expire.
+     */
+    protected List<StructuredContentDTO> lookupStructuredContentList(String cacheKey, boolean productionSandBox,
+                                                                     Supplier<List<StructuredContentDTO>> loader) {
+        if (!productionSandBox) {
+            return loader.get();
+        }
+        List<StructuredContentDTO> contentDTOList = getStructuredContentListFromCache(cacheKey);
+        if (cacheCoalescingEnabled) {
+            return getStructuredContentCacheLoader().get(cacheKey, contentDTOList, loader,
+                    list -> addStructuredContentListToCache(cacheKey, list));
         }
+        if (contentDTOList == null) {
+            contentDTOList = loader.get();
+            addStructuredContentListToCache(cacheKey, contentDTOList);
+        }
+        return contentDTOList;
+    }
 
-        return evaluateAndPriortizeContent(contentDTOList, count, ruleDTOs);
+    protected CoalescingCacheLoader getStructuredContentCacheLoader() {
+        CoalescingCacheLoader loader = structuredContentCacheLoader;
+        if (loader == null) {
+            synchronized (this) {
+                loader = structuredContentCacheLoader;
+                if (loader == null) {
+                    loader = new CoalescingCacheLoader(statisticsService,
+                            CacheStatType.STRUCTURED_CONTENT_CACHE_COALESCED_MISS_RATE,
+                            CacheStatType.STRUCTURED_CONTENT_CACHE_EMPTY_HIT_RATE,
+                            CacheStatType.STRUCTURED_CONTENT_CACHE_EARLY_REFRESH_RATE);
+                    loader.setEarlyRefreshBeta(cacheEarlyRefreshBeta);
+                    loader.setTimeToLiveMillis(CoalescingCacheLoader.resolveTimeToLiveMillis(getStructuredContentCache()));
+                    structuredContentCacheLoader = loader;
+                }
+            }
+        }
+        return loader;
     }
 
     @Override
@@ -399,6 +442,10 @@ public class StructuredContentServiceImpl implements StructuredContentService {
         if (!StringUtils.isEmpty(key)) {
             successSecure = getStructuredContentCache().remove(key + "-" + true);
             successNonSecure = getStructuredContentCache().remove(key + "-" + false);
+            if (structuredContentCacheLoader != null) {
+                structuredContentCacheLoader.invalidate(key + "-" + true);
+                structuredContentCacheLoader.invalidate(key + "-" + false);
+            }
         }
 
         return successSecure || successNonSecure;
@@ -431,6 +478,27 @@ public class StructuredContentServiceImpl implements StructuredContentService {
         return structuredContentCache;
     }
 
+    /**
+     * Compiles the rule expression of every content item into the expression cache used by the content rule processors
+     */
+    @Override
+    @Transactional(value = "blTransactionManager", readOnly = true)
+    public int precompileExpressions() {
+        Set<String> ruleExpressions = new HashSet<>();
+        for (StructuredContent sc : structuredContentDao.findAllContentItems()) {
+            String ruleExpression = buildRuleExpression(sc);
+            if (StringUtils.isNotEmpty(ruleExpression) && ruleExpressions.add(ruleExpression)) {
+                try {
+                    MvelHelper.compileRule(ruleExpression, null);
+                } catch (RuntimeException e) {
+                    LOG.warn("Unable to precompile the rule for StructuredContent with id " + sc.getId(), e);
+                    ruleExpressions.remove(ruleExpression);
+                }
+            }
+        }
+        return ruleExpressions.size();
+    }
+
     protected String buildRuleExpression(StructuredContent sc) {
         StringBuffer ruleExpression = null;
         Map<String, StructuredContentRule> ruleMap = sc.getStructuredContentMatchRules();
@@ -737,24 +805,16 @@ public class StructuredContentServiceImpl implements StructuredContentService {
 
     @Override
     public List<StructuredContentDTO> getStructuredContentItemsByContentName(String contentName, Locale locale, boolean secure) {
-        List<StructuredContentDTO> contentDTOList = null;
         Locale languageOnlyLocale = findLanguageOnlyLocale(locale);
         BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
         Long site = (context.getNonPersistentSite() != null) ? context.getNonPersistentSite().getId() : null;
         String cacheKey = buildNameKey(context.getSandBox(), site, languageOnlyLocale, "any", contentName, secure);
         cacheKey = cacheKey + "-" + secure;
 
-        if (context.isProductionSandBox()) {
-            contentDTOList = getStructuredContentListFromCache(cacheKey);
-        }
-
-        if (contentDTOList == null) {
+        List<StructuredContentDTO> contentDTOList = lookupStructuredContentList(cacheKey, context.isProductionSandBox(), () -> {
             List<StructuredContent> productionContentList = structuredContentDao.findActiveStructuredContentByName(contentName, locale, languageOnlyLocale);
-            contentDTOList = buildStructuredContentDTOList(productionContentList, secure);
-            if (context.isProductionSandBox()) {
-                addStructuredContentListToCache(cacheKey, contentDTOList);
-            }
-        }
+            return buildStructuredContentDTOList(productionContentList, secure);
+        });
 
         return contentDTOList;
     }
@@ -0,0 +1,321 @@
+/*-
+ * #%L
+ * BroadleafCommerce CMS Module
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.cms.url.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.cms.url.domain.URLHandler;
+import org.broadleafcommerce.cms.url.domain.URLHandlerDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable matcher over a snapshot of the regex {@link URLHandler}s, built so that a request URI only has to be tested
+ * against the handlers that could possibly match it:
+ * <ul>
+ *     <li>patterns that are entirely literal (e.g. {@code ^/old-page$}) are looked up in a hash map</li>
+ *     <li>patterns that start with a literal prefix (e.g. {@code ^/blogs/(.*)$}) are stored in a prefix trie, so only
+ *     the patterns whose prefix the URI starts with are considered</li>
+ *     <li>every remaining candidate is first checked for the longest literal its pattern requires (e.g.
+ *     {@code /shirts-tops} in {@code ^(.*)/shirts-tops(.*)$}) before the regex itself is run</li>
+ * </ul>
+ * Candidates are evaluated in the original handler order, so the first handler that matches wins, exactly as with a
+ * linear scan. URIs that matched nothing are remembered (up to a limit) for the lifetime of the matcher.
+ */
+public class URLHandlerMatcher {
+
+    private static final Log LOG = LogFactory.getLog(URLHandlerMatcher.class);
+
+    protected static final String REGEX_META_CHARS = "[](){}.*+?|^$";
+
+    protected final URLHandler[] handlers;
+    protected final Pattern[] patterns;
+    protected final String[] requiredLiterals;
+    protected final Map<String, Integer> exactMatches = new HashMap<>();
+    protected final TrieNode prefixes = new TrieNode();
+    protected final int[] unprefixed;
+    protected final Set<String> misses = ConcurrentHashMap.newKeySet();
+    protected final int maxMisses;
+    protected final long createdMillis = System.currentTimeMillis();
+
+    /**
+     * @param handlers the regex handlers in the order they should be evaluated
+     * @param anchoredPatterns the incoming URL pattern of each handler, anchored with ^ and $
+     * @param maxMisses the number of non-matching URIs to remember
+     */
+    public URLHandlerMatcher(List<URLHandler> handlers, List<String> anchoredPatterns, int maxMisses) {
+        this.maxMisses = maxMisses;
+        this.handlers = handlers.toArray(new URLHandler[handlers.size()]);
+        this.patterns = new Pattern[handlers.size()];
+        this.requiredLiterals = new String[handlers.size()];
+        List<Integer> unprefixedList = new ArrayList<>();
+        for (int i = 0; i < this.handlers.length; i++) {
+            String pattern = anchoredPatterns.get(i);
+            try {
+                patterns[i] = Pattern.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                // We don't want an invalid regex to cause tons of logging, so this is only reported when built
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Error parsing URL Handler (incoming =" + this.handlers[i].getIncomingURL() + "), outgoing = ( "
+                            + this.handlers[i].getNewURL() + ")");
+                }
+                continue;
+            }
+            boolean analyzable = pattern.indexOf('|') < 0 && !pattern.contains("(?");
+            StringBuilder prefix = new StringBuilder();
+            boolean exact = analyzable && readLiteralPrefix(pattern, prefix);
+            if (exact) {
+                if (!exactMatches.containsKey(prefix.toString())) {
+                    exactMatches.put(prefix.toString(), i);
+                }
+            } else if (analyzable && prefix.length() > 0) {
+                prefixes.add(prefix, i);
+                requiredLiterals[i] = findRequiredLiteral(pattern);
+            } else {
+                unprefixedList.add(i);
+                requiredLiterals[i] = analyzable ? findRequiredLiteral(pattern) : null;
+            }
+        }
+        unprefixed = new int[unprefixedList.size()];
+        for (int i = 0; i < unprefixed.length; i++) {
+            unprefixed[i] = unprefixedList.get(i);
+        }
+    }
+
+    /**
+     * @return the first handler that matches the URI, with its new URL resolved against the URI's groups, or null
+     */
+    public URLHandler match(String requestURI) {
+        if (requestURI == null || misses.contains(requestURI)) {
+            return null;
+        }
+        for (int index : findCandidates(requestURI)) {
+            String literal = requiredLiterals[index];
+            if (literal != null && !requestURI.contains(literal)) {
+                continue;
+            }
+            URLHandler urlHandler = handlers[index];
+            try {
+                Matcher m = patterns[index].matcher(requestURI);
+                if (m.find()) {
+                    String newUrl = m.replaceFirst(urlHandler.getNewURL());
+                    if (newUrl.equals(urlHandler.getNewURL())) {
+                        return urlHandler;
+                    } else {
+                        return new URLHandlerDTO(newUrl, urlHandler.getUrlRedirectType());
+                    }
+                }
+            } catch (RuntimeException re) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn("Error parsing URL Handler (incoming =" + urlHandler.getIncomingURL() + "), outgoing = ( "
+                            + urlHandler.getNewURL() + "), " + requestURI);
+                }
+            }
+        }
+        if (misses.size() < maxMisses) {
+            misses.add(requestURI);
+        }
+        return null;
+    }
+
+    /**
+     * @return the indexes of the handlers that could match the URI, in handler order
+     */
+    protected int[] findCandidates(String requestURI) {
+        int[] candidates = new int[unprefixed.length + 8];
+        int size = 0;
+        Integer exact = exactMatches.get(requestURI);
+        if (exact != null) {
+            candidates[size++] = exact;
+        }
+        TrieNode node = prefixes;
+        for (int i = 0; i < requestURI.length() && node != null; i++) {
+            node = node.children.get(requestURI.charAt(i));
+            if (node != null) {
+                for (Integer index : node.indexes) {
+                    if (size == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, size * 2);
+                    }
+                    candidates[size++] = index;
+                }
+            }
+        }
+        if (size == 0) {
+            return unprefixed;
+        }
+        if (size + unprefixed.length > candidates.length) {
+            candidates = Arrays.copyOf(candidates, size + unprefixed.length);
+        }
+        System.arraycopy(unprefixed, 0, candidates, size, unprefixed.length);
+        size += unprefixed.length;
+        Arrays.sort(candidates, 0, size);
+        return Arrays.copyOf(candidates, size);
+    }
+
+    /**
+     * Reads the literal characters following the leading ^ of the pattern into the prefix.
+     *
+     * @return true if the whole pattern is that literal followed by $
+     */
+    protected boolean readLiteralPrefix(String pattern, StringBuilder prefix) {
+        int i = pattern.startsWith("^") ? 1 : 0;
+        if (i == 0) {
+            return false;
+        }
+        while (i < pattern.length()) {
+            int length = literalLength(pattern, i);
+            if (length == 0) {
+                break;
+            }
+            char literal = pattern.charAt(i + length - 1);
+            int next = i + length;
+            if (next < pattern.length()) {
+                char quantifier = pattern.charAt(next);
+                if (quantifier == '*' || quantifier == '?' || quantifier == '{') {
+                    break;
+                }
+                if (quantifier == '+') {
+                    prefix.append(literal);
+                    return false;
+                }
+            }
+            prefix.append(literal);
+            i = next;
+        }
+        return i == pattern.length() - 1 && pattern.charAt(i) == '$';
+    }
+
+    /**
+     * @return the longest run of literal characters outside of any group or character class that every match of the
+     * pattern has to contain, or null if there is no such run of at least two characters
+     */
+    protected String findRequiredLiteral(String pattern) {
+        String longest = null;
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int length = depth == 0 ? literalLength(pattern, i) : 0;
+            if (length > 0) {
+                int next = i + length;
+                char quantifier = next < pattern.length() ? pattern.charAt(next) : 0;
+                if (quantifier == '*' || quantifier == '?' || quantifier == '{') {
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                } else {
+                    run.append(pattern.charAt(next - 1));
+                    if (quantifier == '+') {
+                        longest = longer(longest, run);
+                        run.setLength(0);
+                    }
+                }
+                i = next;
+                continue;
+            }
+            longest = longer(longest, run);
+            run.setLength(0);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = skipCharacterClass(pattern, i);
+            } else if (c == '{' && depth == 0) {
+                int end = pattern.indexOf('}', i);
+                i = end < 0 ? pattern.length() : end + 1;
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth = Math.max(0, depth - 1);
+                }
+                i++;
+            }
+        }
+        longest = longer(longest, run);
+        return longest != null && longest.length() >= 2 ? longest : null;
+    }
+
+    /**
+     * @return the number of pattern characters (1, or 2 for an escaped symbol) that stand for a single literal character
+     * at the given position, or 0 if the position is not a literal
+     */
+    protected int literalLength(String pattern, int i) {
+        char c = pattern.charAt(i);
+        if (c == '\\') {
+            if (i + 1 < pattern.length() && !Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                return 2;
+            }
+            return 0;
+        }
+        return REGEX_META_CHARS.indexOf(c) >= 0 ? 0 : 1;
+    }
+
+    protected int skipCharacterClass(String pattern, int i) {
+        i++;
+        if (i < pattern.length() && pattern.charAt(i) == ']') {
+            i++;
+        }
+        while (i < pattern.length() && pattern.charAt(i) != ']') {
+            i += pattern.charAt(i) == '\\' ? 2 : 1;
+        }
+        return i + 1;
+    }
+
+    protected String longer(String longest, StringBuilder run) {
+        if (run.length() > 0 && (longest == null || run.length() > longest.length())) {
+            return run.toString();
+        }
+        return longest;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public int size() {
+        return handlers.length;
+    }
+
+    protected static class TrieNode {
+
+        protected final Map<Character, TrieNode> children = new HashMap<>();
+        protected final List<Integer> indexes = new ArrayList<>(1);
+
+        protected void add(CharSequence key, int index) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                TrieNode child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    child = new TrieNode();
+                    node.children.put(key.charAt(i), child);
+                }
+                node = child;
+            }
+            node.indexes.add(index);
+        }
+    }
+}
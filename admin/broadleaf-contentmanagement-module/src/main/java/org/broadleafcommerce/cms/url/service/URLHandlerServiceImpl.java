@@ -28,11 +28,18 @@ import org.broadleafcommerce.common.cache.StatisticsService;
 import org.broadleafcommerce.common.site.domain.Site;
 import org.broadleafcommerce.common.util.EfficientLRUMap;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +71,22 @@ public class URLHandlerServiceImpl implements URLHandlerService {
 
     protected Map<String, Pattern> urlPatternMap = new EfficientLRUMap<String, Pattern>(2000);
 
+    /**
+     * Whether regex handlers are matched through a {@link URLHandlerMatcher} compiled from all of the regex handlers of
+     * a site, rather than by testing every handler in turn. Only applies to the production sandbox.
+     */
+    @Value("${url.handler.compiled.matcher.enabled:true}")
+    protected boolean compiledMatcherEnabled = true;
+
+    @Value("${url.handler.compiled.matcher.ttl:60000}")
+    protected long compiledMatcherTtl = 60000L;
+
+    @Value("${url.handler.compiled.matcher.max.misses:10000}")
+    protected int compiledMatcherMaxMisses = 10000;
+
+    protected final ConcurrentMap<String, URLHandlerMatcher> compiledMatchers = new ConcurrentHashMap<>();
+    protected final ReentrantLock compiledMatcherLock = new ReentrantLock();
+
     /**
      * Checks the passed in URL to determine if there is a matching URLHandler.
      * Returns null if no handler was found.
@@ -141,10 +164,32 @@ public class URLHandlerServiceImpl implements URLHandlerService {
     @Override
     @Transactional("blTransactionManager")
     public URLHandler saveURLHandler(URLHandler handler) {
-        return urlHandlerDao.saveURLHandler(handler);
+        URLHandler saved = urlHandlerDao.saveURLHandler(handler);
+        clearCompiledMatchers();
+        return saved;
+    }
+
+    /**
+     * Discards the compiled matchers once the current transaction commits, so that no request recompiles them from
+     * handlers read before the change was committed. Outside of a transaction they are discarded right away.
+     */
+    protected void clearCompiledMatchers() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    compiledMatchers.clear();
+                }
+            });
+        } else {
+            compiledMatchers.clear();
+        }
     }
 
     protected URLHandler checkForMatches(String requestURI) {
+        if (useCompiledMatcher()) {
+            return getCompiledMatcher().match(requestURI);
+        }
         URLHandler currentHandler = null;
         try {
             List<URLHandler> urlHandlers = findAllRegexURLHandlers();
@@ -181,6 +226,61 @@ public class URLHandlerServiceImpl implements URLHandlerService {
         return null;
     }
 
+    protected boolean useCompiledMatcher() {
+        if (!compiledMatcherEnabled) {
+            return false;
+        }
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext(false);
+        return context == null || context.isProductionSandBox();
+    }
+
+    /**
+     * Returns the matcher for the current site, compiling a new one when there is none yet or when it is older than
+     * {@link #compiledMatcherTtl}. Only one thread rebuilds an expired matcher while the others keep using the old one,
+     * which is then replaced in a single step.
+     */
+    protected URLHandlerMatcher getCompiledMatcher() {
+        String key = buildCompiledMatcherKey();
+        URLHandlerMatcher matcher = compiledMatchers.get(key);
+        boolean expired = matcher != null && matcher.getCreatedMillis() + compiledMatcherTtl < System.currentTimeMillis();
+        if (matcher != null && (!expired || !compiledMatcherLock.tryLock())) {
+            return matcher;
+        }
+        if (matcher == null) {
+            compiledMatcherLock.lock();
+        }
+        try {
+            URLHandlerMatcher current = compiledMatchers.get(key);
+            if (current != null && current != matcher) {
+                return current;
+            }
+            URLHandlerMatcher compiled = createCompiledMatcher(findAllRegexURLHandlers());
+            compiledMatchers.put(key, compiled);
+            return compiled;
+        } finally {
+            compiledMatcherLock.unlock();
+        }
+    }
+
+    protected URLHandlerMatcher createCompiledMatcher(List<URLHandler> urlHandlers) {
+        List<URLHandler> handlers = new ArrayList<>(urlHandlers.size());
+        List<String> patterns = new ArrayList<>(urlHandlers.size());
+        for (URLHandler urlHandler : urlHandlers) {
+            if (StringUtils.isEmpty(urlHandler.getIncomingURL())) {
+                continue;
+            }
+            handlers.add(urlHandler);
+            patterns.add(wrapStringsWithAnchors(urlHandler.getIncomingURL()));
+        }
+        return new URLHandlerMatcher(handlers, patterns, compiledMatcherMaxMisses);
+    }
+
+    protected String buildCompiledMatcherKey() {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext(false);
+        Site site = context == null ? null : context.getNonPersistentSite();
+        return site == null ? "default" : "site:" + site.getId();
+    }
+
     @Override
     public Boolean removeURLHandlerFromCache(String mapKey) {
         Boolean success = Boolean.FALSE;
@@ -190,6 +290,7 @@ public class URLHandlerServiceImpl implements URLHandlerService {
             if (e != null) {
                 success = Boolean.valueOf(getUrlHandlerCache().remove(mapKey));
             }
+            clearCompiledMatchers();
         }
 
         return success;
@@ -0,0 +1,154 @@
+/*-
+ * #%L
+ * BroadleafCommerce CMS Module
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.cms.url.service;
+
+import org.broadleafcommerce.cms.url.domain.URLHandler;
+import org.broadleafcommerce.cms.url.domain.URLHandlerDTO;
+import org.broadleafcommerce.cms.url.type.URLRedirectType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+public class URLHandlerMatcherTest extends TestCase {
+
+    protected URLHandlerServiceImpl handlerService = new URLHandlerServiceImpl();
+
+    public void testLiteralPrefixAndExactPatterns() {
+        URLHandlerMatcher matcher = build(
+                handler("^/simple_regex$", "/NewSimpleRegex"),
+                handler("/blogs/(.*)/(.*)$", "/newblogs/$2/$1"),
+                handler("(.*)/shirts-tops(.*)", "$1/shirts$2"));
+
+        assertEquals("/NewSimpleRegex", matcher.match("/simple_regex").getNewURL());
+        assertEquals("/newblogs/second/first", matcher.match("/blogs/first/second").getNewURL());
+        assertEquals("/merchandise/shirts/mens", matcher.match("/merchandise/shirts-tops/mens").getNewURL());
+        assertNull(matcher.match("/simple_regex/test"));
+        assertNull(matcher.match("/blog/first/second"));
+    }
+
+    public void testFirstMatchingHandlerWins() {
+        URLHandlerMatcher matcher = build(
+                handler("(.*)", "/catch-all"),
+                handler("^/exact$", "/exact-target"),
+                handler("/prefix/(.*)", "/prefixed"));
+
+        assertEquals("/catch-all", matcher.match("/exact").getNewURL());
+        assertEquals("/catch-all", matcher.match("/prefix/a").getNewURL());
+    }
+
+    public void testPatternAnalysis() {
+        URLHandlerMatcher matcher = build();
+        StringBuilder prefix = new StringBuilder();
+        assertTrue(matcher.readLiteralPrefix("^/a\\.html$", prefix));
+        assertEquals("/a.html", prefix.toString());
+
+        prefix.setLength(0);
+        assertFalse(matcher.readLiteralPrefix("^/shoes?/(.*)$", prefix));
+        assertEquals("/shoe", prefix.toString());
+
+        prefix.setLength(0);
+        assertFalse(matcher.readLiteralPrefix("^/a+b$", prefix));
+        assertEquals("/a", prefix.toString());
+
+        assertEquals("/shirts-tops", matcher.findRequiredLiteral("^(.*)/shirts-tops(.*)$"));
+        assertEquals("/catalog/", matcher.findRequiredLiteral("^[a-z]{2}/catalog/(\\d+)$"));
+        assertNull(matcher.findRequiredLiteral("^(.*)$"));
+    }
+
+    public void testInvalidPatternIsSkipped() {
+        URLHandlerMatcher matcher = build(
+                handler("/broken/(.*", "/never"),
+                handler("/working/(.*)", "/works/$1"));
+
+        assertNull(matcher.match("/broken/a"));
+        assertEquals("/works/a", matcher.match("/working/a").getNewURL());
+    }
+
+    public void testSameResultsAsLinearScan() {
+        Random random = new Random(7);
+        List<URLHandler> handlers = new ArrayList<>();
+        String[] segments = { "shoes", "shirts", "blog", "sale", "a.b", "mens", "womens" };
+        for (int i = 0; i < 500; i++) {
+            String first = segments[random.nextInt(segments.length)];
+            String second = segments[random.nextInt(segments.length)] + i % 13;
+            switch (random.nextInt(5)) {
+            case 0:
+                handlers.add(handler("/" + first + "/" + second, "/exact/" + i));
+                break;
+            case 1:
+                handlers.add(handler("/" + first + "/(.*)", "/prefix/" + i + "/$1"));
+                break;
+            case 2:
+                handlers.add(handler("(.*)/" + second + "(.*)", "/contains/" + i + "$1$2"));
+                break;
+            case 3:
+                handlers.add(handler("/" + first + "s?/" + second + "/(\\d+)", "/optional/" + i + "/$1"));
+                break;
+            default:
+                handlers.add(handler("/(" + first + "|" + second + ")/x", "/alternation/" + i));
+            }
+        }
+        URLHandlerMatcher matcher = handlerService.createCompiledMatcher(handlers);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder uri = new StringBuilder();
+            int depth = 1 + random.nextInt(3);
+            for (int j = 0; j < depth; j++) {
+                uri.append('/').append(segments[random.nextInt(segments.length)]);
+                if (random.nextBoolean()) {
+                    uri.append(random.nextInt(13));
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                uri.append('/').append(random.nextInt(100));
+            }
+            String expected = linearScan(handlers, uri.toString());
+            URLHandler actual = matcher.match(uri.toString());
+            assertEquals(uri.toString(), expected, actual == null ? null : actual.getNewURL());
+        }
+    }
+
+    protected String linearScan(List<URLHandler> handlers, String uri) {
+        for (URLHandler handler : handlers) {
+            Matcher m = Pattern.compile(handlerService.wrapStringsWithAnchors(handler.getIncomingURL())).matcher(uri);
+            if (m.find()) {
+                return m.replaceFirst(handler.getNewURL());
+            }
+        }
+        return null;
+    }
+
+    protected URLHandlerMatcher build(URLHandler... handlers) {
+        List<URLHandler> list = new ArrayList<>();
+        for (URLHandler handler : handlers) {
+            list.add(handler);
+        }
+        return handlerService.createCompiledMatcher(list);
+    }
+
+    protected URLHandler handler(String incomingUrl, String newUrl) {
+        URLHandler handler = new URLHandlerDTO(newUrl, URLRedirectType.REDIRECT_PERM);
+        handler.setIncomingURL(incomingUrl);
+        handler.setRegexHandler(true);
+        return handler;
+    }
+}
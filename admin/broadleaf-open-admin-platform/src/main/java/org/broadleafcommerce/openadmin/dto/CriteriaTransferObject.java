@@ -38,6 +38,8 @@ public class CriteriaTransferObject {
     private Integer maxResults;
     private Long lastId;
     private Long firstId;
+    private String lastSortValue;
+    private String firstSortValue;
     private Integer upperCount;
     private Integer lowerCount;
     private Boolean presentationFetch;
@@ -101,6 +103,22 @@ public class CriteriaTransferObject {
         this.firstId = firstId;
     }
 
+    public String getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(String lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    public String getFirstSortValue() {
+        return firstSortValue;
+    }
+
+    public void setFirstSortValue(String firstSortValue) {
+        this.firstSortValue = firstSortValue;
+    }
+
     public Integer getUpperCount() {
         return upperCount;
     }
@@ -63,6 +63,12 @@ public class DynamicResultSet implements Serializable {
     @JsonProperty
     private Long lastId;
 
+    @JsonProperty
+    private String firstSortValue;
+
+    @JsonProperty
+    private String lastSortValue;
+
     @JsonProperty
     private Integer upperCount;
 
@@ -78,6 +84,9 @@ public class DynamicResultSet implements Serializable {
     @JsonProperty
     private Boolean promptSearch;
 
+    @JsonProperty
+    private Boolean totalRecordsEstimated;
+
     @JsonIgnore
     private Map<String, Tab> unselectedTabMetadata = new HashMap<String, Tab>();
 
@@ -176,6 +185,22 @@ public class DynamicResultSet implements Serializable {
         this.lastId = lastId;
     }
 
+    public String getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(String lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    public String getFirstSortValue() {
+        return firstSortValue;
+    }
+
+    public void setFirstSortValue(String firstSortValue) {
+        this.firstSortValue = firstSortValue;
+    }
+
     public Integer getUpperCount() {
         return upperCount;
     }
@@ -215,4 +240,18 @@ public class DynamicResultSet implements Serializable {
     public void setPromptSearch(Boolean promptSearch) {
         this.promptSearch = promptSearch;
     }
+
+    /**
+     * Whether {@link #getTotalRecords()} is only a lower bound because the count query was skipped. See
+     * {@link org.broadleafcommerce.openadmin.server.service.type.CountStrategyType#HAS_MORE}.
+     *
+     * @return
+     */
+    public Boolean getTotalRecordsEstimated() {
+        return totalRecordsEstimated;
+    }
+
+    public void setTotalRecordsEstimated(Boolean totalRecordsEstimated) {
+        this.totalRecordsEstimated = totalRecordsEstimated;
+    }
 }
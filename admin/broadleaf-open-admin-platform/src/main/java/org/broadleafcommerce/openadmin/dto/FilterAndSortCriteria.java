@@ -38,6 +38,8 @@ public class FilterAndSortCriteria {
     public static final String MAX_RESULTS_PARAMETER = "maxResults";
     public static final String LAST_ID_PARAMETER = "lastId";
     public static final String FIRST_ID_PARAMETER = "firstId";
+    public static final String LAST_SORT_VALUE_PARAMETER = "lastSortValue";
+    public static final String FIRST_SORT_VALUE_PARAMETER = "firstSortValue";
     public static final String UPPER_COUNT_PARAMETER = "upperCount";
     public static final String LOWER_COUNT_PARAMETER = "lowerCount";
     public static final String PAGE_SIZE_PARAMETER = "pageSize";
@@ -47,7 +47,9 @@ import org.broadleafcommerce.openadmin.server.dao.provider.metadata.BasicFieldMe
 import org.broadleafcommerce.openadmin.server.dao.provider.metadata.FieldMetadataProvider;
 import org.broadleafcommerce.openadmin.server.dao.provider.metadata.request.AddMetadataFromFieldTypeRequest;
 import org.broadleafcommerce.openadmin.server.dao.provider.metadata.request.LateStageAddMetadataRequest;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldAccessor;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldPath;
 import org.broadleafcommerce.openadmin.server.service.persistence.validation.FieldNamePropertyValidator;
 import org.broadleafcommerce.openadmin.server.service.type.MetadataProviderResponse;
 import org.hibernate.Criteria;
@@ -235,6 +237,8 @@ public class DynamicEntityDaoImpl implements DynamicEntityDao, ApplicationContex
                 METADATA_CACHE.clear();
                 DynamicDaoHelperImpl.POLYMORPHIC_ENTITY_CACHE.clear();
                 DynamicDaoHelperImpl.POLYMORPHIC_ENTITY_CACHE_WO_EXCLUSIONS.clear();
+                FieldAccessor.clearCache();
+                FieldPath.clearCache();
                 LOG.trace("Metadata cache evicted");
                 return true; // cache is empty
             } else {
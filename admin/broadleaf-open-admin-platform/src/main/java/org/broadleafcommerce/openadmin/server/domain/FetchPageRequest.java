@@ -28,6 +28,8 @@ public class FetchPageRequest {
     protected Integer maxIndex;
     protected Long lastId;
     protected Long firstId;
+    protected String lastSortValue;
+    protected String firstSortValue;
     protected Integer upperCount;
     protected Integer lowerCount;
     protected Integer pageSize;
@@ -52,6 +54,16 @@ public class FetchPageRequest {
         return this;
     }
 
+    public FetchPageRequest withLastSortValue(String lastSortValue) {
+        setLastSortValue(lastSortValue);
+        return this;
+    }
+
+    public FetchPageRequest withFirstSortValue(String firstSortValue) {
+        setFirstSortValue(firstSortValue);
+        return this;
+    }
+
     public FetchPageRequest withUpperCount(Integer upperCount) {
         setUpperCount(upperCount);
         return this;
@@ -99,6 +111,22 @@ public class FetchPageRequest {
         this.firstId = firstId;
     }
 
+    public String getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(String lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    public String getFirstSortValue() {
+        return firstSortValue;
+    }
+
+    public void setFirstSortValue(String firstSortValue) {
+        this.firstSortValue = firstSortValue;
+    }
+
     public Integer getUpperCount() {
         return upperCount;
     }
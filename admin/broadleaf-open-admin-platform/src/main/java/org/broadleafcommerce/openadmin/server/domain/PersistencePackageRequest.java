@@ -47,6 +47,8 @@ public class PersistencePackageRequest {
     protected Integer maxResults;
     protected Long lastId;
     protected Long firstId;
+    protected String lastSortValue;
+    protected String firstSortValue;
     protected Integer upperCount;
     protected Integer lowerCount;
     protected Integer pageSize;
@@ -268,6 +270,16 @@ public class PersistencePackageRequest {
         return this;
     }
 
+    public PersistencePackageRequest withLastSortValue(String lastSortValue) {
+        setLastSortValue(lastSortValue);
+        return this;
+    }
+
+    public PersistencePackageRequest withFirstSortValue(String firstSortValue) {
+        setFirstSortValue(firstSortValue);
+        return this;
+    }
+
     public PersistencePackageRequest withUpperCount(Integer upperCount) {
         setUpperCount(upperCount);
         return this;
@@ -662,6 +674,34 @@ public class PersistencePackageRequest {
         this.firstId = firstId;
     }
 
+    /**
+     * Intended for usage with other than {@link FetchType#DEFAULT}. Denotes the sort value of the last record of the
+     * previous page of records, used together with {@link #getLastId()} for keyset pagination.
+     *
+     * @return
+     */
+    public String getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(String lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    /**
+     * Intended for usage with other than {@link FetchType#DEFAULT}. Denotes the sort value of the first record of the
+     * previous page of records, used together with {@link #getFirstId()} for keyset pagination.
+     *
+     * @return
+     */
+    public String getFirstSortValue() {
+        return firstSortValue;
+    }
+
+    public void setFirstSortValue(String firstSortValue) {
+        this.firstSortValue = firstSortValue;
+    }
+
     /**
      * Intended for usage with other than {@link FetchType#DEFAULT}. Denotes the cumulative total count of the previous page
      * of records. For example, if this was the second page of records and each page contained 5 records, the upperCount
@@ -335,6 +335,8 @@ public class AdminEntityServiceImpl implements AdminEntityService {
             .withMaxIndex(fetchPageRequest.getMaxIndex())
             .withFirstId(fetchPageRequest.getFirstId())
             .withLastId(fetchPageRequest.getLastId())
+            .withFirstSortValue(fetchPageRequest.getFirstSortValue())
+            .withLastSortValue(fetchPageRequest.getLastSortValue())
             .withLowerCount(fetchPageRequest.getLowerCount())
             .withUpperCount(fetchPageRequest.getUpperCount())
             .withPageSize(fetchPageRequest.getPageSize())
@@ -985,6 +987,8 @@ public class AdminEntityServiceImpl implements AdminEntityService {
 
         cto.setLastId(request.getLastId());
         cto.setFirstId(request.getFirstId());
+        cto.setLastSortValue(request.getLastSortValue());
+        cto.setFirstSortValue(request.getFirstSortValue());
         cto.setUpperCount(request.getUpperCount());
         cto.setLowerCount(request.getLowerCount());
         if (request.getPageSize() != null) {
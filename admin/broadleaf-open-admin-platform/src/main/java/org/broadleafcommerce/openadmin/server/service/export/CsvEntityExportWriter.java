@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * {@link EntityExportWriter} producing RFC 4180 CSV with a header line
+ */
+public class CsvEntityExportWriter implements EntityExportWriter {
+
+    protected final Writer writer;
+
+    public CsvEntityExportWriter(OutputStream out) {
+        this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeHeader(List<String> columns) throws IOException {
+        writeLine(columns);
+    }
+
+    @Override
+    public void writeRow(List<Object> values) throws IOException {
+        writeLine(values);
+    }
+
+    protected void writeLine(List<?> values) throws IOException {
+        for (int j = 0; j < values.size(); j++) {
+            if (j > 0) {
+                writer.write(',');
+            }
+            writeValue(values.get(j));
+        }
+        writer.write("\r\n");
+    }
+
+    protected void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = String.valueOf(value);
+        boolean quote = false;
+        for (int j = 0; j < text.length() && !quote; j++) {
+            char c = text.charAt(j);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (quote) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,46 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the rows of a streaming export (see {@link StreamingEntityExporter}) directly to the underlying stream in a
+ * specific format. Implementations should not hold on to written rows so that exports run in constant memory.
+ */
+public interface EntityExportWriter {
+
+    /**
+     * @param columns the names of the exported columns, in the order the values are passed to {@link #writeRow(List)}
+     */
+    void writeHeader(List<String> columns) throws IOException;
+
+    void writeRow(List<Object> values) throws IOException;
+
+    /**
+     * Pushes buffered output to the underlying stream so that the client keeps receiving data during long exports
+     */
+    void flush() throws IOException;
+
+    /**
+     * Completes the export. The underlying stream is flushed but not closed.
+     */
+    void finish() throws IOException;
+
+}
@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * {@link EntityExportWriter} producing a JSON array with one object per row, keyed by column name
+ */
+public class JsonEntityExportWriter implements EntityExportWriter {
+
+    protected final JsonGenerator generator;
+    protected List<String> columns;
+
+    public JsonEntityExportWriter(OutputStream out) throws IOException {
+        this.generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void writeHeader(List<String> columns) throws IOException {
+        this.columns = columns;
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void writeRow(List<Object> values) throws IOException {
+        generator.writeStartObject();
+        for (int j = 0; j < values.size(); j++) {
+            generator.writeFieldName(columns.get(j));
+            writeValue(values.get(j));
+        }
+        generator.writeEndObject();
+    }
+
+    protected void writeValue(Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else {
+            generator.writeString(String.valueOf(value));
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+}
@@ -0,0 +1,397 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.export;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.BroadleafEnumerationType;
+import org.broadleafcommerce.common.exception.ServiceException;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.persistence.TargetModeType;
+import org.broadleafcommerce.common.presentation.client.OperationType;
+import org.broadleafcommerce.common.presentation.client.VisibilityEnum;
+import org.broadleafcommerce.common.security.service.ExploitProtectionService;
+import org.broadleafcommerce.openadmin.dto.BasicFieldMetadata;
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject;
+import org.broadleafcommerce.openadmin.dto.FieldMetadata;
+import org.broadleafcommerce.openadmin.dto.FilterAndSortCriteria;
+import org.broadleafcommerce.openadmin.dto.PersistencePackage;
+import org.broadleafcommerce.openadmin.dto.Property;
+import org.broadleafcommerce.openadmin.dto.SortDirection;
+import org.broadleafcommerce.openadmin.server.domain.PersistencePackageRequest;
+import org.broadleafcommerce.openadmin.server.factory.PersistencePackageFactory;
+import org.broadleafcommerce.openadmin.server.service.persistence.Persistable;
+import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManagerFactory;
+import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceThreadManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.BasicPersistenceModule;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldManager;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.InspectHelper;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.CriteriaTranslator;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.servlet.ServletOutputStream;
+
+/**
+ * Generic {@link AdminExporter} that streams every entity of a ceiling entity type matching the admin list grid filters
+ * to the response as CSV or JSON. Rather than fetching pages of {@link org.broadleafcommerce.openadmin.dto.Entity} DTOs,
+ * the query built by the {@link CriteriaTranslator} is read through a forward only Hibernate cursor and each row is
+ * written out as soon as it is read. The persistence context is cleared periodically so that memory use stays constant
+ * regardless of the size of the export.
+ * <p>
+ * Request parameters are interpreted the same way as list grid filter parameters (including
+ * {@link FilterAndSortCriteria#SORT_PROPERTY_PARAMETER} and {@link FilterAndSortCriteria#SORT_DIRECTION_PARAMETER}),
+ * so an export contains the same records the admin shows for those filters. Filtering contributed by custom
+ * persistence handlers is not applied, since those handlers fetch through their own code paths.
+ * <p>
+ * Exporters are not provided out of the box, an instance can be registered for any entity in the
+ * <b>blAdminExporters</b> list:
+ * <pre>
+ * {@code
+ * <bean class="org.broadleafcommerce.openadmin.server.service.export.StreamingEntityExporter">
+ *     <property name="name" value="skuCsvExport"/>
+ *     <property name="friendlyName" value="Export SKUs (CSV)"/>
+ *     <property name="ceilingEntity" value="org.broadleafcommerce.core.catalog.domain.Sku"/>
+ *     <property name="fileName" value="skus.csv"/>
+ * </bean>
+ * }
+ * </pre>
+ */
+public class StreamingEntityExporter implements AdminExporter {
+
+    private static final Log LOG = LogFactory.getLog(StreamingEntityExporter.class);
+
+    public static final String CSV_FORMAT = "csv";
+    public static final String JSON_FORMAT = "json";
+
+    @Resource(name = "blPersistencePackageFactory")
+    protected PersistencePackageFactory persistencePackageFactory;
+
+    @Resource(name = "blPersistenceThreadManager")
+    protected PersistenceThreadManager persistenceThreadManager;
+
+    @Resource(name = "blCriteriaTranslator")
+    protected CriteriaTranslator criteriaTranslator;
+
+    @Resource(name = "blExploitProtectionService")
+    protected ExploitProtectionService exploitProtectionService;
+
+    @Value("${admin.export.fetch.size:500}")
+    protected int fetchSize = 500;
+
+    @Value("${admin.export.clear.interval:1000}")
+    protected int clearInterval = 1000;
+
+    protected String name;
+    protected String friendlyName;
+    protected String type;
+    protected String ceilingEntity;
+    protected String fileName;
+    protected String format = CSV_FORMAT;
+    protected List<String> fields;
+    protected List<Property> criteriaFields;
+
+    @Override
+    public void writeExport(final ServletOutputStream out, final Map<String, String> params) throws IOException {
+        final PersistencePackage persistencePackage = persistencePackageFactory.create(PersistencePackageRequest.standard()
+                .withCeilingEntityClassname(ceilingEntity));
+        try {
+            persistenceThreadManager.operation(TargetModeType.SANDBOX, persistencePackage, new Persistable<Void, ServiceException>() {
+                @Override
+                public Void execute() throws ServiceException {
+                    try {
+                        export(out, persistencePackage, params);
+                    } catch (IOException e) {
+                        throw new ServiceException("Unable to write the export for " + ceilingEntity, e);
+                    }
+                    return null;
+                }
+            });
+        } catch (ServiceException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to export " + ceilingEntity, e);
+        }
+    }
+
+    protected void export(OutputStream out, PersistencePackage persistencePackage, Map<String, String> params)
+            throws ServiceException, IOException {
+        PersistenceManager persistenceManager = PersistenceManagerFactory.getPersistenceManager();
+        BasicPersistenceModule basicPersistenceModule = (BasicPersistenceModule) ((InspectHelper) persistenceManager)
+                .getCompatibleModule(OperationType.BASIC);
+        CriteriaTransferObject cto = buildCriteriaTransferObject(params);
+        Map<String, FieldMetadata> mergedProperties = basicPersistenceModule.getMergedProperties(persistencePackage, cto);
+        List<FilterMapping> filterMappings = new ArrayList<FilterMapping>(basicPersistenceModule.getFilterMappings(
+                persistencePackage.getPersistencePerspective(), cto, persistencePackage.getFetchTypeFullyQualifiedClassname(),
+                mergedProperties));
+        if (CollectionUtils.isNotEmpty(cto.getAdditionalFilterMappings())) {
+            filterMappings.addAll(cto.getAdditionalFilterMappings());
+        }
+        if (CollectionUtils.isNotEmpty(cto.getNonCountAdditionalFilterMappings())) {
+            filterMappings.addAll(cto.getNonCountAdditionalFilterMappings());
+        }
+        List<String> columns = getExportFields(mergedProperties);
+
+        TypedQuery<Serializable> query = criteriaTranslator.translateQuery(persistenceManager.getDynamicEntityDao(),
+                persistencePackage.getFetchTypeFullyQualifiedClassname(), filterMappings, null, null);
+        EntityManager entityManager = persistenceManager.getDynamicEntityDao().getStandardEntityManager();
+        FieldManager fieldManager = persistenceManager.getDynamicEntityDao().getFieldManager();
+        EntityExportWriter writer = createWriter(out);
+        writer.writeHeader(columns);
+
+        long count;
+        ScrollableResults results = scroll(query);
+        try {
+            count = writeRows(results, columns, fieldManager, entityManager, writer);
+        } finally {
+            results.close();
+        }
+        writer.finish();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Exported " + count + " records of " + ceilingEntity + " using exporter " + name);
+        }
+    }
+
+    /**
+     * Writes a row for every result of the cursor, clearing the persistence context and flushing the writer every
+     * {@link #clearInterval} rows
+     *
+     * @return the number of rows written
+     */
+    protected long writeRows(ScrollableResults results, List<String> columns, FieldManager fieldManager,
+            EntityManager entityManager, EntityExportWriter writer) throws IOException {
+        long count = 0;
+        while (results.next()) {
+            Object row = results.get(0);
+            List<Object> values = new ArrayList<Object>(columns.size());
+            for (String column : columns) {
+                values.add(getExportValue(fieldManager, row, column));
+            }
+            writer.writeRow(values);
+            if (++count % clearInterval == 0) {
+                // the cursor does not need the managed instances, so release them along with their lazy associations
+                entityManager.clear();
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    protected ScrollableResults scroll(TypedQuery<Serializable> query) {
+        Query<?> hibernateQuery = query.unwrap(Query.class);
+        hibernateQuery.setFetchSize(fetchSize);
+        hibernateQuery.setReadOnly(true);
+        hibernateQuery.setCacheMode(CacheMode.IGNORE);
+        return hibernateQuery.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    protected EntityExportWriter createWriter(OutputStream out) throws IOException {
+        if (JSON_FORMAT.equalsIgnoreCase(format)) {
+            return new JsonEntityExportWriter(out);
+        }
+        return new CsvEntityExportWriter(out);
+    }
+
+    /**
+     * Converts the request parameters into criteria the same way the admin list grid does for its filter parameters
+     */
+    protected CriteriaTransferObject buildCriteriaTransferObject(Map<String, String> params) throws ServiceException {
+        CriteriaTransferObject cto = new CriteriaTransferObject();
+        if (params == null) {
+            return cto;
+        }
+        String sortProperty = params.get(FilterAndSortCriteria.SORT_PROPERTY_PARAMETER);
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (StringUtils.isEmpty(entry.getValue()) || isReservedParameter(entry.getKey())) {
+                continue;
+            }
+            String value = exploitProtectionService.cleanString(entry.getValue()).replace("%", "\\%");
+            List<String> values = new ArrayList<String>();
+            Collections.addAll(values, value.split("\\|"));
+            cto.add(new FilterAndSortCriteria(entry.getKey(), values, Integer.MIN_VALUE));
+        }
+        if (StringUtils.isNotEmpty(sortProperty)) {
+            FilterAndSortCriteria sortCriteria = cto.get(sortProperty);
+            sortCriteria.setOrder(Integer.MIN_VALUE);
+            sortCriteria.setSortAscending(!SortDirection.DESCENDING.toString().equals(
+                    params.get(FilterAndSortCriteria.SORT_DIRECTION_PARAMETER)));
+        }
+        return cto;
+    }
+
+    protected boolean isReservedParameter(String parameter) {
+        return "exporter".equals(parameter)
+                || FilterAndSortCriteria.SORT_PROPERTY_PARAMETER.equals(parameter)
+                || FilterAndSortCriteria.SORT_DIRECTION_PARAMETER.equals(parameter)
+                || FilterAndSortCriteria.START_INDEX_PARAMETER.equals(parameter)
+                || FilterAndSortCriteria.MAX_INDEX_PARAMETER.equals(parameter);
+    }
+
+    /**
+     * @return the configured {@link #setFields(List) fields}, or otherwise the fields shown in the admin list grid for
+     * the entity, in grid order
+     */
+    protected List<String> getExportFields(final Map<String, FieldMetadata> mergedProperties) {
+        if (CollectionUtils.isNotEmpty(fields)) {
+            return fields;
+        }
+        List<String> gridFields = new ArrayList<String>();
+        for (Map.Entry<String, FieldMetadata> entry : mergedProperties.entrySet()) {
+            if (entry.getValue() instanceof BasicFieldMetadata) {
+                BasicFieldMetadata metadata = (BasicFieldMetadata) entry.getValue();
+                if (Boolean.TRUE.equals(metadata.isProminent()) && !Boolean.TRUE.equals(metadata.getExcluded())
+                        && metadata.getVisibility() != VisibilityEnum.HIDDEN_ALL
+                        && metadata.getVisibility() != VisibilityEnum.GRID_HIDDEN) {
+                    gridFields.add(entry.getKey());
+                }
+            }
+        }
+        Collections.sort(gridFields, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                Integer order1 = ((BasicFieldMetadata) mergedProperties.get(o1)).getGridOrder();
+                Integer order2 = ((BasicFieldMetadata) mergedProperties.get(o2)).getGridOrder();
+                return Integer.compare(order1 == null ? Integer.MAX_VALUE : order1, order2 == null ? Integer.MAX_VALUE : order2);
+            }
+        });
+        return gridFields;
+    }
+
+    protected Object getExportValue(FieldManager fieldManager, Object row, String field) {
+        Object value;
+        try {
+            value = fieldManager.getFieldValue(row, field);
+        } catch (Exception e) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Unable to read " + field + " from " + row.getClass().getName(), e);
+            }
+            return null;
+        }
+        if (value instanceof Money) {
+            return ((Money) value).getAmount();
+        }
+        if (value instanceof BroadleafEnumerationType) {
+            return ((BroadleafEnumerationType) value).getType();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().toString();
+        }
+        return value;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getFriendlyName() {
+        return friendlyName;
+    }
+
+    public void setFriendlyName(String friendlyName) {
+        this.friendlyName = friendlyName;
+    }
+
+    @Override
+    public List<Property> getCriteriaFields() {
+        return criteriaFields;
+    }
+
+    public void setCriteriaFields(List<Property> criteriaFields) {
+        this.criteriaFields = criteriaFields;
+    }
+
+    /**
+     * @return the configured type, or the ceiling entity if none was set
+     */
+    @Override
+    public String getType() {
+        return type == null ? ceilingEntity : type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getCeilingEntity() {
+        return ceilingEntity;
+    }
+
+    public void setCeilingEntity(String ceilingEntity) {
+        this.ceilingEntity = ceilingEntity;
+    }
+
+    @Override
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * @param format either {@link #CSV_FORMAT} (the default) or {@link #JSON_FORMAT}
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * @param fields the property paths to export, e.g. <i>name</i> or <i>defaultSku.retailPrice</i>. When not set, the
+     * list grid fields of the entity are exported.
+     */
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+
+}
@@ -60,7 +60,9 @@ import org.broadleafcommerce.openadmin.server.service.handler.CustomPersistenceH
 import org.broadleafcommerce.openadmin.server.service.handler.CustomPersistenceHandlerFilter;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.InspectHelper;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.PersistenceModule;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordCountStrategyManager;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordHelper;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition;
 import org.broadleafcommerce.openadmin.server.service.type.ChangeType;
 import org.broadleafcommerce.openadmin.web.form.entity.DynamicEntityFormInfo;
 import org.springframework.beans.BeansException;
@@ -115,6 +117,9 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
     @Resource(name = "blEntityParentIdServiceExtensionManager")
     protected EntityParentIdServiceExtensionManager extensionManager;
 
+    @Resource(name = "blRecordCountStrategyManager")
+    protected RecordCountStrategyManager recordCountStrategyManager;
+
     @Autowired(required = false)
     protected FetchTypeDetection fetchDetection = null;
 
@@ -353,7 +358,13 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
         }
         //support legacy api
         persistenceResponse.setDynamicResultSet(postFetch(persistenceResponse.getDynamicResultSet(), persistencePackage, cto));
-        persistenceResponse.getDynamicResultSet().setStartIndex(cto.getFirstResult());
+        SeekPosition seekPosition = SeekPosition.fromCriteria(cto);
+        if (seekPosition != null && seekPosition.getFallbackFirstResult() != null) {
+            // the first result of a request paging from a previous page is the start index of that page
+            persistenceResponse.getDynamicResultSet().setStartIndex(seekPosition.getFallbackFirstResult());
+        } else {
+            persistenceResponse.getDynamicResultSet().setStartIndex(cto.getFirstResult());
+        }
         persistenceResponse.getDynamicResultSet().setPageSize(cto.getMaxResults());
         Integer upperCount;
         Integer lowerCount;
@@ -595,6 +606,7 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
 
     protected PersistenceResponse executePostAddHandlers(PersistencePackage persistencePackage, PersistenceResponse persistenceResponse) throws ServiceException {
         dynamicEntityDao.flush();
+        recordCountStrategyManager.invalidate(persistencePackage.getCeilingEntityFullyQualifiedClassname());
         setMainEntityName(persistencePackage, persistenceResponse.getEntity());
         for (PersistenceManagerEventHandler handler : persistenceManagerEventHandlers) {
             PersistenceManagerEventHandlerResponse response = handler.postAdd(this, persistenceResponse.getEntity(), persistencePackage);
@@ -761,6 +773,7 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
 
     protected PersistenceResponse executePostUpdateHandlers(PersistencePackage persistencePackage, PersistenceResponse persistenceResponse) throws ServiceException {
         dynamicEntityDao.flush();
+        recordCountStrategyManager.invalidate(persistencePackage.getCeilingEntityFullyQualifiedClassname());
         setMainEntityName(persistencePackage, persistenceResponse.getEntity());
         for (PersistenceManagerEventHandler handler : persistenceManagerEventHandlers) {
             PersistenceManagerEventHandlerResponse response = handler.postUpdate(this, persistenceResponse.getEntity(), persistencePackage);
@@ -827,6 +840,7 @@ public class PersistenceManagerImpl implements InspectHelper, PersistenceManager
 
     protected PersistenceResponse executePostRemoveHandlers(PersistencePackage persistencePackage, PersistenceResponse persistenceResponse) throws ServiceException {
         dynamicEntityDao.flush();
+        recordCountStrategyManager.invalidate(persistencePackage.getCeilingEntityFullyQualifiedClassname());
         setMainEntityName(persistencePackage, persistenceResponse.getEntity());
         for (PersistenceManagerEventHandler handler : persistenceManagerEventHandlers) {
             PersistenceManagerEventHandlerResponse response = handler.postRemove(this, persistencePackage);
@@ -73,6 +73,7 @@ import org.broadleafcommerce.openadmin.server.service.persistence.module.criteri
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.Restriction;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.RestrictionFactory;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.converter.FilterValueConverter;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.EqPredicateProvider;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.LikePredicateProvider;
@@ -87,6 +88,7 @@ import org.broadleafcommerce.openadmin.server.service.persistence.validation.Ent
 import org.broadleafcommerce.openadmin.server.service.persistence.validation.PopulateValueRequestValidator;
 import org.broadleafcommerce.openadmin.server.service.persistence.validation.PropertyValidationResult;
 import org.broadleafcommerce.openadmin.server.service.persistence.validation.RequiredPropertyValidator;
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType;
 import org.broadleafcommerce.openadmin.server.service.type.MetadataProviderResponse;
 import org.hibernate.FlushMode;
 import org.hibernate.Session;
@@ -175,6 +177,9 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
     @Resource(name = "blFetchWrapper")
     protected FetchWrapper fetchWrapper;
 
+    @Resource(name = "blRecordCountStrategyManager")
+    protected RecordCountStrategyManager recordCountStrategyManager;
+
     @Value("${use.translation.search:false}")
     protected boolean useTranslationSearch;
 
@@ -1250,6 +1255,9 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
     public DynamicResultSet fetch(PersistencePackage persistencePackage, CriteriaTransferObject cto) throws ServiceException {
         Entity[] payload;
         int totalRecords;
+        CountStrategyType countStrategyType;
+        String firstSortValue = null;
+        String lastSortValue = null;
         PersistencePerspective persistencePerspective = persistencePackage.getPersistencePerspective();
         String ceilingEntityFullyQualifiedClassname = persistencePackage.getCeilingEntityFullyQualifiedClassname();
         ForeignKey foreignKey = (ForeignKey) persistencePerspective.getPersistencePerspectiveItems().get(PersistencePerspectiveItemType.FOREIGNKEY);
@@ -1276,7 +1284,8 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
 
             FetchRequest fetchRequest = new FetchRequest(persistencePackage, cto,
                     persistencePackage.getFetchTypeFullyQualifiedClassname(), standardFilterMappings);
-            List<Serializable> records = getPersistentRecords(fetchRequest);
+            countStrategyType = recordCountStrategyManager.getCountStrategyType(fetchRequest);
+            List<Serializable> records = getPersistentRecords(fetchRequest, countStrategyType);
 
             List<FilterMapping> countFilterMappings = new ArrayList<FilterMapping>(filterMappings);
             if (CollectionUtils.isNotEmpty(cto.getAdditionalFilterMappings())) {
@@ -1284,7 +1293,13 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
             }
             FetchRequest countFetchRequest = new FetchRequest(persistencePackage, cto,
                     persistencePackage.getFetchTypeFullyQualifiedClassname(), countFilterMappings);
-            totalRecords = getTotalRecords(countFetchRequest);
+            totalRecords = getTotalRecords(countFetchRequest, records, countStrategyType);
+            records = trimLookAheadRecord(records, fetchRequest, countStrategyType);
+
+            if (!records.isEmpty()) {
+                firstSortValue = getSeekSortValue(standardFilterMappings, records.get(0));
+                lastSortValue = getSeekSortValue(standardFilterMappings, records.get(records.size() - 1));
+            }
 
             FetchExtractionRequest fetchExtractionRequest = new FetchExtractionRequest(persistencePackage, cto,
                     persistencePackage.getFetchTypeFullyQualifiedClassname(), mergedProperties, records);
@@ -1293,7 +1308,105 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
             throw new ServiceException("Unable to fetch results for " + ceilingEntityFullyQualifiedClassname, e);
         }
 
-        return new DynamicResultSet(null, payload, totalRecords);
+        DynamicResultSet dynamicResultSet = new DynamicResultSet(null, payload, totalRecords);
+        dynamicResultSet.setTotalRecordsEstimated(countStrategyType == CountStrategyType.HAS_MORE);
+        dynamicResultSet.setFirstSortValue(firstSortValue);
+        dynamicResultSet.setLastSortValue(lastSortValue);
+        return dynamicResultSet;
+    }
+
+    /**
+     * Retrieve the value of the sort property of the record in the form expected by {@link SeekPosition}, so that the
+     * next or previous page can be sought from this record. Only a single sort on a property of the record itself
+     * qualifies.
+     *
+     * @param filterMappings
+     * @param record
+     * @return the formatted sort value, or null if the sort does not qualify
+     */
+    protected String getSeekSortValue(List<FilterMapping> filterMappings, Serializable record) {
+        String sortProperty = null;
+        for (FilterMapping filterMapping : filterMappings) {
+            if (filterMapping.getSortDirection() != null) {
+                if (sortProperty != null) {
+                    return null;
+                }
+                sortProperty = filterMapping.getFullPropertyName();
+            }
+        }
+        if (StringUtils.isEmpty(sortProperty) || sortProperty.contains(".")) {
+            return null;
+        }
+        try {
+            return SeekPosition.formatSortValue(getFieldManager().getFieldValue(record, sortProperty));
+        } catch (IllegalAccessException | FieldNotAvailableException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieve the persistent records for the page. For {@link CountStrategyType#HAS_MORE}, one record beyond the page
+     * size is fetched to find out whether another page exists without counting. The {@link SeekPosition} of the fetch
+     * request is built beforehand, so that it reflects the page size that was actually requested.
+     *
+     * @param fetchRequest
+     * @param countStrategyType
+     * @return
+     */
+    protected List<Serializable> getPersistentRecords(FetchRequest fetchRequest, CountStrategyType countStrategyType) {
+        CriteriaTransferObject cto = fetchRequest.getCto();
+        if (fetchRequest.getSeekPosition() == null) {
+            fetchRequest.setSeekPosition(SeekPosition.fromCriteria(cto));
+        }
+        if (countStrategyType != CountStrategyType.HAS_MORE || cto.getMaxResults() == null) {
+            return getPersistentRecords(fetchRequest);
+        }
+        Integer maxResults = cto.getMaxResults();
+        cto.setMaxResults(maxResults + 1);
+        try {
+            return getPersistentRecords(fetchRequest);
+        } finally {
+            cto.setMaxResults(maxResults);
+        }
+    }
+
+    /**
+     * Remove the look ahead record fetched by {@link #getPersistentRecords(FetchRequest, CountStrategyType)}, if any. A
+     * page sought backward was queried in reverse and has already been put back in the regular order, so its look ahead
+     * record is the first one.
+     *
+     * @param records
+     * @param fetchRequest
+     * @param countStrategyType
+     * @return the records of the requested page
+     */
+    protected List<Serializable> trimLookAheadRecord(List<Serializable> records, FetchRequest fetchRequest, CountStrategyType countStrategyType) {
+        Integer maxResults = fetchRequest.getCto().getMaxResults();
+        if (countStrategyType != CountStrategyType.HAS_MORE || maxResults == null || records.size() <= maxResults) {
+            return records;
+        }
+        SeekPosition seekPosition = fetchRequest.getSeekPosition();
+        if (seekPosition != null && seekPosition.isApplied() && seekPosition.isBackward()) {
+            return new ArrayList<Serializable>(records.subList(records.size() - maxResults, records.size()));
+        }
+        return new ArrayList<Serializable>(records.subList(0, maxResults));
+    }
+
+    /**
+     * Retrieve the total record count for the fetch using the {@link RecordCountStrategy} registered for the count
+     * strategy type. Strategies run count queries through {@link #getTotalRecords(FetchRequest)}.
+     *
+     * @param countFetchRequest
+     * @param pageRecords the persistent records retrieved for the requested page
+     * @param countStrategyType
+     * @return
+     */
+    protected Integer getTotalRecords(FetchRequest countFetchRequest, List<Serializable> pageRecords, CountStrategyType countStrategyType) {
+        RecordCountStrategy strategy = recordCountStrategyManager.getStrategy(countStrategyType);
+        if (strategy == null) {
+            return getTotalRecords(countFetchRequest);
+        }
+        return strategy.getTotalRecords(this, countFetchRequest, pageRecords);
     }
 
     private void addTranslationSearchIfNeeded(CriteriaTransferObject cto, Map<String, FieldMetadata> mergedProperties) {
@@ -1435,8 +1548,29 @@ public class BasicPersistenceModule implements PersistenceModule, RecordHelper,
 
     @Override
     public List<Serializable> getPersistentRecords(String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults) {
+        return getPersistentRecords(ceilingEntity, filterMappings, firstResult, maxResults, null);
+    }
+
+    /**
+     * Retrieve the records, seeking from the boundary of the previous page when a {@link SeekPosition} is given and the
+     * sort allows it. Records sought backward are returned in the regular sort order.
+     *
+     * @param ceilingEntity
+     * @param filterMappings
+     * @param firstResult
+     * @param maxResults
+     * @param seekPosition the boundary of the previous page, or null for offset paging
+     * @return
+     */
+    public List<Serializable> getPersistentRecords(String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults, SeekPosition seekPosition) {
         try {
-            return criteriaTranslator.translateQuery(persistenceManager.getDynamicEntityDao(), ceilingEntity, filterMappings, firstResult, maxResults).getResultList();
+            List<Serializable> records = criteriaTranslator.translateQuery(persistenceManager.getDynamicEntityDao(),
+                    ceilingEntity, filterMappings, firstResult, maxResults, seekPosition).getResultList();
+            if (seekPosition != null && seekPosition.isApplied() && seekPosition.isBackward()) {
+                records = new ArrayList<Serializable>(records);
+                Collections.reverse(records);
+            }
+            return records;
         } catch (CriteriaConversionException e) {
             TypedQueryBuilder builder = getSpecialCaseQueryBuilder(e.getFieldPath(), filterMappings, ceilingEntity);
             return builder.toQuery(getPersistenceManager().getDynamicEntityDao().getStandardEntityManager()).getResultList();
@@ -0,0 +1,258 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.broadleafcommerce.common.cache.SnapshotCache;
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject;
+import org.broadleafcommerce.openadmin.server.security.domain.AdminUser;
+import org.broadleafcommerce.openadmin.server.security.remote.SecurityVerifier;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FieldPath;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.PredicateProvider;
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+/**
+ * {@link RecordCountStrategy} that remembers the result of the count query for a period of time. Counts are keyed by the
+ * ceiling entity, the request context that influences the query (site, catalog, sandbox and the admin user for row level
+ * security) and the normalized filter restrictions. Sorting does not change a count, so it is not part of the key.
+ * </p>
+ * Restrictions that cannot be described reliably, such as values that are entities or predicate providers declared as
+ * anonymous classes that capture state, fall back to an exact count. The counts of each ceiling entity are kept in their
+ * own {@link SnapshotCache}, which is cleared on every node through {@link SnapshotCacheManager#publishInvalidation(String,
+ * java.util.Collection)} whenever one of its records is added, updated or removed through the admin.
+ * </p>
+ * Since entities opt in to this strategy, the count query is also skipped when a short page already proves the total.
+ */
+@Component("blCachedRecordCountStrategy")
+public class CachedRecordCountStrategy implements RecordCountStrategy {
+
+    public static final String CACHE_NAME_PREFIX = "blAdminRecordCounts:";
+
+    @Resource(name = "blAdminSecurityRemoteService")
+    protected SecurityVerifier adminSecurityService;
+
+    @Resource(name = "blSnapshotCacheManager")
+    protected SnapshotCacheManager snapshotCacheManager;
+
+    @Value("${admin.list.count.cache.ttl.seconds:60}")
+    protected long ttlSeconds = 60;
+
+    @Value("${admin.list.count.cache.max.entries:1000}")
+    protected int maxEntries = 1000;
+
+    @Override
+    public CountStrategyType getType() {
+        return CountStrategyType.CACHED;
+    }
+
+    @Override
+    public Integer getTotalRecords(RecordHelper recordHelper, FetchRequest countFetchRequest, List<Serializable> pageRecords) {
+        Integer knownTotal = getKnownTotal(countFetchRequest, pageRecords);
+        if (knownTotal != null) {
+            return knownTotal;
+        }
+        String cacheKey = buildCacheKey(countFetchRequest);
+        if (cacheKey == null || ttlSeconds <= 0) {
+            return recordHelper.getTotalRecords(countFetchRequest);
+        }
+        SnapshotCache<String, Integer> counts = getCounts(getCacheRegion(countFetchRequest));
+        long generation = counts.getGeneration();
+        Integer totalRecords = counts.get(cacheKey);
+        if (totalRecords == null) {
+            totalRecords = recordHelper.getTotalRecords(countFetchRequest);
+            counts.put(cacheKey, totalRecords, generation, System.currentTimeMillis() + ttlSeconds * 1000L);
+        }
+        return totalRecords;
+    }
+
+    @Override
+    public void invalidate(String ceilingEntity) {
+        if (ceilingEntity != null) {
+            snapshotCacheManager.publishInvalidation(CACHE_NAME_PREFIX + ceilingEntity, null);
+        }
+    }
+
+    /**
+     * The snapshot holding the counts of the cache region. A count that misses an invalidation is not served beyond the
+     * time to live.
+     *
+     * @param region
+     * @return
+     */
+    protected SnapshotCache<String, Integer> getCounts(String region) {
+        return snapshotCacheManager.getCache(CACHE_NAME_PREFIX + region, maxEntries, ttlSeconds * 1000L);
+    }
+
+    /**
+     * Determine the total from the page records alone. This is only possible when the page was not filled, and when the
+     * page was fetched with the same restrictions as the count (no non-count filter mappings). A page past the end of
+     * the results does not tell where the results end, so an empty page is only conclusive for the first page. Pages
+     * sought from the previous page (first or last id) have no known offset.
+     *
+     * @param countFetchRequest
+     * @param pageRecords
+     * @return the total, or null if a count query is required
+     */
+    protected Integer getKnownTotal(FetchRequest countFetchRequest, List<Serializable> pageRecords) {
+        CriteriaTransferObject cto = countFetchRequest.getCto();
+        if (pageRecords == null || cto == null || CollectionUtils.isNotEmpty(cto.getNonCountAdditionalFilterMappings())
+                || cto.getFirstId() != null || cto.getLastId() != null) {
+            return null;
+        }
+        int firstResult = cto.getFirstResult() == null ? 0 : cto.getFirstResult();
+        if (pageRecords.isEmpty() && firstResult > 0) {
+            return null;
+        }
+        if (cto.getMaxResults() == null || pageRecords.size() < cto.getMaxResults()) {
+            return firstResult + pageRecords.size();
+        }
+        return null;
+    }
+
+    /**
+     * Counts are grouped by the ceiling entity of the persistence package so that they can be invalidated when an entity
+     * of that type is saved.
+     *
+     * @param countFetchRequest
+     * @return
+     */
+    protected String getCacheRegion(FetchRequest countFetchRequest) {
+        if (countFetchRequest.getPersistencePackage() != null
+                && countFetchRequest.getPersistencePackage().getCeilingEntityFullyQualifiedClassname() != null) {
+            return countFetchRequest.getPersistencePackage().getCeilingEntityFullyQualifiedClassname();
+        }
+        return countFetchRequest.getCeilingEntity();
+    }
+
+    /**
+     * Build the key identifying the count query, or null if the count cannot be cached
+     *
+     * @param countFetchRequest
+     * @return
+     */
+    protected String buildCacheKey(FetchRequest countFetchRequest) {
+        List<String> restrictions = new ArrayList<String>();
+        if (countFetchRequest.getFilterMappings() != null) {
+            for (FilterMapping filterMapping : countFetchRequest.getFilterMappings()) {
+                List values = getRestrictionValues(filterMapping);
+                if (values == null) {
+                    continue;
+                }
+                if (!isCacheable(filterMapping, values)) {
+                    return null;
+                }
+                restrictions.add(normalize(filterMapping, values));
+            }
+        }
+        Collections.sort(restrictions);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(countFetchRequest.getCeilingEntity());
+        appendContext(sb);
+        for (String restriction : restrictions) {
+            sb.append('|').append(restriction);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append the parts of the request context that influence the count query
+     *
+     * @param sb
+     */
+    protected void appendContext(StringBuilder sb) {
+        BroadleafRequestContext context = BroadleafRequestContext.getBroadleafRequestContext();
+        if (context != null) {
+            sb.append("|site=").append(context.getNonPersistentSite() == null ? null : context.getNonPersistentSite().getId());
+            sb.append("|catalog=").append(context.getCurrentCatalog() == null ? null : context.getCurrentCatalog().getId());
+            sb.append("|sandbox=").append(context.getSandBoxId());
+        }
+        AdminUser adminUser = adminSecurityService.getPersistentAdminUser();
+        sb.append("|user=").append(adminUser == null ? null : adminUser.getId());
+    }
+
+    /**
+     * The values the criteria translator restricts on for this mapping, or null if the mapping only sorts
+     *
+     * @param filterMapping
+     * @return
+     */
+    protected List getRestrictionValues(FilterMapping filterMapping) {
+        if (filterMapping.getRestriction() == null) {
+            return null;
+        }
+        if (CollectionUtils.isNotEmpty(filterMapping.getFilterValues())) {
+            return filterMapping.getFilterValues();
+        }
+        if (CollectionUtils.isNotEmpty(filterMapping.getDirectFilterValues())
+                || filterMapping.getDirectFilterValues() instanceof EmptyFilterValues) {
+            return filterMapping.getDirectFilterValues();
+        }
+        return null;
+    }
+
+    protected boolean isCacheable(FilterMapping filterMapping, List values) {
+        PredicateProvider predicateProvider = filterMapping.getRestriction().getPredicateProvider();
+        if (predicateProvider != null) {
+            Class<?> providerClass = predicateProvider.getClass();
+            if (providerClass.isAnonymousClass() || providerClass.isLocalClass() || providerClass.isSynthetic()) {
+                return false;
+            }
+        }
+        for (Object value : values) {
+            if (value != null && !(value instanceof String || value instanceof Number || value instanceof Boolean
+                    || value instanceof Character || value instanceof Enum || value instanceof Date)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected String normalize(FilterMapping filterMapping, List values) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(filterMapping.getFullPropertyName());
+        FieldPath fieldPath = filterMapping.getFieldPath();
+        if (fieldPath != null) {
+            sb.append(':').append(StringUtils.join(fieldPath.getAssociationPath(), '.'));
+            sb.append(':').append(fieldPath.getTargetProperty());
+        }
+        PredicateProvider predicateProvider = filterMapping.getRestriction().getPredicateProvider();
+        sb.append(':').append(predicateProvider == null ? null : predicateProvider.getClass().getName());
+        sb.append(':').append(values instanceof EmptyFilterValues ? "empty" : "");
+        sb.append('=');
+        for (Object value : values) {
+            sb.append(value instanceof Date ? ((Date) value).getTime() : value).append(',');
+        }
+        return sb.toString();
+    }
+
+}
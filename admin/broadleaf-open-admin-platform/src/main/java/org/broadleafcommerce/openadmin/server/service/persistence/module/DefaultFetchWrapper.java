@@ -21,6 +21,7 @@ import org.broadleafcommerce.common.presentation.client.OperationType;
 import org.broadleafcommerce.openadmin.dto.Entity;
 import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManager;
 import org.broadleafcommerce.openadmin.server.service.persistence.PersistenceManagerFactory;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
@@ -36,8 +37,13 @@ public class DefaultFetchWrapper implements FetchWrapper {
 
     @Override
     public List<Serializable> getPersistentRecords(FetchRequest fetchRequest) {
+        SeekPosition seekPosition = fetchRequest.getSeekPosition();
+        if (seekPosition == null) {
+            seekPosition = SeekPosition.fromCriteria(fetchRequest.getCto());
+        }
         return getBasicPersistenceModule().getPersistentRecords(fetchRequest.getCeilingEntity(),
-                            fetchRequest.getFilterMappings(), fetchRequest.getCto().getFirstResult(), fetchRequest.getCto().getMaxResults());
+                            fetchRequest.getFilterMappings(), fetchRequest.getCto().getFirstResult(), fetchRequest.getCto().getMaxResults(),
+                            seekPosition);
     }
 
     @Override
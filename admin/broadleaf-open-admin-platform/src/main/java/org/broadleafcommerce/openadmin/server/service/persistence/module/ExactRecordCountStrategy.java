@@ -0,0 +1,48 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Default {@link RecordCountStrategy} that runs the count query of the fetching module for every fetch, exactly as the
+ * module would without a strategy.
+ */
+@Component("blExactRecordCountStrategy")
+public class ExactRecordCountStrategy implements RecordCountStrategy {
+
+    @Override
+    public CountStrategyType getType() {
+        return CountStrategyType.EXACT;
+    }
+
+    @Override
+    public Integer getTotalRecords(RecordHelper recordHelper, FetchRequest countFetchRequest, List<Serializable> pageRecords) {
+        return recordHelper.getTotalRecords(countFetchRequest);
+    }
+
+    @Override
+    public void invalidate(String ceilingEntity) {
+        //nothing retained
+    }
+
+}
@@ -21,6 +21,7 @@ import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject;
 import org.broadleafcommerce.openadmin.dto.FieldMetadata;
 import org.broadleafcommerce.openadmin.dto.PersistencePackage;
 import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition;
 
 import java.util.List;
 import java.util.Map;
@@ -36,6 +37,7 @@ public class FetchRequest {
     protected CriteriaTransferObject cto;
     protected String ceilingEntity;
     protected List<FilterMapping> filterMappings;
+    protected SeekPosition seekPosition;
 
     public FetchRequest(PersistencePackage persistencePackage,
                         CriteriaTransferObject cto,
@@ -99,4 +101,18 @@ public class FetchRequest {
         this.filterMappings = filterMappings;
     }
 
+    /**
+     * The boundary of the previous page to seek from, built for the requested page size before any look ahead record
+     * is added to the max results. Null if the records are paged with an offset.
+     *
+     * @return
+     */
+    public SeekPosition getSeekPosition() {
+        return seekPosition;
+    }
+
+    public void setSeekPosition(SeekPosition seekPosition) {
+        this.seekPosition = seekPosition;
+    }
+
 }
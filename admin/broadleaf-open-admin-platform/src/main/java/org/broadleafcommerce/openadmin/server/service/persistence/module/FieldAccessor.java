@@ -0,0 +1,140 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.broadleafcommerce.common.util.BLCFieldUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes a single field through method handles that are resolved once per (class, field name) and cached,
+ * instead of looking up the {@link Field} and going through reflective access on every call. {@link FieldManager} walks
+ * property paths one accessor at a time, since the class of each step is only known at runtime.
+ * <p>
+ * The cache is cleared together with the admin metadata cache (see
+ * {@link org.broadleafcommerce.openadmin.server.dao.DynamicEntityDaoImpl#useCache()}).
+ *
+ * @see FieldManager
+ */
+public class FieldAccessor {
+
+    protected static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    protected static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    protected static final Object NO_FIELD = new Object();
+    protected static final Map<Class<?>, Map<String, Object>> ACCESSOR_CACHE = new ConcurrentHashMap<>();
+
+    protected final Field field;
+    protected final MethodHandle getter;
+    protected volatile MethodHandle setter;
+
+    protected FieldAccessor(Field field) throws IllegalAccessException {
+        field.setAccessible(true);
+        this.field = field;
+        this.getter = adapt(MethodHandles.lookup().unreflectGetter(field), GETTER_TYPE);
+    }
+
+    /**
+     * Adapts a field handle to the Object typed signature used with invokeExact. The handle of a static field does not
+     * take the bean, so, as with reflective access, the bean argument is accepted and ignored.
+     */
+    protected MethodHandle adapt(MethodHandle handle, MethodType type) {
+        if (Modifier.isStatic(field.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    /**
+     * @return the accessor for the field with the given name declared on the class or one of its superclasses, or null
+     * if there is no such field
+     */
+    public static FieldAccessor forField(Class<?> clazz, String fieldName) {
+        Map<String, Object> accessors = ACCESSOR_CACHE.get(clazz);
+        if (accessors == null) {
+            accessors = ACCESSOR_CACHE.computeIfAbsent(clazz, k -> new ConcurrentHashMap<>());
+        }
+        Object accessor = accessors.get(fieldName);
+        if (accessor == null) {
+            accessor = createAccessor(clazz, fieldName);
+            accessors.put(fieldName, accessor);
+        }
+        return accessor == NO_FIELD ? null : (FieldAccessor) accessor;
+    }
+
+    public static void clearCache() {
+        ACCESSOR_CACHE.clear();
+    }
+
+    protected static Object createAccessor(Class<?> clazz, String fieldName) {
+        Field field = BLCFieldUtils.getSingleField(clazz, fieldName);
+        if (field == null) {
+            return NO_FIELD;
+        }
+        try {
+            return new FieldAccessor(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access field (" + fieldName + ") on the class (" + clazz + ")", e);
+        }
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Object get(Object bean) {
+        try {
+            return (Object) getter.invokeExact(bean);
+        } catch (ClassCastException e) {
+            // Keep the exception that reflective access throws for a bean of the wrong type
+            throw new IllegalArgumentException("Unable to read field (" + field.getName() + ")", e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to read field (" + field.getName() + ")", t);
+        }
+    }
+
+    public void set(Object bean, Object value) throws IllegalAccessException {
+        MethodHandle handle = setter;
+        if (handle == null) {
+            // Only resolved on first use, since most fields are only ever read
+            handle = adapt(MethodHandles.lookup().unreflectSetter(field), SETTER_TYPE);
+            setter = handle;
+        }
+        if (value == null && field.getType().isPrimitive()) {
+            // Unboxing would fail with a NullPointerException, reflective access rejects the value instead
+            throw new IllegalArgumentException("Unable to write null to the primitive field (" + field.getName() + ")");
+        }
+        try {
+            handle.invokeExact(bean, value);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Unable to write field (" + field.getName() + ")", e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to write field (" + field.getName() + ")", t);
+        }
+    }
+
+}
@@ -40,7 +40,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.metamodel.EntityType;
@@ -77,27 +76,21 @@ public class FieldManager {
     }
 
     public Object getFieldValue(Object bean, String fieldName) throws IllegalAccessException, FieldNotAvailableException {
-        StringTokenizer tokens = new StringTokenizer(fieldName, ".");
         Class<?> componentClass = bean.getClass();
         Field field = null;
         Object value = HibernateUtils.deproxy(bean);
 
-        while (tokens.hasMoreTokens()) {
-            String fieldNamePart = tokens.nextToken();
-            String mapKey = null;
-            if (fieldNamePart.contains(FieldManager.MAPFIELDSEPARATOR)) {
-                mapKey = fieldNamePart.substring(fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR) + FieldManager.MAPFIELDSEPARATOR.length(), fieldNamePart.length());
-                fieldNamePart = fieldNamePart.substring(0, fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR));
-            }
-            field = getSingleField(componentClass, fieldNamePart);
+        for (FieldPath.Segment segment : FieldPath.parse(fieldName).getSegments()) {
+            String fieldNamePart = segment.getFieldName();
+            FieldAccessor accessor = FieldAccessor.forField(componentClass, fieldNamePart);
 
-            if (field != null) {
-                field.setAccessible(true);
-                value = field.get(value);
+            if (accessor != null) {
+                field = accessor.getField();
+                value = accessor.get(value);
                 value = HibernateUtils.deproxy(value);
 
-                if (mapKey != null) {
-                    value = handleMapFieldExtraction(bean, fieldName, componentClass, value, fieldNamePart, mapKey);
+                if (segment.getMapKey() != null) {
+                    value = handleMapFieldExtraction(bean, fieldName, componentClass, value, fieldNamePart, segment.getMapKey());
                 }
 
                 if (value != null) {
@@ -119,38 +112,34 @@ public class FieldManager {
     }
 
     public Object setFieldValue(Object bean, String fieldName, Object newValue) throws IllegalAccessException, InstantiationException {
-        StringTokenizer tokens = new StringTokenizer(fieldName, ".");
         Class<?> componentClass = bean.getClass();
         Field field;
         bean = HibernateUtils.deproxy(bean);
         Object value = bean;
 
-        int count = tokens.countTokens();
-        int j=0;
-        StringBuilder sb = new StringBuilder();
-        while (tokens.hasMoreTokens()) {
-            String fieldNamePart = tokens.nextToken();
-            sb.append(fieldNamePart);
-            String mapKey = null;
-            if (fieldNamePart.contains(FieldManager.MAPFIELDSEPARATOR)) {
-                mapKey = fieldNamePart.substring(fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR) + FieldManager.MAPFIELDSEPARATOR.length(), fieldNamePart.length());
-                fieldNamePart = fieldNamePart.substring(0, fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR));
-            }
+        List<FieldPath.Segment> segments = FieldPath.parse(fieldName).getSegments();
+        int count = segments.size();
+        for (int j = 0; j < count; j++) {
+            FieldPath.Segment segment = segments.get(j);
+            String fieldNamePart = segment.getFieldName();
 
-            field = getSingleField(componentClass, fieldNamePart);
-            field.setAccessible(true);
+            FieldAccessor accessor = FieldAccessor.forField(componentClass, fieldNamePart);
+            if (accessor == null) {
+                throw new IllegalArgumentException("Unable to find field (" + fieldNamePart + ") on the class (" + componentClass + ")");
+            }
+            field = accessor.getField();
             if (j == count - 1) {
-                if (mapKey != null) {
-                    handleMapFieldPopulation(bean, fieldName, newValue, componentClass, field, value, fieldNamePart, mapKey);
+                if (segment.getMapKey() != null) {
+                    handleMapFieldPopulation(bean, fieldName, newValue, componentClass, field, value, fieldNamePart, segment.getMapKey());
                 } else {
                     FieldModifierManager modifierManager = FieldModifierManager.getFieldModifierManager();
                     if (modifierManager != null) {
                         newValue = modifierManager.getModifiedWriteValue(field, value, newValue, entityManager);
                     }
-                    field.set(value, newValue);
+                    accessor.set(value, newValue);
                 }
             } else {
-                Object myValue = field.get(value);
+                Object myValue = accessor.get(value);
                 if (myValue != null) {
                     componentClass = myValue.getClass();
                     value = myValue;
@@ -159,9 +148,9 @@ public class FieldManager {
                     //configured entity for this class
                     try {
                         Object newEntity = entityConfiguration.createEntityInstance(field.getType().getName());
-                        SortableValue val = new SortableValue(bean, (Serializable) newEntity, j, sb.toString());
+                        SortableValue val = new SortableValue(bean, (Serializable) newEntity, j, segment.getPath());
                         middleFields.add(val);
-                        field.set(value, newEntity);
+                        accessor.set(value, newEntity);
                         componentClass = newEntity.getClass();
                         value = newEntity;
                     } catch (Exception e) {
@@ -170,9 +159,9 @@ public class FieldManager {
                         Class<?>[] entities = persistenceManager.getUpDownInheritance(field.getType());
                         if (!ArrayUtils.isEmpty(entities)) {
                             Object newEntity = entities[entities.length-1].newInstance();
-                            SortableValue val = new SortableValue(bean, (Serializable) newEntity, j, sb.toString());
+                            SortableValue val = new SortableValue(bean, (Serializable) newEntity, j, segment.getPath());
                             middleFields.add(val);
-                            field.set(value, newEntity);
+                            accessor.set(value, newEntity);
                             componentClass = newEntity.getClass();
                             value = newEntity;
                             LOG.info("Unable to find a reference to ("+field.getType().getName()+") in the EntityConfigurationManager. " +
@@ -180,7 +169,7 @@ public class FieldManager {
                         } else {
                             //Just use the field type
                             Object newEntity = field.getType().newInstance();
-                            field.set(value, newEntity);
+                            accessor.set(value, newEntity);
                             componentClass = newEntity.getClass();
                             value = newEntity;
                             LOG.debug("Unable to find a reference to ("+field.getType().getName()+") in the EntityConfigurationManager. " +
@@ -189,8 +178,6 @@ public class FieldManager {
                     }
                 }
             }
-            sb.append(".");
-            j++;
         }
 
         return value;
@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dotted property path such as {@code defaultSku.name} or {@code productAttributes---color.value}, split into its
+ * segments once and cached, so that {@link FieldManager} does not tokenize the same property names for every row it reads.
+ */
+public class FieldPath {
+
+    protected static final int MAX_CACHED_PATHS = 10000;
+    protected static final Map<String, FieldPath> PATH_CACHE = new ConcurrentHashMap<>();
+
+    protected final List<Segment> segments;
+
+    protected FieldPath(String path) {
+        StringTokenizer tokens = new StringTokenizer(path, ".");
+        List<Segment> segments = new ArrayList<>(tokens.countTokens());
+        StringBuilder sb = new StringBuilder();
+        while (tokens.hasMoreTokens()) {
+            String fieldNamePart = tokens.nextToken();
+            if (sb.length() > 0) {
+                sb.append(".");
+            }
+            sb.append(fieldNamePart);
+            String mapKey = null;
+            int separator = fieldNamePart.indexOf(FieldManager.MAPFIELDSEPARATOR);
+            if (separator >= 0) {
+                mapKey = fieldNamePart.substring(separator + FieldManager.MAPFIELDSEPARATOR.length());
+                fieldNamePart = fieldNamePart.substring(0, separator);
+            }
+            segments.add(new Segment(fieldNamePart, mapKey, sb.toString()));
+        }
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    public static FieldPath parse(String path) {
+        FieldPath fieldPath = PATH_CACHE.get(path);
+        if (fieldPath == null) {
+            fieldPath = new FieldPath(path);
+            if (PATH_CACHE.size() >= MAX_CACHED_PATHS) {
+                // Map field keys are not bounded, so start over rather than growing forever
+                PATH_CACHE.clear();
+            }
+            PATH_CACHE.put(path, fieldPath);
+        }
+        return fieldPath;
+    }
+
+    public static void clearCache() {
+        PATH_CACHE.clear();
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public static class Segment {
+
+        protected final String fieldName;
+        protected final String mapKey;
+        protected final String path;
+
+        public Segment(String fieldName, String mapKey, String path) {
+            this.fieldName = fieldName;
+            this.mapKey = mapKey;
+            this.path = path;
+        }
+
+        /**
+         * @return the name of the field, without the map key
+         */
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        /**
+         * @return the map key following {@link FieldManager#MAPFIELDSEPARATOR}, or null
+         */
+        public String getMapKey() {
+            return mapKey;
+        }
+
+        /**
+         * @return the path up to and including this segment, as it was given
+         */
+        public String getPath() {
+            return path;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject;
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition;
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * {@link RecordCountStrategy} that never runs a count query. {@link BasicPersistenceModule} fetches one record beyond the
+ * page size, and the reported total only reaches past the requested page by that single look ahead record. The total is
+ * therefore a lower bound that grows as the list grid scrolls further into the results. When paging from a previous
+ * page, the requested page starts at the {@link SeekPosition#getFallbackFirstResult()} rather than the first result of
+ * the criteria, which is the start of the page that was displayed.
+ */
+@Component("blHasMoreRecordCountStrategy")
+public class HasMoreRecordCountStrategy implements RecordCountStrategy {
+
+    @Override
+    public CountStrategyType getType() {
+        return CountStrategyType.HAS_MORE;
+    }
+
+    @Override
+    public Integer getTotalRecords(RecordHelper recordHelper, FetchRequest countFetchRequest, List<Serializable> pageRecords) {
+        CriteriaTransferObject cto = countFetchRequest.getCto();
+        return getFirstResult(cto) + (pageRecords == null ? 0 : pageRecords.size());
+    }
+
+    protected int getFirstResult(CriteriaTransferObject cto) {
+        if (cto == null) {
+            return 0;
+        }
+        SeekPosition seekPosition = SeekPosition.fromCriteria(cto);
+        if (seekPosition != null && seekPosition.getFallbackFirstResult() != null) {
+            return seekPosition.getFallbackFirstResult();
+        }
+        return cto.getFirstResult() == null ? 0 : cto.getFirstResult();
+    }
+
+    @Override
+    public void invalidate(String ceilingEntity) {
+        //nothing retained
+    }
+
+}
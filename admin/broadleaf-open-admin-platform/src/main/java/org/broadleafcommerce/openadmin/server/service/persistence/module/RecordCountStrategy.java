@@ -0,0 +1,60 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Determines the total record count reported alongside a page of admin fetch results. {@link BasicPersistenceModule}
+ * asks the {@link RecordCountStrategyManager} which {@link CountStrategyType} applies to the fetched entity and delegates
+ * to the strategy registered for that type.
+ */
+public interface RecordCountStrategy {
+
+    /**
+     * The type of count this strategy provides
+     *
+     * @return
+     */
+    CountStrategyType getType();
+
+    /**
+     * Retrieve the total record count for the fetch. For {@link CountStrategyType#HAS_MORE}, the page records contain
+     * one record beyond the requested page size when another page exists. Count queries are run through
+     * {@link RecordHelper#getTotalRecords(FetchRequest)} of the calling module, so that modules overriding the count
+     * are honored.
+     *
+     * @param recordHelper the persistence module performing the fetch
+     * @param countFetchRequest the params for the count, including the count filter mappings
+     * @param pageRecords the persistent records already retrieved for the requested page
+     * @return
+     */
+    Integer getTotalRecords(RecordHelper recordHelper, FetchRequest countFetchRequest, List<Serializable> pageRecords);
+
+    /**
+     * Discard any state retained for the given ceiling entity, usually because one of its records was added, updated
+     * or removed.
+     *
+     * @param ceilingEntity
+     */
+    void invalidate(String ceilingEntity);
+
+}
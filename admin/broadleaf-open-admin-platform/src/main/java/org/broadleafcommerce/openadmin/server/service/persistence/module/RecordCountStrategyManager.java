@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.apache.commons.lang.StringUtils;
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chooses the {@link RecordCountStrategy} used for an admin fetch. Entities opt into a cheaper count by listing their
+ * ceiling entity class name in the <code>admin.list.count.cached.entities</code> or
+ * <code>admin.list.count.hasMore.entities</code> properties. All other entities receive an exact count.
+ * </p>
+ * Additional strategies are picked up by registering {@link RecordCountStrategy} beans. Override
+ * {@link #getCountStrategyType(FetchRequest)} to opt entities in by other means.
+ */
+@Component("blRecordCountStrategyManager")
+public class RecordCountStrategyManager {
+
+    @Autowired
+    protected List<RecordCountStrategy> strategies = new ArrayList<RecordCountStrategy>();
+
+    @Value("${admin.list.count.cached.entities:}")
+    protected String cachedEntities = "";
+
+    @Value("${admin.list.count.hasMore.entities:}")
+    protected String hasMoreEntities = "";
+
+    protected Set<String> cachedEntitySet;
+    protected Set<String> hasMoreEntitySet;
+
+    /**
+     * Determine how the total records should be counted for the fetch
+     *
+     * @param fetchRequest
+     * @return
+     */
+    public CountStrategyType getCountStrategyType(FetchRequest fetchRequest) {
+        if (hasMoreEntitySet == null) {
+            hasMoreEntitySet = parseEntities(hasMoreEntities);
+        }
+        if (cachedEntitySet == null) {
+            cachedEntitySet = parseEntities(cachedEntities);
+        }
+        if (isConfigured(hasMoreEntitySet, fetchRequest)) {
+            return CountStrategyType.HAS_MORE;
+        }
+        if (isConfigured(cachedEntitySet, fetchRequest)) {
+            return CountStrategyType.CACHED;
+        }
+        return CountStrategyType.EXACT;
+    }
+
+    /**
+     * Retrieve the strategy registered for the type, falling back to the {@link CountStrategyType#EXACT} strategy
+     *
+     * @param type
+     * @return
+     */
+    public RecordCountStrategy getStrategy(CountStrategyType type) {
+        RecordCountStrategy exact = null;
+        for (RecordCountStrategy strategy : strategies) {
+            if (strategy.getType() == type) {
+                return strategy;
+            }
+            if (strategy.getType() == CountStrategyType.EXACT) {
+                exact = strategy;
+            }
+        }
+        return exact;
+    }
+
+    /**
+     * Discard any counts retained for the given ceiling entity
+     *
+     * @param ceilingEntity
+     */
+    public void invalidate(String ceilingEntity) {
+        for (RecordCountStrategy strategy : strategies) {
+            strategy.invalidate(ceilingEntity);
+        }
+    }
+
+    protected boolean isConfigured(Set<String> entities, FetchRequest fetchRequest) {
+        if (entities.isEmpty()) {
+            return false;
+        }
+        if (entities.contains(fetchRequest.getCeilingEntity())) {
+            return true;
+        }
+        return fetchRequest.getPersistencePackage() != null
+                && entities.contains(fetchRequest.getPersistencePackage().getCeilingEntityFullyQualifiedClassname());
+    }
+
+    protected Set<String> parseEntities(String entities) {
+        Set<String> response = new HashSet<String>();
+        for (String entity : StringUtils.split(StringUtils.defaultString(entities), ',')) {
+            if (StringUtils.isNotBlank(entity)) {
+                response.add(entity.trim());
+            }
+        }
+        return response;
+    }
+
+}
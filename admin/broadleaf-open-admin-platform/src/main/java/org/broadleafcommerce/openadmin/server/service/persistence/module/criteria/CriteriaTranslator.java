@@ -30,6 +30,21 @@ public interface CriteriaTranslator {
 
     TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults);
 
+    /**
+     * Translate the query, paging with the given {@link SeekPosition} rather than an offset when the sort of the query
+     * allows it. Whether the position was used is recorded on {@link SeekPosition#isApplied()}. A backward position
+     * yields the records in reverse order.
+     *
+     * @param dynamicEntityDao
+     * @param ceilingEntity
+     * @param filterMappings
+     * @param firstResult the offset, used when no seek position is given or it cannot be applied
+     * @param maxResults
+     * @param seekPosition the boundary of the previous page, or null
+     * @return
+     */
+    TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults, SeekPosition seekPosition);
+
     TypedQuery<Serializable> translateCountQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings);
 
     TypedQuery<Serializable> translateMaxQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, String maxField);
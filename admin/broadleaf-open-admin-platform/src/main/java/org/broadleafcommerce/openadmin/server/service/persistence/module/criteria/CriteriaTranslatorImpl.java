@@ -49,6 +49,8 @@ import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
 
 /**
  * @author Jeff Fischer
@@ -80,6 +82,11 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, false, firstResult, maxResults, null);
     }
 
+    @Override
+    public TypedQuery<Serializable> translateQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, Integer firstResult, Integer maxResults, SeekPosition seekPosition) {
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, false, false, firstResult, maxResults, null, seekPosition);
+    }
+
     /**
      * Determines the appropriate entity in this current class tree to use as the ceiling entity for the query. Because
      * we filter with AND instead of OR, we throw an exception if an attempt to utilize properties from mutually exclusive
@@ -163,8 +170,12 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     protected TypedQuery<Serializable> constructQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, boolean isCount, boolean isMax, Integer firstResult, Integer maxResults, String maxField) {
+        return constructQuery(dynamicEntityDao, ceilingEntity, filterMappings, isCount, isMax, firstResult, maxResults, maxField, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected TypedQuery<Serializable> constructQuery(DynamicEntityDao dynamicEntityDao, String ceilingEntity, List<FilterMapping> filterMappings, boolean isCount, boolean isMax, Integer firstResult, Integer maxResults, String maxField, SeekPosition seekPosition) {
 
         CriteriaBuilder criteriaBuilder = dynamicEntityDao.getStandardEntityManager().getCriteriaBuilder();
 
@@ -196,6 +207,16 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         List<Order> sorts = new ArrayList<Order>();
         addRestrictions(ceilingEntity, filterMappings, criteriaBuilder, original, restrictions, sorts, criteria);
 
+        if (!isCount && !isMax && seekPosition != null) {
+            if (addSeekRestriction(dynamicEntityDao, ceilingClass, filterMappings, criteriaBuilder, original, restrictions, sorts, seekPosition)) {
+                firstResult = null;
+            } else if (seekPosition.getFallbackFirstResult() != null) {
+                firstResult = seekPosition.getFallbackFirstResult();
+            }
+        } else if (!isCount && !isMax && firstResult != null) {
+            addIdTieBreaker(dynamicEntityDao, ceilingClass, filterMappings, criteriaBuilder, original, sorts);
+        }
+
         criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
         if (!isCount && !isMax) {
             criteria.orderBy(sorts.toArray(new Order[sorts.size()]));
@@ -222,6 +243,137 @@ public class CriteriaTranslatorImpl implements CriteriaTranslator {
         return response;
     }
 
+    /**
+     * Restrict the query to the records beyond the seek position. This is supported when the query is sorted by the
+     * primary key only, or by a single required date or numeric property of the root entity followed by the primary key.
+     * The restriction is the expanded form of <code>(sortProperty, id) &gt; (sortValue, lastId)</code>, since JPA has
+     * no row value comparison. The sorts are replaced to match the restriction and are reversed for a backward position.
+     *
+     * @return whether the seek restriction was added. If not, the query pages with an offset.
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean addSeekRestriction(DynamicEntityDao dynamicEntityDao, Class<Serializable> ceilingClass,
+            List<FilterMapping> filterMappings, CriteriaBuilder criteriaBuilder, Root<Serializable> original,
+            List<Predicate> restrictions, List<Order> sorts, SeekPosition seekPosition) {
+        if (seekPosition.getId() == null) {
+            return false;
+        }
+        Path<Comparable> idPath = getSeekableIdPath(dynamicEntityDao, ceilingClass, original);
+        if (idPath == null) {
+            return false;
+        }
+        List<FilterMapping> sortMappings = getSortMappings(filterMappings);
+        if (sortMappings.size() > 1 || sorts.size() != sortMappings.size()) {
+            return false;
+        }
+        Long id = seekPosition.getId();
+        if (sortMappings.isEmpty()) {
+            boolean ascending = !seekPosition.isBackward();
+            restrictions.add(ascending ? criteriaBuilder.greaterThan(idPath, id) : criteriaBuilder.lessThan(idPath, id));
+            sorts.clear();
+            sorts.add(ascending ? criteriaBuilder.asc(idPath) : criteriaBuilder.desc(idPath));
+            seekPosition.setApplied(true);
+            return true;
+        }
+
+        FilterMapping sortMapping = sortMappings.get(0);
+        Path<Comparable> sortPath = getSeekableSortPath(original, sortMapping);
+        if (sortPath == null) {
+            return false;
+        }
+        Comparable sortValue = seekPosition.parseSortValue(sortPath.getJavaType());
+        if (sortValue == null) {
+            return false;
+        }
+        boolean ascending = (SortDirection.ASCENDING == sortMapping.getSortDirection()) != seekPosition.isBackward();
+        Predicate beyond;
+        Predicate tie;
+        if (ascending) {
+            beyond = criteriaBuilder.greaterThan(sortPath, sortValue);
+            tie = criteriaBuilder.and(criteriaBuilder.equal(sortPath, sortValue), criteriaBuilder.greaterThan(idPath, id));
+        } else {
+            beyond = criteriaBuilder.lessThan(sortPath, sortValue);
+            tie = criteriaBuilder.and(criteriaBuilder.equal(sortPath, sortValue), criteriaBuilder.lessThan(idPath, id));
+        }
+        restrictions.add(criteriaBuilder.or(beyond, tie));
+        sorts.clear();
+        sorts.add(ascending ? criteriaBuilder.asc(sortPath) : criteriaBuilder.desc(sortPath));
+        sorts.add(ascending ? criteriaBuilder.asc(idPath) : criteriaBuilder.desc(idPath));
+        seekPosition.setApplied(true);
+        return true;
+    }
+
+    /**
+     * Order ties of a seekable sort by the primary key, so that offset paged results line up with the pages retrieved
+     * through {@link #addSeekRestriction(DynamicEntityDao, Class, List, CriteriaBuilder, Root, List, List, SeekPosition)}
+     */
+    protected void addIdTieBreaker(DynamicEntityDao dynamicEntityDao, Class<Serializable> ceilingClass,
+            List<FilterMapping> filterMappings, CriteriaBuilder criteriaBuilder, Root<Serializable> original, List<Order> sorts) {
+        List<FilterMapping> sortMappings = getSortMappings(filterMappings);
+        if (sortMappings.size() != 1 || sorts.size() != 1 || getSeekableSortPath(original, sortMappings.get(0)) == null) {
+            return;
+        }
+        Path<Comparable> idPath = getSeekableIdPath(dynamicEntityDao, ceilingClass, original);
+        if (idPath != null) {
+            sorts.add(SortDirection.ASCENDING == sortMappings.get(0).getSortDirection() ? criteriaBuilder.asc(idPath) : criteriaBuilder.desc(idPath));
+        }
+    }
+
+    protected List<FilterMapping> getSortMappings(List<FilterMapping> filterMappings) {
+        List<FilterMapping> sortMappings = new ArrayList<FilterMapping>();
+        for (FilterMapping filterMapping : filterMappings) {
+            if (filterMapping.getSortDirection() != null) {
+                sortMappings.add(filterMapping);
+            }
+        }
+        return sortMappings;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Path<Comparable> getSeekableIdPath(DynamicEntityDao dynamicEntityDao, Class<Serializable> ceilingClass, Root<Serializable> original) {
+        Map<String, Object> idMetaData = dynamicEntityDao.getIdMetadata(ceilingClass);
+        if (idMetaData == null) {
+            return null;
+        }
+        Object idFldName = idMetaData.get("name");
+        Object type = idMetaData.get("type");
+        if (!(idFldName instanceof String) || !(type instanceof SingleColumnType)) {
+            return null;
+        }
+        Path<Comparable> idPath = original.get((String) idFldName);
+        Class<?> javaType = idPath.getJavaType();
+        if (!Long.class.equals(javaType) && !long.class.equals(javaType)) {
+            return null;
+        }
+        return idPath;
+    }
+
+    /**
+     * The sort can be sought when it is on a required date or numeric property of the root entity. A nullable property
+     * would drop its null values from the sought pages. Nulls last sorting does not matter, since a required property
+     * has no nulls to move and its coalesced value sorts the same as the property itself.
+     *
+     * @return the path of the sort property, or null if the sort cannot be sought
+     */
+    @SuppressWarnings("unchecked")
+    protected Path<Comparable> getSeekableSortPath(Root<Serializable> original, FilterMapping sortMapping) {
+        String propertyName = sortMapping.getFullPropertyName();
+        if (sortMapping.getFieldPath() != null || StringUtils.isEmpty(propertyName) || propertyName.contains(".")) {
+            return null;
+        }
+        Attribute<?, ?> attribute;
+        try {
+            attribute = original.getModel().getAttribute(propertyName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!(attribute instanceof SingularAttribute) || ((SingularAttribute<?, ?>) attribute).isOptional()
+                || !SeekPosition.isSeekableType(attribute.getJavaType())) {
+            return null;
+        }
+        return original.get(propertyName);
+    }
+
     protected void addPaging(Query response, Integer firstResult, Integer maxResults) {
         if (firstResult != null) {
             response.setFirstResult(firstResult);
@@ -0,0 +1,228 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module.criteria;
+
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Describes the boundary of the previously displayed page for keyset (seek) pagination. Rather than skipping
+ * <code>firstResult</code> records, the {@link CriteriaTranslator} restricts the query to the records that sort after
+ * (or, for the previous page, before) the sort key tuple of the boundary record, i.e. <code>(sortValue, id)</code>.
+ * </p>
+ * When the sort of the query cannot be sought, the translator falls back to offset paging with
+ * {@link #getFallbackFirstResult()}.
+ */
+public class SeekPosition {
+
+    protected Long id;
+    protected String sortValue;
+    protected boolean backward;
+    protected Integer fallbackFirstResult;
+    protected boolean applied;
+
+    /**
+     * Build the seek position for the page requested in the criteria transfer object
+     *
+     * @param cto
+     * @return the seek position, or null if the request does not page from a previous page
+     */
+    public static SeekPosition fromCriteria(CriteriaTransferObject cto) {
+        if (cto == null) {
+            return null;
+        }
+        if (cto.getLastId() != null) {
+            return new SeekPosition()
+                    .withId(cto.getLastId())
+                    .withSortValue(cto.getLastSortValue())
+                    .withBackward(false)
+                    .withFallbackFirstResult(getAdjacentPageFirstResult(cto, false));
+        }
+        if (cto.getFirstId() != null) {
+            return new SeekPosition()
+                    .withId(cto.getFirstId())
+                    .withSortValue(cto.getFirstSortValue())
+                    .withBackward(true)
+                    .withFallbackFirstResult(getAdjacentPageFirstResult(cto, true));
+        }
+        return null;
+    }
+
+    /**
+     * The offset of the page after (or before) the current one. When paging from a previous page, the first result of
+     * the criteria is the start index of the page that is currently displayed.
+     *
+     * @param cto
+     * @param backward
+     * @return the offset, or null if the page size is not known
+     */
+    protected static Integer getAdjacentPageFirstResult(CriteriaTransferObject cto, boolean backward) {
+        if (cto.getMaxResults() == null) {
+            return null;
+        }
+        int currentFirstResult = cto.getFirstResult() == null ? 0 : cto.getFirstResult();
+        if (backward) {
+            return Math.max(0, currentFirstResult - cto.getMaxResults());
+        }
+        return currentFirstResult + cto.getMaxResults();
+    }
+
+    /**
+     * Format a sort value so that it can be parsed again without loss of precision by {@link #parseSortValue(Class)}
+     *
+     * @param value
+     * @return the formatted value, or null if the value is not of a seekable type
+     */
+    public static String formatSortValue(Object value) {
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof BigDecimal) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Whether values of the type can be formatted and parsed by this class
+     *
+     * @param type
+     * @return
+     */
+    public static boolean isSeekableType(Class<?> type) {
+        return Date.class.isAssignableFrom(type) || Long.class.equals(type) || long.class.equals(type)
+                || Integer.class.equals(type) || int.class.equals(type) || BigDecimal.class.equals(type);
+    }
+
+    /**
+     * Parse the sort value into the given type
+     *
+     * @param type
+     * @return the parsed value, or null if the value is absent or cannot be parsed
+     */
+    public Comparable<?> parseSortValue(Class<?> type) {
+        if (sortValue == null) {
+            return null;
+        }
+        try {
+            if (Date.class.isAssignableFrom(type)) {
+                return new Date(Long.parseLong(sortValue));
+            }
+            if (Long.class.equals(type) || long.class.equals(type)) {
+                return Long.valueOf(sortValue);
+            }
+            if (Integer.class.equals(type) || int.class.equals(type)) {
+                return Integer.valueOf(sortValue);
+            }
+            if (BigDecimal.class.equals(type)) {
+                return new BigDecimal(sortValue);
+            }
+        } catch (NumberFormatException e) {
+            //fall through to the offset paging
+        }
+        return null;
+    }
+
+    public SeekPosition withId(Long id) {
+        setId(id);
+        return this;
+    }
+
+    public SeekPosition withSortValue(String sortValue) {
+        setSortValue(sortValue);
+        return this;
+    }
+
+    public SeekPosition withBackward(boolean backward) {
+        setBackward(backward);
+        return this;
+    }
+
+    public SeekPosition withFallbackFirstResult(Integer fallbackFirstResult) {
+        setFallbackFirstResult(fallbackFirstResult);
+        return this;
+    }
+
+    /**
+     * The primary key of the boundary record
+     *
+     * @return
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * The value of the sort property of the boundary record, as formatted by {@link #formatSortValue(Object)}
+     *
+     * @return
+     */
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public void setSortValue(String sortValue) {
+        this.sortValue = sortValue;
+    }
+
+    /**
+     * Whether the page before the boundary record is requested. The query then returns the records in reverse order.
+     *
+     * @return
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    public void setBackward(boolean backward) {
+        this.backward = backward;
+    }
+
+    /**
+     * The offset to use when the query cannot be sought
+     *
+     * @return
+     */
+    public Integer getFallbackFirstResult() {
+        return fallbackFirstResult;
+    }
+
+    public void setFallbackFirstResult(Integer fallbackFirstResult) {
+        this.fallbackFirstResult = fallbackFirstResult;
+    }
+
+    /**
+     * Whether the translator restricted the query with this position, as opposed to falling back to offset paging
+     *
+     * @return
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+}
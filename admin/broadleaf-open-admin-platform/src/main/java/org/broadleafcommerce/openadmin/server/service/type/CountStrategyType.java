@@ -0,0 +1,31 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.type;
+
+import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordCountStrategy;
+
+/**
+ * Defines how the total record count for an admin fetch is determined: {@link #EXACT} runs a count query for every fetch,
+ * {@link #CACHED} reuses the result of an earlier count query for the same filters until it expires, and {@link #HAS_MORE}
+ * skips the count query altogether and only determines whether another page of records exists.
+ * </p>
+ * See {@link RecordCountStrategy}.
+ */
+public enum CountStrategyType {
+    EXACT,CACHED,HAS_MORE
+}
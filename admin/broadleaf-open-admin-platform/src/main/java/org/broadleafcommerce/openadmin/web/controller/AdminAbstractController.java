@@ -224,6 +224,8 @@ public abstract class AdminAbstractController extends BroadleafAbstractControlle
         FetchPageRequest pageRequest = new FetchPageRequest()
             .withLastId(getLastId(requestParams))
             .withFirstId(getFirstId(requestParams))
+            .withLastSortValue(getLastSortValue(requestParams))
+            .withFirstSortValue(getFirstSortValue(requestParams))
             .withStartIndex(getStartIndex(requestParams))
             .withMaxIndex(getMaxIndex(requestParams))
             .withUpperCount(getUpperCount(requestParams))
@@ -690,6 +692,24 @@ public abstract class AdminAbstractController extends BroadleafAbstractControlle
         return CollectionUtils.isEmpty(firstId) ? null : Long.parseLong(firstId.get(0));
     }
 
+    protected String getLastSortValue(Map<String, List<String>> requestParams) {
+        if (requestParams == null || requestParams.isEmpty()) {
+            return null;
+        }
+
+        List<String> lastSortValue = requestParams.get(FilterAndSortCriteria.LAST_SORT_VALUE_PARAMETER);
+        return CollectionUtils.isEmpty(lastSortValue) ? null : lastSortValue.get(0);
+    }
+
+    protected String getFirstSortValue(Map<String, List<String>> requestParams) {
+        if (requestParams == null || requestParams.isEmpty()) {
+            return null;
+        }
+
+        List<String> firstSortValue = requestParams.get(FilterAndSortCriteria.FIRST_SORT_VALUE_PARAMETER);
+        return CollectionUtils.isEmpty(firstSortValue) ? null : firstSortValue.get(0);
+    }
+
     protected Integer getUpperCount(Map<String, List<String>> requestParams) {
         if (requestParams == null || requestParams.isEmpty()) {
             return null;
@@ -826,6 +846,8 @@ public abstract class AdminAbstractController extends BroadleafAbstractControlle
                 .withSectionCrumbs(sectionCrumbs)
                 .withLastId(getLastId(requestParams))
                 .withFirstId(getFirstId(requestParams))
+                .withLastSortValue(getLastSortValue(requestParams))
+                .withFirstSortValue(getFirstSortValue(requestParams))
                 .withUpperCount(getUpperCount(requestParams))
                 .withLowerCount(getLowerCount(requestParams))
                 .withPageSize(getPageSize(requestParams))
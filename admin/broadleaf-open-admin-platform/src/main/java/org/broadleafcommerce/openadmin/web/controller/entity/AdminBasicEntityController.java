@@ -1004,6 +1004,8 @@ public class AdminBasicEntityController extends AdminAbstractController {
                 .withMaxIndex(getMaxIndex(requestParams))
                 .withLastId(getLastId(requestParams))
                 .withFirstId(getFirstId(requestParams))
+                .withLastSortValue(getLastSortValue(requestParams))
+                .withFirstSortValue(getFirstSortValue(requestParams))
                 .withUpperCount(getUpperCount(requestParams))
                 .withLowerCount(getLowerCount(requestParams))
                 .withPageSize(getPageSize(requestParams))
@@ -77,10 +77,13 @@ public class ListGrid {
     protected String fetchType = FetchType.DEFAULT.toString();
     protected long firstId;
     protected long lastId;
+    protected String firstSortValue;
+    protected String lastSortValue;
     protected int upperCount;
     protected int lowerCount;
     protected boolean totalCountLessThanPageSize;
     protected boolean promptSearch;
+    protected boolean totalRecordsEstimated;
 
     // If true, only clicking the check box area will toggle the row selection when using multi select
     protected boolean multiSelectCheckBoxOnly;
@@ -737,6 +740,22 @@ public class ListGrid {
         this.lastId = lastId;
     }
 
+    public String getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public void setLastSortValue(String lastSortValue) {
+        this.lastSortValue = lastSortValue;
+    }
+
+    public String getFirstSortValue() {
+        return firstSortValue;
+    }
+
+    public void setFirstSortValue(String firstSortValue) {
+        this.firstSortValue = firstSortValue;
+    }
+
     public int getUpperCount() {
         return upperCount;
     }
@@ -769,6 +788,14 @@ public class ListGrid {
         this.promptSearch = promptSearch;
     }
 
+    public boolean isTotalRecordsEstimated() {
+        return totalRecordsEstimated;
+    }
+
+    public void setTotalRecordsEstimated(boolean totalRecordsEstimated) {
+        this.totalRecordsEstimated = totalRecordsEstimated;
+    }
+
     public String getHelpText() { return helpText; }
 
     public void setHelpText(String helpText) { this.helpText = helpText; }
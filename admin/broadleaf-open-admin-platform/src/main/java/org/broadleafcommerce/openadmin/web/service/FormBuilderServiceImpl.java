@@ -1000,6 +1000,8 @@ public class FormBuilderServiceImpl implements FormBuilderService {
         if (drs.getLastId() != null) {
             listGrid.setLastId(drs.getLastId());
         }
+        listGrid.setFirstSortValue(drs.getFirstSortValue());
+        listGrid.setLastSortValue(drs.getLastSortValue());
         if (drs.getUpperCount() != null) {
             listGrid.setUpperCount(drs.getUpperCount());
         }
@@ -1015,6 +1017,9 @@ public class FormBuilderServiceImpl implements FormBuilderService {
         if (drs.getPromptSearch() != null) {
             listGrid.setPromptSearch(drs.getPromptSearch());
         }
+        if (drs.getTotalRecordsEstimated() != null) {
+            listGrid.setTotalRecordsEstimated(drs.getTotalRecordsEstimated());
+        }
 
         return listGrid;
     }
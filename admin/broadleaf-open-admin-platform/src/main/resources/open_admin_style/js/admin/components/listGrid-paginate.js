@@ -85,6 +85,15 @@
             return $tbody.data('lastid');
         },
 
+        // Read as attributes so that sort values keep their exact string form
+        getFirstSortValue : function($tbody) {
+            return $tbody.attr('data-firstsortvalue');
+        },
+
+        getLastSortValue : function($tbody) {
+            return $tbody.attr('data-lastsortvalue');
+        },
+
         getUpperCount : function($tbody) {
             return $tbody.data('uppercount');
         },
@@ -93,9 +102,19 @@
             return $tbody.data('lowercount');
         },
 
+        // The start index of the page that is displayed, sent along when paging to the next or previous page
+        getStartIndex : function($tbody) {
+            var ranges = this.getLoadedRecordRanges($tbody);
+            return ranges.length ? ranges[0].lo : 0;
+        },
+
         getTotalCountLessThanPageSize : function($tbody) {
             return $tbody.data('lessthanpagesize');
         },
+
+        isTotalRecordsEstimated : function($tbody) {
+            return $tbody.data('totalrecordsestimated') === true;
+        },
         
         getRange : function(rangeDescription) {
             var seperator = rangeDescription.indexOf('-');
@@ -218,6 +237,17 @@
                 return;
             }
 
+            // An estimated total only reaches one record past the loaded records. Grow it as further pages are loaded.
+            if (this.isTotalRecordsEstimated($tbody)) {
+                var oldTotal = this.getTotalRecords($tbody);
+                var newTotal = this.getTotalRecords($newTbody);
+                if (newTotal > oldTotal) {
+                    $tbody.data('totalrecords', newTotal);
+                    padRange.hi = newTotal - 1;
+                    $pad.attr('data-range', padRange.lo + '-' + padRange.hi).data('range', padRange.lo + '-' + padRange.hi);
+                }
+            }
+
             // Create the top split (potentially nothing)
             var blankRangeAbove = {
                 lo : padRange.lo,
@@ -619,7 +649,9 @@
                 $footer.find('.low-index').text("0");
                 $footer.find('.high-index').text("0");
             }
-            $footer.find('.total-records').text(totalRecords);
+            // An estimated total is a lower bound as long as the look ahead record has not been loaded
+            var moreRecords = this.isTotalRecordsEstimated($tbody) && !this.isIndexLoaded($tbody, totalRecords - 1);
+            $footer.find('.total-records').text(moreRecords ? totalRecords + '+' : totalRecords);
             if (upperCount - totalRecords > 1) {
                 $footer.find('.previous-page').css('display', 'inline');
             } else {
@@ -1187,6 +1219,12 @@ $(document).ready(function() {
         }
         var firstId = BLCAdmin.listGrid.paginate.getFirstId($tbody);
         currentUrl = BLCAdmin.history.getUrlWithParameter('firstId', firstId, null, currentUrl);
+        var startIndex = BLCAdmin.listGrid.paginate.getStartIndex($tbody);
+        currentUrl = BLCAdmin.history.getUrlWithParameter('startIndex', startIndex, null, currentUrl);
+        var firstSortValue = BLCAdmin.listGrid.paginate.getFirstSortValue($tbody);
+        if (firstSortValue) {
+            currentUrl = BLCAdmin.history.getUrlWithParameter('firstSortValue', firstSortValue, null, currentUrl);
+        }
         var lowerCount = BLCAdmin.listGrid.paginate.getLowerCount($tbody);
         var upperCount = BLCAdmin.listGrid.paginate.getUpperCount($tbody);
         currentUrl = BLCAdmin.history.getUrlWithParameter('upperCount', upperCount, null, currentUrl);
@@ -1217,6 +1255,12 @@ $(document).ready(function() {
         }
         var lastId = BLCAdmin.listGrid.paginate.getLastId($tbody);
         currentUrl = BLCAdmin.history.getUrlWithParameter('lastId', lastId, null, currentUrl);
+        var startIndex = BLCAdmin.listGrid.paginate.getStartIndex($tbody);
+        currentUrl = BLCAdmin.history.getUrlWithParameter('startIndex', startIndex, null, currentUrl);
+        var lastSortValue = BLCAdmin.listGrid.paginate.getLastSortValue($tbody);
+        if (lastSortValue) {
+            currentUrl = BLCAdmin.history.getUrlWithParameter('lastSortValue', lastSortValue, null, currentUrl);
+        }
         var lowerCount = BLCAdmin.listGrid.paginate.getLowerCount($tbody);
         var upperCount = BLCAdmin.listGrid.paginate.getUpperCount($tbody);
         currentUrl = BLCAdmin.history.getUrlWithParameter('upperCount', upperCount, null, currentUrl);
@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.openadmin.server.service.export.CsvEntityExportWriter
+import org.broadleafcommerce.openadmin.server.service.export.JsonEntityExportWriter
+
+import java.nio.charset.StandardCharsets
+
+import spock.lang.Specification
+
+class EntityExportWriterSpec extends Specification {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+    def "CSV values containing separators, quotes or line breaks are quoted and nulls are left empty"() {
+        setup:
+        CsvEntityExportWriter writer = new CsvEntityExportWriter(out)
+
+        when:
+        writer.writeHeader(["id", "name", "note"])
+        writer.writeRow([1L, "a,b", "say \"hi\""])
+        writer.writeRow([2L, "line\nbreak", null])
+        writer.writeRow([3L, "carriage\rreturn", "plain"])
+        writer.finish()
+
+        then:
+        out.toString(StandardCharsets.UTF_8.name()) == "id,name,note\r\n" +
+                "1,\"a,b\",\"say \"\"hi\"\"\"\r\n" +
+                "2,\"line\nbreak\",\r\n" +
+                "3,\"carriage\rreturn\",plain\r\n"
+    }
+
+    def "CSV output is written as UTF-8"() {
+        setup:
+        CsvEntityExportWriter writer = new CsvEntityExportWriter(out)
+
+        when:
+        writer.writeHeader(["name"])
+        writer.writeRow(["Crème brûlée"])
+        writer.finish()
+
+        then:
+        new String(out.toByteArray(), StandardCharsets.UTF_8) == "name\r\nCrème brûlée\r\n"
+    }
+
+    def "JSON rows are objects keyed by column with typed values"() {
+        setup:
+        JsonEntityExportWriter writer = new JsonEntityExportWriter(out)
+
+        when:
+        writer.writeHeader(["id", "name", "price", "active", "rating", "note"])
+        writer.writeRow([1L, "Box \"XL\"", new BigDecimal("9.50"), true, 4.5D, null])
+        writer.writeRow([2, "Crate", new BigDecimal("10"), false, 3.0F, "a,b"])
+        writer.finish()
+
+        then:
+        out.toString(StandardCharsets.UTF_8.name()) ==
+                '[{"id":1,"name":"Box \\"XL\\"","price":9.50,"active":true,"rating":4.5,"note":null},' +
+                '{"id":2,"name":"Crate","price":10,"active":false,"rating":3.0,"note":"a,b"}]'
+    }
+
+    def "An export without rows is an empty JSON array"() {
+        setup:
+        JsonEntityExportWriter writer = new JsonEntityExportWriter(out)
+
+        when:
+        writer.writeHeader(["id"])
+        writer.finish()
+
+        then:
+        out.toString(StandardCharsets.UTF_8.name()) == "[]"
+    }
+
+    def "Finishing leaves the underlying stream open"() {
+        setup:
+        List<Boolean> closed = [false]
+        OutputStream stream = new FilterOutputStream(out) {
+            @Override
+            void close() throws IOException {
+                closed[0] = true
+            }
+        }
+
+        when:
+        CsvEntityExportWriter csv = new CsvEntityExportWriter(stream)
+        csv.writeHeader(["id"])
+        csv.finish()
+        JsonEntityExportWriter json = new JsonEntityExportWriter(stream)
+        json.writeHeader(["id"])
+        json.finish()
+
+        then:
+        !closed[0]
+    }
+
+}
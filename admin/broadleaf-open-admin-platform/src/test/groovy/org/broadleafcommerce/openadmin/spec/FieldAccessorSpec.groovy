@@ -0,0 +1,136 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldAccessor
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldPath
+
+import spock.lang.Specification
+
+class FieldAccessorSpec extends Specification {
+
+    static class Parent {
+        protected String name
+        private int quantity
+        public static String label = "parent"
+    }
+
+    static class Child extends Parent {
+        protected Long id
+    }
+
+    def cleanup() {
+        FieldPath.clearCache()
+        FieldAccessor.clearCache()
+    }
+
+    def "A dotted path is split into segments"() {
+        when:
+        FieldPath path = FieldPath.parse("defaultSku.retailPrice.amount")
+
+        then:
+        path.segments*.fieldName == ["defaultSku", "retailPrice", "amount"]
+        path.segments*.mapKey == [null, null, null]
+        path.segments*.path == ["defaultSku", "defaultSku.retailPrice", "defaultSku.retailPrice.amount"]
+    }
+
+    def "A map key follows the map field separator"() {
+        when:
+        FieldPath path = FieldPath.parse("productAttributes---color.value")
+
+        then:
+        path.segments*.fieldName == ["productAttributes", "value"]
+        path.segments*.mapKey == ["color", null]
+        path.segments*.path == ["productAttributes---color", "productAttributes---color.value"]
+    }
+
+    def "Parsed paths are cached until the cache is cleared"() {
+        when:
+        FieldPath first = FieldPath.parse("name")
+
+        then:
+        FieldPath.parse("name").is(first)
+
+        when:
+        FieldPath.clearCache()
+
+        then:
+        !FieldPath.parse("name").is(first)
+    }
+
+    def "Fields declared on the class or a superclass are read and written"() {
+        setup:
+        Child child = new Child()
+
+        when:
+        FieldAccessor.forField(Child, "id").set(child, 5L)
+        FieldAccessor.forField(Child, "name").set(child, "Box")
+        FieldAccessor.forField(Child, "quantity").set(child, 3)
+
+        then:
+        FieldAccessor.forField(Child, "id").get(child) == 5L
+        FieldAccessor.forField(Child, "name").get(child) == "Box"
+        FieldAccessor.forField(Child, "quantity").get(child) == 3
+        FieldAccessor.forField(Child, "quantity").field.name == "quantity"
+    }
+
+    def "Accessors are cached per class and field name, and unknown fields have none"() {
+        expect:
+        FieldAccessor.forField(Child, "id").is(FieldAccessor.forField(Child, "id"))
+        FieldAccessor.forField(Child, "missing") == null
+        FieldAccessor.forField(Child, "missing") == null
+    }
+
+    def "Static fields ignore the bean like reflective access does"() {
+        setup:
+        FieldAccessor accessor = FieldAccessor.forField(Child, "label")
+
+        when:
+        accessor.set(new Child(), "changed")
+
+        then:
+        accessor.get(new Child()) == "changed"
+        accessor.get(null) == "changed"
+
+        cleanup:
+        Parent.label = "parent"
+    }
+
+    def "Writing null to a primitive field is rejected"() {
+        when:
+        FieldAccessor.forField(Child, "quantity").set(new Child(), null)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Values of the wrong type are rejected"() {
+        when:
+        FieldAccessor.forField(Child, "id").set(new Child(), "five")
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        FieldAccessor.forField(Child, "id").get("not a child")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+}
@@ -0,0 +1,337 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.common.cache.SnapshotCacheManager
+import org.broadleafcommerce.common.event.BroadleafApplicationEventPublisher
+import org.broadleafcommerce.common.event.BroadleafSystemEvent
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject
+import org.broadleafcommerce.openadmin.dto.PersistencePackage
+import org.broadleafcommerce.openadmin.dto.SortDirection
+import org.broadleafcommerce.openadmin.server.security.remote.SecurityVerifier
+import org.broadleafcommerce.openadmin.server.service.persistence.module.BasicPersistenceModule
+import org.broadleafcommerce.openadmin.server.service.persistence.module.CachedRecordCountStrategy
+import org.broadleafcommerce.openadmin.server.service.persistence.module.ExactRecordCountStrategy
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FetchRequest
+import org.broadleafcommerce.openadmin.server.service.persistence.module.HasMoreRecordCountStrategy
+import org.broadleafcommerce.openadmin.server.service.persistence.module.RecordHelper
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.Restriction
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.EqPredicateProvider
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.LikePredicateProvider
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.predicate.PredicateProvider
+import org.broadleafcommerce.openadmin.server.service.type.CountStrategyType
+import org.springframework.context.ApplicationEvent
+
+import spock.lang.Specification
+
+class RecordCountStrategySpec extends Specification {
+
+    static final String CEILING_ENTITY = "org.broadleafcommerce.core.catalog.domain.Product"
+
+    RecordHelper recordHelper = Mock()
+    BroadleafApplicationEventPublisher eventPublisher = Mock()
+    SecurityVerifier adminSecurityService = Mock()
+    SnapshotCacheManager snapshotCacheManager = new SnapshotCacheManager()
+    CachedRecordCountStrategy cachedStrategy = new CachedRecordCountStrategy()
+    List<ApplicationEvent> publishedEvents = []
+
+    def setup() {
+        snapshotCacheManager.eventPublisher = eventPublisher
+        eventPublisher.publishEvent(_) >> { ApplicationEvent event -> publishedEvents.add(event) }
+        cachedStrategy.snapshotCacheManager = snapshotCacheManager
+        cachedStrategy.adminSecurityService = adminSecurityService
+    }
+
+    def "Restrictions in a different order and a different sort share a cached count"() {
+        given:
+        FetchRequest first = countRequest([
+                restriction("name", new LikePredicateProvider(), ["Box"]),
+                restriction("defaultSku.retailPrice", new EqPredicateProvider(), ["10"]),
+                sort("name", SortDirection.ASCENDING)
+        ])
+        FetchRequest second = countRequest([
+                sort("id", SortDirection.DESCENDING),
+                restriction("defaultSku.retailPrice", new EqPredicateProvider(), ["10"]),
+                restriction("name", new LikePredicateProvider(), ["Box"])
+        ])
+
+        when:
+        Integer firstTotal = cachedStrategy.getTotalRecords(recordHelper, first, fullPage())
+        Integer secondTotal = cachedStrategy.getTotalRecords(recordHelper, second, fullPage())
+
+        then:
+        1 * recordHelper.getTotalRecords(first) >> 42
+        0 * recordHelper.getTotalRecords(_)
+        firstTotal == 42
+        secondTotal == 42
+    }
+
+    def "Different restriction values, providers or properties are counted separately"() {
+        expect:
+        cachedStrategy.buildCacheKey(countRequest([restriction("name", new LikePredicateProvider(), ["Box"])])) !=
+                cachedStrategy.buildCacheKey(countRequest([restriction("name", new LikePredicateProvider(), ["Crate"])]))
+        cachedStrategy.buildCacheKey(countRequest([restriction("name", new LikePredicateProvider(), ["Box"])])) !=
+                cachedStrategy.buildCacheKey(countRequest([restriction("name", new EqPredicateProvider(), ["Box"])]))
+        cachedStrategy.buildCacheKey(countRequest([restriction("name", new LikePredicateProvider(), ["Box"])])) !=
+                cachedStrategy.buildCacheKey(countRequest([restriction("url", new LikePredicateProvider(), ["Box"])]))
+        cachedStrategy.buildCacheKey(countRequest([sort("name", SortDirection.ASCENDING)])) ==
+                cachedStrategy.buildCacheKey(countRequest([]))
+    }
+
+    def "Dates are normalized to their time"() {
+        expect:
+        cachedStrategy.buildCacheKey(countRequest([direct("activeStartDate", new EqPredicateProvider(), [new Date(1000L)])])) ==
+                cachedStrategy.buildCacheKey(countRequest([direct("activeStartDate", new EqPredicateProvider(), [new java.sql.Timestamp(1000L)])]))
+    }
+
+    def "Restrictions on values that cannot be described reliably are not cached"() {
+        given:
+        FetchRequest entityValue = countRequest([direct("defaultCategory", new EqPredicateProvider(), [new Object()])])
+
+        when:
+        cachedStrategy.getTotalRecords(recordHelper, entityValue, fullPage())
+        cachedStrategy.getTotalRecords(recordHelper, entityValue, fullPage())
+
+        then:
+        2 * recordHelper.getTotalRecords(entityValue) >> 7
+        cachedStrategy.buildCacheKey(entityValue) == null
+    }
+
+    def "Invalidation is broadcast as a system event that clears the counts of the entity"() {
+        given:
+        FetchRequest request = countRequest([restriction("name", new LikePredicateProvider(), ["Box"])])
+
+        when:
+        cachedStrategy.getTotalRecords(recordHelper, request, fullPage())
+        cachedStrategy.invalidate(CEILING_ENTITY)
+
+        then:
+        1 * recordHelper.getTotalRecords(request) >> 42
+        publishedEvents.size() == 1
+        publishedEvents[0].type == SnapshotCacheManager.INVALIDATION_EVENT_TYPE
+        publishedEvents[0].detailMap.get(SnapshotCacheManager.CACHE_NAME_DETAIL).value ==
+                CachedRecordCountStrategy.CACHE_NAME_PREFIX + CEILING_ENTITY
+
+        when: "the event reaches this node"
+        snapshotCacheManager.onApplicationEvent((BroadleafSystemEvent) publishedEvents[0])
+        Integer total = cachedStrategy.getTotalRecords(recordHelper, request, fullPage())
+
+        then:
+        1 * recordHelper.getTotalRecords(request) >> 43
+        total == 43
+    }
+
+    def "A short page proves the total of an opted in entity without counting"() {
+        given:
+        FetchRequest request = countRequest([], 20, 10)
+
+        when:
+        Integer total = cachedStrategy.getTotalRecords(recordHelper, request, page(4))
+
+        then:
+        0 * recordHelper.getTotalRecords(_)
+        total == 24
+    }
+
+    def "An exact count always goes through the record helper"() {
+        given:
+        FetchRequest request = countRequest([], 20, 10)
+
+        when:
+        Integer total = new ExactRecordCountStrategy().getTotalRecords(recordHelper, request, page(4))
+
+        then:
+        1 * recordHelper.getTotalRecords(request) >> 24
+        total == 24
+    }
+
+    def "Has more fetches a look ahead record, counts it, and trims it from the page"() {
+        given:
+        List<Integer> requestedMaxResults = []
+        BasicPersistenceModule module = new BasicPersistenceModule() {
+            @Override
+            List<Serializable> getPersistentRecords(FetchRequest fetchRequest) {
+                requestedMaxResults.add(fetchRequest.cto.maxResults)
+                return page(fetchRequest.cto.maxResults)
+            }
+        }
+        FetchRequest request = countRequest([], 20, 10)
+
+        when:
+        List<Serializable> records = module.getPersistentRecords(request, CountStrategyType.HAS_MORE)
+        Integer total = new HasMoreRecordCountStrategy().getTotalRecords(module, request, records)
+        List<Serializable> trimmed = module.trimLookAheadRecord(records, request, CountStrategyType.HAS_MORE)
+
+        then:
+        requestedMaxResults == [11]
+        request.cto.maxResults == 10
+        total == 31
+        trimmed == records.subList(0, 10)
+    }
+
+    def "Has more reports the end of the results once the look ahead record is missing"() {
+        given:
+        FetchRequest request = countRequest([], 20, 10)
+        List<Serializable> records = page(6)
+
+        expect:
+        new HasMoreRecordCountStrategy().getTotalRecords(recordHelper, request, records) == 26
+        new BasicPersistenceModule().trimLookAheadRecord(records, request, CountStrategyType.HAS_MORE).is(records)
+    }
+
+    def "Has more seeks forward from the page size that was requested"() {
+        given:
+        List<SeekPosition> seekPositions = []
+        BasicPersistenceModule module = seekingModule(seekPositions, 30)
+        FetchRequest request = countRequest([], 20, 10)
+        request.cto.lastId = 29L
+
+        when:
+        List<Serializable> records = module.getPersistentRecords(request, CountStrategyType.HAS_MORE)
+        Integer total = new HasMoreRecordCountStrategy().getTotalRecords(module, request, records)
+        List<Serializable> trimmed = module.trimLookAheadRecord(records, request, CountStrategyType.HAS_MORE)
+
+        then:
+        seekPositions.size() == 1
+        !seekPositions[0].backward
+        seekPositions[0].fallbackFirstResult == 30
+        total == 41
+        trimmed == page(30, 10)
+    }
+
+    def "Has more trims the look ahead record from the front of a page sought backward"() {
+        given:
+        List<SeekPosition> seekPositions = []
+        BasicPersistenceModule module = seekingModule(seekPositions, 9)
+        FetchRequest request = countRequest([], 20, 10)
+        request.cto.firstId = 20L
+
+        when:
+        List<Serializable> records = module.getPersistentRecords(request, CountStrategyType.HAS_MORE)
+        Integer total = new HasMoreRecordCountStrategy().getTotalRecords(module, request, records)
+        List<Serializable> trimmed = module.trimLookAheadRecord(records, request, CountStrategyType.HAS_MORE)
+
+        then:
+        seekPositions.size() == 1
+        seekPositions[0].backward
+        seekPositions[0].fallbackFirstResult == 10
+        total == 21
+        trimmed == page(10, 10)
+    }
+
+    def "Has more trims from the end when a backward seek falls back to offset paging"() {
+        given:
+        BasicPersistenceModule module = new BasicPersistenceModule() {
+            @Override
+            List<Serializable> getPersistentRecords(FetchRequest fetchRequest) {
+                return page(10, fetchRequest.cto.maxResults)
+            }
+        }
+        FetchRequest request = countRequest([], 20, 10)
+        request.cto.firstId = 20L
+
+        when:
+        List<Serializable> records = module.getPersistentRecords(request, CountStrategyType.HAS_MORE)
+
+        then:
+        module.trimLookAheadRecord(records, request, CountStrategyType.HAS_MORE) == page(10, 10)
+    }
+
+    def "Other strategies do not look ahead"() {
+        given:
+        List<Integer> requestedMaxResults = []
+        BasicPersistenceModule module = new BasicPersistenceModule() {
+            @Override
+            List<Serializable> getPersistentRecords(FetchRequest fetchRequest) {
+                requestedMaxResults.add(fetchRequest.cto.maxResults)
+                return page(fetchRequest.cto.maxResults)
+            }
+        }
+        FetchRequest request = countRequest([], 0, 10)
+
+        when:
+        List<Serializable> records = module.getPersistentRecords(request, CountStrategyType.CACHED)
+
+        then:
+        requestedMaxResults == [10]
+        module.trimLookAheadRecord(records, request, CountStrategyType.CACHED).size() == 10
+    }
+
+    protected FetchRequest countRequest(List<FilterMapping> filterMappings, Integer firstResult = 0, Integer maxResults = 10) {
+        PersistencePackage persistencePackage = new PersistencePackage()
+        persistencePackage.ceilingEntityFullyQualifiedClassname = CEILING_ENTITY
+        CriteriaTransferObject cto = new CriteriaTransferObject()
+        cto.firstResult = firstResult
+        cto.maxResults = maxResults
+        return new FetchRequest(persistencePackage, cto, CEILING_ENTITY, filterMappings)
+    }
+
+    protected FilterMapping restriction(String property, PredicateProvider predicateProvider, List<String> values) {
+        return new FilterMapping()
+                .withFullPropertyName(property)
+                .withFilterValues(values)
+                .withRestriction(new Restriction().withPredicateProvider(predicateProvider))
+    }
+
+    protected FilterMapping direct(String property, PredicateProvider predicateProvider, List values) {
+        return new FilterMapping()
+                .withFullPropertyName(property)
+                .withDirectFilterValues(values)
+                .withRestriction(new Restriction().withPredicateProvider(predicateProvider))
+    }
+
+    protected FilterMapping sort(String property, SortDirection sortDirection) {
+        return new FilterMapping()
+                .withFullPropertyName(property)
+                .withSortDirection(sortDirection)
+    }
+
+    protected List<Serializable> fullPage() {
+        return page(10)
+    }
+
+    protected List<Serializable> page(int size) {
+        return page(0, size)
+    }
+
+    protected List<Serializable> page(long firstId, int size) {
+        List<Serializable> records = []
+        for (long i = firstId; i < firstId + size; i++) {
+            records.add(i)
+        }
+        return records
+    }
+
+    /**
+     * A module whose fetch applies the seek position of the request and returns the records from the given id in the
+     * regular sort order, the way the criteria translator leaves them
+     */
+    protected BasicPersistenceModule seekingModule(List<SeekPosition> seekPositions, long firstId) {
+        return new BasicPersistenceModule() {
+            @Override
+            List<Serializable> getPersistentRecords(FetchRequest fetchRequest) {
+                fetchRequest.seekPosition.applied = true
+                seekPositions.add(fetchRequest.seekPosition)
+                return page(firstId, fetchRequest.cto.maxResults)
+            }
+        }
+    }
+
+}
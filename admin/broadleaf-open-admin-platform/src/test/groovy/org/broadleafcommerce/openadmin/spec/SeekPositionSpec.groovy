@@ -0,0 +1,241 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject
+import org.broadleafcommerce.openadmin.dto.SortDirection
+import org.broadleafcommerce.openadmin.server.dao.DynamicEntityDao
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.CriteriaTranslatorImpl
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.FilterMapping
+import org.broadleafcommerce.openadmin.server.service.persistence.module.criteria.SeekPosition
+import org.hibernate.type.LongType
+
+import javax.persistence.criteria.CriteriaBuilder
+import javax.persistence.criteria.Order as SortOrder
+import javax.persistence.criteria.Path
+import javax.persistence.criteria.Predicate
+import javax.persistence.criteria.Root
+import javax.persistence.metamodel.EntityType
+import javax.persistence.metamodel.SingularAttribute
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class SeekPositionSpec extends Specification {
+
+    CriteriaTranslatorImpl translator = new CriteriaTranslatorImpl()
+    DynamicEntityDao dynamicEntityDao = Mock()
+    CriteriaBuilder criteriaBuilder = Mock()
+    Root<Serializable> root = Mock()
+    EntityType<Serializable> model = Mock()
+    Path<Comparable> idPath = Mock()
+    Path<Comparable> sortPath = Mock()
+    SingularAttribute<Serializable, Date> sortAttribute = Mock()
+
+    def setup() {
+        dynamicEntityDao.getIdMetadata(_) >> [name: "id", type: LongType.INSTANCE]
+        root.get("id") >> idPath
+        root.get("dateCreated") >> sortPath
+        root.getModel() >> model
+        model.getAttribute("dateCreated") >> sortAttribute
+        idPath.getJavaType() >> Long
+        sortPath.getJavaType() >> Date
+        sortAttribute.getJavaType() >> Date
+        sortAttribute.isOptional() >> false
+    }
+
+    @Unroll
+    def "A #type.simpleName sort value survives formatting and parsing"() {
+        when:
+        String formatted = SeekPosition.formatSortValue(value)
+
+        then:
+        SeekPosition.isSeekableType(type)
+        new SeekPosition().withSortValue(formatted).parseSortValue(type) == value
+
+        where:
+        type       | value
+        Date       | new Date(1234567890123L)
+        Long       | 9007199254740993L
+        Integer    | 42
+        BigDecimal | new BigDecimal("12.3400")
+    }
+
+    def "Sort values of other types are not formatted and unparseable values are ignored"() {
+        expect:
+        SeekPosition.formatSortValue("abc") == null
+        !SeekPosition.isSeekableType(String)
+        new SeekPosition().withSortValue("abc").parseSortValue(Long) == null
+        new SeekPosition().parseSortValue(Long) == null
+    }
+
+    def "The fallback offset of the next page follows the current page"() {
+        given: "the second page of 50 records is displayed"
+        CriteriaTransferObject cto = new CriteriaTransferObject()
+        cto.setFirstResult(50)
+        cto.setMaxResults(50)
+        cto.setLowerCount(51)
+        cto.setUpperCount(1000)
+        cto.setLastId(100L)
+        cto.setLastSortValue("5")
+
+        when:
+        SeekPosition position = SeekPosition.fromCriteria(cto)
+
+        then:
+        !position.backward
+        position.id == 100L
+        position.sortValue == "5"
+        position.fallbackFirstResult == 100
+    }
+
+    def "The fallback offset of the previous page precedes the current page"() {
+        given:
+        CriteriaTransferObject cto = new CriteriaTransferObject()
+        cto.setFirstResult(firstResult)
+        cto.setMaxResults(50)
+        cto.setFirstId(7L)
+
+        expect:
+        SeekPosition.fromCriteria(cto).backward
+        SeekPosition.fromCriteria(cto).fallbackFirstResult == expected
+
+        where:
+        firstResult | expected
+        100         | 50
+        30          | 0
+        null        | 0
+    }
+
+    def "A request that does not page from a previous page has no seek position"() {
+        expect:
+        SeekPosition.fromCriteria(new CriteriaTransferObject()) == null
+        SeekPosition.fromCriteria(null) == null
+    }
+
+    def "Paging by primary key seeks past the last id"() {
+        given:
+        SeekPosition position = new SeekPosition().withId(100L)
+        List<Predicate> restrictions = []
+        List<SortOrder> sorts = []
+        Predicate beyond = Mock()
+        SortOrder idOrder = Mock()
+
+        when:
+        boolean applied = translator.addSeekRestriction(dynamicEntityDao, Serializable, [], criteriaBuilder, root,
+                restrictions, sorts, position)
+
+        then:
+        1 * criteriaBuilder.greaterThan(idPath, 100L) >> beyond
+        1 * criteriaBuilder.asc(idPath) >> idOrder
+        applied
+        position.applied
+        restrictions == [beyond]
+        sorts == [idOrder]
+    }
+
+    def "Paging by a sort property seeks past the last sort value and breaks ties on the id"() {
+        given:
+        Date lastDate = new Date(1000L)
+        SeekPosition position = new SeekPosition().withId(100L).withSortValue("1000")
+        FilterMapping sortMapping = new FilterMapping().withFullPropertyName("dateCreated")
+                .withSortDirection(SortDirection.ASCENDING)
+        List<Predicate> restrictions = []
+        List<SortOrder> sorts = [Mock(SortOrder)]
+        Predicate beyond = Mock()
+        Predicate sameSort = Mock()
+        Predicate idBeyond = Mock()
+        Predicate tie = Mock()
+        Predicate seek = Mock()
+        SortOrder sortOrder = Mock()
+        SortOrder idOrder = Mock()
+
+        when:
+        boolean applied = translator.addSeekRestriction(dynamicEntityDao, Serializable, [sortMapping], criteriaBuilder,
+                root, restrictions, sorts, position)
+
+        then:
+        1 * criteriaBuilder.greaterThan(sortPath, lastDate) >> beyond
+        1 * criteriaBuilder.equal(sortPath, lastDate) >> sameSort
+        1 * criteriaBuilder.greaterThan(idPath, 100L) >> idBeyond
+        1 * criteriaBuilder.and(sameSort, idBeyond) >> tie
+        1 * criteriaBuilder.or(beyond, tie) >> seek
+        1 * criteriaBuilder.asc(sortPath) >> sortOrder
+        1 * criteriaBuilder.asc(idPath) >> idOrder
+        applied
+        restrictions == [seek]
+        sorts == [sortOrder, idOrder]
+    }
+
+    def "Paging backward from a descending sort seeks forward in reverse order"() {
+        given:
+        Date firstDate = new Date(1000L)
+        SeekPosition position = new SeekPosition().withId(100L).withSortValue("1000").withBackward(true)
+        FilterMapping sortMapping = new FilterMapping().withFullPropertyName("dateCreated")
+                .withSortDirection(SortDirection.DESCENDING)
+        List<Predicate> restrictions = []
+        List<SortOrder> sorts = [Mock(SortOrder)]
+
+        when:
+        boolean applied = translator.addSeekRestriction(dynamicEntityDao, Serializable, [sortMapping], criteriaBuilder,
+                root, restrictions, sorts, position)
+
+        then:
+        1 * criteriaBuilder.greaterThan(sortPath, firstDate)
+        1 * criteriaBuilder.greaterThan(idPath, 100L)
+        0 * criteriaBuilder.lessThan(_, _)
+        1 * criteriaBuilder.asc(sortPath)
+        1 * criteriaBuilder.asc(idPath)
+        applied
+    }
+
+    def "A sort on an optional property falls back to offset paging"() {
+        given:
+        SeekPosition position = new SeekPosition().withId(100L).withSortValue("1000")
+        FilterMapping sortMapping = new FilterMapping().withFullPropertyName("dateCreated")
+                .withSortDirection(SortDirection.ASCENDING)
+        List<SortOrder> sorts = [Mock(SortOrder)]
+
+        when:
+        boolean applied = translator.addSeekRestriction(dynamicEntityDao, Serializable, [sortMapping], criteriaBuilder,
+                root, [], sorts, position)
+
+        then:
+        sortAttribute.isOptional() >> true
+        !applied
+        !position.applied
+        sorts.size() == 1
+    }
+
+    def "Offset paged queries on a seekable sort break ties on the id"() {
+        given:
+        FilterMapping sortMapping = new FilterMapping().withFullPropertyName("dateCreated")
+                .withSortDirection(SortDirection.DESCENDING)
+        SortOrder sortOrder = Mock()
+        SortOrder idOrder = Mock()
+        List<SortOrder> sorts = [sortOrder]
+
+        when:
+        translator.addIdTieBreaker(dynamicEntityDao, Serializable, [sortMapping], criteriaBuilder, root, sorts)
+
+        then:
+        1 * criteriaBuilder.desc(idPath) >> idOrder
+        sorts == [sortOrder, idOrder]
+    }
+
+}
@@ -0,0 +1,157 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.spec
+
+import org.broadleafcommerce.common.presentation.client.VisibilityEnum
+import org.broadleafcommerce.common.security.service.ExploitProtectionService
+import org.broadleafcommerce.openadmin.dto.BasicFieldMetadata
+import org.broadleafcommerce.openadmin.dto.CriteriaTransferObject
+import org.broadleafcommerce.openadmin.dto.FieldMetadata
+import org.broadleafcommerce.openadmin.dto.SortDirection
+import org.broadleafcommerce.openadmin.server.service.export.EntityExportWriter
+import org.broadleafcommerce.openadmin.server.service.export.StreamingEntityExporter
+import org.broadleafcommerce.openadmin.server.service.persistence.module.FieldManager
+import org.hibernate.ScrollableResults
+
+import javax.persistence.EntityManager
+
+import spock.lang.Specification
+
+class StreamingEntityExporterSpec extends Specification {
+
+    ExploitProtectionService exploitProtectionService = Mock()
+    StreamingEntityExporter exporter = new StreamingEntityExporter() {
+        @Override
+        protected Object getExportValue(FieldManager fieldManager, Object row, String field) {
+            return ((Map) row).get(field)
+        }
+    }
+
+    def setup() {
+        exporter.exploitProtectionService = exploitProtectionService
+        exploitProtectionService.cleanString(_) >> { String value -> value }
+    }
+
+    def "Request parameters become filters like the list grid filter parameters"() {
+        when:
+        CriteriaTransferObject cto = exporter.buildCriteriaTransferObject([
+                "name"        : "Box|Crate",
+                "description" : "100%",
+                "empty"       : "",
+                "exporter"    : "skuCsvExport",
+                "startIndex"  : "0",
+                "maxIndex"    : "50",
+                "sortProperty": "dateCreated",
+                "sortDirection": "DESCENDING"
+        ])
+
+        then:
+        cto.criteriaMap.keySet() == ["name", "description", "dateCreated"] as Set
+        cto.get("name").filterValues == ["Box", "Crate"]
+        cto.get("description").filterValues == ["100\\%"]
+        cto.get("dateCreated").sortDirection == SortDirection.DESCENDING
+        cto.get("dateCreated").order == Integer.MIN_VALUE
+    }
+
+    def "The sort of a filtered property defaults to ascending"() {
+        when:
+        CriteriaTransferObject cto = exporter.buildCriteriaTransferObject(["name": "Box", "sortProperty": "name"])
+
+        then:
+        cto.get("name").filterValues == ["Box"]
+        cto.get("name").sortDirection == SortDirection.ASCENDING
+    }
+
+    def "Without parameters nothing is filtered"() {
+        expect:
+        exporter.buildCriteriaTransferObject(null).criteriaMap.isEmpty()
+        exporter.buildCriteriaTransferObject([:]).criteriaMap.isEmpty()
+    }
+
+    def "The list grid fields are exported in grid order"() {
+        setup:
+        Map<String, FieldMetadata> mergedProperties = new LinkedHashMap<>()
+        mergedProperties.put("description", gridField(true, 3, null, false))
+        mergedProperties.put("name", gridField(true, 1, null, false))
+        mergedProperties.put("id", gridField(true, null, null, false))
+        mergedProperties.put("notProminent", gridField(false, 2, null, false))
+        mergedProperties.put("gridHidden", gridField(true, 2, VisibilityEnum.GRID_HIDDEN, false))
+        mergedProperties.put("hiddenAll", gridField(true, 2, VisibilityEnum.HIDDEN_ALL, false))
+        mergedProperties.put("excluded", gridField(true, 2, null, true))
+
+        expect:
+        exporter.getExportFields(mergedProperties) == ["name", "description", "id"]
+    }
+
+    def "Configured fields replace the list grid fields"() {
+        setup:
+        exporter.setFields(["defaultSku.retailPrice", "name"])
+
+        expect:
+        exporter.getExportFields(["name": gridField(true, 1, null, false)]) == ["defaultSku.retailPrice", "name"]
+    }
+
+    def "The persistence context is cleared and the output flushed every clear interval rows"() {
+        setup:
+        exporter.clearInterval = 2
+        List<Map> rows = (1..5).collect { [id: it, name: "Item " + it] }
+        int position = -1
+        ScrollableResults results = Mock()
+        results.next() >> { ++position < rows.size() }
+        results.get(0) >> { rows[position] }
+        EntityManager entityManager = Mock()
+        EntityExportWriter writer = Mock()
+
+        when:
+        long count = exporter.writeRows(results, ["name", "id"], null, entityManager, writer)
+
+        then:
+        count == 5
+        1 * writer.writeRow(["Item 1", 1])
+
+        then:
+        1 * writer.writeRow(["Item 2", 2])
+
+        then:
+        1 * entityManager.clear()
+        1 * writer.flush()
+
+        then:
+        1 * writer.writeRow(["Item 3", 3])
+        1 * writer.writeRow(["Item 4", 4])
+
+        then:
+        1 * entityManager.clear()
+        1 * writer.flush()
+
+        then:
+        1 * writer.writeRow(["Item 5", 5])
+        0 * entityManager.clear()
+        0 * writer.flush()
+    }
+
+    protected BasicFieldMetadata gridField(boolean prominent, Integer gridOrder, VisibilityEnum visibility, boolean excluded) {
+        BasicFieldMetadata metadata = new BasicFieldMetadata()
+        metadata.setProminent(prominent)
+        metadata.setGridOrder(gridOrder)
+        metadata.setVisibility(visibility)
+        metadata.setExcluded(excluded)
+        return metadata
+    }
+
+}
@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * BroadleafCommerce Open Admin Platform
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.openadmin.server.service.persistence.module;
+
+import org.broadleafcommerce.common.util.BLCFieldUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Compares reading and writing a field through a {@link FieldAccessor} with the reflective access that
+ * {@link FieldManager} used before, both looking the {@link Field} up on every call and holding on to it. This is not
+ * part of the test suite since the timings depend on the machine. Run it as a java main application.
+ */
+public class FieldAccessorTimingHarness {
+
+    protected static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        TimedBean bean = new TimedBean();
+        for (int round = 1; round <= rounds; round++) {
+            // the first rounds mostly measure warm up, so compare the last ones
+            long lookup = time(iterations, bean, new ReflectiveLookupAccess());
+            long cachedField = time(iterations, bean, new CachedFieldAccess());
+            long accessor = time(iterations, bean, new AccessorAccess());
+            System.out.println(String.format("round %s: field lookup %sns/op, cached field %sns/op, field accessor %sns/op",
+                    round, perOperation(lookup, iterations), perOperation(cachedField, iterations),
+                    perOperation(accessor, iterations)));
+        }
+    }
+
+    protected static long time(int iterations, TimedBean bean, Access access) throws Exception {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Object name = access.get(bean, "name");
+            access.set(bean, "quantity", i);
+            sink = name;
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    protected static String perOperation(long elapsedNanos, int iterations) {
+        // each iteration reads one field and writes another
+        return String.format("%.1f", (double) elapsedNanos / (iterations * 2L));
+    }
+
+    protected interface Access {
+
+        Object get(Object bean, String fieldName) throws Exception;
+
+        void set(Object bean, String fieldName, Object value) throws Exception;
+    }
+
+    /**
+     * Looks the field up on every call, as {@link FieldManager} did before it used {@link FieldAccessor}
+     */
+    protected static class ReflectiveLookupAccess implements Access {
+
+        @Override
+        public Object get(Object bean, String fieldName) throws Exception {
+            Field field = BLCFieldUtils.getSingleField(bean.getClass(), fieldName);
+            field.setAccessible(true);
+            return field.get(bean);
+        }
+
+        @Override
+        public void set(Object bean, String fieldName, Object value) throws Exception {
+            Field field = BLCFieldUtils.getSingleField(bean.getClass(), fieldName);
+            field.setAccessible(true);
+            field.set(bean, value);
+        }
+    }
+
+    /**
+     * Reflective access through fields resolved once, to separate the cost of the lookup from that of the access
+     */
+    protected static class CachedFieldAccess implements Access {
+
+        protected final Field nameField;
+        protected final Field quantityField;
+
+        public CachedFieldAccess() {
+            nameField = BLCFieldUtils.getSingleField(TimedBean.class, "name");
+            nameField.setAccessible(true);
+            quantityField = BLCFieldUtils.getSingleField(TimedBean.class, "quantity");
+            quantityField.setAccessible(true);
+        }
+
+        @Override
+        public Object get(Object bean, String fieldName) throws Exception {
+            return ("name".equals(fieldName) ? nameField : quantityField).get(bean);
+        }
+
+        @Override
+        public void set(Object bean, String fieldName, Object value) throws Exception {
+            ("name".equals(fieldName) ? nameField : quantityField).set(bean, value);
+        }
+    }
+
+    protected static class AccessorAccess implements Access {
+
+        @Override
+        public Object get(Object bean, String fieldName) {
+            return FieldAccessor.forField(bean.getClass(), fieldName).get(bean);
+        }
+
+        @Override
+        public void set(Object bean, String fieldName, Object value) throws Exception {
+            FieldAccessor.forField(bean.getClass(), fieldName).set(bean, value);
+        }
+    }
+
+    protected static class TimedBaseBean {
+
+        protected Long id = 1L;
+    }
+
+    /**
+     * The fields are declared on a subclass, so that the lookup has a class hierarchy to walk
+     */
+    protected static class TimedBean extends TimedBaseBean {
+
+        protected String name = "timed";
+        protected int quantity;
+    }
+
+}
@@ -19,48 +19,92 @@ package org.broadleafcommerce.common.cache;
 
 import java.math.BigDecimal;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.broadleafcommerce.common.time.SystemTime;
 
 /**
+ * Hit and request counts for a cache. Counters are striped {@link LongAdder}s so that concurrent updates from many
+ * threads do not contend on a single memory location. Besides the totals since startup, the counts of the last
+ * completed window (see {@link #rollWindow(long, long)}) are kept so that a recent change in hit rate is not hidden by
+ * a long history.
+ *
  * @author Jeff Fischer
  */
 public class CacheStat {
 
-    protected AtomicLong requestCount = new AtomicLong(0L);
-    protected AtomicLong cacheHitCount = new AtomicLong(0L);
-    protected Long lastLogTime = SystemTime.asMillis(true);
+    protected LongAdder requestCount = new LongAdder();
+    protected LongAdder cacheHitCount = new LongAdder();
+    protected LongAdder windowRequestCount = new LongAdder();
+    protected LongAdder windowHitCount = new LongAdder();
+    protected volatile long lastWindowRequestCount = 0L;
+    protected volatile long lastWindowHitCount = 0L;
+    protected AtomicLong lastLogTime = new AtomicLong(SystemTime.asMillis(true));
 
     public Long getCacheHitCount() {
-        return cacheHitCount.longValue();
+        return cacheHitCount.sum();
     }
 
     public Long getLastLogTime() {
-        return lastLogTime;
+        return lastLogTime.get();
     }
 
-    public synchronized void setLastLogTime(Long lastLogTime) {
-        this.lastLogTime = lastLogTime;
+    public void setLastLogTime(Long lastLogTime) {
+        this.lastLogTime.set(lastLogTime);
     }
 
     public Long getRequestCount() {
-        return requestCount.longValue();
+        return requestCount.sum();
     }
 
     public void incrementRequest() {
-        requestCount.incrementAndGet();
+        requestCount.increment();
+        windowRequestCount.increment();
     }
 
     public void incrementHit() {
-        cacheHitCount.incrementAndGet();
+        cacheHitCount.increment();
+        windowHitCount.increment();
+    }
+
+    /**
+     * Closes the current window if it is older than the resolution. Only one of the threads that call this
+     * concurrently closes a given window.
+     *
+     * @return whether this call closed the window
+     */
+    public boolean rollWindow(long now, long resolution) {
+        long last = lastLogTime.get();
+        if (last + resolution >= now || !lastLogTime.compareAndSet(last, now)) {
+            return false;
+        }
+        lastWindowHitCount = windowHitCount.sumThenReset();
+        lastWindowRequestCount = windowRequestCount.sumThenReset();
+        return true;
+    }
+
+    public Long getWindowRequestCount() {
+        return lastWindowRequestCount;
     }
 
     public BigDecimal getHitRate() {
-        if (getRequestCount() == 0) {
+        return hitRate(getCacheHitCount(), getRequestCount());
+    }
+
+    /**
+     * @return the hit rate of the last completed window
+     */
+    public BigDecimal getWindowHitRate() {
+        return hitRate(lastWindowHitCount, lastWindowRequestCount);
+    }
+
+    protected BigDecimal hitRate(long hits, long requests) {
+        if (requests == 0) {
             return new BigDecimal(-1);
         }
-        BigDecimal percentage = new BigDecimal(getCacheHitCount()).divide(new BigDecimal(getRequestCount
-                ()), 2, BigDecimal.ROUND_HALF_UP);
+        // the counters are read one after the other, so a hit may be seen before its request
+        hits = Math.min(hits, requests);
+        BigDecimal percentage = new BigDecimal(hits).divide(new BigDecimal(requests), 2, BigDecimal.ROUND_HALF_UP);
         percentage = percentage.multiply(new BigDecimal(100)).setScale(2, BigDecimal.ROUND_HALF_UP);
         return percentage;
     }
@@ -23,6 +23,9 @@ package org.broadleafcommerce.common.cache;
 public enum CacheStatType {
     PAGE_CACHE_HIT_RATE,
     STRUCTURED_CONTENT_CACHE_HIT_RATE,
+    STRUCTURED_CONTENT_CACHE_COALESCED_MISS_RATE,
+    STRUCTURED_CONTENT_CACHE_EMPTY_HIT_RATE,
+    STRUCTURED_CONTENT_CACHE_EARLY_REFRESH_RATE,
     URL_HANDLER_CACHE_HIT_RATE,
     PRODUCT_URL_MISSING_CACHE_HIT_RATE,
     CATEGORY_URL_MISSING_CACHE_HIT_RATE,
@@ -0,0 +1,254 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.cache.Cache;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ExpiryPolicy;
+
+/**
+ * Loads values into a cache region so that concurrent misses for the same key only run the load once.
+ * <p>
+ * The first thread to miss a key loads it; threads that miss the same key while that load is running wait for its
+ * result instead of running the same query (a cache stampede). Values are stored in the cache as they are, so other
+ * readers of the region are unaffected. Empty collections are cached like any other value, so keys without content do
+ * not go back to the database on every request.
+ * <p>
+ * When the region's time to live is known, a key can also be refreshed shortly before it expires, with a probability
+ * that rises as expiry gets closer and as the load gets more expensive ("XFetch"). A single thread performs the
+ * refresh while the others keep being served the current value, so a popular key never expires under load.
+ * <p>
+ * Coalesced misses, hits on empty results and early refreshes are reported through the {@link StatisticsService} under
+ * the given {@link CacheStatType}s.
+ */
+public class CoalescingCacheLoader {
+
+    protected final StatisticsService statisticsService;
+    protected final CacheStatType coalescedMissStat;
+    protected final CacheStatType emptyHitStat;
+    protected final CacheStatType earlyRefreshStat;
+
+    protected final ConcurrentMap<Object, PendingLoad> inFlight = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<Object, LoadInfo> loadInfo = new ConcurrentHashMap<>();
+
+    protected volatile long timeToLiveMillis = -1L;
+    protected double earlyRefreshBeta = 1.0D;
+    protected int maxTrackedKeys = 10000;
+
+    public CoalescingCacheLoader(StatisticsService statisticsService, CacheStatType coalescedMissStat,
+                                 CacheStatType emptyHitStat, CacheStatType earlyRefreshStat) {
+        this.statisticsService = statisticsService;
+        this.coalescedMissStat = coalescedMissStat;
+        this.emptyHitStat = emptyHitStat;
+        this.earlyRefreshStat = earlyRefreshStat;
+    }
+
+    /**
+     * @param key the cache key
+     * @param cached the value currently in the cache for the key, or null on a miss
+     * @param loader produces the value on a miss; it runs on the calling thread
+     * @param store puts a loaded value into the cache
+     * @return the cached or loaded value
+     */
+    public <V> V get(Object key, V cached, Supplier<V> loader, Consumer<V> store) {
+        if (cached != null) {
+            boolean refresh = shouldRefreshEarly(key);
+            addStat(earlyRefreshStat, refresh);
+            if (!refresh) {
+                addStat(emptyHitStat, isEmpty(cached));
+                return cached;
+            }
+            PendingLoad refreshing = new PendingLoad();
+            if (inFlight.putIfAbsent(key, refreshing) != null) {
+                // another thread is already refreshing the key, keep serving the current value
+                return cached;
+            }
+            return load(key, loader, store, refreshing);
+        }
+
+        PendingLoad mine = new PendingLoad();
+        PendingLoad existing = inFlight.putIfAbsent(key, mine);
+        addStat(coalescedMissStat, existing != null);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread()) {
+                // the key is requested again while this thread is loading it, waiting would never finish
+                return loader.get();
+            }
+            return await(existing);
+        }
+        return load(key, loader, store, mine);
+    }
+
+    protected <V> V load(Object key, Supplier<V> loader, Consumer<V> store, PendingLoad future) {
+        try {
+            long start = System.nanoTime();
+            V value = loader.get();
+            if (value != null) {
+                store.accept(value);
+                recordLoad(key, System.nanoTime() - start);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <V> V await(PendingLoad future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return (V) future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new CompletionException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * XFetch: refresh when {@code now - loadTime * beta * ln(random)} is past the expiry of the entry
+     */
+    protected boolean shouldRefreshEarly(Object key) {
+        long ttl = timeToLiveMillis;
+        if (ttl <= 0 || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        LoadInfo info = loadInfo.get(key);
+        if (info == null) {
+            return false;
+        }
+        double loadMillis = info.loadNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        double gap = -loadMillis * earlyRefreshBeta * Math.log(ThreadLocalRandom.current().nextDouble(Double.MIN_VALUE, 1D));
+        return System.currentTimeMillis() + gap >= info.loadedAtMillis + ttl;
+    }
+
+    protected void recordLoad(Object key, long loadNanos) {
+        if (timeToLiveMillis <= 0) {
+            return;
+        }
+        if (loadInfo.size() >= maxTrackedKeys) {
+            // entries evicted from the cache leave their load info behind, so start over rather than grow
+            loadInfo.clear();
+        }
+        loadInfo.put(key, new LoadInfo(System.currentTimeMillis(), loadNanos));
+    }
+
+    /**
+     * Forgets the load time of the key, for example because it was removed from the cache
+     */
+    public void invalidate(Object key) {
+        loadInfo.remove(key);
+    }
+
+    public void invalidateAll() {
+        loadInfo.clear();
+    }
+
+    protected boolean isEmpty(Object value) {
+        return value instanceof Collection && ((Collection<?>) value).isEmpty();
+    }
+
+    protected void addStat(CacheStatType type, boolean isHit) {
+        if (statisticsService != null && type != null) {
+            statisticsService.addCacheStat(type.toString(), isHit);
+        }
+    }
+
+    /**
+     * Reads the time to live that entries get on creation from the region's expiry policy
+     *
+     * @return the time to live in milliseconds, or -1 if the region does not expose it or entries do not expire
+     */
+    @SuppressWarnings("unchecked")
+    public static long resolveTimeToLiveMillis(Cache cache) {
+        try {
+            CompleteConfiguration<?, ?> configuration = (CompleteConfiguration<?, ?>) cache.getConfiguration(CompleteConfiguration.class);
+            ExpiryPolicy policy = configuration.getExpiryPolicyFactory().create();
+            Duration duration = policy.getExpiryForCreation();
+            if (duration == null || duration.isEternal() || duration.isZero()) {
+                return -1L;
+            }
+            return duration.getTimeUnit().toMillis(duration.getDurationAmount());
+        } catch (RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    public void setTimeToLiveMillis(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public void setEarlyRefreshBeta(double earlyRefreshBeta) {
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    public void setMaxTrackedKeys(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    protected static class PendingLoad extends CompletableFuture<Object> {
+
+        protected final Thread owner = Thread.currentThread();
+    }
+
+    protected static class LoadInfo {
+
+        protected final long loadedAtMillis;
+        protected final long loadNanos;
+
+        public LoadInfo(long loadedAtMillis, long loadNanos) {
+            this.loadedAtMillis = loadedAtMillis;
+            this.loadNanos = loadNanos;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed size, lock free histogram of non-negative long values, such as durations in nanoseconds or allocated bytes.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two range is split into {@value #SUB_BUCKET_COUNT} equal
+ * sub-buckets, so a recorded value is known to within about 6% of its magnitude across the whole range of a long, while
+ * the histogram itself stays at a constant few kilobytes. Recording is a handful of atomic increments and never blocks;
+ * percentiles are computed from a racy but consistent-enough pass over the buckets, which is fine for monitoring.
+ */
+public class HistogramStat {
+
+    protected static final int SUB_BUCKET_BITS = 4;
+    protected static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    protected static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    protected final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    protected final LongAdder count = new LongAdder();
+    protected final LongAdder total = new LongAdder();
+    protected final AtomicLong max = new AtomicLong(0L);
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0D : (double) total.sum() / n;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value that is equivalent (falls in the same bucket) to the value at the given percentile, or
+     * 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(100D, Math.max(0D, percentile)) / 100D * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Adds everything recorded in the other histogram to this one
+     */
+    public void add(HistogramStat other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucket = other.buckets.get(i);
+            if (bucket != 0) {
+                buckets.addAndGet(i, bucket);
+            }
+        }
+        count.add(other.count.sum());
+        total.add(other.total.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        total.reset();
+        max.set(0L);
+    }
+
+    protected static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    protected static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowerBound = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,195 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-mostly cache tier that serves lookups from an immutable map. Writers build a new map and swap it in atomically,
+ * so a lookup is a volatile read followed by a hash probe, with no locking, key boxing or value copying.
+ * <p>
+ * This is meant to sit in front of a regular cache region for small sets of values that are read on every request and
+ * rarely change, such as system properties and data driven enumerations. Every write copies the current map, so it
+ * should not be used for large or frequently changing data.
+ * <p>
+ * Each removal or clear starts a new generation. A caller that loads a value after a miss should capture
+ * {@link #getGeneration()} before the load and pass it to {@link #put(Object, Object, long)}; the value is then
+ * discarded if the snapshot was invalidated while it was being loaded, so a stale value is never published over an
+ * invalidation. The whole snapshot is dropped once it is older than the time to live, which bounds how long a node
+ * that missed an invalidation can serve stale values. A value copied from another cache tier can also be given its own
+ * expiry with {@link #put(Object, Object, long, long)}, so that it does not outlive the entry it was copied from.
+ *
+ * @see SnapshotCacheManager
+ */
+public class SnapshotCache<K, V> {
+
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    protected final String name;
+    protected final int maxEntries;
+    protected final long timeToLiveMillis;
+
+    protected volatile Snapshot<K, V> snapshot;
+
+    /**
+     * @param name the name used to address the cache in invalidation events
+     * @param maxEntries once reached, the next write starts over from an empty snapshot
+     * @param timeToLiveMillis the maximum age of the snapshot, or a value less than or equal to 0 for no limit
+     */
+    public SnapshotCache(String name, int maxEntries, long timeToLiveMillis) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.snapshot = new Snapshot<>(Collections.<K, Entry<V>>emptyMap(), currentTimeMillis(), 0L);
+    }
+
+    /**
+     * @return the value for the key, or null if it is not in the current snapshot
+     */
+    public V get(K key) {
+        Snapshot<K, V> current = snapshot;
+        if (isExpired(current)) {
+            return null;
+        }
+        Entry<V> entry = current.entries.get(key);
+        if (entry == null || (entry.expires != NO_EXPIRY && currentTimeMillis() >= entry.expires)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @return the current generation, to be passed to {@link #put(Object, Object, long)} after loading a missing value
+     */
+    public long getGeneration() {
+        return snapshot.generation;
+    }
+
+    /**
+     * Adds the value to the snapshot, unless the snapshot was invalidated since the given generation was read.
+     *
+     * @return whether the value was added
+     */
+    public boolean put(K key, V value, long expectedGeneration) {
+        return put(key, value, expectedGeneration, NO_EXPIRY);
+    }
+
+    /**
+     * Adds the value to the snapshot until the given time, unless the snapshot was invalidated since the given
+     * generation was read. The value is never served beyond the time to live of the snapshot either.
+     *
+     * @param expires the time in milliseconds at which the value expires, or {@link #NO_EXPIRY}
+     * @return whether the value was added, which is never the case for a value that has already expired
+     */
+    public boolean put(K key, V value, long expectedGeneration, long expires) {
+        if (key == null || value == null || (expires != NO_EXPIRY && currentTimeMillis() >= expires)) {
+            return false;
+        }
+        return putEntries(Collections.singletonMap(key, new Entry<>(value, expires)), expectedGeneration);
+    }
+
+    /**
+     * Adds all of the values to the snapshot in a single swap, unless the snapshot was invalidated since the given
+     * generation was read.
+     *
+     * @return whether the values were added
+     */
+    public boolean putAll(Map<K, V> values, long expectedGeneration) {
+        Map<K, Entry<V>> entries = new HashMap<>();
+        for (Map.Entry<K, V> entry : values.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                entries.put(entry.getKey(), new Entry<>(entry.getValue(), NO_EXPIRY));
+            }
+        }
+        return putEntries(entries, expectedGeneration);
+    }
+
+    protected synchronized boolean putEntries(Map<K, Entry<V>> values, long expectedGeneration) {
+        Snapshot<K, V> current = snapshot;
+        if (current.generation != expectedGeneration) {
+            return false;
+        }
+        boolean restart = isExpired(current) || current.entries.size() + values.size() > maxEntries;
+        Map<K, Entry<V>> entries = restart ? new HashMap<K, Entry<V>>() : new HashMap<>(current.entries);
+        entries.putAll(values);
+        long created = restart ? currentTimeMillis() : current.created;
+        snapshot = new Snapshot<>(Collections.unmodifiableMap(entries), created, current.generation);
+        return true;
+    }
+
+    /**
+     * Removes the given keys and starts a new generation
+     */
+    public synchronized void remove(Collection<K> keys) {
+        Snapshot<K, V> current = snapshot;
+        Map<K, Entry<V>> entries = new HashMap<>(current.entries);
+        entries.keySet().removeAll(keys);
+        snapshot = new Snapshot<>(Collections.unmodifiableMap(entries), current.created, current.generation + 1);
+    }
+
+    /**
+     * Removes every entry and starts a new generation
+     */
+    public synchronized void clear() {
+        snapshot = new Snapshot<>(Collections.<K, Entry<V>>emptyMap(), currentTimeMillis(), snapshot.generation + 1);
+    }
+
+    public int size() {
+        Snapshot<K, V> current = snapshot;
+        return isExpired(current) ? 0 : current.entries.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    protected boolean isExpired(Snapshot<K, V> current) {
+        return timeToLiveMillis > 0 && currentTimeMillis() - current.created > timeToLiveMillis;
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    protected static class Entry<V> {
+
+        protected final V value;
+        protected final long expires;
+
+        protected Entry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    protected static class Snapshot<K, V> {
+
+        protected final Map<K, Entry<V>> entries;
+        protected final long created;
+        protected final long generation;
+
+        protected Snapshot(Map<K, Entry<V>> entries, long created, long generation) {
+            this.entries = entries;
+            this.created = created;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.event.BroadleafApplicationEventPublisher;
+import org.broadleafcommerce.common.event.BroadleafApplicationListener;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent.BroadleafEventScopeType;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent.BroadleafEventWorkerType;
+import org.broadleafcommerce.common.event.BroadleafSystemEventDetail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.cache.Cache;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+
+/**
+ * Holds the named {@link SnapshotCache}s of this node and keeps them in step with the other nodes of the cluster.
+ * <p>
+ * A change to data backing a snapshot is announced with {@link #publishInvalidation(String, Collection)}, which
+ * publishes a {@link BroadleafSystemEvent} of type {@link #INVALIDATION_EVENT_TYPE} once the current transaction
+ * commits. The invalidations published within a transaction are combined into a single event, so a transaction that
+ * changes many rows does not announce each of them separately. The event is handled locally by this listener. With the ScheduledJobsAndEvents module installed, the event
+ * is also recorded as a GLOBAL system event and consumed on every node, where the consumer hands the event to
+ * {@link #handleInvalidation(BroadleafSystemEvent)}. Without it, the time to live of each snapshot bounds how long
+ * other nodes serve the previous value.
+ */
+@Service("blSnapshotCacheManager")
+public class SnapshotCacheManager implements BroadleafApplicationListener<BroadleafSystemEvent> {
+
+    private static final Log LOG = LogFactory.getLog(SnapshotCacheManager.class);
+
+    public static final String INVALIDATION_EVENT_TYPE = "SNAPSHOT_CACHE_INVALIDATION";
+    public static final String CACHE_NAME_DETAIL = "CACHE_NAME";
+    public static final String KEYS_DETAIL = "KEYS";
+    public static final String CACHES_DETAIL = "CACHES";
+
+    protected final ConcurrentMap<String, SnapshotCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    protected final Object pendingInvalidationsKey = new Object();
+
+    @Autowired
+    @Qualifier("blApplicationEventPublisher")
+    protected BroadleafApplicationEventPublisher eventPublisher;
+
+    /**
+     * @return the snapshot cache registered under the name, creating it with the given settings if it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> SnapshotCache<K, V> getCache(String name, int maxEntries, long timeToLiveMillis) {
+        SnapshotCache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            SnapshotCache<?, ?> created = new SnapshotCache<>(name, maxEntries, timeToLiveMillis);
+            cache = caches.putIfAbsent(name, created);
+            if (cache == null) {
+                cache = created;
+            }
+        }
+        return (SnapshotCache<K, V>) cache;
+    }
+
+    /**
+     * Registers a synchronous listener on the cache region that the snapshot copies its values from, so that entries
+     * updated, removed or expired in the region are also removed from the snapshot. The returned listener provides
+     * the expiry to give a value copied from the region.
+     */
+    public <K, V> SnapshotCacheRegionListener<K> bindToRegion(SnapshotCache<K, ?> snapshot, Cache<K, V> region) {
+        SnapshotCacheRegionListener<K> listener = new SnapshotCacheRegionListener<>(snapshot,
+                CoalescingCacheLoader.resolveTimeToLiveMillis(region));
+        region.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<K, V>(
+                FactoryBuilder.factoryOf(listener), null, false, true));
+        return listener;
+    }
+
+    /**
+     * Removes the keys from the named snapshot on every node once the current transaction commits. Within a
+     * transaction, the invalidations are collected and sent in a single event after the commit.
+     *
+     * @param cacheName the name of the snapshot cache
+     * @param keys the keys to remove, or null to clear the snapshot entirely
+     */
+    public void publishInvalidation(String cacheName, Collection<String> keys) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Set<String>> invalidations = new LinkedHashMap<>();
+            addInvalidation(invalidations, cacheName, keys);
+            eventPublisher.publishEvent(buildInvalidationEvent(invalidations));
+            return;
+        }
+        addInvalidation(getPendingInvalidations(), cacheName, keys);
+    }
+
+    protected void addInvalidation(Map<String, Set<String>> invalidations, String cacheName, Collection<String> keys) {
+        if (keys == null) {
+            invalidations.put(cacheName, null);
+        } else if (!invalidations.containsKey(cacheName)) {
+            invalidations.put(cacheName, new LinkedHashSet<>(keys));
+        } else if (invalidations.get(cacheName) != null) {
+            invalidations.get(cacheName).addAll(keys);
+        }
+    }
+
+    /**
+     * @return the keys awaiting invalidation once the current transaction commits, by cache name. A null set clears
+     * the snapshot entirely.
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Set<String>> getPendingInvalidations() {
+        Map<String, Set<String>> pendingInvalidations = (Map<String, Set<String>>) TransactionSynchronizationManager.getResource(pendingInvalidationsKey);
+        if (pendingInvalidations == null) {
+            final Map<String, Set<String>> invalidations = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(pendingInvalidationsKey, invalidations);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    if (!invalidations.isEmpty()) {
+                        // the transaction has committed, so the event can go out right away
+                        eventPublisher.publishEventUnsynchronized(buildInvalidationEvent(invalidations));
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingInvalidationsKey);
+                }
+            });
+            pendingInvalidations = invalidations;
+        }
+        return pendingInvalidations;
+    }
+
+    /**
+     * Combines the invalidations into one event. An invalidation of a single snapshot names it in the
+     * {@link #CACHE_NAME_DETAIL} and {@link #KEYS_DETAIL} details, while several are carried together in the
+     * {@link #CACHES_DETAIL} detail.
+     */
+    protected BroadleafSystemEvent buildInvalidationEvent(Map<String, Set<String>> invalidations) {
+        Map<String, BroadleafSystemEventDetail> details = new HashMap<>();
+        if (invalidations.size() == 1) {
+            Entry<String, Set<String>> invalidation = invalidations.entrySet().iterator().next();
+            details.put(CACHE_NAME_DETAIL, new BroadleafSystemEventDetail("Cache Name", invalidation.getKey()));
+            if (invalidation.getValue() != null) {
+                details.put(KEYS_DETAIL, new BroadleafSystemEventDetail("Keys", (Serializable) new ArrayList<>(invalidation.getValue())));
+            }
+        } else {
+            HashMap<String, ArrayList<String>> caches = new LinkedHashMap<>();
+            for (Entry<String, Set<String>> invalidation : invalidations.entrySet()) {
+                caches.put(invalidation.getKey(), invalidation.getValue() == null ? null : new ArrayList<>(invalidation.getValue()));
+            }
+            details.put(CACHES_DETAIL, new BroadleafSystemEventDetail("Caches", caches));
+        }
+        return new BroadleafSystemEvent(INVALIDATION_EVENT_TYPE, details, BroadleafEventScopeType.GLOBAL,
+                BroadleafEventWorkerType.ANY, true);
+    }
+
+    @Override
+    public void onApplicationEvent(BroadleafSystemEvent event) {
+        if (INVALIDATION_EVENT_TYPE.equals(event.getType())) {
+            handleInvalidation(event);
+        }
+    }
+
+    /**
+     * Applies an invalidation published by {@link #publishInvalidation(String, Collection)} to the snapshots of
+     * this node
+     */
+    @SuppressWarnings("unchecked")
+    public void handleInvalidation(BroadleafSystemEvent event) {
+        Map<String, BroadleafSystemEventDetail> details = event.getDetailMap();
+        if (details != null && details.get(CACHES_DETAIL) != null) {
+            Map<String, Collection<?>> invalidations = (Map<String, Collection<?>>) details.get(CACHES_DETAIL).getBlob();
+            for (Entry<String, Collection<?>> invalidation : invalidations.entrySet()) {
+                invalidate(invalidation.getKey(), invalidation.getValue());
+            }
+            return;
+        }
+        if (details == null || details.get(CACHE_NAME_DETAIL) == null) {
+            return;
+        }
+        String cacheName = details.get(CACHE_NAME_DETAIL).getValue();
+        BroadleafSystemEventDetail keys = details.get(KEYS_DETAIL);
+        invalidate(cacheName, keys == null ? null : (Collection<?>) keys.getBlob());
+    }
+
+    /**
+     * Removes the keys from the named snapshot of this node only
+     *
+     * @param keys the keys to remove, or null to clear the snapshot entirely
+     */
+    @SuppressWarnings("unchecked")
+    public void invalidate(String cacheName, Collection<?> keys) {
+        SnapshotCache<Object, Object> cache = (SnapshotCache<Object, Object>) caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (keys == null) {
+            cache.clear();
+        } else {
+            cache.remove((Collection<Object>) keys);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Invalidated " + (keys == null ? "all" : keys.size()) + " entries of snapshot cache " + cacheName);
+        }
+    }
+
+    /**
+     * Clears every snapshot of this node
+     */
+    public void invalidateAll() {
+        for (SnapshotCache<?, ?> cache : caches.values()) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public boolean isAsynchronous() {
+        return false;
+    }
+}
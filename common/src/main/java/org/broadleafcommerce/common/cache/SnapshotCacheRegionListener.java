@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryListenerException;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+
+/**
+ * JCache listener that ties a {@link SnapshotCache} to the cache region it copies values from.
+ * <p>
+ * Entries that are updated, removed or expired in the region are removed from the snapshot, so clearing or evicting
+ * the region also invalidates the snapshot. The listener also records when each region entry was written, which lets
+ * {@link #getExpiry(Object)} cap a snapshot entry at the remaining time to live of the region entry it was copied
+ * from. Register it with {@link SnapshotCacheManager#bindToRegion(SnapshotCache, javax.cache.Cache)}.
+ */
+public class SnapshotCacheRegionListener<K> implements CacheEntryCreatedListener<K, Object>, CacheEntryUpdatedListener<K, Object>,
+        CacheEntryRemovedListener<K, Object>, CacheEntryExpiredListener<K, Object>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final transient SnapshotCache<K, ?> snapshot;
+    protected final transient ConcurrentMap<K, Long> writeTimes = new ConcurrentHashMap<>();
+    protected final long regionTimeToLiveMillis;
+
+    /**
+     * @param regionTimeToLiveMillis the time to live of the region entries, or a value below one if they do not expire
+     */
+    public SnapshotCacheRegionListener(SnapshotCache<K, ?> snapshot, long regionTimeToLiveMillis) {
+        this.snapshot = snapshot;
+        this.regionTimeToLiveMillis = regionTimeToLiveMillis;
+    }
+
+    /**
+     * @return the time at which the region entry for the key expires, {@link SnapshotCache#NO_EXPIRY} if region entries
+     * do not expire, or the current time if it is not known when the entry was written
+     */
+    public long getExpiry(K key) {
+        if (regionTimeToLiveMillis <= 0) {
+            return SnapshotCache.NO_EXPIRY;
+        }
+        Long written = writeTimes.get(key);
+        if (written == null) {
+            return currentTimeMillis();
+        }
+        return written + regionTimeToLiveMillis;
+    }
+
+    @Override
+    public void onCreated(Iterable<CacheEntryEvent<? extends K, ? extends Object>> events) throws CacheEntryListenerException {
+        for (CacheEntryEvent<? extends K, ? extends Object> event : events) {
+            writeTimes.put(event.getKey(), currentTimeMillis());
+        }
+    }
+
+    @Override
+    public void onUpdated(Iterable<CacheEntryEvent<? extends K, ? extends Object>> events) throws CacheEntryListenerException {
+        List<K> keys = new ArrayList<>();
+        for (CacheEntryEvent<? extends K, ? extends Object> event : events) {
+            writeTimes.put(event.getKey(), currentTimeMillis());
+            keys.add(event.getKey());
+        }
+        snapshot.remove(keys);
+    }
+
+    @Override
+    public void onRemoved(Iterable<CacheEntryEvent<? extends K, ? extends Object>> events) throws CacheEntryListenerException {
+        removeFromSnapshot(events);
+    }
+
+    @Override
+    public void onExpired(Iterable<CacheEntryEvent<? extends K, ? extends Object>> events) throws CacheEntryListenerException {
+        removeFromSnapshot(events);
+    }
+
+    protected void removeFromSnapshot(Iterable<CacheEntryEvent<? extends K, ? extends Object>> events) {
+        List<K> keys = new ArrayList<>();
+        for (CacheEntryEvent<? extends K, ? extends Object> event : events) {
+            writeTimes.remove(event.getKey());
+            keys.add(event.getKey());
+        }
+        snapshot.remove(keys);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -23,6 +23,16 @@ package org.broadleafcommerce.common.cache;
 public interface StatisticsService {
     void addCacheStat(String key, boolean isHit);
 
+    /**
+     * Records the duration of one occurrence of a timed operation, such as loading a value on a cache miss
+     *
+     * @param key the name of the operation
+     * @param durationNanos the duration in nanoseconds
+     */
+    default void addTimingStat(String key, long durationNanos) {
+        // timings are not recorded unless the implementation supports them
+    }
+
     Long getLogResolution();
 
     void setLogResolution(Long logResolution);
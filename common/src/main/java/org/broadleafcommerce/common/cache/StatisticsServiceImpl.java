@@ -25,13 +25,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jmx.export.naming.SelfNaming;
 import org.springframework.jmx.support.ObjectNameManager;
 import org.springframework.stereotype.Service;
-import java.math.BigDecimal;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
@@ -46,6 +45,17 @@ import javax.management.ObjectName;
 import javax.management.ReflectionException;
 
 /**
+ * Collects cache hit rates and operation timings. Stats are held in a concurrent registry and updated without locks,
+ * as {@link #addCacheStat(String, boolean)} is called on every access to the caches that report here. Every
+ * {@link #getLogResolution()} milliseconds the current window of a stat is closed and logged, and both the totals since
+ * startup and the last window are exposed as attributes of this {@link DynamicMBean}:
+ * <ul>
+ *     <li>{@code <key>} - the hit rate of a cache, or the average duration in milliseconds of a timed operation</li>
+ *     <li>{@code <key>.window} - the same value over the last completed window</li>
+ *     <li>{@code <key>.p50}, {@code <key>.p95}, {@code <key>.p99} - duration percentiles of a timed operation</li>
+ *     <li>{@code <key>.window.p99} - the 99th percentile duration over the last completed window</li>
+ * </ul>
+ *
  * @author Jeff Fischer
  */
 @Service("blStatisticsService")
@@ -60,30 +70,73 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
 
     protected StatisticsServiceLogAdapter adapter;
 
-    protected Map<String, CacheStat> cacheStats = Collections.synchronizedMap(new HashMap<String, CacheStat>());
+    protected ConcurrentMap<String, CacheStat> cacheStats = new ConcurrentHashMap<>();
+
+    protected ConcurrentMap<String, TimingStat> timingStats = new ConcurrentHashMap<>();
 
     @Override
     public void addCacheStat(String key, boolean isHit) {
         CacheStat myStat = getCacheStat(key);
+        myStat.incrementRequest();
         if (isHit) {
             myStat.incrementHit();
         }
-        myStat.incrementRequest();
-        if (myStat.getLastLogTime() + logResolution < SystemTime.asMillis()) {
-            myStat.setLastLogTime(SystemTime.asMillis());
-            BigDecimal percentage = myStat.getHitRate();
-            if (LOG.isInfoEnabled()) {
-                LOG.info("Cache hit percentage for " + key + " is: " + percentage.toString() + "%");
-            }
+        if (myStat.rollWindow(SystemTime.asMillis(), logResolution) && LOG.isInfoEnabled()) {
+            LOG.info("Cache hit percentage for " + key + " is: " + myStat.getHitRate().toString() + "% ("
+                    + myStat.getWindowHitRate().toString() + "% over the last " + myStat.getWindowRequestCount()
+                    + " requests)");
+        }
+    }
+
+    @Override
+    public void addTimingStat(String key, long durationNanos) {
+        TimingStat myStat = getTimingStat(key);
+        myStat.addDuration(durationNanos);
+        if (myStat.rollWindow(SystemTime.asMillis(), logResolution) && LOG.isInfoEnabled()) {
+            LOG.info("Average time for " + key + " is: " + myStat.getAverageMillis().toString() + "ms over "
+                    + myStat.getCount() + " occurrences (p50 " + myStat.getPercentileMillis(50)
+                    + "ms, p99 " + myStat.getPercentileMillis(99) + "ms, max " + myStat.getMaxMillis() + "ms); last "
+                    + myStat.getWindowCount() + " occurrences averaged " + myStat.getWindowAverageMillis()
+                    + "ms (p99 " + myStat.getWindowPercentileMillis(99) + "ms)");
+        }
+    }
+
+    protected TimingStat getTimingStat(String key) {
+        TimingStat stat = timingStats.get(key);
+        if (stat == null) {
+            stat = timingStats.computeIfAbsent(key, k -> new TimingStat());
         }
+        return stat;
     }
 
     protected CacheStat getCacheStat(String key) {
-        if (!cacheStats.containsKey(key)) {
-            CacheStat stat = new CacheStat();
-            cacheStats.put(key, stat);
+        CacheStat stat = cacheStats.get(key);
+        if (stat == null) {
+            stat = cacheStats.computeIfAbsent(key, k -> new CacheStat());
         }
-        return cacheStats.get(key);
+        return stat;
+    }
+
+    /**
+     * @return the value of every attribute exported through JMX, keyed and sorted by attribute name
+     */
+    protected SortedMap<String, Double> getStatAttributes() {
+        SortedMap<String, Double> attributes = new TreeMap<>();
+        for (Map.Entry<String, CacheStat> stats : cacheStats.entrySet()) {
+            CacheStat stat = stats.getValue();
+            attributes.put(stats.getKey(), stat.getHitRate().doubleValue());
+            attributes.put(stats.getKey() + ".window", stat.getWindowHitRate().doubleValue());
+        }
+        for (Map.Entry<String, TimingStat> stats : timingStats.entrySet()) {
+            TimingStat stat = stats.getValue();
+            attributes.put(stats.getKey(), stat.getAverageMillis().doubleValue());
+            attributes.put(stats.getKey() + ".p50", stat.getPercentileMillis(50).doubleValue());
+            attributes.put(stats.getKey() + ".p95", stat.getPercentileMillis(95).doubleValue());
+            attributes.put(stats.getKey() + ".p99", stat.getPercentileMillis(99).doubleValue());
+            attributes.put(stats.getKey() + ".window", stat.getWindowAverageMillis().doubleValue());
+            attributes.put(stats.getKey() + ".window.p99", stat.getWindowPercentileMillis(99).doubleValue());
+        }
+        return attributes;
     }
 
     @Override
@@ -123,7 +176,11 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
         if (attribute.equals("LOG_RESOLUTION")) {
             return getLogResolution();
         }
-        return getCacheStat(attribute).getHitRate().doubleValue();
+        Double value = getStatAttributes().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
     }
 
     @Override
@@ -137,8 +194,8 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
     @Override
     public AttributeList getAttributes(String[] attributes) {
         AttributeList list = new AttributeList();
-        for (Map.Entry<String, CacheStat> stats : cacheStats.entrySet()) {
-            list.add(new Attribute(stats.getKey(), stats.getValue().getHitRate().doubleValue()));
+        for (Map.Entry<String, Double> attribute : getStatAttributes().entrySet()) {
+            list.add(new Attribute(attribute.getKey(), attribute.getValue()));
         }
         return list;
     }
@@ -175,12 +232,9 @@ public class StatisticsServiceImpl implements DynamicMBean, StatisticsService, S
 
     @Override
     public MBeanInfo getMBeanInfo() {
-        SortedSet<String> names = new TreeSet<String>();
-        for (Map.Entry<String, CacheStat> stats : cacheStats.entrySet()) {
-            names.add(stats.getKey());
-        }
+        SortedMap<String, Double> names = getStatAttributes();
         MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[names.size()];
-        Iterator<String> it = names.iterator();
+        Iterator<String> it = names.keySet().iterator();
         for (int i = 0; i < attrs.length; i++) {
             String name = it.next();
             attrs[i] = new MBeanAttributeInfo(
@@ -0,0 +1,117 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import org.broadleafcommerce.common.time.SystemTime;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the durations of a timed operation, such as loading a value on a cache miss, in a {@link HistogramStat}
+ * so that percentiles can be reported as well as the average. Besides the totals since startup, the histogram of the
+ * last completed window (see {@link #rollWindow(long, long)}) is kept so that recent latency can be told apart from
+ * the long term average.
+ */
+public class TimingStat {
+
+    protected final HistogramStat histogram = new HistogramStat();
+    protected volatile HistogramStat windowHistogram = new HistogramStat();
+    protected volatile HistogramStat lastWindowHistogram = new HistogramStat();
+    protected AtomicLong lastLogTime = new AtomicLong(SystemTime.asMillis(true));
+
+    public void addDuration(long durationNanos) {
+        histogram.record(durationNanos);
+        windowHistogram.record(durationNanos);
+    }
+
+    /**
+     * Closes the current window if it is older than the resolution. Only one of the threads that call this
+     * concurrently closes a given window. A duration recorded while the window is being swapped may be counted in the
+     * window that just closed, which is accurate enough for monitoring.
+     *
+     * @return whether this call closed the window
+     */
+    public boolean rollWindow(long now, long resolution) {
+        long last = lastLogTime.get();
+        if (last + resolution >= now || !lastLogTime.compareAndSet(last, now)) {
+            return false;
+        }
+        HistogramStat closed = windowHistogram;
+        windowHistogram = new HistogramStat();
+        lastWindowHistogram = closed;
+        return true;
+    }
+
+    public Long getCount() {
+        return histogram.getCount();
+    }
+
+    public Long getMaxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(histogram.getMax());
+    }
+
+    public Long getLastLogTime() {
+        return lastLogTime.get();
+    }
+
+    public void setLastLogTime(Long lastLogTime) {
+        this.lastLogTime.set(lastLogTime);
+    }
+
+    public BigDecimal getAverageMillis() {
+        return averageMillis(histogram);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     */
+    public BigDecimal getPercentileMillis(double percentile) {
+        return toMillis(histogram.getValueAtPercentile(percentile));
+    }
+
+    public Long getWindowCount() {
+        return lastWindowHistogram.getCount();
+    }
+
+    public BigDecimal getWindowAverageMillis() {
+        return averageMillis(lastWindowHistogram);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the duration at the percentile during the last completed window
+     */
+    public BigDecimal getWindowPercentileMillis(double percentile) {
+        return toMillis(lastWindowHistogram.getValueAtPercentile(percentile));
+    }
+
+    protected BigDecimal averageMillis(HistogramStat stat) {
+        long count = stat.getCount();
+        if (count == 0) {
+            return new BigDecimal(-1);
+        }
+        return new BigDecimal(stat.getTotal()).divide(new BigDecimal(count * 1000000L), 3, RoundingMode.HALF_UP);
+    }
+
+    protected BigDecimal toMillis(long nanos) {
+        return new BigDecimal(nanos).divide(new BigDecimal(1000000L), 3, RoundingMode.HALF_UP);
+    }
+}
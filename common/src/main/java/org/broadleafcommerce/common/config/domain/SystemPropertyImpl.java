@@ -37,6 +37,7 @@ import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Index;
@@ -55,6 +56,7 @@ import javax.persistence.Table;
         @Index(name = "IDX_BLSYPR_PROPERTY_NAME", columnList = "PROPERTY_NAME")
     })
 @Inheritance(strategy = InheritanceType.JOINED)
+@EntityListeners(value = { SystemPropertyChangeListener.class })
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "blSystemProperties")
 @DirectCopyTransform({
         @DirectCopyTransformMember(templateTokens = DirectCopyTransformTypes.MULTITENANT_SITE),
@@ -90,6 +90,15 @@ public interface SystemPropertiesService {
      */
     public void removeFromCache(SystemProperty systemProperty);
 
+    /**
+     * Evicts the given SystemProperty from the snapshot tier of every node once the current transaction commits.
+     * Implementations without a snapshot tier have nothing to evict.
+     * 
+     * @param systemProperty
+     */
+    public default void publishChange(SystemProperty systemProperty) {
+    }
+
     /**
      * Finds a SystemProperty by its internal id
      * 
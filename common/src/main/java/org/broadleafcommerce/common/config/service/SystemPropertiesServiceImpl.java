@@ -19,6 +19,9 @@ package org.broadleafcommerce.common.config.service;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.broadleafcommerce.common.cache.SnapshotCache;
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.cache.SnapshotCacheRegionListener;
 import org.broadleafcommerce.common.classloader.release.ThreadLocalManager;
 import org.broadleafcommerce.common.config.dao.SystemPropertiesDao;
 import org.broadleafcommerce.common.config.domain.SystemProperty;
@@ -31,6 +34,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+
 import javax.annotation.Resource;
 import javax.cache.Cache;
 import javax.cache.CacheManager;
@@ -58,6 +63,10 @@ public class SystemPropertiesServiceImpl implements SystemPropertiesService{
 
     protected Cache<String, String> systemPropertyCache;
 
+    protected SnapshotCache<String, String> systemPropertySnapshot;
+
+    protected SnapshotCacheRegionListener<String> systemPropertyRegionListener;
+
     @Resource(name="blSystemPropertiesDao")
     protected SystemPropertiesDao systemPropertiesDao;
 
@@ -70,6 +79,22 @@ public class SystemPropertiesServiceImpl implements SystemPropertiesService{
     @Resource(name = "blCacheManager")
     protected CacheManager cacheManager;
 
+    @Resource(name = "blSnapshotCacheManager")
+    protected SnapshotCacheManager snapshotCacheManager;
+
+    /**
+     * Whether resolved properties are also kept in an immutable snapshot in front of the cache region, which makes the
+     * lookups done while rendering templates a plain map read
+     */
+    @Value("${system.property.snapshot.enabled:true}")
+    protected boolean snapshotEnabled = true;
+
+    @Value("${system.property.snapshot.ttl:600000}")
+    protected long snapshotTimeToLive = 600000L;
+
+    @Value("${system.property.snapshot.max.entries:1000}")
+    protected int snapshotMaxEntries = 1000;
+
     @Autowired
     protected Environment env;
 
@@ -93,15 +118,26 @@ public class SystemPropertiesServiceImpl implements SystemPropertiesService{
         }
 
         String result;
+        String snapshotKey = null;
+        long snapshotGeneration = 0L;
         // We don't want to utilize this cache for sandboxes
         if (BroadleafRequestContext.getBroadleafRequestContext() == null
             || BroadleafRequestContext.getBroadleafRequestContext().getSandBox() == null) {
+            if (snapshotEnabled) {
+                snapshotKey = buildKey(name);
+                snapshotGeneration = getSystemPropertySnapshot().getGeneration();
+                result = getSystemPropertySnapshot().get(snapshotKey);
+                if (result != null) {
+                    return result.equals(NULL_RESPONSE)?null:result;
+                }
+            }
             result = getPropertyFromCache(name);
         } else {
             result = null;
         }
 
         if (result != null) {
+            addPropertyToSnapshot(snapshotKey, result, snapshotGeneration);
             return result.equals(NULL_RESPONSE)?null:result;
         }
 
@@ -128,9 +164,24 @@ public class SystemPropertiesServiceImpl implements SystemPropertiesService{
             result = NULL_RESPONSE;
         }
         addPropertyToCache(name, result);
+        addPropertyToSnapshot(snapshotKey, result, snapshotGeneration);
         return result.equals(NULL_RESPONSE)?null:result;
     }
 
+    /**
+     * Copies the value held by the cache region into the snapshot. The snapshot entry expires together with the
+     * region entry, and is skipped if it is not known when the region entry was written.
+     *
+     * @param key the snapshot key, null when the snapshot was not consulted for this lookup
+     * @param generation the snapshot generation read before the property was resolved
+     */
+    protected void addPropertyToSnapshot(String key, String propertyValue, long generation) {
+        if (key != null) {
+            SnapshotCache<String, String> snapshot = getSystemPropertySnapshot();
+            snapshot.put(key, propertyValue, generation, systemPropertyRegionListener.getExpiry(key));
+        }
+    }
+
     protected void addPropertyToCache(String propertyName, String propertyValue) {
         String key = buildKey(propertyName);
         getSystemPropertyCache().put(key, propertyValue);
@@ -216,6 +267,23 @@ public class SystemPropertiesServiceImpl implements SystemPropertiesService{
         return SYSTEM_PROPERTY_CACHE_NAME;
     }
 
+    /**
+     * The snapshot is bound to the cache region on creation, so that anything evicted from the region is also
+     * evicted from the snapshot
+     */
+    protected SnapshotCache<String, String> getSystemPropertySnapshot() {
+        if (systemPropertySnapshot == null) {
+            synchronized (this) {
+                if (systemPropertySnapshot == null) {
+                    SnapshotCache<String, String> snapshot = snapshotCacheManager.getCache(getCacheName(), snapshotMaxEntries, snapshotTimeToLive);
+                    systemPropertyRegionListener = snapshotCacheManager.bindToRegion(snapshot, getSystemPropertyCache());
+                    systemPropertySnapshot = snapshot;
+                }
+            }
+        }
+        return systemPropertySnapshot;
+    }
+
     @Override
     public SystemProperty findById(Long id) {
         return systemPropertiesDao.readById(id);
@@ -231,12 +299,19 @@ public class SystemPropertiesServiceImpl implements SystemPropertiesService{
 
         // The system property could have been called from the environment,
         // so we need to evict that cache key as well
-        key = buildKey(systemProperty, true);
-        getSystemPropertyCache().remove(key);
+        String envKey = buildKey(systemProperty, true);
+        getSystemPropertyCache().remove(envKey);
+        getSystemPropertySnapshot().remove(Arrays.asList(key, envKey));
 
         systemPropertiesDao.removeFromCache(systemProperty);
     }
 
+    @Override
+    public void publishChange(SystemProperty systemProperty) {
+        snapshotCacheManager.publishInvalidation(getCacheName(),
+                Arrays.asList(buildKey(systemProperty), buildKey(systemProperty, true)));
+    }
+
     @Override
     public int resolveIntSystemProperty(String name) {
         String systemProperty = resolveSystemProperty(name, "0");
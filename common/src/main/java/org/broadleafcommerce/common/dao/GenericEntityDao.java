@@ -21,6 +21,7 @@ package org.broadleafcommerce.common.dao;
 import org.broadleafcommerce.common.persistence.EntityConfiguration;
 
 import java.io.Serializable;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -100,6 +101,16 @@ public interface GenericEntityDao {
 
     List<Long> readAllGenericEntityId(Class<?> clazz);
 
+    /**
+     * Finds the most recent <code>auditable.dateUpdated</code> of the given entity class
+     *
+     * @param clazz
+     * @return the last time an entity of this class was updated, or null if the class is not auditable or has no entities
+     */
+    default Date readLastUpdatedDate(Class<?> clazz) {
+        return null;
+    }
+
     /**
      * Retrieve the identifier from the Hibernate entity (the entity must reside in the current session)
      *
@@ -39,6 +39,7 @@ import org.springframework.stereotype.Repository;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -178,6 +179,21 @@ public class GenericEntityDaoImpl implements GenericEntityDao, ApplicationContex
         return clazz[0];
     }
 
+    @Override
+    public Date readLastUpdatedDate(Class<?> clazz) {
+        clazz = DynamicDaoHelperImpl.getNonProxyImplementationClassIfNecessary(clazz);
+        try {
+            em.getMetamodel().entity(clazz).getAttribute("auditable");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Date> criteria = builder.createQuery(Date.class);
+        Root<?> root = criteria.from(clazz);
+        criteria.select(builder.greatest(root.get("auditable").<Date>get("dateUpdated")));
+        return em.createQuery(criteria).getSingleResult();
+    }
+
     @Override
     public Serializable getIdentifier(Object entity) {
         return daoHelper.getIdentifier(entity);
@@ -26,4 +26,11 @@ public interface DataDrivenEnumerationService {
 
     public DataDrivenEnumerationValue findEnumValueByKey(String enumKey, String enumValueKey);
 
+    /**
+     * Clears the snapshot of enumerations on every node once the current transaction commits. Implementations
+     * without a snapshot have nothing to clear.
+     */
+    public default void publishChange() {
+    }
+
 }
@@ -17,28 +17,164 @@
  */
 package org.broadleafcommerce.common.enumeration.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.annotation.Resource;
 
+import org.broadleafcommerce.common.cache.SnapshotCache;
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
 import org.broadleafcommerce.common.enumeration.dao.DataDrivenEnumerationDao;
 import org.broadleafcommerce.common.enumeration.domain.DataDrivenEnumeration;
 import org.broadleafcommerce.common.enumeration.domain.DataDrivenEnumerationValue;
+import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 
 @Service("blDataDrivenEnumerationService")
 public class DataDrivenEnumerationServiceImpl implements DataDrivenEnumerationService {
 
+    protected static final String ENUM_SNAPSHOT_CACHE_NAME = "blDataDrivenEnumerationSnapshot";
+    protected static final String ENUM_VALUE_SNAPSHOT_CACHE_NAME = "blDataDrivenEnumerationValueSnapshot";
+
     @Resource(name = "blDataDrivenEnumerationDao")
     protected DataDrivenEnumerationDao dao;
 
+    @Resource(name = "blSnapshotCacheManager")
+    protected SnapshotCacheManager snapshotCacheManager;
+
+    @Resource(name = "blEntityConfiguration")
+    protected EntityConfiguration entityConfiguration;
+
+    /**
+     * Whether enumerations read outside of a sandbox are kept in an immutable snapshot, which avoids a query for every
+     * enumeration rendered by a template
+     */
+    @Value("${data.driven.enum.snapshot.enabled:true}")
+    protected boolean snapshotEnabled = true;
+
+    @Value("${data.driven.enum.snapshot.ttl:600000}")
+    protected long snapshotTimeToLive = 600000L;
+
+    @Value("${data.driven.enum.snapshot.max.entries:1000}")
+    protected int snapshotMaxEntries = 1000;
+
+    protected SnapshotCache<List<Object>, DataDrivenEnumeration> enumSnapshot;
+
+    protected SnapshotCache<List<Object>, DataDrivenEnumerationValue> enumValueSnapshot;
+
     @Override
     public DataDrivenEnumeration findEnumByKey(String enumKey) {
-        return dao.readEnumByKey(enumKey);
+        if (!isSnapshotEligible()) {
+            return dao.readEnumByKey(enumKey);
+        }
+        List<Object> key = buildKey(enumKey, null);
+        SnapshotCache<List<Object>, DataDrivenEnumeration> snapshot = getEnumSnapshot();
+        long generation = snapshot.getGeneration();
+        DataDrivenEnumeration result = snapshot.get(key);
+        if (result == null) {
+            result = dao.readEnumByKey(enumKey);
+            if (result != null) {
+                result = createDetachedCopy(result);
+                snapshot.put(key, result, generation);
+            }
+        }
+        return result;
     }
     
     @Override
     public DataDrivenEnumerationValue findEnumValueByKey(String enumKey, String enumValueKey) {
-        return dao.readEnumValueByKey(enumKey, enumValueKey);
+        if (!isSnapshotEligible()) {
+            return dao.readEnumValueByKey(enumKey, enumValueKey);
+        }
+        List<Object> key = buildKey(enumKey, enumValueKey);
+        SnapshotCache<List<Object>, DataDrivenEnumerationValue> snapshot = getEnumValueSnapshot();
+        long generation = snapshot.getGeneration();
+        DataDrivenEnumerationValue result = snapshot.get(key);
+        if (result == null) {
+            result = dao.readEnumValueByKey(enumKey, enumValueKey);
+            if (result != null) {
+                result = createDetachedCopy(result, result.getType() == null ? null : createDetachedCopy(result.getType()));
+                snapshot.put(key, result, generation);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void publishChange() {
+        snapshotCacheManager.publishInvalidation(ENUM_SNAPSHOT_CACHE_NAME, null);
+        snapshotCacheManager.publishInvalidation(ENUM_VALUE_SNAPSHOT_CACHE_NAME, null);
+    }
+
+    /**
+     * The snapshot is shared across threads and outlives the persistence context, so it holds unmanaged copies of the
+     * enumeration and its visible values rather than the entities read by the current request
+     */
+    protected DataDrivenEnumeration createDetachedCopy(DataDrivenEnumeration enumeration) {
+        DataDrivenEnumeration copy = entityConfiguration.createEntityInstance(DataDrivenEnumeration.class.getName(),
+                DataDrivenEnumeration.class);
+        copy.setId(enumeration.getId());
+        copy.setKey(enumeration.getKey());
+        copy.setModifiable(enumeration.getModifiable());
+        List<DataDrivenEnumerationValue> values = new ArrayList<>();
+        for (DataDrivenEnumerationValue value : enumeration.getEnumValues()) {
+            values.add(createDetachedCopy(value, copy));
+        }
+        copy.setEnumValues(values);
+        return copy;
+    }
+
+    protected DataDrivenEnumerationValue createDetachedCopy(DataDrivenEnumerationValue value, DataDrivenEnumeration type) {
+        DataDrivenEnumerationValue copy = entityConfiguration.createEntityInstance(
+                DataDrivenEnumerationValue.class.getName(), DataDrivenEnumerationValue.class);
+        copy.setId(value.getId());
+        copy.setKey(value.getKey());
+        copy.setDisplay(value.getDisplay());
+        copy.setHidden(value.getHidden());
+        copy.setType(type);
+        return copy;
+    }
+
+    /**
+     * Sandboxes see pending changes to enumerations, so their reads never use the shared snapshot
+     */
+    protected boolean isSnapshotEligible() {
+        if (!snapshotEnabled) {
+            return false;
+        }
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        return brc == null || brc.getSandBox() == null;
+    }
+
+    /**
+     * Enumerations can vary by site, so the site on the request is part of the key
+     */
+    protected List<Object> buildKey(String enumKey, String enumValueKey) {
+        Long siteId = null;
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        if (brc != null && brc.getNonPersistentSite() != null) {
+            siteId = brc.getNonPersistentSite().getId();
+        }
+        return Arrays.<Object>asList(siteId, enumKey, enumValueKey);
+    }
+
+    protected SnapshotCache<List<Object>, DataDrivenEnumeration> getEnumSnapshot() {
+        if (enumSnapshot == null) {
+            enumSnapshot = snapshotCacheManager.getCache(ENUM_SNAPSHOT_CACHE_NAME, snapshotMaxEntries, snapshotTimeToLive);
+        }
+        return enumSnapshot;
+    }
+
+    protected SnapshotCache<List<Object>, DataDrivenEnumerationValue> getEnumValueSnapshot() {
+        if (enumValueSnapshot == null) {
+            enumValueSnapshot = snapshotCacheManager.getCache(ENUM_VALUE_SNAPSHOT_CACHE_NAME, snapshotMaxEntries,
+                    snapshotTimeToLive);
+        }
+        return enumValueSnapshot;
     }
 
 }
@@ -23,6 +23,7 @@ import org.broadleafcommerce.common.extension.StandardCacheItem;
 import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
 import org.broadleafcommerce.common.i18n.domain.Translation;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -160,4 +161,27 @@ public interface TranslationDao {
      * @return
      */
     Translation readTranslation(TranslatedEntity entityType, String entityId, String fieldName, String localeCode, String localeCountryCode, ResultType stage);
+
+    /**
+     * Read, in a single query, the translations of the given fields of the given entities whose locale code starts with
+     * the given language code. This is the bulk form of {@link #readTranslation(TranslatedEntity, String, String, String, String, ResultType)}
+     * and leaves choosing the best match for a country specific locale to the caller.
+     *
+     * @param entityType
+     * @param entityIds the {@link Translation#getEntityId()} values to read translations for
+     * @param fieldNames the fields to read translations for
+     * @param localeCode the language code
+     * @param stage param drives whether to look for entries at a template level or standard site level (multitenant concepts). Can be IGNORE. Any multitenant behavior is ignored in the absence of the multitenant module.
+     * @return
+     */
+    default List<Translation> readTranslations(TranslatedEntity entityType, List<String> entityIds, List<String> fieldNames, String localeCode, ResultType stage) {
+        List<Translation> translations = new ArrayList<>();
+        for (Translation translation : readAllTranslationEntries(entityType, stage, entityIds)) {
+            if (fieldNames.contains(translation.getFieldName()) && translation.getLocaleCode() != null
+                    && translation.getLocaleCode().startsWith(localeCode)) {
+                translations.add(translation);
+            }
+        }
+        return translations;
+    }
 }
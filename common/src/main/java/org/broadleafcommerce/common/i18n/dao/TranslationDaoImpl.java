@@ -288,6 +288,38 @@ public class TranslationDaoImpl implements TranslationDao {
         }
     }
 
+    @Override
+    public List<Translation> readTranslations(TranslatedEntity entityType, List<String> entityIds, List<String> fieldNames, String localeCode, ResultType stage) {
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Translation> criteria = builder.createQuery(Translation.class);
+        Root<TranslationImpl> root = criteria.from(TranslationImpl.class);
+        criteria.select(root);
+        List<Predicate> restrictions = new ArrayList<Predicate>();
+        restrictions.add(builder.equal(root.get("entityType"), entityType.getFriendlyType()));
+        restrictions.add(root.get("entityId").in(entityIds));
+        restrictions.add(root.get("fieldName").in(fieldNames));
+        restrictions.add(builder.like(root.get("localeCode").as(String.class), localeCode + "%"));
+        try {
+            Class<?> aClass = entityConfiguration.createEntityInstance(entityType.getType()).getClass();
+            if (extensionManager != null) {
+                extensionManager.getProxy().setup(aClass, stage);
+                extensionManager.getProxy().refineParameterRetrieve(aClass, stage, builder, criteria, root, restrictions);
+            }
+            criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
+
+            TypedQuery<Translation> query = em.createQuery(criteria);
+            if (extensionManager != null) {
+                extensionManager.getProxy().refineQuery(aClass, stage, query);
+            }
+            query.setHint(QueryHints.HINT_CACHEABLE, true);
+            return query.getResultList();
+        } finally {
+            if (extensionManager != null) {
+                extensionManager.getProxy().breakdown(TranslationImpl.class, stage);
+            }
+        }
+    }
+
     protected String getUpdatedEntityId(TranslatedEntity entityType, String entityId) {
         return getUpdatedEntityId(entityType, Long.parseLong(entityId));
     }
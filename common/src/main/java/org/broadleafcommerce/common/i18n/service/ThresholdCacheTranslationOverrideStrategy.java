@@ -95,7 +95,13 @@ public class ThresholdCacheTranslationOverrideStrategy implements TranslationOve
                 //Translation is dual discriminated by site and catalog, which can make it impossible to find results under normal
                 //circumstances because the two discriminators can cancel eachother out. We use the CATALOG_ONLY ResultType
                 //to force the system to only honor the catalog discrimination during this call.
-                Translation translation = dao.readTranslation(entityType, entityId, property, localeCode, localeCountryCode, ResultType.CATALOG_ONLY);
+                TranslationPrefetchCache prefetchCache = TranslationPrefetchCache.getPrefetchCache(false);
+                Translation translation;
+                if (prefetchCache != null && prefetchCache.contains(entityType, entityId, property, localeCountryCode)) {
+                    translation = prefetchCache.get(entityType, entityId, property, localeCountryCode);
+                } else {
+                    translation = dao.readTranslation(entityType, entityId, property, localeCode, localeCountryCode, ResultType.CATALOG_ONLY);
+                }
                 buildSingleItemResponse(response, translation);
                 return response;
             }
@@ -0,0 +1,89 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+import org.broadleafcommerce.common.i18n.domain.Translation;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request scoped cache of the translations loaded by {@link TranslationService#prefetchTranslations(java.util.List, java.util.List, java.util.Locale)}.
+ * Unlike the {@link TranslationBatchReadCache}, which holds everything a batch job may need, this only knows about the
+ * entities and properties that were prefetched, and records the absence of a translation as well, so that the
+ * {@link TranslationService} can tell a prefetched miss apart from an entity that was never prefetched.
+ * <p>
+ * The cache lives in the additional properties of the {@link BroadleafRequestContext} and is discarded with it at the
+ * end of the request.
+ */
+public class TranslationPrefetchCache {
+
+    public static final String REQUEST_CONTEXT_KEY = "blTranslationPrefetchCache";
+
+    protected static final Object NO_TRANSLATION = new Object();
+
+    protected final Map<String, Object> translations = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * @param create whether to create the cache for the current request if it does not exist yet
+     * @return the cache of the current request, or null if there is none and create is false
+     */
+    public static TranslationPrefetchCache getPrefetchCache(boolean create) {
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext(false);
+        if (brc == null) {
+            return null;
+        }
+        Map<String, Object> additionalProperties = brc.getAdditionalProperties();
+        TranslationPrefetchCache cache = (TranslationPrefetchCache) additionalProperties.get(REQUEST_CONTEXT_KEY);
+        if (cache == null && create) {
+            cache = new TranslationPrefetchCache();
+            additionalProperties.put(REQUEST_CONTEXT_KEY, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * @param translation the best translation for the locale, or null if the entity has none for the property
+     */
+    public void put(TranslatedEntity entityType, String entityId, String property, String localeCountryCode, Translation translation) {
+        translations.put(buildKey(entityType, entityId, property, localeCountryCode), translation == null ? NO_TRANSLATION : translation);
+    }
+
+    public boolean contains(TranslatedEntity entityType, String entityId, String property, String localeCountryCode) {
+        return translations.containsKey(buildKey(entityType, entityId, property, localeCountryCode));
+    }
+
+    /**
+     * @return the prefetched translation, or null if there is no translation or the property was not prefetched
+     */
+    public Translation get(TranslatedEntity entityType, String entityId, String property, String localeCountryCode) {
+        Object translation = translations.get(buildKey(entityType, entityId, property, localeCountryCode));
+        return translation instanceof Translation ? (Translation) translation : null;
+    }
+
+    public int size() {
+        return translations.size();
+    }
+
+    protected String buildKey(TranslatedEntity entityType, String entityId, String property, String localeCountryCode) {
+        return entityType.getType() + '|' + entityId + '|' + property + '|' + localeCountryCode;
+    }
+
+}
@@ -107,6 +107,33 @@ public interface TranslationService {
      */
     public String getTranslatedValue(Object entity, String property, Locale locale);
 
+    /**
+     * Loads the translations of the given properties of the given entities for the given locale in a single query
+     * (per batch of entities) and keeps them for the rest of the current request, so that subsequent calls to
+     * {@link #getTranslatedValue(Object, String, Locale)} for those entities and properties do not query individually.
+     * Intended to be called with the entities of a listing page before it is rendered. Entity types whose translations are
+     * all held in the translation cache are not prefetched.
+     *
+     * @param entities the entities that are about to be rendered, possibly of different types
+     * @param properties the translatable properties that are about to be rendered
+     * @param locale
+     */
+    public default void prefetchTranslations(List<?> entities, List<String> properties, Locale locale) {
+        // translations are read one at a time by getTranslatedValue unless the implementation supports prefetching
+    }
+
+    /**
+     * Same as {@link #prefetchTranslations(List, List, Locale)} for entities that are only known by type and id
+     *
+     * @param entityType
+     * @param entityIds the {@link Translation#getEntityId()} values of the entities
+     * @param properties
+     * @param locale
+     */
+    public default void prefetchTranslations(TranslatedEntity entityType, List<String> entityIds, List<String> properties, Locale locale) {
+        // translations are read one at a time by getTranslatedValue unless the implementation supports prefetching
+    }
+
     /**
      * Gets the TranslatedEntity based on the passed className.  The TranslatedEntity may be an assignable.
      * 
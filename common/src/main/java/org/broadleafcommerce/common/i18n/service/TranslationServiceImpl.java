@@ -17,6 +17,7 @@
  */
 package org.broadleafcommerce.common.i18n.service;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,10 +39,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.cache.Cache;
@@ -80,6 +85,12 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
     @Value("${translation.thresholdForFullCache:1000}")
     protected int templateThresholdForFullCache;
 
+    /**
+     * The maximum number of entities whose translations are read in one query by {@link #prefetchTranslations(TranslatedEntity, List, List, Locale)}
+     */
+    @Value("${translation.prefetch.batch.size:500}")
+    protected int prefetchBatchSize = 500;
+
     @Value("${returnBlankTranslationForNotDefaultLocale:false}")
     protected boolean returnBlankTranslationForNotDefaultLocale;
 
@@ -203,14 +214,12 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
             }
         }
         
-        boolean isValidForCache = false;
-        if (extensionManager != null) {
-            ExtensionResultHolder<Boolean> response = new ExtensionResultHolder<Boolean>();
-            response.setResult(false);
-            extensionManager.getProxy().isValidState(response);
-            isValidForCache = response.getResult();
-        }
-        if (!BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox() || !isValidForCache) {
+        if (!BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox() || !isValidForCache()) {
+            TranslationPrefetchCache prefetchCache = TranslationPrefetchCache.getPrefetchCache(false);
+            if (prefetchCache != null && prefetchCache.contains(entityType, entityId, property, localeCountryCode)) {
+                Translation translation = prefetchCache.get(entityType, entityId, property, localeCountryCode);
+                return translation == null ? null : translation.getTranslatedValue();
+            }
             Translation translation = dao.readTranslation(entityType, entityId, property, localeCode, localeCountryCode,
                     ResultType.CATALOG_ONLY);
             if (translation != null) {
@@ -223,6 +232,141 @@ public class TranslationServiceImpl implements TranslationService, TranslationSu
         return getOverrideTranslatedValue(property, entityType, entityId, localeCode, localeCountryCode);
     }
 
+    @Override
+    public void prefetchTranslations(List<?> entities, List<String> properties, Locale locale) {
+        if (CollectionUtils.isEmpty(entities) || CollectionUtils.isEmpty(properties)) {
+            return;
+        }
+        Map<Class<?>, TranslatedEntity> entityTypes = new HashMap<Class<?>, TranslatedEntity>();
+        Map<TranslatedEntity, List<String>> entityIdsByType = new LinkedHashMap<TranslatedEntity, List<String>>();
+        for (Object entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+            TranslatedEntity entityType = entityTypes.get(entity.getClass());
+            if (entityType == null) {
+                entityType = getEntityType(entity);
+                entityTypes.put(entity.getClass(), entityType);
+            }
+            List<String> entityIds = entityIdsByType.get(entityType);
+            if (entityIds == null) {
+                entityIds = new ArrayList<String>();
+                entityIdsByType.put(entityType, entityIds);
+            }
+            entityIds.add(dao.getEntityId(entityType, entity));
+        }
+        for (Entry<TranslatedEntity, List<String>> entry : entityIdsByType.entrySet()) {
+            prefetchTranslations(entry.getKey(), entry.getValue(), properties, locale);
+        }
+    }
+
+    @Override
+    public void prefetchTranslations(TranslatedEntity entityType, List<String> entityIds, List<String> properties, Locale locale) {
+        if (entityType == null || CollectionUtils.isEmpty(entityIds) || CollectionUtils.isEmpty(properties)
+                || !TranslationConsiderationContext.hasTranslation()) {
+            return;
+        }
+        String localeCode = locale.getLanguage();
+        String localeCountryCode = localeCode;
+        if (StringUtils.isNotBlank(locale.getCountry())) {
+            localeCountryCode += "_" + locale.getCountry();
+        }
+        if (!shouldTranslateLocale(localeCountryCode) || isFullyCached(entityType)) {
+            return;
+        }
+
+        TranslationPrefetchCache prefetchCache = TranslationPrefetchCache.getPrefetchCache(true);
+        if (prefetchCache == null) {
+            return;
+        }
+        Set<String> pendingIds = new LinkedHashSet<String>();
+        for (String entityId : entityIds) {
+            for (String property : properties) {
+                if (!prefetchCache.contains(entityType, entityId, property, localeCountryCode)) {
+                    pendingIds.add(entityId);
+                    break;
+                }
+            }
+        }
+        List<String> pending = new ArrayList<String>(pendingIds);
+        for (int start = 0; start < pending.size(); start += prefetchBatchSize) {
+            List<String> batch = pending.subList(start, Math.min(start + prefetchBatchSize, pending.size()));
+            // CATALOG_ONLY mirrors the per field lookups in getTranslatedValue and ThresholdCacheTranslationOverrideStrategy
+            List<Translation> translations = dao.readTranslations(entityType, batch, properties, localeCode, ResultType.CATALOG_ONLY);
+            Map<String, List<Translation>> candidates = new HashMap<String, List<Translation>>();
+            for (Translation translation : translations) {
+                String key = translation.getEntityId() + "|" + translation.getFieldName();
+                List<Translation> list = candidates.get(key);
+                if (list == null) {
+                    list = new ArrayList<Translation>(2);
+                    candidates.put(key, list);
+                }
+                list.add(translation);
+            }
+            for (String entityId : batch) {
+                for (String property : properties) {
+                    Translation translation = selectTranslation(localeCode, localeCountryCode, candidates.get(entityId + "|" + property));
+                    prefetchCache.put(entityType, entityId, property, localeCountryCode, translation);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chooses among the translations of one field in the same way {@link TranslationDao#readTranslation(TranslatedEntity, String, String, String, String, ResultType)}
+     * does: the exact locale if there is one, otherwise any translation in the language unless only the language was requested.
+     */
+    protected Translation selectTranslation(String localeCode, String localeCountryCode, List<Translation> translations) {
+        if (CollectionUtils.isEmpty(translations)) {
+            return null;
+        }
+        for (Translation translation : translations) {
+            if (translation.getLocaleCode().equals(localeCountryCode)) {
+                return translation;
+            }
+        }
+        return localeCode.equals(localeCountryCode) ? null : translations.get(0);
+    }
+
+    /**
+     * Whether lookups for the entity type are answered from the full translation cache built by
+     * {@link ThresholdCacheTranslationOverrideStrategy}, in which case a prefetch would only add a query. That is the case
+     * when the cache already holds the entity type, or when the entity type has few enough translations to be loaded
+     * into the cache by the first lookup.
+     */
+    protected boolean isFullyCached(TranslatedEntity entityType) {
+        if (!BroadleafRequestContext.getBroadleafRequestContext().isProductionSandBox() || !isValidForCache()
+                || !hasThresholdCacheStrategy()) {
+            return false;
+        }
+        if (getCache().get(getCacheKey(ResultType.STANDARD, entityType)) != null) {
+            return true;
+        }
+        return dao.countTranslationEntries(entityType, ResultType.STANDARD_CACHE) < getThresholdForFullCache();
+    }
+
+    protected boolean hasThresholdCacheStrategy() {
+        if (strategies != null) {
+            for (TranslationOverrideStrategy strategy : strategies) {
+                if (strategy instanceof ThresholdCacheTranslationOverrideStrategy) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected boolean isValidForCache() {
+        boolean isValidForCache = false;
+        if (extensionManager != null) {
+            ExtensionResultHolder<Boolean> response = new ExtensionResultHolder<Boolean>();
+            response.setResult(false);
+            extensionManager.getProxy().isValidState(response);
+            isValidForCache = response.getResult();
+        }
+        return isValidForCache;
+    }
+
     /**
      * Whether translations should be gathered for the provided locale.
      *
@@ -17,18 +17,39 @@
  */
 package org.broadleafcommerce.common.id.service;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import javax.annotation.Resource;
-import javax.persistence.OptimisticLockException;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.id.dao.IdGenerationDao;
 import org.broadleafcommerce.common.id.domain.IdGeneration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.persistence.OptimisticLockException;
+
+/**
+ * Hands out ids from blocks reserved in the BLC_ID_GENERATION table. Each id type has its own sequence, and an id is
+ * taken from the current block of the sequence with a single atomic increment, so callers only synchronize when a
+ * block runs out.
+ * <p>
+ * Once a block is drawn down to its low-water mark, the next blocks are reserved on a background thread so that callers
+ * rarely wait on the database. The number of blocks reserved ahead grows (up to {@link #prefetchMaxBlocks}) for id types
+ * whose blocks are consumed faster than {@link #prefetchTargetBlockInterval}, and shrinks again when consumption slows
+ * down. Blocks are always consumed in the order they were reserved, so a single caller still receives ascending ids
+ * (or cycling ids for a sequence with an end).
+ */
 @Service("blIdGenerationService")
 public class IdGenerationServiceImpl implements IdGenerationService {
 
@@ -37,7 +58,33 @@ public class IdGenerationServiceImpl implements IdGenerationService {
     @Resource(name="blIdGenerationDao")
     protected IdGenerationDao idGenerationDao;
 
-    protected Map<String, Id> idTypeIdMap = new HashMap<String, Id>();
+    /**
+     * Whether the next blocks are reserved in the background once the current block reaches its low-water mark
+     */
+    @Value("${id.generation.prefetch.enabled:true}")
+    protected boolean prefetchEnabled = true;
+
+    /**
+     * Percentage of a block that is left when the next blocks start being reserved
+     */
+    @Value("${id.generation.prefetch.low.water.percent:25}")
+    protected int prefetchLowWaterPercent = 25;
+
+    /**
+     * Maximum number of blocks reserved ahead of the current block for an id type
+     */
+    @Value("${id.generation.prefetch.max.blocks:4}")
+    protected int prefetchMaxBlocks = 4;
+
+    /**
+     * Milliseconds a block should last. Id types that use up their blocks faster have more blocks reserved ahead.
+     */
+    @Value("${id.generation.prefetch.target.block.interval:1000}")
+    protected long prefetchTargetBlockInterval = 1000L;
+
+    protected final ConcurrentMap<String, IdSequence> idSequences = new ConcurrentHashMap<>();
+
+    protected volatile ExecutorService prefetchExecutor;
 
     @Override
     public Long findNextId(String idType) {
@@ -46,40 +93,140 @@ public class IdGenerationServiceImpl implements IdGenerationService {
 
     @Override
     public Long findNextId(String idType, Long batchSize) {
-        Id id;
-        synchronized (idTypeIdMap) {
-            id = idTypeIdMap.get(idType);
-            if (id == null) {
-                // recheck, another thread may have added this.
-                id = idTypeIdMap.get(idType);
-                if (id == null) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Getting the initial id from the database.");
-                    }
-                    IdGeneration idGeneration = getCurrentIdRange(idType, batchSize);
-                    id = new Id(idGeneration.getBatchStart(), idGeneration.getBatchSize());
+        IdSequence sequence = getIdSequence(idType, batchSize);
+        IdBlock block = sequence.current;
+        while (true) {
+            long offset = block.offset.getAndIncrement();
+            if (offset < block.size) {
+                if (offset == block.lowWaterOffset) {
+                    schedulePrefetch(sequence);
                 }
-                idTypeIdMap.put(idType, id);
+                return block.start + offset;
             }
+            block = advance(sequence, block);
         }
+    }
 
-        synchronized(id) {
-            if (id.batchSize == 0L) {
+    protected IdSequence getIdSequence(String idType, Long batchSize) {
+        IdSequence sequence = idSequences.get(idType);
+        if (sequence == null) {
+            sequence = idSequences.computeIfAbsent(idType, type -> {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug("Updating batch size for idType " + idType);
+                    LOG.debug("Getting the initial id from the database.");
                 }
-                IdGeneration idGeneration = getCurrentIdRange(idType, batchSize);
-                id.nextId = idGeneration.getBatchStart();
-                id.batchSize = idGeneration.getBatchSize();
+                return new IdSequence(type, batchSize, reserveBlock(type, batchSize));
+            });
+        }
+        return sequence;
+    }
+
+    /**
+     * Replaces the exhausted block with the oldest prefetched block, or reserves a block if none has been prefetched
+     *
+     * @return the current block of the sequence
+     */
+    protected IdBlock advance(IdSequence sequence, IdBlock exhausted) {
+        sequence.lock.lock();
+        try {
+            if (sequence.current != exhausted) {
+                return sequence.current;
             }
-            Long retId = id.nextId++;
-            id.batchSize--;
+            IdBlock next = sequence.prefetched.poll();
+            if (next == null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Updating batch size for idType " + sequence.idType);
+                }
+                next = reserveBlock(sequence.idType, sequence.batchSize);
+            }
+            adjustPrefetchDepth(sequence, exhausted);
+            sequence.current = next;
+            return next;
+        } finally {
+            sequence.lock.unlock();
+        }
+    }
 
-            return retId;
+    /**
+     * Reserves more blocks ahead for sequences whose blocks last less than the target interval, and fewer for those
+     * whose blocks last much longer
+     */
+    protected void adjustPrefetchDepth(IdSequence sequence, IdBlock exhausted) {
+        long lifetime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - exhausted.creationTime);
+        if (lifetime < prefetchTargetBlockInterval) {
+            sequence.prefetchDepth = Math.min(prefetchMaxBlocks, sequence.prefetchDepth + 1);
+        } else if (lifetime > prefetchTargetBlockInterval * 4) {
+            sequence.prefetchDepth = Math.max(1, sequence.prefetchDepth - 1);
         }
     }
-    
-    private IdGeneration getCurrentIdRange(String idType, Long batchSize) {
+
+    protected void schedulePrefetch(IdSequence sequence) {
+        if (!prefetchEnabled || !sequence.prefetching.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            getPrefetchExecutor().execute(() -> prefetch(sequence));
+        } catch (RejectedExecutionException e) {
+            sequence.prefetching.set(false);
+        }
+    }
+
+    protected void prefetch(IdSequence sequence) {
+        try {
+            while (sequence.prefetched.size() < sequence.prefetchDepth) {
+                sequence.lock.lock();
+                try {
+                    if (sequence.prefetched.size() >= sequence.prefetchDepth) {
+                        break;
+                    }
+                    sequence.prefetched.add(reserveBlock(sequence.idType, sequence.batchSize));
+                } finally {
+                    sequence.lock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to prefetch an id range for " + sequence.idType + ". It will be retrieved on demand.", e);
+        } finally {
+            sequence.prefetching.set(false);
+        }
+    }
+
+    protected IdBlock reserveBlock(String idType, Long batchSize) {
+        IdGeneration idGeneration = getCurrentIdRange(idType, batchSize);
+        long size = idGeneration.getBatchSize();
+        long lowWaterOffset = size - Math.max(1L, size * prefetchLowWaterPercent / 100);
+        return new IdBlock(idGeneration.getBatchStart(), size, lowWaterOffset);
+    }
+
+    protected ExecutorService getPrefetchExecutor() {
+        ExecutorService executor = prefetchExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = prefetchExecutor;
+                if (executor == null) {
+                    executor = createPrefetchExecutor();
+                    prefetchExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    protected ExecutorService createPrefetchExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-generation-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdownPrefetchExecutor() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    protected IdGeneration getCurrentIdRange(String idType, Long batchSize) {
         IdGeneration idGeneration = null;
         int retryCount = 0;
         boolean stale = true;
@@ -103,13 +250,42 @@ public class IdGenerationServiceImpl implements IdGenerationService {
         return idGeneration;
     }
 
-    private class Id {
-        public Long nextId;
-        public Long batchSize;
+    /**
+     * The blocks of an id type. The lock serializes reserving blocks, so that they are queued in the order they were
+     * reserved, and replacing the current block.
+     */
+    protected static class IdSequence {
 
-        public Id(Long nextId, Long batchSize) {
-            this.nextId = nextId;
+        protected final String idType;
+        protected final Long batchSize;
+        protected final ReentrantLock lock = new ReentrantLock();
+        protected final ConcurrentLinkedQueue<IdBlock> prefetched = new ConcurrentLinkedQueue<>();
+        protected final AtomicBoolean prefetching = new AtomicBoolean();
+        protected volatile IdBlock current;
+        protected volatile int prefetchDepth = 1;
+
+        public IdSequence(String idType, Long batchSize, IdBlock current) {
+            this.idType = idType;
             this.batchSize = batchSize;
+            this.current = current;
+        }
+    }
+
+    /**
+     * A reserved range of ids. The offset may run past the size when several callers find the block exhausted.
+     */
+    protected static class IdBlock {
+
+        protected final long start;
+        protected final long size;
+        protected final long lowWaterOffset;
+        protected final AtomicLong offset = new AtomicLong();
+        protected final long creationTime = System.nanoTime();
+
+        public IdBlock(long start, long size, long lowWaterOffset) {
+            this.start = start;
+            this.size = size;
+            this.lowWaterOffset = lowWaterOffset;
         }
     }
 }
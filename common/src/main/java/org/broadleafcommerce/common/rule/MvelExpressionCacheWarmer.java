@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.cache.StatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+/**
+ * Connects {@link MvelHelper}'s expression caches to the {@link StatisticsService} and, when
+ * <code>mvel.expression.cache.warmup.enabled</code> is true, asks every {@link MvelExpressionWarmupProvider} to compile
+ * its rules once the application context has started. Without the warm-up, the first requests after a restart pay for
+ * compiling every offer and content rule they touch.
+ */
+@Component("blMvelExpressionCacheWarmer")
+public class MvelExpressionCacheWarmer {
+
+    private static final Log LOG = LogFactory.getLog(MvelExpressionCacheWarmer.class);
+
+    @Resource(name = "blStatisticsService")
+    protected StatisticsService statisticsService;
+
+    @Autowired(required = false)
+    protected List<MvelExpressionWarmupProvider> warmupProviders = new ArrayList<>();
+
+    @Value("${mvel.expression.cache.warmup.enabled:false}")
+    protected boolean warmupEnabled = false;
+
+    protected final AtomicBoolean warmedUp = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void init() {
+        MvelHelper.setStatisticsService(statisticsService);
+    }
+
+    @EventListener
+    public void warmUp(ContextRefreshedEvent event) {
+        if (!warmupEnabled || !warmedUp.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int count = 0;
+        for (MvelExpressionWarmupProvider provider : warmupProviders) {
+            try {
+                count += provider.precompileExpressions();
+            } catch (Exception e) {
+                LOG.warn("Unable to precompile the MVEL expressions of " + provider.getClass().getName(), e);
+            }
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Precompiled " + count + " MVEL expressions in " + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.rule;
+
+import java.util.Map;
+
+/**
+ * Implemented by beans that own MVEL rules which are evaluated on every request, so that
+ * {@link MvelExpressionCacheWarmer} can compile those rules at startup instead of on the first request that needs them.
+ * <p>
+ * Rules must be compiled with {@link MvelHelper#compileRule(String, Map, Map, Map)}, using the same expression cache
+ * and imports that they are later evaluated with.
+ */
+public interface MvelExpressionWarmupProvider {
+
+    /**
+     * Compiles the active rules of this provider into their expression cache
+     *
+     * @return the number of rules that were compiled or were already cached
+     * @see MvelHelper#compileRule(String, Map, Map, Map)
+     */
+    int precompileExpressions();
+
+}
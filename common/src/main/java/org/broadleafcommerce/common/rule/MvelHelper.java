@@ -22,9 +22,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.RequestDTO;
 import org.broadleafcommerce.common.TimeDTO;
+import org.broadleafcommerce.common.cache.StatisticsService;
 import org.broadleafcommerce.common.presentation.client.SupportedFieldType;
 import org.broadleafcommerce.common.time.SystemTime;
-import org.broadleafcommerce.common.util.EfficientLRUMap;
+import org.broadleafcommerce.common.util.ConcurrentTinyLFUMap;
 import org.broadleafcommerce.common.util.FormatUtil;
 import org.broadleafcommerce.common.util.StringUtil;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
@@ -56,10 +57,14 @@ import javax.servlet.http.HttpServletRequest;
  */
 public class MvelHelper {
 
-    private static final Map<String, Serializable> DEFAULT_EXPRESSION_CACHE = new EfficientLRUMap<String, Serializable>(5000);
+    private static final Map<String, Serializable> DEFAULT_EXPRESSION_CACHE = new ConcurrentTinyLFUMap<String, Serializable>(5000);
     private static final Log LOG = LogFactory.getLog(MvelHelper.class);
 
     private static boolean TEST_MODE = false;
+
+    private static volatile StatisticsService STATISTICS_SERVICE;
+
+    public static final String EXPRESSION_CACHE_STAT_KEY = "mvelExpressionCache";
     
     public static final String BLC_RULE_MAP_PARAM = "blRuleMap";
 
@@ -127,7 +132,7 @@ public class MvelHelper {
      * 
      * Calls the {@link #evaluateRule(String, Map, Map)} method passing in the DEFAULT_EXPRESSION_CACHE.
      * For systems that need to cache a large number of rule expressions, an alternate cache can be passed in.   The
-     * default cache is able to cache up to 1,000 rule expressions which should suffice for most systems.
+     * default cache is able to cache up to 5,000 rule expressions which should suffice for most systems.
      * 
      * @param rule
      * @param ruleParameters
@@ -165,28 +170,7 @@ public class MvelHelper {
             return true;
         } else {
             // MVEL expression compiling can be expensive so let's cache the expression
-            Serializable exp = null;
-            if (expressionCache != null) {
-                exp = expressionCache.get(rule);
-            }
-            if (exp == null) {
-                ParserContext context = new ParserContext();
-                context.addImport("MVEL", MVEL.class);
-                context.addImport("MvelHelper", MvelHelper.class);
-                context.addImport("CollectionUtils", SelectizeCollectionUtils.class);
-                if (MapUtils.isNotEmpty(additionalContextImports)) {
-                    for (Entry<String, Class<?>> entry : additionalContextImports.entrySet()) {
-                        context.addImport(entry.getKey(), entry.getValue());
-                    }
-                }
-                
-                String modifiedRule = modifyExpression(rule, ruleParameters, context);
-
-                synchronized (expressionCache) {
-                    exp = MVEL.compileExpression(modifiedRule, context);
-                    expressionCache.put(rule, exp);
-                }
-            }
+            Serializable exp = compileRule(rule, ruleParameters, expressionCache, additionalContextImports);
 
             Map<String, Object> mvelParameters = new HashMap<String, Object>();
 
@@ -215,6 +199,95 @@ public class MvelHelper {
         }
     }
     
+    /**
+     * Calls {@link #compileRule(String, Map, Map, Map)} with the DEFAULT_EXPRESSION_CACHE and no additional imports, as
+     * used by {@link #evaluateRule(String, Map)}
+     */
+    public static Serializable compileRule(String rule, Map<String, Object> ruleParameters) {
+        return compileRule(rule, ruleParameters, DEFAULT_EXPRESSION_CACHE, null);
+    }
+
+    /**
+     * Returns the compiled form of the rule from the <b>expressionCache</b>, compiling and caching it first if necessary.
+     * This can also be used to precompile rules ahead of their first evaluation, in which case the same cache and
+     * imports that the rule will later be evaluated with must be passed in.
+     * <p>
+     * A {@link ConcurrentTinyLFUMap} cache compiles each rule once, without blocking evaluations of other rules. Any
+     * other type of map is synchronized on while the compiled expression is added to it.
+     *
+     * @param rule the rule to compile
+     * @param ruleParameters the parameters the rule will be evaluated with, passed to {@link #modifyExpression(String, Map, ParserContext)}
+     * @param expressionCache the cache of compiled rules, keyed by rule. May be null.
+     * @param additionalContextImports additional imports to give to the {@link ParserContext}
+     * @return the compiled expression
+     */
+    public static Serializable compileRule(final String rule, final Map<String, Object> ruleParameters,
+            Map<String, Serializable> expressionCache, final Map<String, Class<?>> additionalContextImports) {
+        if (expressionCache instanceof ConcurrentTinyLFUMap) {
+            final long[] compileTime = { -1L };
+            Serializable exp = expressionCache.computeIfAbsent(rule, key -> {
+                long start = System.nanoTime();
+                Serializable compiled = compileExpression(rule, ruleParameters, additionalContextImports);
+                compileTime[0] = System.nanoTime() - start;
+                return compiled;
+            });
+            recordExpressionCacheStat(compileTime[0]);
+            return exp;
+        }
+
+        Serializable exp = null;
+        if (expressionCache != null) {
+            exp = expressionCache.get(rule);
+        }
+        if (exp == null) {
+            exp = compileExpression(rule, ruleParameters, additionalContextImports);
+            if (expressionCache != null) {
+                synchronized (expressionCache) {
+                    expressionCache.put(rule, exp);
+                }
+            }
+        }
+        return exp;
+    }
+
+    protected static Serializable compileExpression(String rule, Map<String, Object> ruleParameters,
+            Map<String, Class<?>> additionalContextImports) {
+        ParserContext context = new ParserContext();
+        context.addImport("MVEL", MVEL.class);
+        context.addImport("MvelHelper", MvelHelper.class);
+        context.addImport("CollectionUtils", SelectizeCollectionUtils.class);
+        if (MapUtils.isNotEmpty(additionalContextImports)) {
+            for (Entry<String, Class<?>> entry : additionalContextImports.entrySet()) {
+                context.addImport(entry.getKey(), entry.getValue());
+            }
+        }
+
+        String modifiedRule = modifyExpression(rule, ruleParameters, context);
+        return MVEL.compileExpression(modifiedRule, context);
+    }
+
+    /**
+     * Reports a cache hit, or a cache miss and its compile time, to the {@link StatisticsService} if one has been set
+     *
+     * @param compileTime the nanoseconds spent compiling the expression, or a negative number on a cache hit
+     */
+    protected static void recordExpressionCacheStat(long compileTime) {
+        StatisticsService statisticsService = STATISTICS_SERVICE;
+        if (statisticsService != null) {
+            statisticsService.addCacheStat(EXPRESSION_CACHE_STAT_KEY, compileTime < 0);
+            if (compileTime >= 0) {
+                statisticsService.addTimingStat(EXPRESSION_CACHE_STAT_KEY + ".compile", compileTime);
+            }
+        }
+    }
+
+    /**
+     * Sets the {@link StatisticsService} that expression cache hits, misses and compile times are reported to
+     */
+    public static void setStatisticsService(StatisticsService statisticsService) {
+        STATISTICS_SERVICE = statisticsService;
+    }
+
     /**
      * <p>
      * Provides a hook point to modify the final expression before it's built. By default, this looks for attribute
@@ -18,6 +18,7 @@
 
 package org.broadleafcommerce.common.sitemap.service;
 
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.file.domain.FileWorkArea;
@@ -31,12 +32,18 @@ import org.broadleafcommerce.common.util.FormatUtil;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -44,12 +51,19 @@ import javax.xml.bind.Marshaller;
 
 /**
  * Handles creating the various sitemap files. 
+ * <p>
+ * When the files are gzipped, the compressed copy of each file is written at the same time as the file itself. A
+ * builder created with a shard key only writes the URL set files of that shard (see {@link #persistShard()}), named
+ * after the shard, so that several builders can write to the same work area at once.
  * 
  * @author bpolster
  */
 public class SiteMapBuilder {
 
     protected static final Log LOG = LogFactory.getLog(SiteMapBuilder.class);
+    protected static final String ENCODING_EXTENSION = ".gz";
+    protected static final ConcurrentMap<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+
     protected FileWorkArea fileWorkArea;
 
     protected SiteMapConfiguration siteMapConfig;
@@ -57,13 +71,19 @@ public class SiteMapBuilder {
     protected List<String> indexedFileNames = new ArrayList<String>();
     protected String baseUrl;
     protected boolean gzipSiteMapFiles = true;
+    protected String shardKey;
 
     public SiteMapBuilder(SiteMapConfiguration siteMapConfig, FileWorkArea fileWorkArea, String baseUrl, boolean gzipSiteMapFiles) {
+        this(siteMapConfig, fileWorkArea, baseUrl, gzipSiteMapFiles, null);
+    }
+
+    public SiteMapBuilder(SiteMapConfiguration siteMapConfig, FileWorkArea fileWorkArea, String baseUrl, boolean gzipSiteMapFiles, String shardKey) {
         this.fileWorkArea = fileWorkArea;
         this.siteMapConfig = siteMapConfig;
         this.currentURLSetWrapper = new SiteMapURLSetWrapper();
         this.baseUrl = baseUrl;
         this.gzipSiteMapFiles = gzipSiteMapFiles;
+        this.shardKey = shardKey;
     }
 
     /**
@@ -87,8 +107,7 @@ public class SiteMapBuilder {
     protected void persistXMLDocument(String fileName, Object xmlObject) {
 
         try {
-            JAXBContext context = JAXBContext.newInstance(xmlObject.getClass());
-            Marshaller m = context.createMarshaller();
+            Marshaller m = getJAXBContext(xmlObject.getClass()).createMarshaller();
             m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
             m.setProperty(Marshaller.JAXB_FRAGMENT, true);
 
@@ -97,13 +116,10 @@ public class SiteMapBuilder {
                 LOG.trace("Persisting SiteMap document " + file.getAbsolutePath());
             }
 
-            if (!file.exists()) {
-                file.createNewFile();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(createOutputStream(file), StandardCharsets.UTF_8))) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                m.marshal(xmlObject, writer);
             }
-            Writer writer = new BufferedWriter(new FileWriter(file.getAbsoluteFile()));
-            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-            m.marshal(xmlObject, writer);
-            writer.close();
         } catch (IOException ioe) {
             LOG.error("IOException occurred persisting XML Document", ioe);
             throw new RuntimeException("Error persisting XML document when trying to build Sitemap", ioe);
@@ -113,6 +129,31 @@ public class SiteMapBuilder {
         }
     }
 
+    /**
+     * Opens the stream for a sitemap file, which also writes the gzipped copy of the file when the files are gzipped
+     */
+    protected OutputStream createOutputStream(File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (!gzipSiteMapFiles) {
+            return out;
+        }
+        try {
+            return new TeeOutputStream(out, new GZIPOutputStream(new FileOutputStream(file.getPath() + ENCODING_EXTENSION), 8192));
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    protected JAXBContext getJAXBContext(Class<?> clazz) throws JAXBException {
+        JAXBContext context = JAXB_CONTEXTS.get(clazz);
+        if (context == null) {
+            context = JAXBContext.newInstance(clazz);
+            JAXB_CONTEXTS.putIfAbsent(clazz, context);
+        }
+        return context;
+    }
+
     /**
      * Save the passed in URL set to a new indexed file. 
      * 
@@ -140,18 +181,27 @@ public class SiteMapBuilder {
      * @return
      */
     protected void persistIndexedSiteMap() {
-        String now = FormatUtil.formatDateUsingW3C(new Date());
-        
         // Save the leftover URL set
         persistIndexedURLSetWrapper(currentURLSetWrapper);
 
+        persistSiteMapIndex(new ArrayList<String>(indexedFileNames));
+    }
+
+    /**
+     * Save the site map index file, listing the given files.
+     * 
+     * @param fileNames the (uncompressed) names of the URL set files
+     */
+    public void persistSiteMapIndex(List<String> fileNames) {
+        String now = FormatUtil.formatDateUsingW3C(new Date());
+
         // Build the siteMapIndex
         SiteMapIndexWrapper siteMapIndexWrapper = new SiteMapIndexWrapper();
-        for (String fileName : indexedFileNames) {
+        for (String fileName : fileNames) {
             SiteMapWrapper siteMapWrapper = new SiteMapWrapper();
             String fileLoc = null;
             if (gzipSiteMapFiles) {
-                fileLoc = BroadleafFileUtils.appendUnixPaths(baseUrl, fileName + ".gz");
+                fileLoc = BroadleafFileUtils.appendUnixPaths(baseUrl, fileName + ENCODING_EXTENSION);
             } else {
                 fileLoc = BroadleafFileUtils.appendUnixPaths(baseUrl, fileName);
             }
@@ -168,16 +218,32 @@ public class SiteMapBuilder {
                 siteMapIndexWrapper);
     }
 
+    /**
+     * Save the leftover URL set of a shard. Unlike {@link #persistSiteMap()}, no index file is written; it is up to the
+     * caller to index the files of all the shards.
+     * 
+     * @return the names of the files written for this shard, which is empty if no URLs were added
+     */
+    public List<String> persistShard() {
+        if (!currentURLSetWrapper.getSiteMapUrlWrappers().isEmpty()) {
+            persistIndexedURLSetWrapper(currentURLSetWrapper);
+            currentURLSetWrapper = new SiteMapURLSetWrapper();
+        }
+        return indexedFileNames;
+    }
+
     /**
      * Create the name of the indexed files.
-     * For example, sitemap1.xml, sitemap2.xml, etc.
+     * For example, sitemap1.xml, sitemap2.xml, etc. or sitemapproduct-1.xml, sitemapproduct-2.xml, etc. for the
+     * "product" shard.
      * 
      * @return
      */
     protected String createNextIndexedFileName() {
         String pattern = siteMapConfig.getSiteMapIndexFilePattern();
         int indexFileNumber = indexedFileNames.size() + 1;
-        String fileName = pattern.replaceFirst("###", String.valueOf(indexFileNumber));
+        String fileNumber = shardKey == null ? String.valueOf(indexFileNumber) : shardKey + "-" + indexFileNumber;
+        String fileName = pattern.replaceFirst("###", fileNumber);
         return fileName;
     }
 
@@ -197,4 +263,8 @@ public class SiteMapBuilder {
         return baseUrl;
     }
 
+    public String getShardKey() {
+        return shardKey;
+    }
+
 }
@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.sitemap.service;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Builds the fingerprints a {@link SiteMapGenerator} uses to tell whether its entries changed, from a lightweight read
+ * of the values its entries are built from, such as the id and url of each entity. The values are hashed in the order
+ * they are added, into the fingerprint of the shard of their id and into the fingerprint of all the values.
+ * 
+ * @see SiteMapGenerator#readShardFingerprints(org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration, long)
+ */
+public class SiteMapFingerprint {
+
+    protected static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    protected static final long PRIME = 0x100000001b3L;
+
+    protected final long idsPerShard;
+    protected final SortedMap<Long, Hash> shards = new TreeMap<Long, Hash>();
+    protected final Hash total = new Hash();
+
+    /**
+     * @param idsPerShard the width of the id range of a shard, or {@link Long#MAX_VALUE} if only the fingerprint of all
+     * the values is needed
+     */
+    public SiteMapFingerprint(long idsPerShard) {
+        this.idsPerShard = idsPerShard;
+    }
+
+    /**
+     * Adds the values of the entity with the given id
+     */
+    public void add(Long id, Object... values) {
+        Long shard = id == null ? 0L : Math.floorDiv(id, idsPerShard);
+        Hash hash = shards.get(shard);
+        if (hash == null) {
+            hash = new Hash();
+            shards.put(shard, hash);
+        }
+        hash.add(id, values);
+        total.add(id, values);
+    }
+
+    /**
+     * @return the fingerprint of each shard that has values, by shard number
+     */
+    public SortedMap<Long, String> getShardFingerprints() {
+        SortedMap<Long, String> fingerprints = new TreeMap<Long, String>();
+        for (Map.Entry<Long, Hash> entry : shards.entrySet()) {
+            fingerprints.put(entry.getKey(), entry.getValue().toString());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * @return the fingerprint of all the values
+     */
+    public String getFingerprint() {
+        return total.toString();
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the string values, along with their count
+     */
+    protected static class Hash {
+
+        protected long count;
+        protected long value = OFFSET_BASIS;
+
+        protected void add(Long id, Object... values) {
+            count++;
+            addString(String.valueOf(id));
+            for (Object item : values) {
+                addString(String.valueOf(item));
+            }
+        }
+
+        protected void addString(String string) {
+            for (int i = 0; i < string.length(); i++) {
+                value = (value ^ string.charAt(i)) * PRIME;
+            }
+            // separate the values, so that moving characters from one value to the next changes the hash
+            value = (value ^ 0xffff) * PRIME;
+        }
+
+        @Override
+        public String toString() {
+            return count + "-" + Long.toHexString(value);
+        }
+    }
+}
@@ -20,6 +20,9 @@ package org.broadleafcommerce.common.sitemap.service;
 
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 
+import java.util.Date;
+import java.util.SortedMap;
+
 
 /**
  * Responsible for generating site map entries.   
@@ -48,4 +51,57 @@ public interface SiteMapGenerator {
      */
     public void addSiteMapEntries(SiteMapGeneratorConfiguration siteMapGeneratorConfiguration, SiteMapBuilder siteMapBuilder);
 
+    /**
+     * Returns the last time one of the entities this generator adds entries for was updated. Incremental site map
+     * generation keeps the previously generated files of a configuration as long as this date has not moved.
+     * 
+     * @param siteMapGeneratorConfiguration
+     * @return the last update date, or null if it is not known, in which case the entries are always regenerated
+     */
+    public default Date getLastModifiedDate(SiteMapGeneratorConfiguration siteMapGeneratorConfiguration) {
+        return null;
+    }
+
+    /**
+     * Returns a value that changes whenever the entries this generator adds for the configuration change. Incremental
+     * site map generation keeps the previously generated files of a configuration as long as it is the same. By
+     * default, this is the {@link #getLastModifiedDate(SiteMapGeneratorConfiguration)}.
+     * 
+     * @param siteMapGeneratorConfiguration
+     * @return the fingerprint, or null if it is not known, in which case the entries are always regenerated
+     */
+    public default String getFingerprint(SiteMapGeneratorConfiguration siteMapGeneratorConfiguration) {
+        Date lastModifiedDate = getLastModifiedDate(siteMapGeneratorConfiguration);
+        return lastModifiedDate == null ? null : String.valueOf(lastModifiedDate.getTime());
+    }
+
+    /**
+     * Splits the entries of the configuration into shards by id, so that they can be generated in parallel and, in
+     * incremental mode, kept separately. An entity goes to the shard <code>id / idsPerShard</code>, so the shards of
+     * the other entities stay the same when one is added or removed.
+     * 
+     * @param siteMapGeneratorConfiguration
+     * @param idsPerShard the width of the id range of a shard
+     * @return the fingerprint of each shard that has entries, by shard number (see {@link SiteMapFingerprint}), or null
+     * if this generator does not split its entries, in which case
+     * {@link #addSiteMapEntries(SiteMapGeneratorConfiguration, SiteMapBuilder)} is used
+     */
+    public default SortedMap<Long, String> readShardFingerprints(SiteMapGeneratorConfiguration siteMapGeneratorConfiguration, long idsPerShard) {
+        return null;
+    }
+
+    /**
+     * Adds the entries of the entities with an id from <code>fromId</code>, inclusive, to <code>toId</code>, exclusive.
+     * Only called for generators that return shards from {@link #readShardFingerprints(SiteMapGeneratorConfiguration, long)}.
+     * 
+     * @param siteMapGeneratorConfiguration
+     * @param siteMapBuilder
+     * @param fromId
+     * @param toId
+     */
+    public default void addSiteMapEntries(SiteMapGeneratorConfiguration siteMapGeneratorConfiguration, SiteMapBuilder siteMapBuilder,
+            long fromId, long toId) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not split its site map entries by id");
+    }
+
 }
@@ -30,15 +30,29 @@ import org.broadleafcommerce.common.sitemap.domain.SiteMapConfiguration;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.exception.SiteMapException;
 import org.broadleafcommerce.common.util.BLCSystemProperty;
+import org.broadleafcommerce.common.util.EntityManagerAwareRunnable;
 import org.broadleafcommerce.common.web.BaseUrlResolver;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Resource;
@@ -48,6 +62,13 @@ import javax.annotation.Resource;
  * produce the actual url entries within the sitemap.
  * 
  * Create a sitemap index file and at least one sitemap file with the URL elements.
+ * <p>
+ * When generators run in parallel ({@link #generatorThreads} above 1) or generation is incremental, each generator
+ * configuration writes its own shards of sitemap files and the index lists the shards in configuration order. Generators
+ * that split their entries by id write one shard per range of {@link #idsPerShard} ids. In incremental mode, a shard is
+ * kept from the previous run as long as its fingerprint is the same (see
+ * {@link SiteMapGenerator#getFingerprint(SiteMapGeneratorConfiguration)}), which is tracked in a state file stored next
+ * to the sitemap.
  * 
  * @author bpolster
  *
@@ -59,8 +80,38 @@ public class SiteMapServiceImpl implements SiteMapService {
     
     protected static final String ENCODING_EXTENSION = ".gz";
 
+    protected static final String STATE_FILE_NAME = "sitemap_state.properties";
+
     protected Boolean gzipSiteMapFiles;
 
+    /**
+     * Number of generator configurations that are processed at the same time. Above 1, each configuration is written
+     * to its own shard of sitemap files.
+     */
+    @Value("${sitemap.generator.threads:1}")
+    protected int generatorThreads = 1;
+
+    /**
+     * Whether the shards whose fingerprint has not changed since the last generation are kept
+     */
+    @Value("${sitemap.incremental:false}")
+    protected boolean incremental = false;
+
+    /**
+     * Seconds after which a shard is regenerated even if its fingerprint has not changed, which picks up changes to the
+     * values a generator does not fingerprint
+     */
+    @Value("${sitemap.incremental.max.age.seconds:86400}")
+    protected long incrementalMaxAgeSeconds = 86400L;
+
+    /**
+     * Width of the id range of a shard, for the generators that split their entries by id (see
+     * {@link SiteMapGenerator#readShardFingerprints(SiteMapGeneratorConfiguration, long)}). A value less than or equal
+     * to 0 writes each configuration to a single shard.
+     */
+    @Value("${sitemap.generator.shard.ids:50000}")
+    protected long idsPerShard = 50000L;
+
     @Resource(name = "blModuleConfigurationService")
     protected ModuleConfigurationService moduleConfigurationService;
 
@@ -87,42 +138,35 @@ public class SiteMapServiceImpl implements SiteMapService {
         }
 
         FileWorkArea fileWorkArea = broadleafFileService.initializeWorkArea();
-        SiteMapBuilder siteMapBuilder = new SiteMapBuilder(smc, fileWorkArea, baseUrlResolver.getSiteBaseUrl(), getGzipSiteMapFiles());
-
         if (LOG.isTraceEnabled()) {
             LOG.trace("File work area initalized with path " + fileWorkArea.getFilePathLocation());
         }
-        for (SiteMapGeneratorConfiguration currentConfiguration : smc.getSiteMapGeneratorConfigurations()) {
-            if (currentConfiguration.isDisabled()) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("Skipping disabled sitemap generator configuration" + currentConfiguration.getId());
-                }
-                continue;
-            }
-            SiteMapGenerator generator = selectSiteMapGenerator(currentConfiguration);
-            if (generator != null) {
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("SiteMapGenerator found, adding entries" + generator.getClass());
+
+        List<String> siteMapFileNames;
+        List<String> staleFileNames = new ArrayList<String>();
+        if (isShardedGeneration()) {
+            siteMapFileNames = generateShardedSiteMap(smc, fileWorkArea, staleFileNames);
+        } else {
+            SiteMapBuilder siteMapBuilder = new SiteMapBuilder(smc, fileWorkArea, baseUrlResolver.getSiteBaseUrl(), getGzipSiteMapFiles());
+            for (SiteMapGeneratorConfiguration currentConfiguration : smc.getSiteMapGeneratorConfigurations()) {
+                SiteMapGenerator generator = selectEnabledSiteMapGenerator(currentConfiguration);
+                if (generator != null) {
+                    generator.addSiteMapEntries(currentConfiguration, siteMapBuilder);
                 }
-                generator.addSiteMapEntries(currentConfiguration, siteMapBuilder);
-            } else {
-                LOG.warn("No site map generator found to process generator configuration for " + currentConfiguration.getSiteMapGeneratorType());
             }
+            siteMapBuilder.persistSiteMap();
+            siteMapFileNames = siteMapBuilder.getIndexedFileNames();
         }
 
-        siteMapBuilder.persistSiteMap();
-
-
-        // Check for GZip
+        // The builder writes the gzipped copies while writing the files
         if (getGzipSiteMapFiles()) {
-            gzipAndDeleteFiles(fileWorkArea, siteMapBuilder.getIndexedFileNames(), false);
             List<String> indexFileNames = new ArrayList<String>();
-            for (String fileName: siteMapBuilder.getIndexedFileNames()) {
+            for (String fileName: siteMapFileNames) {
                 indexFileNames.add(fileName + ENCODING_EXTENSION);
             }
             smgr.setSiteMapFilePaths(indexFileNames);
         } else {
-            smgr.setSiteMapFilePaths(siteMapBuilder.getIndexedFileNames());
+            smgr.setSiteMapFilePaths(siteMapFileNames);
         }
 
 
@@ -130,9 +174,275 @@ public class SiteMapServiceImpl implements SiteMapService {
         broadleafFileService.addOrUpdateResources(fileWorkArea, true);
         broadleafFileService.closeWorkArea(fileWorkArea);
 
+        for (String staleFileName : staleFileNames) {
+            broadleafFileService.removeResource(staleFileName);
+            broadleafFileService.removeResource(staleFileName + ENCODING_EXTENSION);
+        }
+
         return smgr;
     }
 
+    protected boolean isShardedGeneration() {
+        return generatorThreads > 1 || incremental;
+    }
+
+    /**
+     * Returns the generator for the configuration, or null if the configuration is disabled or no generator handles it
+     */
+    protected SiteMapGenerator selectEnabledSiteMapGenerator(SiteMapGeneratorConfiguration currentConfiguration) {
+        if (currentConfiguration.isDisabled()) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Skipping disabled sitemap generator configuration" + currentConfiguration.getId());
+            }
+            return null;
+        }
+        SiteMapGenerator generator = selectSiteMapGenerator(currentConfiguration);
+        if (generator != null) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("SiteMapGenerator found, adding entries" + generator.getClass());
+            }
+        } else {
+            LOG.warn("No site map generator found to process generator configuration for " + currentConfiguration.getSiteMapGeneratorType());
+        }
+        return generator;
+    }
+
+    /**
+     * Writes each generator configuration to its own shards, on up to {@link #generatorThreads} threads, keeping the
+     * shards whose fingerprint has not changed in incremental mode, and then writes the index of all the shards.
+     *
+     * @param smc
+     * @param fileWorkArea
+     * @param staleFileNames receives the files of the previous generation that are no longer part of the sitemap
+     * @return the names of all the sitemap files, including the index
+     */
+    protected List<String> generateShardedSiteMap(SiteMapConfiguration smc, FileWorkArea fileWorkArea,
+            List<String> staleFileNames) throws IOException {
+        String baseUrl = baseUrlResolver.getSiteBaseUrl();
+        Properties previousState = incremental ? readSiteMapState() : new Properties();
+        Properties state = new Properties();
+        List<SiteMapShard> shards = new ArrayList<SiteMapShard>();
+        List<SiteMapShard> shardsToGenerate = new ArrayList<SiteMapShard>();
+        int position = 0;
+        for (SiteMapGeneratorConfiguration currentConfiguration : smc.getSiteMapGeneratorConfigurations()) {
+            position++;
+            SiteMapGenerator generator = selectEnabledSiteMapGenerator(currentConfiguration);
+            if (generator == null) {
+                continue;
+            }
+            String signature = getShardSignature(smc, currentConfiguration, generator, baseUrl);
+            for (SiteMapShard shard : createShards(currentConfiguration, generator, getShardKey(currentConfiguration, position), signature)) {
+                shard.previousFileNames = getStateFileNames(previousState, shard.shardKey);
+                if (incremental && isShardCurrent(previousState, shard)) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Keeping the sitemap files of unchanged shard " + shard.shardKey);
+                    }
+                    shard.fileNames = shard.previousFileNames;
+                    shard.generatedTime = Long.parseLong(previousState.getProperty(shard.shardKey + ".generated"));
+                } else {
+                    shardsToGenerate.add(shard);
+                }
+                shards.add(shard);
+            }
+        }
+
+        generateShards(smc, fileWorkArea, baseUrl, shardsToGenerate);
+
+        List<String> fileNames = new ArrayList<String>();
+        for (SiteMapShard shard : shards) {
+            fileNames.addAll(shard.fileNames);
+            for (String previousFileName : shard.previousFileNames) {
+                if (!shard.fileNames.contains(previousFileName)) {
+                    staleFileNames.add(previousFileName);
+                }
+            }
+            writeShardState(state, shard);
+        }
+        for (String previousShardKey : previousState.stringPropertyNames()) {
+            if (previousShardKey.endsWith(".files") && !state.containsKey(previousShardKey)) {
+                staleFileNames.addAll(getStateFileNames(previousState, previousShardKey.substring(0, previousShardKey.length() - ".files".length())));
+            }
+        }
+
+        SiteMapBuilder indexBuilder = new SiteMapBuilder(smc, fileWorkArea, baseUrl, getGzipSiteMapFiles());
+        indexBuilder.persistSiteMapIndex(fileNames);
+        fileNames.add(smc.getIndexedSiteMapFileName());
+
+        if (incremental) {
+            writeSiteMapState(fileWorkArea, state);
+        }
+        return fileNames;
+    }
+
+    /**
+     * Creates the shards of a generator configuration: one per id range if the generator splits its entries by id, or
+     * a single shard otherwise. The fingerprints are only read in incremental mode for a single shard, but they come
+     * with the id ranges.
+     */
+    protected List<SiteMapShard> createShards(SiteMapGeneratorConfiguration smgc, SiteMapGenerator generator,
+            String configurationKey, String signature) {
+        List<SiteMapShard> shards = new ArrayList<SiteMapShard>();
+        SortedMap<Long, String> shardFingerprints = idsPerShard > 0 ? generator.readShardFingerprints(smgc, idsPerShard) : null;
+        if (shardFingerprints == null) {
+            SiteMapShard shard = new SiteMapShard(configurationKey, smgc, generator, signature);
+            if (incremental) {
+                shard.fingerprint = generator.getFingerprint(smgc);
+            }
+            shards.add(shard);
+        } else {
+            for (Map.Entry<Long, String> entry : shardFingerprints.entrySet()) {
+                SiteMapShard shard = new SiteMapShard(configurationKey + "-r" + entry.getKey(), smgc, generator, signature);
+                shard.fromId = entry.getKey() * idsPerShard;
+                shard.toId = shard.fromId + idsPerShard;
+                shard.fingerprint = entry.getValue();
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    protected void generateShards(SiteMapConfiguration smc, FileWorkArea fileWorkArea, String baseUrl,
+            List<SiteMapShard> shards) throws IOException {
+        if (generatorThreads <= 1 || shards.size() <= 1) {
+            for (SiteMapShard shard : shards) {
+                generateShard(smc, fileWorkArea, baseUrl, shard);
+            }
+            return;
+        }
+
+        BroadleafRequestContext parentContext = BroadleafRequestContext.getBroadleafRequestContext();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(generatorThreads, shards.size()), runnable -> {
+            Thread thread = new Thread(runnable, "sitemap-generator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (SiteMapShard shard : shards) {
+                futures.add(executor.submit(createShardTask(smc, fileWorkArea, baseUrl, shard, parentContext)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SiteMapException("Interrupted while generating the sitemap", e);
+        } catch (ExecutionException e) {
+            throw new SiteMapException("Error generating the sitemap", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        for (SiteMapShard shard : shards) {
+            if (shard.error != null) {
+                throw new SiteMapException("Error generating the sitemap for shard " + shard.shardKey, shard.error);
+            }
+        }
+    }
+
+    /**
+     * Creates the task that generates a shard on a pool thread, with its own {@link javax.persistence.EntityManager}
+     * and a copy of the calling thread's {@link BroadleafRequestContext}
+     */
+    protected Runnable createShardTask(final SiteMapConfiguration smc, final FileWorkArea fileWorkArea, final String baseUrl,
+            final SiteMapShard shard, final BroadleafRequestContext parentContext) {
+        return new EntityManagerAwareRunnable() {
+
+            @Override
+            protected void executeInternal() throws Exception {
+                if (parentContext != null) {
+                    BroadleafRequestContext.setBroadleafRequestContext(parentContext.createLightWeightClone());
+                }
+                generateShard(smc, fileWorkArea, baseUrl, shard);
+            }
+
+            @Override
+            protected void registerError(Exception e) {
+                shard.error = e;
+            }
+        };
+    }
+
+    protected void generateShard(SiteMapConfiguration smc, FileWorkArea fileWorkArea, String baseUrl, SiteMapShard shard) {
+        long startTime = System.currentTimeMillis();
+        SiteMapBuilder shardBuilder = new SiteMapBuilder(smc, fileWorkArea, baseUrl, getGzipSiteMapFiles(), shard.shardKey);
+        if (shard.fromId != null) {
+            shard.generator.addSiteMapEntries(shard.configuration, shardBuilder, shard.fromId, shard.toId);
+        } else {
+            shard.generator.addSiteMapEntries(shard.configuration, shardBuilder);
+        }
+        shard.fileNames = new ArrayList<String>(shardBuilder.persistShard());
+        shard.generatedTime = startTime;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Generated %s sitemap files for shard %s in %sms",
+                    shard.fileNames.size(), shard.shardKey, System.currentTimeMillis() - startTime));
+        }
+    }
+
+    protected String getShardKey(SiteMapGeneratorConfiguration smgc, int position) {
+        return smgc.getId() == null ? "p" + position : String.valueOf(smgc.getId());
+    }
+
+    /**
+     * Describes everything other than the entities that determines the content of a shard, so that a change to the
+     * configuration regenerates it
+     */
+    protected String getShardSignature(SiteMapConfiguration smc, SiteMapGeneratorConfiguration smgc,
+            SiteMapGenerator generator, String baseUrl) {
+        return String.valueOf(Arrays.asList(generator.getClass().getName(), smgc.getSiteMapGeneratorType(),
+                smgc.getSiteMapChangeFreq(), smgc.getSiteMapPriority(), smc.getMaximumUrlEntriesPerFile(),
+                smc.getSiteMapIndexFilePattern(), baseUrl, getGzipSiteMapFiles(), idsPerShard).hashCode());
+    }
+
+    protected boolean isShardCurrent(Properties previousState, SiteMapShard shard) {
+        String generated = previousState.getProperty(shard.shardKey + ".generated");
+        if (shard.fingerprint == null || generated == null || shard.previousFileNames.isEmpty()
+                || !shard.fingerprint.equals(previousState.getProperty(shard.shardKey + ".fingerprint"))
+                || !shard.signature.equals(previousState.getProperty(shard.shardKey + ".signature"))) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - Long.parseLong(generated);
+        return age < incrementalMaxAgeSeconds * 1000L;
+    }
+
+    protected void writeShardState(Properties state, SiteMapShard shard) {
+        state.setProperty(shard.shardKey + ".files", String.join(",", shard.fileNames));
+        state.setProperty(shard.shardKey + ".signature", shard.signature);
+        state.setProperty(shard.shardKey + ".generated", String.valueOf(shard.generatedTime));
+        if (shard.fingerprint != null) {
+            state.setProperty(shard.shardKey + ".fingerprint", shard.fingerprint);
+        }
+    }
+
+    protected List<String> getStateFileNames(Properties state, String shardKey) {
+        String files = state.getProperty(shardKey + ".files");
+        List<String> fileNames = new ArrayList<String>();
+        if (files != null && !files.isEmpty()) {
+            fileNames.addAll(Arrays.asList(files.split(",")));
+        }
+        return fileNames;
+    }
+
+    protected Properties readSiteMapState() {
+        Properties state = new Properties();
+        File stateFile = broadleafFileService.getResource("/" + STATE_FILE_NAME);
+        if (stateFile != null && stateFile.exists()) {
+            try (InputStream in = new FileInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                LOG.warn("Unable to read the sitemap state, regenerating all sitemap files", e);
+                state.clear();
+            }
+        }
+        return state;
+    }
+
+    protected void writeSiteMapState(FileWorkArea fileWorkArea, Properties state) throws IOException {
+        try (OutputStream out = new FileOutputStream(fileWorkArea.getFilePathLocation() + STATE_FILE_NAME)) {
+            state.store(out, "Sitemap shard fingerprints");
+        }
+    }
+
     @Override
     public File getSiteMapFile(String fileName) throws SiteMapException, IOException {
         if (LOG.isTraceEnabled()) {
@@ -221,7 +531,9 @@ public class SiteMapServiceImpl implements SiteMapService {
      *
      * @param fileWorkArea
      * @param fileNames
+     * @deprecated {@link SiteMapBuilder} writes the gzipped copy of each file while writing the file
      */
+    @Deprecated
     protected void gzipAndDeleteFiles(FileWorkArea fileWorkArea, List<String> fileNames,boolean shouldDeleteOriginal){
         for (String fileName : fileNames) {
             try {
@@ -256,7 +568,9 @@ public class SiteMapServiceImpl implements SiteMapService {
      * GZip a file, Then delete it
      * @param fileWorkArea
      * @param fileNames
+     * @deprecated {@link SiteMapBuilder} writes the gzipped copy of each file while writing the file
      */
+    @Deprecated
     protected void gzipAndDeleteFiles(FileWorkArea fileWorkArea, List<String> fileNames) {
         gzipAndDeleteFiles(fileWorkArea,fileNames,true);
     }
@@ -307,4 +621,29 @@ public class SiteMapServiceImpl implements SiteMapService {
             return getGzipSiteMapFilesDefault();
         }
     }
+
+    /**
+     * The files written for one generator configuration, or for one id range of its entries
+     */
+    protected static class SiteMapShard {
+
+        protected final String shardKey;
+        protected final SiteMapGeneratorConfiguration configuration;
+        protected final SiteMapGenerator generator;
+        protected final String signature;
+        protected Long fromId;
+        protected Long toId;
+        protected String fingerprint;
+        protected List<String> previousFileNames = new ArrayList<String>();
+        protected List<String> fileNames = new ArrayList<String>();
+        protected long generatedTime;
+        protected volatile Exception error;
+
+        public SiteMapShard(String shardKey, SiteMapGeneratorConfiguration configuration, SiteMapGenerator generator, String signature) {
+            this.shardKey = shardKey;
+            this.configuration = configuration;
+            this.generator = generator;
+            this.signature = signature;
+        }
+    }
 }
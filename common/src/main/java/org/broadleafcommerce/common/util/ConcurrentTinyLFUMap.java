@@ -0,0 +1,398 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.util;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded, concurrent map intended for caching values that are expensive to compute and are read far more often
+ * than they are written, such as compiled MVEL expressions.
+ * <p>
+ * Unlike {@link EfficientLRUMap}, reads never block once the map is full. Entries live in a {@link ConcurrentHashMap}
+ * and the eviction order is tracked per segment, where a read only updates the order if the segment's lock is free.
+ * Eviction follows W-TinyLFU: new entries enter a small LRU window, and an entry leaving the window only replaces the
+ * least recently used entry of the main region if it has been used more often, as estimated by a count-min sketch that
+ * is periodically halved so that old popularity fades.
+ * <p>
+ * {@link #computeIfAbsent(Object, Function)} computes the value of a key at most once at a time, blocking only the
+ * callers waiting for that same key. The size limit is approximate, as it is divided evenly among the segments.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ConcurrentTinyLFUMap<K, V> extends AbstractMap<K, V> {
+
+    protected static final int MAX_FREQUENCY = 15;
+    protected static final int[] SKETCH_SEEDS = { 0x97CB3127, 0xC2B2AE3D, 0x27D4EB2F, 0x165667B1 };
+
+    protected final ConcurrentMap<K, Node<V>> data = new ConcurrentHashMap<>();
+    protected final Segment[] segments;
+    protected final int maxEntries;
+
+    protected final byte[] sketch;
+    protected final int sketchWidth;
+    protected final int sampleSize;
+    protected final AtomicInteger samples = new AtomicInteger();
+
+    protected final LongAdder hitCount = new LongAdder();
+    protected final LongAdder missCount = new LongAdder();
+    protected final LongAdder evictionCount = new LongAdder();
+    protected final LongAdder totalLoadTime = new LongAdder();
+
+    public ConcurrentTinyLFUMap(int maxEntries) {
+        this(maxEntries, 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentTinyLFUMap(int maxEntries, int segmentCount) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        this.maxEntries = maxEntries;
+        int segmentSize = Math.max(1, Integer.highestOneBit(Math.min(Math.max(1, segmentCount), maxEntries)));
+        int segmentCapacity = (maxEntries + segmentSize - 1) / segmentSize;
+        segments = new ConcurrentTinyLFUMap.Segment[segmentSize];
+        for (int i = 0; i < segmentSize; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        sketchWidth = Integer.highestOneBit(Math.max(16, maxEntries) - 1) << 2;
+        sketch = new byte[sketchWidth * SKETCH_SEEDS.length];
+        sampleSize = 10 * maxEntries;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<V> node = data.get(key);
+        if (node == null || node.value == null) {
+            return null;
+        }
+        recordRead(key);
+        return node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Node<V> node = data.get(key);
+        return node != null && node.value != null;
+    }
+
+    /**
+     * Returns the value of the key, computing it with <b>mappingFunction</b> if it is missing. Concurrent callers for
+     * the same key wait for the first one to finish instead of computing the value again. If the function fails or
+     * returns null, nothing is cached.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Node<V> node = data.get(key);
+        if (node != null && node.value != null) {
+            hitCount.increment();
+            recordRead(key);
+            return node.value;
+        }
+        if (node == null) {
+            Node<V> created = new Node<>(null);
+            node = data.putIfAbsent(key, created);
+            if (node == null) {
+                node = created;
+            }
+        }
+        V value;
+        boolean loaded = false;
+        synchronized (node) {
+            value = node.value;
+            if (value == null) {
+                missCount.increment();
+                long start = System.nanoTime();
+                try {
+                    value = mappingFunction.apply(key);
+                } catch (RuntimeException | Error e) {
+                    data.remove(key, node);
+                    throw e;
+                } finally {
+                    totalLoadTime.add(System.nanoTime() - start);
+                }
+                if (value == null) {
+                    data.remove(key, node);
+                    return null;
+                }
+                node.value = value;
+                loaded = true;
+            } else {
+                hitCount.increment();
+            }
+        }
+        if (loaded) {
+            recordWrite(key);
+        } else {
+            recordRead(key);
+        }
+        return value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("ConcurrentTinyLFUMap does not support null values");
+        }
+        Node<V> previous = data.put(key, new Node<>(value));
+        recordWrite(key);
+        return previous == null ? null : previous.value;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<V> previous = data.remove(key);
+        if (previous == null) {
+            return null;
+        }
+        segmentFor(key).remove(key);
+        return previous.value;
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * @return a snapshot of the entries whose value has been computed. Changes to the snapshot do not affect the map.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        Set<Entry<K, V>> entries = new HashSet<>();
+        for (Entry<K, Node<V>> entry : data.entrySet()) {
+            V value = entry.getValue().value;
+            if (value != null) {
+                entries.add(new SimpleImmutableEntry<>(entry.getKey(), value));
+            }
+        }
+        return entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the number of {@link #computeIfAbsent(Object, Function)} calls that found a value
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of {@link #computeIfAbsent(Object, Function)} calls that had to compute a value
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return the total time in nanoseconds spent computing values in {@link #computeIfAbsent(Object, Function)}
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    protected void recordRead(Object key) {
+        incrementFrequency(key);
+        segmentFor(key).touch(key);
+    }
+
+    protected void recordWrite(K key) {
+        incrementFrequency(key);
+        segmentFor(key).add(key);
+    }
+
+    protected Segment segmentFor(Object key) {
+        return segments[spread(key.hashCode()) & (segments.length - 1)];
+    }
+
+    /**
+     * Records a use of the key in the sketch. Concurrent increments may be lost, which only makes the estimate
+     * slightly less accurate.
+     */
+    protected void incrementFrequency(Object key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < SKETCH_SEEDS.length; row++) {
+            int index = sketchIndex(hash, row);
+            if (sketch[index] < MAX_FREQUENCY) {
+                sketch[index]++;
+            }
+        }
+        if (samples.incrementAndGet() >= sampleSize) {
+            samples.set(0);
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] >>= 1;
+            }
+        }
+    }
+
+    protected int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SKETCH_SEEDS.length; row++) {
+            frequency = Math.min(frequency, sketch[sketchIndex(hash, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * @return the position of the key's counter in the given row of the sketch
+     */
+    protected int sketchIndex(int hash, int row) {
+        int index = (hash ^ SKETCH_SEEDS[row]) * 0x9E3779B9;
+        return row * sketchWidth + ((index ^ (index >>> 16)) & (sketchWidth - 1));
+    }
+
+    protected static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xED5AD4BB;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+
+    protected static class Node<V> {
+
+        protected volatile V value;
+
+        protected Node(V value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The eviction order for a share of the keys: a small LRU admission window in front of the LRU main region
+     */
+    protected class Segment {
+
+        protected final ReentrantLock lock = new ReentrantLock();
+        protected final LinkedHashMap<Object, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+        protected final LinkedHashMap<Object, Boolean> main = new LinkedHashMap<>(16, 0.75f, true);
+        protected final int windowCapacity;
+        protected final int mainCapacity;
+
+        protected Segment(int capacity) {
+            windowCapacity = Math.max(1, capacity / 100);
+            mainCapacity = Math.max(0, capacity - windowCapacity);
+        }
+
+        /**
+         * Moves the key to the most recently used position, unless another thread is busy with this segment
+         */
+        protected void touch(Object key) {
+            if (lock.tryLock()) {
+                try {
+                    if (window.get(key) == null) {
+                        main.get(key);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        protected void add(Object key) {
+            lock.lock();
+            try {
+                if (window.get(key) != null || main.get(key) != null || !data.containsKey(key)) {
+                    return;
+                }
+                window.put(key, Boolean.TRUE);
+                while (window.size() > windowCapacity) {
+                    Iterator<Object> windowKeys = window.keySet().iterator();
+                    Object candidate = windowKeys.next();
+                    windowKeys.remove();
+                    admit(candidate);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        protected void admit(Object candidate) {
+            if (main.size() < mainCapacity) {
+                main.put(candidate, Boolean.TRUE);
+                return;
+            }
+            if (mainCapacity == 0) {
+                evict(candidate);
+                return;
+            }
+            Iterator<Object> mainKeys = main.keySet().iterator();
+            Object victim = mainKeys.next();
+            if (frequency(candidate) > frequency(victim)) {
+                mainKeys.remove();
+                main.put(candidate, Boolean.TRUE);
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+        }
+
+        protected void evict(Object key) {
+            if (data.remove(key) != null) {
+                evictionCount.increment();
+            }
+        }
+
+        protected void remove(Object key) {
+            lock.lock();
+            try {
+                if (window.remove(key) == null) {
+                    main.remove(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        protected void clear() {
+            lock.lock();
+            try {
+                window.clear();
+                main.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -57,6 +57,9 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
     @Resource(name = "blCurrencyService")
     private BroadleafCurrencyService broadleafCurrencyService;
 
+    @Resource(name = "blRequestContextResolutionCache")
+    protected RequestContextResolutionCache resolutionCache;
+
     /**
      * Responsible for returning the currency to use for the current request.
      */
@@ -75,7 +78,7 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
         // 2) Check for a request parameter
         if (desiredCurrency == null && BLCRequestUtils.getURLorHeaderParameter(request, CURRENCY_CODE_PARAM) != null) {
             String currencyCode = BLCRequestUtils.getURLorHeaderParameter(request, CURRENCY_CODE_PARAM);
-            desiredCurrency = broadleafCurrencyService.findCurrencyByCode(currencyCode);
+            desiredCurrency = resolutionCache.findCurrencyByCode(currencyCode);
             if (LOG.isTraceEnabled()) {
                 LOG.trace("Attempt to find currency by param " + currencyCode + " resulted in " + desiredCurrency);
             }
@@ -95,7 +98,7 @@ public class BroadleafCurrencyResolverImpl implements BroadleafCurrencyResolver
         }
 
         // 5) Lookup default currency from DB
-        BroadleafCurrency defaultCurrency = broadleafCurrencyService.findDefaultBroadleafCurrency();
+        BroadleafCurrency defaultCurrency = resolutionCache.findDefaultCurrency();
         if (desiredCurrency == null) {
             desiredCurrency = defaultCurrency;
         }
@@ -59,6 +59,9 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
     @Resource(name = "blLocaleService")
     private LocaleService localeService;
 
+    @Resource(name = "blRequestContextResolutionCache")
+    protected RequestContextResolutionCache resolutionCache;
+
     @Override
     public Locale resolveLocale(HttpServletRequest request) {
         return resolveLocale(new ServletWebRequest(request));
@@ -74,7 +77,7 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
         // Second, check for a request parameter
         if (locale == null && BLCRequestUtils.getURLorHeaderParameter(request, LOCALE_CODE_PARAM) != null) {
             String localeCode = BLCRequestUtils.getURLorHeaderParameter(request, LOCALE_CODE_PARAM);
-            locale = localeService.findLocaleByCode(localeCode);
+            locale = resolutionCache.findLocaleByCode(localeCode);
             if (BLCRequestUtils.isOKtoUseSession(request)) {
                 request.removeAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_SESSION);
             }
@@ -103,7 +106,7 @@ public class BroadleafLocaleResolverImpl implements BroadleafLocaleResolver {
             if(nonPersistentSite != null) {
                 defaultSiteLocale = nonPersistentSite.getDefaultLocale();
             }
-            locale = defaultSiteLocale == null ? localeService.findDefaultLocale() : defaultSiteLocale;
+            locale = defaultSiteLocale == null ? resolutionCache.findDefaultLocale() : defaultSiteLocale;
             if (BLCRequestUtils.isOKtoUseSession(request)) {
                 request.removeAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_SESSION);
             }
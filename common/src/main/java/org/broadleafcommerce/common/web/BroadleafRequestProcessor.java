@@ -23,6 +23,8 @@ import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.RequestDTO;
 import org.broadleafcommerce.common.RequestDTOImpl;
 import org.broadleafcommerce.common.classloader.release.ThreadLocalManager;
+import org.broadleafcommerce.common.crossapp.service.CrossAppAuthService;
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
 import org.broadleafcommerce.common.currency.domain.BroadleafRequestedCurrencyDto;
 import org.broadleafcommerce.common.extension.ExtensionManager;
 import org.broadleafcommerce.common.locale.domain.Locale;
@@ -39,6 +41,7 @@ import org.springframework.context.MessageSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.i18n.CookieLocaleResolver;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
@@ -49,6 +52,14 @@ import java.util.Map;
 import java.util.TimeZone;
 
 /**
+ * Sets up the {@link BroadleafRequestContext} of a storefront request.
+ * <p>
+ * Most requests resolve to the same site, theme, locale, currency and base URL as the previous request from the same
+ * host and the same visitor selections. The outcome of the resolvers is therefore kept as a
+ * {@link RequestResolutionSnapshot} in the {@link RequestContextResolutionCache}, keyed by
+ * {@link #buildSnapshotKey(WebRequest)}, and later requests with the same key only look it up. Requests that change the
+ * locale, currency or sandbox through a parameter, that preview a sandbox or that are authenticated from the admin
+ * always run the resolvers.
  * 
  * @author Phillip Verheyden
  * @see {@link BroadleafRequestFilter}
@@ -66,6 +77,17 @@ public class BroadleafRequestProcessor extends AbstractBroadleafWebRequestProces
 
     private static final String SANDBOX_ID_PARAM = "blSandboxId";
 
+    /**
+     * Request attribute holding the base URL of the site, as resolved by the {@link BaseUrlResolver}
+     */
+    public static final String SITE_BASE_URL_VAR = "blSiteBaseUrl";
+
+    /**
+     * Request parameters that change how the sandbox of a request is resolved
+     */
+    protected static final String[] SANDBOX_PARAMS = { SANDBOX_ID_PARAM, "blClearSandBox",
+            "blSandboxDateTimeRibbonProduction", BroadleafIncludeMyChangesResolver.INCLUDE_MY_CHANGES_VAR };
+
     @Resource(name = "blSiteResolver")
     protected BroadleafSiteResolver siteResolver;
 
@@ -92,6 +114,9 @@ public class BroadleafRequestProcessor extends AbstractBroadleafWebRequestProces
 
     @Resource(name = "blSandBoxService")
     protected SandBoxService sandBoxService;
+
+    @Resource(name = "blRequestContextResolutionCache")
+    protected RequestContextResolutionCache resolutionCache;
     
     @Value("${thymeleaf.threadLocalCleanup.enabled}")
     protected boolean thymeleafThreadLocalCleanupEnabled = true;
@@ -110,6 +135,12 @@ public class BroadleafRequestProcessor extends AbstractBroadleafWebRequestProces
     
     @Override
     public void process(WebRequest request) {
+        RequestResolutionSnapshot.Key snapshotKey = buildSnapshotKey(request);
+        if (snapshotKey != null) {
+            processFromSnapshot(request, snapshotKey);
+            return;
+        }
+
         BroadleafRequestContext brc = new BroadleafRequestContext();
         brc.getAdditionalProperties().putAll(entityExtensionManagers);
         
@@ -134,11 +165,7 @@ public class BroadleafRequestProcessor extends AbstractBroadleafWebRequestProces
         brc.setLocale(locale);
         TimeZone timeZone = broadleafTimeZoneResolver.resolveTimeZone(request);
         BroadleafRequestedCurrencyDto currencyDto = currencyResolver.resolveCurrency(request);
-        // Assumes BroadleafProcess
-        RequestDTO requestDTO = (RequestDTO) request.getAttribute(REQUEST_DTO_PARAM_NAME, WebRequest.SCOPE_REQUEST);
-        if (requestDTO == null) {
-            requestDTO = new RequestDTOImpl(request);
-        }
+        RequestDTO requestDTO = getRequestDTO(request);
 
         SandBox currentSandbox = sandboxResolver.resolveSandBox(request, site);
         
@@ -207,6 +234,131 @@ public class BroadleafRequestProcessor extends AbstractBroadleafWebRequestProces
 
         brc.setMessageSource(messageSource);
         brc.setTimeZone(timeZone);
+        request.setAttribute(SITE_BASE_URL_VAR, baseUrlResolver.getSiteBaseUrl(), WebRequest.SCOPE_REQUEST);
+        finishProcessing(request, brc, locale);
+    }
+
+    /**
+     * Sets up the request context from the snapshot for the key, resolving the snapshot first if there is none yet
+     */
+    protected void processFromSnapshot(final WebRequest request, RequestResolutionSnapshot.Key snapshotKey) {
+        final BroadleafRequestContext brc = new BroadleafRequestContext();
+        brc.getAdditionalProperties().putAll(entityExtensionManagers);
+        brc.setWebRequest(request);
+        brc.setAdmin(false);
+        if (siteStrictValidateProductionChanges) {
+            brc.setValidateProductionChangesState(ValidateProductionChangesState.SITE);
+        } else {
+            brc.setValidateProductionChangesState(ValidateProductionChangesState.UNDEFINED);
+        }
+        brc.setSandBox(null);
+        brc.setDeployBehavior(deployBehaviorUtil.isProductionSandBoxMode() ? DeployBehavior.CLONE_PARENT : DeployBehavior.OVERWRITE_PARENT);
+        brc.setMessageSource(messageSource);
+        brc.setRequestDTO(getRequestDTO(request));
+
+        RequestResolutionSnapshot snapshot = resolutionCache.resolveSnapshot(snapshotKey, () -> resolveSnapshot(request, brc));
+        applySnapshot(request, brc, snapshot, snapshotKey);
+
+        // the time zone comes from the session or the JVM and needs no lookup
+        brc.setTimeZone(broadleafTimeZoneResolver.resolveTimeZone(request));
+        finishProcessing(request, brc, snapshot.getLocale());
+    }
+
+    /**
+     * Runs the resolvers for a request that qualifies for a snapshot. Such a request has no sandbox, so the sandbox
+     * resolver is not consulted.
+     */
+    protected RequestResolutionSnapshot resolveSnapshot(WebRequest request, BroadleafRequestContext brc) {
+        Site site = siteResolver.resolveSite(request);
+        brc.setNonPersistentSite(site);
+        brc.setIgnoreSite(site == null);
+        BroadleafRequestContext.setBroadleafRequestContext(brc);
+
+        Locale locale = localeResolver.resolveLocale(request);
+        brc.setLocale(locale);
+        BroadleafRequestedCurrencyDto currencyDto = currencyResolver.resolveCurrency(request);
+        if (currencyDto != null) {
+            brc.setBroadleafCurrency(currencyDto.getCurrencyToUse());
+            brc.setRequestedBroadleafCurrency(currencyDto.getRequestedCurrency());
+        }
+        // Note that this must happen after the request context is set up as resolving a theme is dependent on site
+        Theme theme = themeResolver.resolveTheme(request);
+        return new RequestResolutionSnapshot(site, theme, locale, currencyDto, baseUrlResolver.getSiteBaseUrl());
+    }
+
+    /**
+     * Populates the request context from the snapshot and leaves the request and session attributes that the locale
+     * and currency resolvers would have left
+     */
+    protected void applySnapshot(WebRequest request, BroadleafRequestContext brc, RequestResolutionSnapshot snapshot,
+            RequestResolutionSnapshot.Key snapshotKey) {
+        brc.setNonPersistentSite(snapshot.getSite());
+        brc.setIgnoreSite(snapshot.getSite() == null);
+        brc.setLocale(snapshot.getLocale());
+        BroadleafRequestedCurrencyDto currencyDto = snapshot.getCurrency();
+        if (currencyDto != null) {
+            brc.setBroadleafCurrency(currencyDto.getCurrencyToUse());
+            brc.setRequestedBroadleafCurrency(currencyDto.getRequestedCurrency());
+        }
+        brc.setTheme(snapshot.getTheme());
+        BroadleafRequestContext.setBroadleafRequestContext(brc);
+
+        request.setAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, snapshot.getLocale(), WebRequest.SCOPE_REQUEST);
+        request.setAttribute(CookieLocaleResolver.LOCALE_REQUEST_ATTRIBUTE_NAME,
+                BroadleafRequestContext.convertLocaleToJavaLocale(snapshot.getLocale()), WebRequest.SCOPE_REQUEST);
+        request.setAttribute(SITE_BASE_URL_VAR, snapshot.getSiteBaseUrl(), WebRequest.SCOPE_REQUEST);
+        if (BLCRequestUtils.isOKtoUseSession(request)) {
+            if (snapshotKey.getLocaleCode() != null) {
+                request.setAttribute(BroadleafLocaleResolverImpl.LOCALE_PULLED_FROM_SESSION, Boolean.TRUE, WebRequest.SCOPE_REQUEST);
+            }
+            request.setAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, snapshot.getLocale(), WebRequest.SCOPE_SESSION);
+            if (currencyDto != null) {
+                request.setAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, currencyDto.getCurrencyToUse(), WebRequest.SCOPE_SESSION);
+            }
+        }
+    }
+
+    /**
+     * Build the key of the {@link RequestResolutionSnapshot} for the request: the host, which determines the site, and
+     * the locale and currency the visitor selected earlier, which the resolvers keep in the session.
+     *
+     * @param request
+     * @return the key, or null if the request must run every resolver, e.g. because it selects a locale, currency or
+     * sandbox through a parameter, previews a sandbox or is authenticated from the admin
+     */
+    protected RequestResolutionSnapshot.Key buildSnapshotKey(WebRequest request) {
+        if (!(request instanceof ServletWebRequest)
+                || BLCRequestUtils.getURLorHeaderParameter(request, BroadleafLocaleResolverImpl.LOCALE_CODE_PARAM) != null
+                || BLCRequestUtils.getURLorHeaderParameter(request, BroadleafCurrencyResolverImpl.CURRENCY_CODE_PARAM) != null
+                || request.getAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, WebRequest.SCOPE_REQUEST) != null
+                || request.getAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_REQUEST) != null
+                || request.getAttribute(REPROCESS_PARAM_NAME, WebRequest.SCOPE_REQUEST) != null) {
+            return null;
+        }
+        for (String sandBoxParam : SANDBOX_PARAMS) {
+            if (request.getParameter(sandBoxParam) != null) {
+                return null;
+            }
+        }
+        String localeCode = null;
+        String currencyCode = null;
+        if (BLCRequestUtils.isOKtoUseSession(request)) {
+            if (request.getAttribute(BroadleafSandBoxResolver.SANDBOX_ID_VAR, WebRequest.SCOPE_SESSION) != null
+                    || request.getAttribute(CrossAppAuthService.AUTH_FROM_ADMIN_SESSION_VAR, WebRequest.SCOPE_SESSION) != null) {
+                return null;
+            }
+            Locale locale = (Locale) request.getAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, WebRequest.SCOPE_SESSION);
+            localeCode = locale == null ? null : locale.getLocaleCode();
+            BroadleafCurrency currency = (BroadleafCurrency) request.getAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_SESSION);
+            currencyCode = currency == null ? null : currency.getCurrencyCode();
+        }
+        return new RequestResolutionSnapshot.Key(((ServletWebRequest) request).getRequest().getServerName(), localeCode, currencyCode);
+    }
+
+    /**
+     * The steps that are the same whether or not the request was set up from a snapshot
+     */
+    protected void finishProcessing(WebRequest request, BroadleafRequestContext brc, Locale locale) {
         Map<String, Object> ruleMap = (Map<String, Object>) request.getAttribute("blRuleMap", WebRequest.SCOPE_REQUEST);
         if (ruleMap == null) {
             LOG.trace("Creating ruleMap and adding in Locale.");
@@ -222,7 +374,15 @@ public class BroadleafRequestProcessor extends AbstractBroadleafWebRequestProces
             //TODO: Add token logic to secure the admin user id
             brc.setAdminUserId(Long.parseLong(adminUserId));
         }
+    }
 
+    protected RequestDTO getRequestDTO(WebRequest request) {
+        // Assumes BroadleafProcess
+        RequestDTO requestDTO = (RequestDTO) request.getAttribute(REQUEST_DTO_PARAM_NAME, WebRequest.SCOPE_REQUEST);
+        if (requestDTO == null) {
+            requestDTO = new RequestDTOImpl(request);
+        }
+        return requestDTO;
     }
 
     protected boolean isUrlValid(String url) {
@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.web;
+
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.locale.domain.Locale;
+
+import java.util.function.Supplier;
+
+/**
+ * Short lived, site scoped snapshot of the catalog-wide lookups needed to resolve the locale and currency of every
+ * storefront request. The {@link BroadleafLocaleResolverImpl} and {@link BroadleafCurrencyResolverImpl} consult this
+ * cache instead of querying the {@link org.broadleafcommerce.common.locale.service.LocaleService} and
+ * {@link org.broadleafcommerce.common.currency.service.BroadleafCurrencyService} on each request. Values derived from
+ * request parameters and the session are still resolved per request.
+ * <p>
+ * The cache also holds the {@link RequestResolutionSnapshot}s that let the {@link BroadleafRequestProcessor} skip the
+ * resolvers altogether.
+ */
+public interface RequestContextResolutionCache {
+
+    Locale findLocaleByCode(String localeCode);
+
+    Locale findDefaultLocale();
+
+    BroadleafCurrency findCurrencyByCode(String currencyCode);
+
+    BroadleafCurrency findDefaultCurrency();
+
+    /**
+     * Retrieve the snapshot shared by requests with the given key, resolving and retaining it on a miss. Implementations
+     * that do not cache anything simply resolve it.
+     *
+     * @param key
+     * @param resolver resolves the snapshot for the current request
+     * @return the snapshot
+     */
+    default RequestResolutionSnapshot resolveSnapshot(RequestResolutionSnapshot.Key key, Supplier<RequestResolutionSnapshot> resolver) {
+        return resolver.get();
+    }
+
+    /**
+     * Discards every cached resolution, e.g. after a locale, currency or site has been changed
+     */
+    void invalidate();
+
+    /**
+     * Discards every cached resolution on every node once the current transaction commits. Implementations that do
+     * not cache anything have nothing to discard.
+     */
+    default void publishChange() {
+    }
+
+}
@@ -0,0 +1,247 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.web;
+
+import org.broadleafcommerce.common.cache.SnapshotCache;
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.currency.service.BroadleafCurrencyService;
+import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.locale.service.LocaleService;
+import org.broadleafcommerce.common.site.domain.Site;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+import javax.annotation.Resource;
+
+/**
+ * Default {@link RequestContextResolutionCache}. Resolutions are immutable entries of a {@link SnapshotCache} keyed on
+ * the site of the current request, the kind of lookup and the requested code. Saving a locale or currency clears the
+ * snapshot on every node through {@link SnapshotCacheManager#publishInvalidation(String, java.util.Collection)} once
+ * the change commits, and entries also expire after {@link #timeToLiveMillis}, which bounds how long a change takes to
+ * become visible on a node that missed the invalidation. The cache is bypassed for admin requests and while previewing
+ * a sandbox. Since codes come from request parameters, the number of entries is capped and the snapshot simply starts
+ * over when the cap is reached.
+ * <p>
+ * {@link RequestResolutionSnapshot}s are held in a second {@link SnapshotCache}, which is invalidated and expires
+ * along with the individual lookups.
+ */
+@Service("blRequestContextResolutionCache")
+@ManagedResource(objectName = "org.broadleafcommerce:name=RequestContextResolutionCache", description = "Request Context Resolution Cache", currencyTimeLimit = 15)
+public class RequestContextResolutionCacheImpl implements RequestContextResolutionCache {
+
+    public static final String CACHE_NAME = "blRequestContextResolutions";
+    public static final String SNAPSHOT_CACHE_NAME = "blRequestResolutionSnapshots";
+
+    protected static final String LOCALE = "locale";
+    protected static final String DEFAULT_LOCALE = "defaultLocale";
+    protected static final String CURRENCY = "currency";
+    protected static final String DEFAULT_CURRENCY = "defaultCurrency";
+
+    @Resource(name = "blLocaleService")
+    protected LocaleService localeService;
+
+    @Resource(name = "blCurrencyService")
+    protected BroadleafCurrencyService currencyService;
+
+    @Resource(name = "blSnapshotCacheManager")
+    protected SnapshotCacheManager snapshotCacheManager;
+
+    @Value("${request.context.resolution.cache.enabled:true}")
+    protected boolean enabled = true;
+
+    @Value("${request.context.resolution.cache.ttl:60000}")
+    protected long timeToLiveMillis = 60000L;
+
+    @Value("${request.context.resolution.cache.max.entries:1000}")
+    protected int maxEntries = 1000;
+
+    protected volatile SnapshotCache<ResolutionKey, Resolution> resolutions;
+
+    protected volatile SnapshotCache<RequestResolutionSnapshot.Key, RequestResolutionSnapshot> snapshots;
+
+    @Override
+    public Locale findLocaleByCode(final String localeCode) {
+        return resolve(LOCALE, localeCode, new Supplier<Locale>() {
+            @Override
+            public Locale get() {
+                return localeService.findLocaleByCode(localeCode);
+            }
+        });
+    }
+
+    @Override
+    public Locale findDefaultLocale() {
+        return resolve(DEFAULT_LOCALE, null, new Supplier<Locale>() {
+            @Override
+            public Locale get() {
+                return localeService.findDefaultLocale();
+            }
+        });
+    }
+
+    @Override
+    public BroadleafCurrency findCurrencyByCode(final String currencyCode) {
+        return resolve(CURRENCY, currencyCode, new Supplier<BroadleafCurrency>() {
+            @Override
+            public BroadleafCurrency get() {
+                return currencyService.findCurrencyByCode(currencyCode);
+            }
+        });
+    }
+
+    @Override
+    public BroadleafCurrency findDefaultCurrency() {
+        return resolve(DEFAULT_CURRENCY, null, new Supplier<BroadleafCurrency>() {
+            @Override
+            public BroadleafCurrency get() {
+                return currencyService.findDefaultBroadleafCurrency();
+            }
+        });
+    }
+
+    @Override
+    public RequestResolutionSnapshot resolveSnapshot(RequestResolutionSnapshot.Key key, Supplier<RequestResolutionSnapshot> resolver) {
+        if (!enabled || timeToLiveMillis <= 0) {
+            return resolver.get();
+        }
+        SnapshotCache<RequestResolutionSnapshot.Key, RequestResolutionSnapshot> cache = getSnapshots();
+        long generation = cache.getGeneration();
+        RequestResolutionSnapshot snapshot = cache.get(key);
+        if (snapshot == null) {
+            snapshot = resolver.get();
+            cache.put(key, snapshot, generation, System.currentTimeMillis() + timeToLiveMillis);
+        }
+        return snapshot;
+    }
+
+    @Override
+    @ManagedOperation(description = "Discard all cached request context resolutions")
+    public void invalidate() {
+        getResolutions().clear();
+        getSnapshots().clear();
+    }
+
+    @Override
+    public void publishChange() {
+        snapshotCacheManager.publishInvalidation(CACHE_NAME, null);
+        snapshotCacheManager.publishInvalidation(SNAPSHOT_CACHE_NAME, null);
+    }
+
+    @ManagedAttribute(description = "The number of cached request context resolutions")
+    public int getSize() {
+        return getResolutions().size();
+    }
+
+    @ManagedAttribute(description = "The number of cached request resolution snapshots")
+    public int getSnapshotCount() {
+        return getSnapshots().size();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T resolve(String kind, String code, Supplier<T> loader) {
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext(false);
+        if (!isCacheable(brc)) {
+            return loader.get();
+        }
+        ResolutionKey key = new ResolutionKey(getSiteId(brc), kind, code);
+        SnapshotCache<ResolutionKey, Resolution> snapshot = getResolutions();
+        long generation = snapshot.getGeneration();
+        Resolution resolution = snapshot.get(key);
+        if (resolution == null) {
+            resolution = new Resolution(loader.get());
+            snapshot.put(key, resolution, generation, System.currentTimeMillis() + timeToLiveMillis);
+        }
+        return (T) resolution.value;
+    }
+
+    protected SnapshotCache<ResolutionKey, Resolution> getResolutions() {
+        if (resolutions == null) {
+            resolutions = snapshotCacheManager.getCache(CACHE_NAME, maxEntries, -1L);
+        }
+        return resolutions;
+    }
+
+    protected SnapshotCache<RequestResolutionSnapshot.Key, RequestResolutionSnapshot> getSnapshots() {
+        if (snapshots == null) {
+            snapshots = snapshotCacheManager.getCache(SNAPSHOT_CACHE_NAME, maxEntries, -1L);
+        }
+        return snapshots;
+    }
+
+    protected boolean isCacheable(BroadleafRequestContext brc) {
+        return enabled && timeToLiveMillis > 0
+                && (brc == null || (!Boolean.TRUE.equals(brc.getAdmin()) && brc.getSandBox() == null));
+    }
+
+    protected Long getSiteId(BroadleafRequestContext brc) {
+        Site site = brc == null ? null : brc.getNonPersistentSite();
+        return site == null ? null : site.getId();
+    }
+
+    protected static class ResolutionKey {
+
+        protected final Long siteId;
+        protected final String kind;
+        protected final String code;
+        protected final int hash;
+
+        public ResolutionKey(Long siteId, String kind, String code) {
+            this.siteId = siteId;
+            this.kind = kind;
+            this.code = code;
+            int result = siteId == null ? 0 : siteId.hashCode();
+            result = 31 * result + kind.hashCode();
+            this.hash = 31 * result + (code == null ? 0 : code.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey that = (ResolutionKey) o;
+            return hash == that.hash && kind.equals(that.kind)
+                    && (siteId == null ? that.siteId == null : siteId.equals(that.siteId))
+                    && (code == null ? that.code == null : code.equals(that.code));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    protected static class Resolution {
+
+        protected final Object value;
+
+        public Resolution(Object value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.web;
+
+import org.broadleafcommerce.common.util.ApplicationContextHolder;
+import org.springframework.context.ApplicationContext;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Announces changes to a site, locale or currency so that the {@link RequestContextResolutionCache}, including the
+ * {@link RequestResolutionSnapshot}s it holds, is invalidated on every node once the change commits.
+ *
+ * @see RequestContextResolutionCache#publishChange()
+ */
+public class RequestContextResolutionChangeListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void publishChange(Object entity) {
+        ApplicationContext applicationContext = ApplicationContextHolder.getApplicationContext();
+        if (applicationContext != null && applicationContext.containsBean("blRequestContextResolutionCache")) {
+            applicationContext.getBean("blRequestContextResolutionCache", RequestContextResolutionCache.class)
+                    .publishChange();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.web;
+
+import org.broadleafcommerce.common.currency.domain.BroadleafRequestedCurrencyDto;
+import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.site.domain.Site;
+import org.broadleafcommerce.common.site.domain.Theme;
+
+/**
+ * The outcome of resolving the site, theme, locale, currency and base URL of a storefront request, shared by every
+ * request with the same {@link Key}. Snapshots are immutable and held by the {@link RequestContextResolutionCache}, so
+ * that the {@link BroadleafRequestProcessor} only has to look one up instead of running each resolver. Requests that
+ * would resolve differently from the key alone, such as those changing the locale, currency or sandbox through a
+ * parameter or previewing a sandbox, are resolved in full and never use a snapshot. The sandbox of a snapshot is
+ * therefore always production, and it does not need to be part of the key.
+ *
+ * @see BroadleafRequestProcessor#buildSnapshotKey(org.springframework.web.context.request.WebRequest)
+ */
+public class RequestResolutionSnapshot {
+
+    protected final Site site;
+    protected final Theme theme;
+    protected final Locale locale;
+    protected final BroadleafRequestedCurrencyDto currency;
+    protected final String siteBaseUrl;
+
+    public RequestResolutionSnapshot(Site site, Theme theme, Locale locale, BroadleafRequestedCurrencyDto currency, String siteBaseUrl) {
+        this.site = site;
+        this.theme = theme;
+        this.locale = locale;
+        this.currency = currency;
+        this.siteBaseUrl = siteBaseUrl;
+    }
+
+    public Site getSite() {
+        return site;
+    }
+
+    public Theme getTheme() {
+        return theme;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public BroadleafRequestedCurrencyDto getCurrency() {
+        return currency;
+    }
+
+    public String getSiteBaseUrl() {
+        return siteBaseUrl;
+    }
+
+    /**
+     * Identifies the requests that share a snapshot: the host, which determines the site and theme, the locale and
+     * currency codes the visitor already selected, which are kept in the session.
+     */
+    public static class Key {
+
+        protected final String host;
+        protected final String localeCode;
+        protected final String currencyCode;
+        protected final int hash;
+
+        public Key(String host, String localeCode, String currencyCode) {
+            this.host = host;
+            this.localeCode = localeCode;
+            this.currencyCode = currencyCode;
+            int result = host == null ? 0 : host.hashCode();
+            result = 31 * result + (localeCode == null ? 0 : localeCode.hashCode());
+            this.hash = 31 * result + (currencyCode == null ? 0 : currencyCode.hashCode());
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public String getLocaleCode() {
+            return localeCode;
+        }
+
+        public String getCurrencyCode() {
+            return currencyCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hash == that.hash
+                    && (host == null ? that.host == null : host.equals(that.host))
+                    && (localeCode == null ? that.localeCode == null : localeCode.equals(that.localeCode))
+                    && (currencyCode == null ? that.currencyCode == null : currencyCode.equals(that.currencyCode));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class CoalescingCacheLoaderTest extends TestCase {
+
+    protected Map<Object, Object> cache = new ConcurrentHashMap<>();
+    protected RecordingStatisticsService statistics = new RecordingStatisticsService();
+    protected CoalescingCacheLoader loader = new CoalescingCacheLoader(statistics,
+            CacheStatType.STRUCTURED_CONTENT_CACHE_COALESCED_MISS_RATE,
+            CacheStatType.STRUCTURED_CONTENT_CACHE_EMPTY_HIT_RATE,
+            CacheStatType.STRUCTURED_CONTENT_CACHE_EARLY_REFRESH_RATE);
+
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        final int threads = 8;
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> get("key", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return Collections.singletonList("value");
+            })));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                results.add(executor.submit(() -> get("key", () -> {
+                    loads.incrementAndGet();
+                    return Collections.singletonList("other");
+                })));
+            }
+            while (statistics.count(CacheStatType.STRUCTURED_CONTENT_CACHE_COALESCED_MISS_RATE, true) < threads - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<List<String>> result : results) {
+                assertEquals(Collections.singletonList("value"), result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(Collections.singletonList("value"), cache.get("key"));
+    }
+
+    public void testFailedLoadIsNotCached() {
+        try {
+            get("key", () -> {
+                throw new IllegalStateException("boom");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        assertFalse(cache.containsKey("key"));
+        assertEquals(Collections.singletonList("value"), get("key", () -> Collections.singletonList("value")));
+    }
+
+    public void testEmptyResultsAreCached() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(get("empty", () -> {
+                loads.incrementAndGet();
+                return new ArrayList<String>();
+            }).isEmpty());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(2, statistics.count(CacheStatType.STRUCTURED_CONTENT_CACHE_EMPTY_HIT_RATE, true));
+    }
+
+    public void testEntriesAreRefreshedBeforeExpiry() {
+        loader.setTimeToLiveMillis(1L);
+        AtomicInteger loads = new AtomicInteger();
+        get("key", () -> Collections.singletonList("v" + loads.incrementAndGet()));
+        sleep(5);
+        assertEquals(Collections.singletonList("v2"), get("key", () -> Collections.singletonList("v" + loads.incrementAndGet())));
+        assertEquals(1, statistics.count(CacheStatType.STRUCTURED_CONTENT_CACHE_EARLY_REFRESH_RATE, true));
+
+        loader.setTimeToLiveMillis(TimeUnit.HOURS.toMillis(1));
+        loader.invalidateAll();
+        cache.clear();
+        get("fresh", () -> Collections.singletonList("v" + loads.incrementAndGet()));
+        get("fresh", () -> Collections.singletonList("v" + loads.incrementAndGet()));
+        assertEquals(3, loads.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected List<String> get(final String key, Supplier<List<String>> supplier) {
+        return loader.get(key, (List<String>) cache.get(key), supplier, value -> cache.put(key, value));
+    }
+
+    protected static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected static class RecordingStatisticsService implements StatisticsService {
+
+        protected final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        public int count(CacheStatType type, boolean isHit) {
+            AtomicInteger count = counts.get(type + "-" + isHit);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public void addCacheStat(String key, boolean isHit) {
+            counts.computeIfAbsent(key + "-" + isHit, k -> new AtomicInteger()).incrementAndGet();
+        }
+
+        @Override
+        public void addTimingStat(String key, long durationNanos) {
+        }
+
+        @Override
+        public Long getLogResolution() {
+            return 0L;
+        }
+
+        @Override
+        public void setLogResolution(Long logResolution) {
+        }
+
+        @Override
+        public void activateLogging() {
+        }
+
+        @Override
+        public void disableLogging() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class HistogramStatTest extends TestCase {
+
+    public void testEmptyHistogram() {
+        HistogramStat histogram = new HistogramStat();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(99));
+        assertEquals(0D, histogram.getMean());
+    }
+
+    public void testSmallValuesAreExact() {
+        HistogramStat histogram = new HistogramStat();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(10L, histogram.getCount());
+        assertEquals(55L, histogram.getTotal());
+        assertEquals(10L, histogram.getMax());
+        assertEquals(5L, histogram.getValueAtPercentile(50));
+        assertEquals(10L, histogram.getValueAtPercentile(100));
+    }
+
+    public void testPercentilesWithinBucketPrecision() {
+        HistogramStat histogram = new HistogramStat();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertWithin(50000000L, histogram.getValueAtPercentile(50));
+        assertWithin(99000000L, histogram.getValueAtPercentile(99));
+        assertEquals(100000000L, histogram.getValueAtPercentile(100));
+    }
+
+    public void testBucketsCoverTheLongRange() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int index = HistogramStat.bucketIndex(value);
+            assertTrue(index >= 0 && index < HistogramStat.BUCKET_COUNT);
+            assertTrue(HistogramStat.bucketUpperBound(index) >= value);
+            if (index > 0) {
+                assertTrue(HistogramStat.bucketUpperBound(index - 1) < value);
+            }
+        }
+        assertEquals(HistogramStat.BUCKET_COUNT - 1, HistogramStat.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, HistogramStat.bucketUpperBound(HistogramStat.BUCKET_COUNT - 1));
+    }
+
+    public void testAddAndReset() {
+        HistogramStat first = new HistogramStat();
+        HistogramStat second = new HistogramStat();
+        first.record(100);
+        second.record(5000);
+        first.add(second);
+        assertEquals(2L, first.getCount());
+        assertEquals(5000L, first.getMax());
+        first.reset();
+        assertEquals(0L, first.getCount());
+        assertEquals(0L, first.getMax());
+    }
+
+    protected void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import junit.framework.TestCase;
+
+import org.broadleafcommerce.common.event.BroadleafApplicationEventPublisher;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SnapshotCacheManagerTest extends TestCase {
+
+    protected SnapshotCacheManager manager;
+    protected List<ApplicationEvent> publishedEvents;
+    protected SnapshotCache<String, String> first;
+    protected SnapshotCache<String, String> second;
+
+    @Override
+    protected void setUp() throws Exception {
+        publishedEvents = new ArrayList<>();
+        manager = new SnapshotCacheManager();
+        manager.eventPublisher = new BroadleafApplicationEventPublisher() {
+
+            @Override
+            public void publishEvent(ApplicationEvent applicationEvent) {
+                publishedEvents.add(applicationEvent);
+            }
+
+            @Override
+            public void publishEventUnsynchronized(ApplicationEvent applicationEvent) {
+                publishedEvents.add(applicationEvent);
+            }
+        };
+        first = manager.getCache("first", 10, -1L);
+        second = manager.getCache("second", 10, -1L);
+        for (SnapshotCache<String, String> cache : Arrays.asList(first, second)) {
+            cache.put("a", "1", cache.getGeneration());
+            cache.put("b", "2", cache.getGeneration());
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(manager.pendingInvalidationsKey);
+    }
+
+    public void testInvalidationOutsideOfATransactionIsPublishedRightAway() {
+        manager.publishInvalidation("first", Arrays.asList("a"));
+
+        assertEquals(1, publishedEvents.size());
+        manager.onApplicationEvent((BroadleafSystemEvent) publishedEvents.get(0));
+        assertNull(first.get("a"));
+        assertEquals("2", first.get("b"));
+        assertEquals("1", second.get("a"));
+    }
+
+    public void testInvalidationsOfATransactionArePublishedAsOneEventAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        manager.publishInvalidation("first", Arrays.asList("a"));
+        manager.publishInvalidation("first", Arrays.asList("a"));
+        manager.publishInvalidation("second", null);
+        manager.publishInvalidation("second", Arrays.asList("b"));
+        assertTrue(publishedEvents.isEmpty());
+
+        complete(true);
+
+        assertEquals(1, publishedEvents.size());
+        manager.onApplicationEvent((BroadleafSystemEvent) publishedEvents.get(0));
+        assertNull(first.get("a"));
+        assertEquals("2", first.get("b"));
+        assertEquals(0, second.size());
+        assertNull(TransactionSynchronizationManager.getResource(manager.pendingInvalidationsKey));
+    }
+
+    public void testInvalidationsOfARolledBackTransactionAreDiscarded() {
+        TransactionSynchronizationManager.initSynchronization();
+        manager.publishInvalidation("first", null);
+
+        complete(false);
+
+        assertTrue(publishedEvents.isEmpty());
+        assertNull(TransactionSynchronizationManager.getResource(manager.pendingInvalidationsKey));
+        assertEquals(2, first.size());
+    }
+
+    protected void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (committed) {
+            for (TransactionSynchronization synchronization : synchronizations) {
+                synchronization.afterCommit();
+            }
+        }
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(committed ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
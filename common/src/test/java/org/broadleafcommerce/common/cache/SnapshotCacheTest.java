@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SnapshotCacheTest extends TestCase {
+
+    public void testPutAndGet() {
+        SnapshotCache<String, String> cache = new SnapshotCache<>("test", 10, -1L);
+        assertNull(cache.get("a"));
+        assertTrue(cache.put("a", "1", cache.getGeneration()));
+        assertEquals("1", cache.get("a"));
+        assertEquals(1, cache.size());
+    }
+
+    public void testRemoveDiscardsValuesLoadedBeforeTheInvalidation() {
+        SnapshotCache<String, String> cache = new SnapshotCache<>("test", 10, -1L);
+        cache.put("a", "1", cache.getGeneration());
+        cache.put("b", "2", cache.getGeneration());
+
+        long generation = cache.getGeneration();
+        cache.remove(Arrays.asList("a"));
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+
+        assertFalse(cache.put("a", "stale", generation));
+        assertNull(cache.get("a"));
+        assertTrue(cache.put("a", "fresh", cache.getGeneration()));
+        assertEquals("fresh", cache.get("a"));
+    }
+
+    public void testClear() {
+        SnapshotCache<String, String> cache = new SnapshotCache<>("test", 10, -1L);
+        Map<String, String> values = new HashMap<>();
+        values.put("a", "1");
+        values.put("b", "2");
+        assertTrue(cache.putAll(values, cache.getGeneration()));
+        assertEquals(2, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("b"));
+    }
+
+    public void testStartsOverWhenFull() {
+        SnapshotCache<String, String> cache = new SnapshotCache<>("test", 2, -1L);
+        cache.put("a", "1", cache.getGeneration());
+        cache.put("b", "2", cache.getGeneration());
+        cache.put("c", "3", cache.getGeneration());
+        assertEquals(1, cache.size());
+        assertEquals("3", cache.get("c"));
+        assertNull(cache.get("a"));
+    }
+
+    public void testExpiresAfterTimeToLive() {
+        final long[] now = new long[] { 1000L };
+        SnapshotCache<String, String> cache = new SnapshotCache<String, String>("test", 10, 100L) {
+            @Override
+            protected long currentTimeMillis() {
+                return now[0];
+            }
+        };
+        cache.put("a", "1", cache.getGeneration());
+        now[0] += 50L;
+        assertEquals("1", cache.get("a"));
+        now[0] += 100L;
+        assertNull(cache.get("a"));
+
+        cache.put("b", "2", cache.getGeneration());
+        assertEquals("2", cache.get("b"));
+        assertNull(cache.get("a"));
+    }
+
+    public void testEntryExpiresBeforeTheSnapshot() {
+        final long[] now = new long[] { 1000L };
+        SnapshotCache<String, String> cache = new SnapshotCache<String, String>("test", 10, 1000L) {
+            @Override
+            protected long currentTimeMillis() {
+                return now[0];
+            }
+        };
+        cache.put("a", "1", cache.getGeneration(), now[0] + 100L);
+        cache.put("b", "2", cache.getGeneration());
+        now[0] += 50L;
+        assertEquals("1", cache.get("a"));
+        now[0] += 50L;
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+    }
+
+    public void testRegionValueWithUnknownWriteTimeIsNotCopied() {
+        SnapshotCache<String, String> cache = new SnapshotCache<>("test", 10, -1L);
+        SnapshotCacheRegionListener<String> eternal = new SnapshotCacheRegionListener<>(cache, -1L);
+        assertTrue(cache.put("a", "1", cache.getGeneration(), eternal.getExpiry("a")));
+        assertEquals("1", cache.get("a"));
+
+        SnapshotCacheRegionListener<String> expiring = new SnapshotCacheRegionListener<>(cache, 1000L);
+        assertFalse(cache.put("b", "2", cache.getGeneration(), expiring.getExpiry("b")));
+        assertNull(cache.get("b"));
+    }
+}
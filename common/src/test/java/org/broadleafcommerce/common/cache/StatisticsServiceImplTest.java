@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.cache;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.AttributeNotFoundException;
+
+public class StatisticsServiceImplTest extends TestCase {
+
+    public void testConcurrentCacheStats() throws Exception {
+        final StatisticsServiceImpl statisticsService = new StatisticsServiceImpl();
+        statisticsService.setLogResolution(Long.MAX_VALUE / 2);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        statisticsService.addCacheStat("test", j % 4 != 0);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CacheStat stat = statisticsService.getCacheStat("test");
+        assertEquals(80000L, stat.getRequestCount().longValue());
+        assertEquals(60000L, stat.getCacheHitCount().longValue());
+        assertEquals(75D, statisticsService.getAttribute("test"));
+        assertEquals(-1D, statisticsService.getAttribute("test.window"));
+    }
+
+    public void testCacheStatWindow() {
+        CacheStat stat = new CacheStat();
+        stat.setLastLogTime(1000L);
+        stat.incrementRequest();
+        stat.incrementHit();
+        assertFalse(stat.rollWindow(1500L, 1000L));
+        assertTrue(stat.rollWindow(2500L, 1000L));
+        assertFalse(stat.rollWindow(2500L, 1000L));
+        assertEquals(100D, stat.getWindowHitRate().doubleValue());
+
+        stat.incrementRequest();
+        stat.incrementRequest();
+        stat.incrementRequest();
+        stat.incrementHit();
+        assertTrue(stat.rollWindow(4000L, 1000L));
+        assertEquals(33D, stat.getWindowHitRate().doubleValue());
+        assertEquals(50D, stat.getHitRate().doubleValue());
+    }
+
+    public void testTimingPercentiles() throws Exception {
+        StatisticsServiceImpl statisticsService = new StatisticsServiceImpl();
+        statisticsService.setLogResolution(Long.MAX_VALUE / 2);
+        for (int i = 1; i <= 100; i++) {
+            statisticsService.addTimingStat("load", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(50.5D, statisticsService.getAttribute("load"));
+        assertWithin(50D, (Double) statisticsService.getAttribute("load.p50"));
+        assertWithin(99D, (Double) statisticsService.getAttribute("load.p99"));
+        assertEquals(100L, statisticsService.getTimingStat("load").getMaxMillis().longValue());
+    }
+
+    public void testTimingWindow() {
+        TimingStat stat = new TimingStat();
+        stat.setLastLogTime(0L);
+        stat.addDuration(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(stat.rollWindow(2000L, 1000L));
+        stat.addDuration(TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(stat.rollWindow(4000L, 1000L));
+        assertEquals(1L, stat.getWindowCount().longValue());
+        assertEquals(10D, stat.getWindowAverageMillis().doubleValue());
+        assertEquals(2L, stat.getCount().longValue());
+        assertEquals(55D, stat.getAverageMillis().doubleValue());
+    }
+
+    public void testUnknownAttribute() throws Exception {
+        StatisticsServiceImpl statisticsService = new StatisticsServiceImpl();
+        try {
+            statisticsService.getAttribute("missing");
+            fail();
+        } catch (AttributeNotFoundException e) {
+            // expected
+        }
+        assertEquals(1, statisticsService.getMBeanInfo().getAttributes().length);
+    }
+
+    protected void assertWithin(double expected, double actual) {
+        assertTrue("expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected * 0.07D);
+    }
+}
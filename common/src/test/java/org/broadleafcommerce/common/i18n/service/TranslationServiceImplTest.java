@@ -0,0 +1,182 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.i18n.service;
+
+import org.broadleafcommerce.common.extension.ResultType;
+import org.broadleafcommerce.common.i18n.dao.TranslationDao;
+import org.broadleafcommerce.common.i18n.domain.TranslatedEntity;
+import org.broadleafcommerce.common.i18n.domain.Translation;
+import org.broadleafcommerce.common.i18n.domain.TranslationImpl;
+import org.broadleafcommerce.common.locale.domain.LocaleImpl;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.easymock.EasyMock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import javax.cache.Cache;
+
+import junit.framework.TestCase;
+
+public class TranslationServiceImplTest extends TestCase {
+
+    protected static final List<String> PROPERTIES = Arrays.asList("name", "description");
+
+    protected TranslationDao dao;
+    protected Cache<String, Object> cache;
+    protected TranslationServiceImpl service;
+    protected boolean validForCache;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setUp() throws Exception {
+        dao = EasyMock.createMock(TranslationDao.class);
+        cache = EasyMock.createNiceMock(Cache.class);
+        service = new TranslationServiceImpl() {
+            @Override
+            public Cache<String, Object> getCache() {
+                return cache;
+            }
+
+            @Override
+            protected boolean isValidForCache() {
+                return validForCache;
+            }
+        };
+        service.dao = dao;
+        service.strategies = new ArrayList<TranslationOverrideStrategy>();
+        service.strategies.add(new ThresholdCacheTranslationOverrideStrategy());
+        service.thresholdForFullCache = 1000;
+        service.prefetchBatchSize = 500;
+
+        LocaleImpl locale = new LocaleImpl();
+        locale.setLocaleCode("fr_FR");
+        locale.setDefaultFlag(false);
+        BroadleafRequestContext brc = new BroadleafRequestContext();
+        brc.setLocale(locale);
+        BroadleafRequestContext.setBroadleafRequestContext(brc);
+        TranslationConsiderationContext.setTranslationConsiderationContext(true);
+        TranslationConsiderationContext.setTranslationService(service);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BroadleafRequestContext.setBroadleafRequestContext(null);
+        TranslationConsiderationContext.setTranslationConsiderationContext(null);
+        TranslationConsiderationContext.setTranslationService(null);
+    }
+
+    public void testPrefetchSelectsTheBestTranslationAndRemembersMisses() {
+        Translation nameFrFr = translation("1", "name", "fr_FR", "Boite");
+        Translation nameFr = translation("1", "name", "fr", "La boite");
+        Translation descriptionFr = translation("2", "description", "fr", "Une caisse");
+        EasyMock.expect(dao.readTranslations(TranslatedEntity.SKU, Arrays.asList("1", "2"), PROPERTIES, "fr", ResultType.CATALOG_ONLY))
+                .andReturn(Arrays.asList(nameFr, nameFrFr, descriptionFr));
+        EasyMock.replay(dao, cache);
+
+        service.prefetchTranslations(TranslatedEntity.SKU, Arrays.asList("1", "2"), PROPERTIES, Locale.FRANCE);
+        // already prefetched for this request, so no further query
+        service.prefetchTranslations(TranslatedEntity.SKU, Arrays.asList("2", "1"), PROPERTIES, Locale.FRANCE);
+
+        EasyMock.verify(dao);
+        TranslationPrefetchCache prefetchCache = TranslationPrefetchCache.getPrefetchCache(false);
+        assertSame("The exact locale should win", nameFrFr, prefetchCache.get(TranslatedEntity.SKU, "1", "name", "fr_FR"));
+        assertSame("The language should be used without a translation for the country", descriptionFr,
+                prefetchCache.get(TranslatedEntity.SKU, "2", "description", "fr_FR"));
+        assertTrue("Missing translations should be remembered",
+                prefetchCache.contains(TranslatedEntity.SKU, "1", "description", "fr_FR"));
+        assertNull(prefetchCache.get(TranslatedEntity.SKU, "1", "description", "fr_FR"));
+        assertNull(prefetchCache.get(TranslatedEntity.SKU, "2", "name", "fr_FR"));
+        assertEquals(4, prefetchCache.size());
+    }
+
+    public void testPrefetchReadsInBatches() {
+        service.prefetchBatchSize = 2;
+        EasyMock.expect(dao.readTranslations(TranslatedEntity.SKU, Arrays.asList("1", "2"), PROPERTIES, "fr", ResultType.CATALOG_ONLY))
+                .andReturn(Collections.<Translation>emptyList());
+        EasyMock.expect(dao.readTranslations(TranslatedEntity.SKU, Arrays.asList("3"), PROPERTIES, "fr", ResultType.CATALOG_ONLY))
+                .andReturn(Collections.<Translation>emptyList());
+        EasyMock.replay(dao, cache);
+
+        service.prefetchTranslations(TranslatedEntity.SKU, Arrays.asList("1", "2", "3"), PROPERTIES, Locale.FRANCE);
+
+        EasyMock.verify(dao);
+        assertEquals(6, TranslationPrefetchCache.getPrefetchCache(false).size());
+    }
+
+    public void testPrefetchSkipsEntityTypesHeldInTheTranslationCache() {
+        validForCache = true;
+        EasyMock.expect(cache.get(TranslatedEntity.SKU.getFriendlyType())).andReturn(new HashMap<String, Object>());
+        EasyMock.replay(dao, cache);
+
+        service.prefetchTranslations(TranslatedEntity.SKU, Arrays.asList("1", "2"), PROPERTIES, Locale.FRANCE);
+
+        EasyMock.verify(dao);
+        assertNull(TranslationPrefetchCache.getPrefetchCache(false));
+    }
+
+    public void testPrefetchSkipsEntityTypesSmallEnoughForTheTranslationCache() {
+        validForCache = true;
+        EasyMock.expect(dao.countTranslationEntries(TranslatedEntity.SKU, ResultType.STANDARD_CACHE)).andReturn(10L);
+        EasyMock.replay(dao, cache);
+
+        service.prefetchTranslations(TranslatedEntity.SKU, Arrays.asList("1", "2"), PROPERTIES, Locale.FRANCE);
+
+        EasyMock.verify(dao);
+        assertNull(TranslationPrefetchCache.getPrefetchCache(false));
+    }
+
+    public void testPrefetchEntityTypesTooLargeForTheTranslationCache() {
+        validForCache = true;
+        EasyMock.expect(dao.countTranslationEntries(TranslatedEntity.SKU, ResultType.STANDARD_CACHE)).andReturn(5000L);
+        EasyMock.expect(dao.readTranslations(TranslatedEntity.SKU, Arrays.asList("1"), PROPERTIES, "fr", ResultType.CATALOG_ONLY))
+                .andReturn(Collections.<Translation>emptyList());
+        EasyMock.replay(dao, cache);
+
+        service.prefetchTranslations(TranslatedEntity.SKU, Arrays.asList("1"), PROPERTIES, Locale.FRANCE);
+
+        EasyMock.verify(dao);
+        assertEquals(2, TranslationPrefetchCache.getPrefetchCache(false).size());
+    }
+
+    public void testSelectTranslation() {
+        Translation fr = translation("1", "name", "fr", "La boite");
+        Translation frFr = translation("1", "name", "fr_FR", "Boite");
+
+        assertSame(frFr, service.selectTranslation("fr", "fr_FR", Arrays.asList(fr, frFr)));
+        assertSame(fr, service.selectTranslation("fr", "fr_FR", Arrays.asList(fr)));
+        assertSame(fr, service.selectTranslation("fr", "fr", Arrays.asList(frFr, fr)));
+        assertNull("Only the language was requested", service.selectTranslation("fr", "fr", Arrays.asList(frFr)));
+        assertNull(service.selectTranslation("fr", "fr_FR", Collections.<Translation>emptyList()));
+        assertNull(service.selectTranslation("fr", "fr_FR", null));
+    }
+
+    protected Translation translation(String entityId, String fieldName, String localeCode, String value) {
+        Translation translation = new TranslationImpl();
+        translation.setEntityType(TranslatedEntity.SKU);
+        translation.setEntityId(entityId);
+        translation.setFieldName(fieldName);
+        translation.setLocaleCode(localeCode);
+        translation.setTranslatedValue(value);
+        return translation;
+    }
+}
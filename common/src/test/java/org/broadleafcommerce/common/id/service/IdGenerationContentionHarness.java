@@ -0,0 +1,48 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.id.service;
+
+import org.broadleafcommerce.common.id.service.IdGenerationServiceImplTest.InMemoryIdGenerationDao;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link IdGenerationServiceImpl} with and without block prefetching, with many threads
+ * drawing ids of the same type from a table that takes a millisecond per round trip. This is not part of the test suite
+ * since the timings depend on the machine. Run it as a java main application.
+ */
+public class IdGenerationContentionHarness {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int idsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        for (boolean prefetch : new boolean[] { false, true }) {
+            InMemoryIdGenerationDao dao = new InMemoryIdGenerationDao(null, null, 50L, 1L);
+            IdGenerationServiceImpl service = IdGenerationServiceImplTest.buildService(dao, prefetch);
+            long startTime = System.nanoTime();
+            Set<Long> ids = IdGenerationServiceImplTest.drawConcurrently(service, "ContentionTest", threads, idsPerThread);
+            long elapsed = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            service.shutdownPrefetchExecutor();
+
+            System.out.println(String.format("prefetch=%s: %s of %s ids unique in %sms (%s ids/s), %s database round trips",
+                    prefetch, ids.size(), threads * idsPerThread, elapsed, ids.size() * 1000L / elapsed, dao.getRoundTrips()));
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.id.service;
+
+import org.broadleafcommerce.common.id.dao.IdGenerationDao;
+import org.broadleafcommerce.common.id.domain.IdGeneration;
+import org.broadleafcommerce.common.id.domain.IdGenerationImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class IdGenerationServiceImplTest extends TestCase {
+
+    public void testSequentialIds() {
+        IdGenerationServiceImpl service = buildService(new InMemoryIdGenerationDao(null, null, 10L, 0L), true);
+        for (long i = 1; i <= 100; i++) {
+            assertEquals("Ids should be handed out in ascending order", Long.valueOf(i), service.findNextId("SequentialTest"));
+        }
+        service.shutdownPrefetchExecutor();
+    }
+
+    public void testBeginEndSequence() {
+        IdGenerationServiceImpl service = buildService(new InMemoryIdGenerationDao(1L, 10L, 3L, 0L), true);
+        for (int i = 1; i <= 100; i++) {
+            long expected = i % 10 == 0 ? 10 : i % 10;
+            assertEquals("Ids should cycle between the begin and end", Long.valueOf(expected), service.findNextId("BeginEndTest"));
+        }
+        service.shutdownPrefetchExecutor();
+    }
+
+    public void testPrefetchDepthAdapts() {
+        InMemoryIdGenerationDao dao = new InMemoryIdGenerationDao(null, null, 10L, 0L);
+        IdGenerationServiceImpl service = buildService(dao, false);
+        for (int i = 0; i < 100; i++) {
+            service.findNextId("DepthTest");
+        }
+        assertEquals("Quickly consumed blocks should raise the prefetch depth to the maximum", service.prefetchMaxBlocks,
+                service.idSequences.get("DepthTest").prefetchDepth);
+    }
+
+    /**
+     * Threads drawing ids of the same type while blocks run out and are refetched concurrently. See
+     * {@link IdGenerationContentionHarness} for the throughput comparison.
+     */
+    public void testContendedIdsAreUnique() throws Exception {
+        for (boolean prefetch : new boolean[] { false, true }) {
+            IdGenerationServiceImpl service = buildService(new InMemoryIdGenerationDao(null, null, 10L, 0L), prefetch);
+            Set<Long> ids = drawConcurrently(service, "ContentionTest", 4, 500);
+            service.shutdownPrefetchExecutor();
+
+            assertEquals("No id should be handed out twice (prefetch=" + prefetch + ")", 4 * 500, ids.size());
+        }
+    }
+
+    /**
+     * Draws ids of the given type from the given number of threads at once
+     *
+     * @return the distinct ids that were handed out
+     */
+    protected static Set<Long> drawConcurrently(final IdGenerationServiceImpl service, final String idType, int threads,
+            final int idsPerThread) throws Exception {
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(service.findNextId(idType));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return ids;
+    }
+
+    protected static IdGenerationServiceImpl buildService(IdGenerationDao dao, boolean prefetch) {
+        IdGenerationServiceImpl service = new IdGenerationServiceImpl();
+        service.idGenerationDao = dao;
+        service.prefetchEnabled = prefetch;
+        return service;
+    }
+
+    /**
+     * Reserves ranges the same way as the id generation table, with a simulated round trip latency
+     */
+    protected static class InMemoryIdGenerationDao implements IdGenerationDao {
+
+        protected final Long begin;
+        protected final Long end;
+        protected final long batchSize;
+        protected final long latency;
+        protected long batchStart;
+        protected final AtomicInteger roundTrips = new AtomicInteger();
+
+        public InMemoryIdGenerationDao(Long begin, Long end, long batchSize, long latency) {
+            this.begin = begin;
+            this.end = end;
+            this.batchSize = batchSize;
+            this.latency = latency;
+            this.batchStart = begin == null ? 1L : begin;
+        }
+
+        @Override
+        public IdGeneration findNextId(String idType) throws Exception {
+            return findNextId(idType, null);
+        }
+
+        @Override
+        public IdGeneration findNextId(String idType, Long batchSize) throws Exception {
+            roundTrips.incrementAndGet();
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            synchronized (this) {
+                IdGeneration response = new IdGenerationImpl();
+                response.setType(idType);
+                response.setBatchStart(this.batchStart);
+                response.setBatchSize(this.batchSize);
+                this.batchStart += this.batchSize;
+                if (end != null && this.batchStart > end) {
+                    response.setBatchSize(end - response.getBatchStart() + 1);
+                    this.batchStart = begin;
+                }
+                return response;
+            }
+        }
+
+        public int getRoundTrips() {
+            return roundTrips.get();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.sitemap.service;
+
+import org.apache.commons.io.IOUtils;
+import org.broadleafcommerce.common.config.domain.ModuleConfiguration;
+import org.broadleafcommerce.common.config.service.ModuleConfigurationService;
+import org.broadleafcommerce.common.config.service.type.ModuleConfigurationType;
+import org.broadleafcommerce.common.file.domain.FileWorkArea;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapConfiguration;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapConfigurationImpl;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfigurationImpl;
+import org.broadleafcommerce.common.sitemap.service.type.SiteMapChangeFreqType;
+import org.broadleafcommerce.common.sitemap.service.type.SiteMapGeneratorType;
+import org.broadleafcommerce.common.sitemap.service.type.SiteMapPriorityType;
+import org.broadleafcommerce.common.sitemap.wrapper.SiteMapURLWrapper;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests for parallel, incremental generation, where each generator configuration is written to its own shard
+ */
+public class ShardedSiteMapGenerationTest extends SiteMapGeneratorTest {
+
+    protected static final List<String> SHARD_FILES = Arrays.asList("/sitemap1-1.xml", "/sitemap1-2.xml", "/sitemap2-1.xml",
+            "/sitemap3-r0-1.xml", "/sitemap3-r1-1.xml", "/sitemap3-r2-1.xml", "/sitemap.xml", "/sitemap_state.properties");
+
+    protected SiteMapConfiguration smc;
+    protected CountingSiteMapGenerator firstGenerator = new CountingSiteMapGenerator(SiteMapGeneratorType.PRODUCT, "product", 3);
+    protected CountingSiteMapGenerator secondGenerator = new CountingSiteMapGenerator(SiteMapGeneratorType.CATEGORY, "category", 2);
+    protected RangedSiteMapGenerator rangedGenerator = new RangedSiteMapGenerator();
+
+    @Before
+    public void setupShardedGeneration() {
+        siteMapService = new SiteMapServiceImpl() {
+
+            @Override
+            protected Runnable createShardTask(SiteMapConfiguration smc, FileWorkArea fileWorkArea, String baseUrl,
+                    SiteMapShard shard, BroadleafRequestContext parentContext) {
+                // No EntityManager is needed to run the test generators
+                return () -> generateShard(smc, fileWorkArea, baseUrl, shard);
+            }
+        };
+        siteMapService.broadleafFileService = fileService;
+        siteMapService.baseUrlResolver = baseUrlResolver;
+        siteMapService.generatorThreads = 2;
+        siteMapService.incremental = true;
+        siteMapService.setGzipSiteMapFiles(true);
+        siteMapService.idsPerShard = 10L;
+        siteMapService.setSiteMapGenerators(Arrays.<SiteMapGenerator>asList(firstGenerator, secondGenerator, rangedGenerator));
+
+        smc = new SiteMapConfigurationImpl();
+        smc.setMaximumUrlEntriesPerFile(2);
+        smc.setSiteMapFileName("sitemap.xml");
+        smc.setSiteMapGeneratorConfigurations(Arrays.asList(
+                buildGeneratorConfiguration(1L, SiteMapGeneratorType.PRODUCT),
+                buildGeneratorConfiguration(2L, SiteMapGeneratorType.CATEGORY)));
+        List<ModuleConfiguration> mcList = new ArrayList<>();
+        mcList.add(smc);
+        ModuleConfigurationService mcs = EasyMock.createMock(ModuleConfigurationService.class);
+        EasyMock.expect(mcs.findActiveConfigurationsByType(ModuleConfigurationType.SITE_MAP)).andReturn(mcList).anyTimes();
+        EasyMock.replay(mcs);
+        siteMapService.setModuleConfigurationService(mcs);
+    }
+
+    @After
+    public void deleteShardFiles() {
+        for (String fileName : SHARD_FILES) {
+            fileService.removeResource(fileName);
+            fileService.removeResource(fileName + ".gz");
+        }
+    }
+
+    @Test
+    public void testShardsAreIndexedInConfigurationOrder() throws IOException {
+        SiteMapGenerationResponse smgr = siteMapService.generateSiteMap();
+
+        Assert.assertFalse(smgr.isHasError());
+        Assert.assertEquals(Arrays.asList("sitemap1-1.xml.gz", "sitemap1-2.xml.gz", "sitemap2-1.xml.gz", "sitemap.xml.gz"),
+                smgr.getSiteMapFilePaths());
+        String index = convertFileToString(fileService.getResource("/sitemap.xml"));
+        Assert.assertTrue(index.indexOf("sitemap1-2.xml.gz") < index.indexOf("sitemap2-1.xml.gz"));
+        Assert.assertTrue(convertFileToString(fileService.getResource("/sitemap2-1.xml")).contains("/category/2"));
+    }
+
+    @Test
+    public void testGzippedCopyMatchesFile() throws IOException {
+        siteMapService.generateSiteMap();
+
+        File file = fileService.getResource("/sitemap1-1.xml");
+        File gzippedFile = fileService.getResource("/sitemap1-1.xml.gz");
+        Assert.assertTrue(gzippedFile.exists());
+        byte[] expected = readFully(new FileInputStream(file));
+        byte[] actual = readFully(new GZIPInputStream(new FileInputStream(gzippedFile)));
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testUnchangedShardsAreKept() throws IOException {
+        siteMapService.generateSiteMap();
+        Assert.assertEquals(1, firstGenerator.invocations.get());
+        Assert.assertEquals(1, secondGenerator.invocations.get());
+
+        secondGenerator.fingerprint = "changed";
+        SiteMapGenerationResponse smgr = siteMapService.generateSiteMap();
+
+        Assert.assertEquals("The unchanged configuration should not be regenerated", 1, firstGenerator.invocations.get());
+        Assert.assertEquals(2, secondGenerator.invocations.get());
+        Assert.assertTrue(smgr.getSiteMapFilePaths().contains("sitemap1-2.xml.gz"));
+        Assert.assertTrue(fileService.getResource("/sitemap1-2.xml").exists());
+    }
+
+    @Test
+    public void testShardsWithoutFingerprintAreRegenerated() throws IOException {
+        firstGenerator.fingerprint = null;
+        siteMapService.generateSiteMap();
+        siteMapService.generateSiteMap();
+
+        Assert.assertEquals(2, firstGenerator.invocations.get());
+        Assert.assertEquals(1, secondGenerator.invocations.get());
+    }
+
+    @Test
+    public void testEntriesAreShardedById() throws IOException {
+        smc.setSiteMapGeneratorConfigurations(Arrays.asList(buildGeneratorConfiguration(3L, SiteMapGeneratorType.SKU)));
+        SiteMapGenerationResponse smgr = siteMapService.generateSiteMap();
+
+        Assert.assertEquals(Arrays.asList("sitemap3-r0-1.xml.gz", "sitemap3-r1-1.xml.gz", "sitemap3-r2-1.xml.gz", "sitemap.xml.gz"),
+                smgr.getSiteMapFilePaths());
+        String firstShard = convertFileToString(fileService.getResource("/sitemap3-r0-1.xml"));
+        Assert.assertTrue(firstShard.contains("/sku/1<") && firstShard.contains("/sku/2<") && !firstShard.contains("/sku/12<"));
+        Assert.assertTrue(convertFileToString(fileService.getResource("/sitemap3-r1-1.xml")).contains("/sku/12<"));
+    }
+
+    @Test
+    public void testOnlyChangedIdRangesAreRegenerated() throws IOException {
+        smc.setSiteMapGeneratorConfigurations(Arrays.asList(buildGeneratorConfiguration(3L, SiteMapGeneratorType.SKU)));
+        siteMapService.generateSiteMap();
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L), new ArrayList<>(rangedGenerator.generatedRanges));
+
+        rangedGenerator.urls.put(12L, "/sku/twelve");
+        rangedGenerator.urls.remove(25L);
+        rangedGenerator.generatedRanges.clear();
+        SiteMapGenerationResponse smgr = siteMapService.generateSiteMap();
+
+        Assert.assertEquals("Only the range of the changed entity should be regenerated", Arrays.asList(1L), new ArrayList<>(rangedGenerator.generatedRanges));
+        Assert.assertEquals(Arrays.asList("sitemap3-r0-1.xml.gz", "sitemap3-r1-1.xml.gz", "sitemap.xml.gz"), smgr.getSiteMapFilePaths());
+        Assert.assertTrue(convertFileToString(fileService.getResource("/sitemap3-r1-1.xml")).contains("/sku/twelve"));
+        Assert.assertFalse("The files of an emptied range should be removed", fileService.getResource("/sitemap3-r2-1.xml").exists());
+    }
+
+    protected SiteMapGeneratorConfiguration buildGeneratorConfiguration(Long id, SiteMapGeneratorType type) {
+        SiteMapGeneratorConfiguration smgc = new SiteMapGeneratorConfigurationImpl();
+        smgc.setId(id);
+        smgc.setDisabled(false);
+        smgc.setSiteMapGeneratorType(type);
+        smgc.setSiteMapChangeFreq(SiteMapChangeFreqType.HOURLY);
+        smgc.setSiteMapPriority(SiteMapPriorityType.POINT5);
+        smgc.setSiteMapConfiguration(smc);
+        return smgc;
+    }
+
+    protected byte[] readFully(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+
+    protected static class CountingSiteMapGenerator implements SiteMapGenerator {
+
+        protected final SiteMapGeneratorType type;
+        protected final String path;
+        protected final int urlCount;
+        protected final AtomicInteger invocations = new AtomicInteger();
+        protected String fingerprint = "1";
+
+        public CountingSiteMapGenerator(SiteMapGeneratorType type, String path, int urlCount) {
+            this.type = type;
+            this.path = path;
+            this.urlCount = urlCount;
+        }
+
+        @Override
+        public boolean canHandleSiteMapConfiguration(SiteMapGeneratorConfiguration smgc) {
+            return type.equals(smgc.getSiteMapGeneratorType());
+        }
+
+        @Override
+        public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder) {
+            invocations.incrementAndGet();
+            for (int i = 1; i <= urlCount; i++) {
+                SiteMapURLWrapper siteMapUrl = new SiteMapURLWrapper();
+                siteMapUrl.setLoc(siteMapBuilder.getBaseUrl() + "/" + path + "/" + i);
+                siteMapUrl.setChangeFreqType(smgc.getSiteMapChangeFreq());
+                siteMapUrl.setPriorityType(smgc.getSiteMapPriority());
+                siteMapUrl.setLastModDate(new Date());
+                siteMapBuilder.addUrl(siteMapUrl);
+            }
+        }
+
+        @Override
+        public String getFingerprint(SiteMapGeneratorConfiguration smgc) {
+            return fingerprint;
+        }
+    }
+
+    /**
+     * Splits the urls of its entities by id, as the catalog generators do
+     */
+    protected static class RangedSiteMapGenerator implements SiteMapGenerator {
+
+        protected final SortedMap<Long, String> urls = new TreeMap<>();
+        protected final Set<Long> generatedRanges = new TreeSet<>();
+
+        public RangedSiteMapGenerator() {
+            urls.put(1L, "/sku/1");
+            urls.put(2L, "/sku/2");
+            urls.put(12L, "/sku/12");
+            urls.put(25L, "/sku/25");
+        }
+
+        @Override
+        public boolean canHandleSiteMapConfiguration(SiteMapGeneratorConfiguration smgc) {
+            return SiteMapGeneratorType.SKU.equals(smgc.getSiteMapGeneratorType());
+        }
+
+        @Override
+        public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder) {
+            addSiteMapEntries(smgc, siteMapBuilder, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+
+        @Override
+        public synchronized void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder, long fromId, long toId) {
+            generatedRanges.add(fromId / 10L);
+            for (Map.Entry<Long, String> entry : urls.subMap(fromId, toId).entrySet()) {
+                SiteMapURLWrapper siteMapUrl = new SiteMapURLWrapper();
+                siteMapUrl.setLoc(siteMapBuilder.getBaseUrl() + entry.getValue());
+                siteMapUrl.setChangeFreqType(smgc.getSiteMapChangeFreq());
+                siteMapUrl.setPriorityType(smgc.getSiteMapPriority());
+                siteMapUrl.setLastModDate(new Date());
+                siteMapBuilder.addUrl(siteMapUrl);
+            }
+        }
+
+        @Override
+        public SortedMap<Long, String> readShardFingerprints(SiteMapGeneratorConfiguration smgc, long idsPerShard) {
+            SiteMapFingerprint fingerprint = new SiteMapFingerprint(idsPerShard);
+            for (Map.Entry<Long, String> entry : urls.entrySet()) {
+                fingerprint.add(entry.getKey(), entry.getValue());
+            }
+            return fingerprint.getShardFingerprints();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class ConcurrentTinyLFUMapTest extends TestCase {
+
+    public void testBasicOperations() {
+        ConcurrentTinyLFUMap<String, String> testMap = new ConcurrentTinyLFUMap<>(10);
+
+        assertNull("put should return null for a new key", testMap.put("key1", "value1"));
+        assertEquals("The value for key1 should be value1", "value1", testMap.get("key1"));
+        assertEquals("put should return the replaced value", "value1", testMap.put("key1", "value1b"));
+        assertEquals("The value for key1 should now be value1b", "value1b", testMap.get("key1"));
+        assertEquals("The size() for the map should be 1", 1, testMap.size());
+        assertEquals("remove should return the removed value", "value1b", testMap.remove("key1"));
+        assertTrue("The map should be empty", testMap.isEmpty());
+    }
+
+    public void testSizeIsBounded() {
+        ConcurrentTinyLFUMap<Integer, Integer> testMap = new ConcurrentTinyLFUMap<>(100, 4);
+        for (int i = 0; i < 1000; i++) {
+            testMap.put(i, i);
+        }
+        assertTrue("The map should not grow beyond its maximum size", testMap.size() <= 100);
+        assertEquals("Every entry beyond the maximum size should have been evicted", 1000 - testMap.size(),
+                testMap.getEvictionCount());
+    }
+
+    public void testFrequentlyUsedEntriesSurviveScans() {
+        ConcurrentTinyLFUMap<Integer, Integer> testMap = new ConcurrentTinyLFUMap<>(100, 1);
+        for (int i = 0; i < 50; i++) {
+            testMap.put(i, i);
+            for (int j = 0; j < 5; j++) {
+                testMap.get(i);
+            }
+        }
+        // a scan of keys that are only used once should not push out the popular ones
+        for (int i = 1000; i < 1300; i++) {
+            testMap.put(i, i);
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals("Popular key " + i + " should still be cached", Integer.valueOf(i), testMap.get(i));
+        }
+    }
+
+    public void testComputeIfAbsentComputesOnce() throws Exception {
+        final ConcurrentTinyLFUMap<String, String> testMap = new ConcurrentTinyLFUMap<>(10);
+        final AtomicInteger computations = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return testMap.computeIfAbsent("rule", key -> {
+                        computations.incrementAndGet();
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "compiled " + key;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("Every caller should see the computed value", "compiled rule", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("The value should only have been computed once", 1, computations.get());
+        assertEquals("Only the first caller should have missed", 1, testMap.getMissCount());
+        assertEquals("The other callers should have hit", 7, testMap.getHitCount());
+    }
+
+    public void testFailedComputationIsNotCached() {
+        ConcurrentTinyLFUMap<String, String> testMap = new ConcurrentTinyLFUMap<>(10);
+        try {
+            testMap.computeIfAbsent("rule", key -> {
+                throw new IllegalStateException("bad rule");
+            });
+            fail("The exception from the mapping function should be thrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertFalse("A failed computation should not leave an entry behind", testMap.containsKey("rule"));
+        assertEquals("The key should be computed again", "compiled", testMap.computeIfAbsent("rule", key -> "compiled"));
+    }
+}
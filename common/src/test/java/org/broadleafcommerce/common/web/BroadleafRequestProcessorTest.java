@@ -0,0 +1,206 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.web;
+
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.crossapp.service.CrossAppAuthService;
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrencyImpl;
+import org.broadleafcommerce.common.currency.domain.BroadleafRequestedCurrencyDto;
+import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.locale.domain.LocaleImpl;
+import org.broadleafcommerce.common.site.domain.Site;
+import org.broadleafcommerce.common.site.domain.SiteImpl;
+import org.broadleafcommerce.common.site.domain.Theme;
+import org.broadleafcommerce.common.site.domain.ThemeDTO;
+import org.broadleafcommerce.common.util.DeployBehaviorUtil;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+public class BroadleafRequestProcessorTest extends TestCase {
+
+    protected Map<String, Integer> calls;
+    protected Site site;
+    protected Locale locale;
+    protected BroadleafCurrency currency;
+    protected Theme theme;
+    protected RequestContextResolutionCacheImpl resolutionCache;
+    protected BroadleafRequestProcessor processor;
+
+    @Override
+    protected void setUp() throws Exception {
+        calls = new HashMap<String, Integer>();
+        site = new SiteImpl();
+        site.setId(1L);
+        locale = new LocaleImpl();
+        locale.setLocaleCode("en_US");
+        currency = new BroadleafCurrencyImpl();
+        currency.setCurrencyCode("USD");
+        theme = new ThemeDTO();
+
+        resolutionCache = new RequestContextResolutionCacheImpl();
+        resolutionCache.snapshotCacheManager = new SnapshotCacheManager();
+
+        processor = new BroadleafRequestProcessor();
+        processor.siteResolver = createResolver(BroadleafSiteResolver.class, site);
+        processor.localeResolver = createResolver(BroadleafLocaleResolver.class, locale);
+        processor.currencyResolver = createResolver(BroadleafCurrencyResolver.class, new BroadleafRequestedCurrencyDto(currency, currency));
+        processor.sandboxResolver = createResolver(BroadleafSandBoxResolver.class, null);
+        processor.themeResolver = createResolver(BroadleafThemeResolver.class, theme);
+        processor.broadleafTimeZoneResolver = createResolver(BroadleafTimeZoneResolver.class, TimeZone.getTimeZone("UTC"));
+        processor.baseUrlResolver = createResolver(BaseUrlResolver.class, "http://www.example.com");
+        processor.deployBehaviorUtil = new DeployBehaviorUtil();
+        processor.entityExtensionManagers = new HashMap<>();
+        processor.resolutionCache = resolutionCache;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BroadleafRequestContext.setBroadleafRequestContext(null);
+    }
+
+    public void testRequestsWithTheSameKeyShareASnapshot() {
+        process(createRequest("www.example.com"));
+        WebRequest request = process(createRequest("www.example.com"));
+
+        assertEquals(1, count(BroadleafSiteResolver.class));
+        assertEquals(1, count(BroadleafLocaleResolver.class));
+        assertEquals(1, count(BroadleafCurrencyResolver.class));
+        assertEquals(1, count(BroadleafThemeResolver.class));
+        assertEquals(1, count(BaseUrlResolver.class));
+        assertEquals(0, count(BroadleafSandBoxResolver.class));
+        assertEquals(2, count(BroadleafTimeZoneResolver.class));
+        assertEquals(1, resolutionCache.getSnapshotCount());
+
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        assertSame(site, brc.getNonPersistentSite());
+        assertSame(theme, brc.getTheme());
+        assertSame(locale, brc.getLocale());
+        assertSame(currency, brc.getBroadleafCurrency());
+        assertNull(brc.getSandBox());
+        assertFalse(brc.getAdmin());
+        assertNotNull(brc.getRequestDTO());
+        assertEquals("http://www.example.com", request.getAttribute(BroadleafRequestProcessor.SITE_BASE_URL_VAR, WebRequest.SCOPE_REQUEST));
+        assertSame(locale, request.getAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, WebRequest.SCOPE_REQUEST));
+        assertSame(locale, request.getAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, WebRequest.SCOPE_SESSION));
+        assertSame(currency, request.getAttribute(BroadleafCurrencyResolverImpl.CURRENCY_VAR, WebRequest.SCOPE_SESSION));
+    }
+
+    public void testHostsAndSelectionsAreResolvedSeparately() {
+        process(createRequest("www.example.com"));
+        process(createRequest("shop.example.com"));
+        assertEquals(2, count(BroadleafSiteResolver.class));
+
+        MockHttpServletRequest selected = createRequest("www.example.com");
+        LocaleImpl french = new LocaleImpl();
+        french.setLocaleCode("fr_FR");
+        selected.getSession().setAttribute(BroadleafLocaleResolverImpl.LOCALE_VAR, french);
+        process(selected);
+        assertEquals(3, count(BroadleafSiteResolver.class));
+        assertSame(Boolean.TRUE, selected.getAttribute(BroadleafLocaleResolverImpl.LOCALE_PULLED_FROM_SESSION));
+        assertEquals(3, resolutionCache.getSnapshotCount());
+    }
+
+    public void testSelectionParametersBypassTheSnapshot() {
+        String[] params = { BroadleafLocaleResolverImpl.LOCALE_CODE_PARAM, BroadleafCurrencyResolverImpl.CURRENCY_CODE_PARAM,
+                BroadleafSandBoxResolver.SANDBOX_ID_VAR, "blClearSandBox" };
+        for (String param : params) {
+            MockHttpServletRequest request = createRequest("www.example.com");
+            request.addParameter(param, "1");
+            process(request);
+        }
+        assertEquals(params.length, count(BroadleafSandBoxResolver.class));
+        assertEquals(params.length, count(BroadleafLocaleResolver.class));
+        assertEquals(0, resolutionCache.getSnapshotCount());
+    }
+
+    public void testSandBoxPreviewAndAdminSessionsBypassTheSnapshot() {
+        MockHttpServletRequest preview = createRequest("www.example.com");
+        preview.getSession().setAttribute(BroadleafSandBoxResolver.SANDBOX_ID_VAR, 5L);
+        process(preview);
+
+        MockHttpServletRequest admin = createRequest("www.example.com");
+        admin.getSession().setAttribute(CrossAppAuthService.AUTH_FROM_ADMIN_SESSION_VAR, Boolean.TRUE);
+        process(admin);
+
+        assertEquals(2, count(BroadleafSandBoxResolver.class));
+        assertEquals(0, resolutionCache.getSnapshotCount());
+    }
+
+    public void testInvalidationResolvesTheSnapshotAgain() {
+        process(createRequest("www.example.com"));
+        resolutionCache.invalidate();
+        process(createRequest("www.example.com"));
+        assertEquals(2, count(BroadleafSiteResolver.class));
+
+        resolutionCache.enabled = false;
+        process(createRequest("www.example.com"));
+        process(createRequest("www.example.com"));
+        assertEquals(4, count(BroadleafSiteResolver.class));
+    }
+
+    protected WebRequest process(MockHttpServletRequest request) {
+        WebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+        processor.process(webRequest);
+        return webRequest;
+    }
+
+    protected MockHttpServletRequest createRequest(String host) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setServerName(host);
+        request.setSession(new MockHttpSession());
+        return request;
+    }
+
+    protected int count(Class<?> resolverType) {
+        Integer count = calls.get(resolverType.getSimpleName());
+        return count == null ? 0 : count;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T createResolver(final Class<T> resolverType, final Object value) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { resolverType }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+                if ("toString".equals(method.getName())) {
+                    return resolverType.getSimpleName();
+                }
+                calls.put(resolverType.getSimpleName(), count(resolverType) + 1);
+                return value;
+            }
+        });
+    }
+}
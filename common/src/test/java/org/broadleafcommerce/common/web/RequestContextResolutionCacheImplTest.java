@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * BroadleafCommerce Common Libraries
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.common.web;
+
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.currency.domain.BroadleafCurrency;
+import org.broadleafcommerce.common.currency.service.BroadleafCurrencyService;
+import org.broadleafcommerce.common.locale.domain.Locale;
+import org.broadleafcommerce.common.locale.service.LocaleService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class RequestContextResolutionCacheImplTest extends TestCase {
+
+    protected Map<String, Integer> calls;
+    protected RequestContextResolutionCacheImpl cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        calls = new HashMap<String, Integer>();
+        cache = new RequestContextResolutionCacheImpl();
+        cache.snapshotCacheManager = new SnapshotCacheManager();
+        cache.localeService = createService(LocaleService.class, Locale.class);
+        cache.currencyService = createService(BroadleafCurrencyService.class, BroadleafCurrency.class);
+        BroadleafRequestContext.setBroadleafRequestContext(new BroadleafRequestContext());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BroadleafRequestContext.setBroadleafRequestContext(null);
+    }
+
+    public void testLookupsAreServedFromCache() {
+        BroadleafCurrency currency = cache.findDefaultCurrency();
+        assertSame(currency, cache.findDefaultCurrency());
+        assertSame(cache.findLocaleByCode("en_US"), cache.findLocaleByCode("en_US"));
+        assertNotSame(cache.findLocaleByCode("en_US"), cache.findLocaleByCode("fr_FR"));
+
+        assertEquals(1, count("findDefaultBroadleafCurrency"));
+        assertEquals(2, count("findLocaleByCode"));
+    }
+
+    public void testMissingCodesAreCached() {
+        assertNull(cache.findCurrencyByCode("unknown"));
+        assertNull(cache.findCurrencyByCode("unknown"));
+        assertEquals(1, count("findCurrencyByCode"));
+    }
+
+    public void testAdminRequestsBypassCache() {
+        BroadleafRequestContext.getBroadleafRequestContext().setAdmin(true);
+        cache.findDefaultLocale();
+        cache.findDefaultLocale();
+        assertEquals(2, count("findDefaultLocale"));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testInvalidateAndExpiry() {
+        cache.findDefaultLocale();
+        cache.invalidate();
+        cache.findDefaultLocale();
+        assertEquals(2, count("findDefaultLocale"));
+
+        cache.timeToLiveMillis = 0L;
+        cache.findDefaultLocale();
+        cache.findDefaultLocale();
+        assertEquals(4, count("findDefaultLocale"));
+    }
+
+    public void testEntriesAreBounded() {
+        cache.maxEntries = 3;
+        for (int j = 0; j < 10; j++) {
+            cache.findLocaleByCode("code" + j);
+        }
+        assertTrue(cache.getSize() <= 3);
+    }
+
+    protected int count(String method) {
+        Integer count = calls.get(method);
+        return count == null ? 0 : count;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T createService(Class<T> serviceType, final Class<?> valueType) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { serviceType }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                calls.put(method.getName(), count(method.getName()) + 1);
+                if (args != null && "unknown".equals(args[0])) {
+                    return null;
+                }
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { valueType }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        }
+                        return null;
+                    }
+                });
+            }
+        });
+    }
+}
@@ -25,6 +25,16 @@ import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderLock;
 import org.broadleafcommerce.core.order.service.OrderLockManager;
 import org.broadleafcommerce.core.order.service.OrderService;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Resource;
 
@@ -32,9 +42,19 @@ import javax.annotation.Resource;
  * An implementation of the {@link OrderLockManager} that relies on the database to provide synchronization
  * for locks on {@link Order}s. This class leverages the {@link OrderLock} domain object to provide this
  * functionality.
+ * <p>
+ * Threads on the same node that want the lock for the same order first queue on a fair, in-memory lock for that
+ * order. Only the thread at the head of the queue attempts to acquire the {@link OrderLock}, and it only has to poll
+ * the database (every <code>order.lock.databaseLockPollingIntervalMs</code>) while the order is locked by another node.
+ * Releasing the lock wakes the next local waiter immediately. Waiting for both the local and the database lock is
+ * bounded by <code>order.lock.acquisitionTimeoutMs</code>.
+ * <p>
+ * The lock belongs to the thread that acquired it. A release from any other thread, or a second release, is ignored
+ * with a warning, so that it cannot hand the lock of its rightful holder to the next waiter.
  * 
  * @author Andre Azzolini (apazzolini)
  */
+@ManagedResource(objectName = "org.broadleafcommerce:name=OrderLockManager", description = "Order Lock Manager", currencyTimeLimit = 15)
 public class DatabaseOrderLockManager implements OrderLockManager {
 
     protected static final Log LOG = LogFactory.getLog(DatabaseOrderLockManager.class);
@@ -42,6 +62,15 @@ public class DatabaseOrderLockManager implements OrderLockManager {
     @Resource(name = "blOrderService")
     protected OrderService orderService;
 
+    protected final ConcurrentMap<Long, LocalOrderLock> localLocks = new ConcurrentHashMap<>();
+
+    protected final LongAdder acquisitions = new LongAdder();
+    protected final LongAdder contendedAcquisitions = new LongAdder();
+    protected final LongAdder acquisitionTimeouts = new LongAdder();
+    protected final LongAdder databaseRetries = new LongAdder();
+    protected final LongAdder totalWaitNanos = new LongAdder();
+    protected final AtomicLong maxWaitNanos = new AtomicLong();
+
     @Override
     public Object acquireLock(Order order) {
         if (order == null || order instanceof NullOrderImpl) {
@@ -51,38 +80,69 @@ public class DatabaseOrderLockManager implements OrderLockManager {
             return order;
         }
 
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(getLockAcquisitionTimeoutMs());
+        LocalOrderLock localLock = referenceLocalLock(order.getId());
+        boolean permitHeld = false;
         boolean lockAcquired = false;
-        int count = 0;
-        while (!lockAcquired) {
+        try {
+            permitHeld = localLock.permit.tryAcquire();
+            if (!permitHeld) {
+                contendedAcquisitions.increment();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Thread[" + Thread.currentThread().getId() + "] Waiting for another thread on this node to " +
+                            "release the lock for order[" + order.getId() + "]");
+                }
+                permitHeld = localLock.permit.tryAcquire(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!permitHeld) {
+                    throw createAcquisitionTimeoutException(order);
+                }
+            }
+            acquireDatabaseLock(order, deadline);
+            localLock.owner = Thread.currentThread();
+            lockAcquired = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            if (!lockAcquired) {
+                releaseLocalLock(order.getId(), permitHeld);
+            }
+        }
+
+        recordAcquisition(System.nanoTime() - startTime);
+        return order;
+    }
+
+    /**
+     * Polls for the {@link OrderLock} until it is acquired or the <b>deadline</b> (in {@link System#nanoTime()} terms)
+     * passes. Only called by the thread that holds the local lock for the order, so the database only sees contention
+     * from other nodes.
+     */
+    protected void acquireDatabaseLock(Order order, long deadline) throws InterruptedException {
+        while (true) {
             try {
-                lockAcquired = orderService.acquireLock(order);
+                if (orderService.acquireLock(order)) {
+                    return;
+                }
             } catch (Exception e) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Couldn't acquire lock - that's ok, we'll retry shortly", e);
                 }
             }
 
-            if (!lockAcquired) {
-                count++;
-                if (count >= getDatabaseLockAcquisitionNumRetries()) {
-                    LOG.warn(String.format("Exceeded max retries to attempt to acquire a lock on current Order (%s)", order.getId()));
-                    throw new RuntimeException("Exceeded max retries to attempt to acquire a lock on current Order");
-                }
-                try {
-                    long msToSleep = getDatabaseLockPollingIntervalMs();
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Thread[" + Thread.currentThread().getId() + "] Could not acquire order lock for order[" +
-                                order.getId() + "] - sleeping for " + msToSleep + " ms");
-                    }
-                    Thread.sleep(msToSleep);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                throw createAcquisitionTimeoutException(order);
+            }
+            databaseRetries.increment();
+            long msToSleep = Math.min(getDatabaseLockPollingIntervalMs(), Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remainingNanos)));
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Thread[" + Thread.currentThread().getId() + "] Could not acquire order lock for order[" +
+                        order.getId() + "] - sleeping for " + msToSleep + " ms");
             }
+            Thread.sleep(msToSleep);
         }
-
-        return order;
     }
 
     @Override
@@ -94,7 +154,22 @@ public class DatabaseOrderLockManager implements OrderLockManager {
             return order;
         }
 
-        boolean lockAcquired = orderService.acquireLock(order); 
+        LocalOrderLock localLock = referenceLocalLock(order.getId());
+        boolean permitHeld = localLock.permit.tryAcquire();
+        boolean lockAcquired = false;
+        try {
+            lockAcquired = permitHeld && orderService.acquireLock(order);
+            if (lockAcquired) {
+                localLock.owner = Thread.currentThread();
+            }
+        } finally {
+            if (!lockAcquired) {
+                releaseLocalLock(order.getId(), permitHeld);
+            }
+        }
+        if (lockAcquired) {
+            recordAcquisition(0L);
+        }
         return lockAcquired ? order : null;
     }
 
@@ -105,14 +180,78 @@ public class DatabaseOrderLockManager implements OrderLockManager {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Thread[" + Thread.currentThread().getId() + "] Attempted to release a lock for a NullOrderImpl");
             }
+        } else if (!isLockHeldByCurrentThread(order.getId())) {
+            LOG.warn("Thread[" + Thread.currentThread().getId() + "] Attempted to release the lock for order[" +
+                    order.getId() + "] without holding it - ignoring");
         } else {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Thread[" + Thread.currentThread().getId() + "] releasing lock for order[" + order.getId() + "]");
             }
-            orderService.releaseLock(order);
+            try {
+                orderService.releaseLock(order);
+            } finally {
+                releaseOwnedLocalLock(order.getId());
+            }
         }
     }
 
+    /**
+     * Only the holder of the lock can give it up, so the answer cannot change between this check and the release
+     */
+    protected boolean isLockHeldByCurrentThread(Long orderId) {
+        LocalOrderLock localLock = localLocks.get(orderId);
+        return localLock != null && localLock.owner == Thread.currentThread();
+    }
+
+    /**
+     * Registers the calling thread as a user of the local lock for the order, creating the lock if necessary. Every call
+     * must be paired with {@link #releaseLocalLock(Long, boolean)}, which discards the lock once it is no longer used.
+     */
+    protected LocalOrderLock referenceLocalLock(Long orderId) {
+        return localLocks.compute(orderId, (id, localLock) -> {
+            if (localLock == null) {
+                localLock = new LocalOrderLock();
+            }
+            localLock.references++;
+            return localLock;
+        });
+    }
+
+    /**
+     * Gives up the local lock held by the calling thread, letting the next waiter in
+     */
+    protected void releaseOwnedLocalLock(Long orderId) {
+        localLocks.computeIfPresent(orderId, (id, localLock) -> {
+            if (localLock.owner != Thread.currentThread()) {
+                return localLock;
+            }
+            localLock.owner = null;
+            localLock.permit.release();
+            return --localLock.references == 0 ? null : localLock;
+        });
+    }
+
+    protected void releaseLocalLock(Long orderId, boolean permitHeld) {
+        localLocks.computeIfPresent(orderId, (id, localLock) -> {
+            if (permitHeld) {
+                localLock.permit.release();
+            }
+            return --localLock.references == 0 ? null : localLock;
+        });
+    }
+
+    protected RuntimeException createAcquisitionTimeoutException(Order order) {
+        acquisitionTimeouts.increment();
+        LOG.warn(String.format("Exceeded max retries to attempt to acquire a lock on current Order (%s)", order.getId()));
+        return new RuntimeException("Exceeded max retries to attempt to acquire a lock on current Order");
+    }
+
+    protected void recordAcquisition(long waitNanos) {
+        acquisitions.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
     protected long getDatabaseLockPollingIntervalMs() {
         return BLCSystemProperty.resolveLongSystemProperty("order.lock.databaseLockPollingIntervalMs");
     }
@@ -121,8 +260,81 @@ public class DatabaseOrderLockManager implements OrderLockManager {
         return BLCSystemProperty.resolveIntSystemProperty("order.lock.databaseLockAcquisitionNumRetries", 5);
     }
 
+    /**
+     * Defaults to the time the lock used to be polled for, i.e. the number of retries times the polling interval
+     */
+    protected long getLockAcquisitionTimeoutMs() {
+        return BLCSystemProperty.resolveLongSystemProperty("order.lock.acquisitionTimeoutMs",
+                getDatabaseLockAcquisitionNumRetries() * getDatabaseLockPollingIntervalMs());
+    }
+
+    @ManagedAttribute(description = "The number of order locks acquired", currencyTimeLimit = 15)
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    @ManagedAttribute(description = "The number of order lock acquisitions that had to wait for another thread on this node", currencyTimeLimit = 15)
+    public long getContendedAcquisitionCount() {
+        return contendedAcquisitions.sum();
+    }
+
+    @ManagedAttribute(description = "The number of order lock acquisitions that timed out", currencyTimeLimit = 15)
+    public long getAcquisitionTimeoutCount() {
+        return acquisitionTimeouts.sum();
+    }
+
+    @ManagedAttribute(description = "The number of times the database lock had to be polled again because another node held it", currencyTimeLimit = 15)
+    public long getDatabaseRetryCount() {
+        return databaseRetries.sum();
+    }
+
+    @ManagedAttribute(description = "The average time in milliseconds spent acquiring an order lock", currencyTimeLimit = 15)
+    public double getAverageWaitMillis() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0D : (double) TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.sum()) / count / 1000D;
+    }
+
+    @ManagedAttribute(description = "The longest time in milliseconds spent acquiring an order lock", currencyTimeLimit = 15)
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    @ManagedAttribute(description = "The number of orders currently locked or waited on by threads on this node", currencyTimeLimit = 15)
+    public int getLocalLockCount() {
+        return localLocks.size();
+    }
+
+    @ManagedOperation(description = "Resets the order lock statistics")
+    public void resetStatistics() {
+        acquisitions.reset();
+        contendedAcquisitions.reset();
+        acquisitionTimeouts.reset();
+        databaseRetries.reset();
+        totalWaitNanos.reset();
+        maxWaitNanos.set(0L);
+    }
+
     @Override
     public boolean isActive() {
         return true;
     }
+
+    /**
+     * The in-memory lock for a single order. Waiters are granted the permit in arrival order.
+     */
+    protected static class LocalOrderLock {
+
+        protected final Semaphore permit = new Semaphore(1, true);
+
+        /**
+         * The thread holding both the permit and the database lock, which is the only one allowed to release them
+         */
+        protected volatile Thread owner;
+
+        /**
+         * The number of threads holding or waiting for the permit. Only modified while the lock's map entry is being
+         * computed.
+         */
+        protected int references;
+    }
 }
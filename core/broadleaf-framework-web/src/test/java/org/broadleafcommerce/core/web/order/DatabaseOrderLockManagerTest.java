@@ -0,0 +1,231 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework Web
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.web.order;
+
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderImpl;
+import org.broadleafcommerce.core.order.service.OrderService;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DatabaseOrderLockManagerTest {
+
+    protected static final long TIMEOUT_MS = 200L;
+
+    protected DatabaseOrderLockManager lockManager;
+    protected Order order;
+    protected AtomicBoolean databaseLockHeld;
+    protected AtomicInteger databaseLockAcquisitions;
+
+    @Before
+    public void setUp() {
+        order = new OrderImpl();
+        order.setId(1L);
+        databaseLockHeld = new AtomicBoolean();
+        databaseLockAcquisitions = new AtomicInteger();
+
+        OrderService orderService = EasyMock.createMock(OrderService.class);
+        EasyMock.expect(orderService.acquireLock((Order) EasyMock.anyObject())).andAnswer(new IAnswer<Boolean>() {
+            @Override
+            public Boolean answer() {
+                boolean acquired = databaseLockHeld.compareAndSet(false, true);
+                if (acquired) {
+                    databaseLockAcquisitions.incrementAndGet();
+                }
+                return acquired;
+            }
+        }).anyTimes();
+        EasyMock.expect(orderService.releaseLock((Order) EasyMock.anyObject())).andAnswer(new IAnswer<Boolean>() {
+            @Override
+            public Boolean answer() {
+                return databaseLockHeld.getAndSet(false);
+            }
+        }).anyTimes();
+        EasyMock.replay(orderService);
+
+        lockManager = new DatabaseOrderLockManager() {
+            @Override
+            protected long getLockAcquisitionTimeoutMs() {
+                return TIMEOUT_MS;
+            }
+
+            @Override
+            protected long getDatabaseLockPollingIntervalMs() {
+                return 10L;
+            }
+        };
+        lockManager.orderService = orderService;
+    }
+
+    @Test
+    public void testWaiterGetsTheLockOnceItIsReleased() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertSame(order, lockManager.acquireLock(order));
+
+            final CountDownLatch waiterAcquired = new CountDownLatch(1);
+            Future<?> waiter = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    lockManager.acquireLock(order);
+                    waiterAcquired.countDown();
+                    lockManager.releaseLock(order);
+                }
+            });
+
+            assertFalse(waiterAcquired.await(TIMEOUT_MS / 4, TimeUnit.MILLISECONDS));
+            // the waiter queues locally instead of polling the database
+            assertEquals(1, databaseLockAcquisitions.get());
+            assertEquals(0L, lockManager.getDatabaseRetryCount());
+
+            lockManager.releaseLock(order);
+            waiter.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+            assertEquals(2, databaseLockAcquisitions.get());
+            assertEquals(2L, lockManager.getAcquisitionCount());
+            assertEquals(1L, lockManager.getContendedAcquisitionCount());
+            assertFalse(databaseLockHeld.get());
+            assertEquals(0, lockManager.getLocalLockCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaiterTimesOut() throws Exception {
+        assertSame(order, lockManager.acquireLock(order));
+
+        Future<Throwable> waiter = acquireOnAnotherThread();
+
+        assertNotNull(waiter.get());
+        assertEquals(1L, lockManager.getAcquisitionTimeoutCount());
+        assertEquals(1, lockManager.getLocalLockCount());
+        assertTrue(databaseLockHeld.get());
+
+        lockManager.releaseLock(order);
+        assertFalse(databaseLockHeld.get());
+        assertEquals(0, lockManager.getLocalLockCount());
+    }
+
+    @Test
+    public void testReleaseByAnotherThreadIsIgnored() throws Exception {
+        assertSame(order, lockManager.acquireLock(order));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    lockManager.releaseLock(order);
+                }
+            }).get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(databaseLockHeld.get());
+        assertEquals(1, lockManager.getLocalLockCount());
+        assertNotNull(acquireOnAnotherThread().get());
+
+        lockManager.releaseLock(order);
+        assertFalse(databaseLockHeld.get());
+        assertEquals(0, lockManager.getLocalLockCount());
+    }
+
+    @Test
+    public void testSecondReleaseIsIgnored() throws Exception {
+        assertSame(order, lockManager.acquireLock(order));
+        lockManager.releaseLock(order);
+        lockManager.releaseLock(order);
+        assertEquals(0, lockManager.getLocalLockCount());
+
+        final CountDownLatch holderAcquired = new CountDownLatch(1);
+        final CountDownLatch holderDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    lockManager.acquireLock(order);
+                    holderAcquired.countDown();
+                    try {
+                        holderDone.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        lockManager.releaseLock(order);
+                    }
+                }
+            });
+            assertTrue(holderAcquired.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+            // a stale release must not hand the holder's lock to the next thread
+            lockManager.releaseLock(order);
+            assertTrue(databaseLockHeld.get());
+            assertNull(lockManager.acquireLockIfAvailable(order));
+            assertEquals(1, lockManager.getLocalLockCount());
+
+            holderDone.countDown();
+            holder.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertFalse(databaseLockHeld.get());
+        assertEquals(0, lockManager.getLocalLockCount());
+    }
+
+    /**
+     * Attempts to acquire the lock on a new thread, returning the resulting exception or null if the lock was acquired
+     */
+    protected Future<Throwable> acquireOnAnotherThread() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(() -> {
+                try {
+                    lockManager.acquireLock(order);
+                } catch (RuntimeException e) {
+                    return e;
+                }
+                lockManager.releaseLock(order);
+                fail("The lock should have been held by another thread");
+                return null;
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -214,6 +214,30 @@ public interface CategoryDao {
     @Nonnull
     public List<Category> readActiveSubCategoriesByCategory(@Nonnull Category category, @Nonnull int limit, @Nonnull int offset);
 
+    /**
+     * Retrieve the parent category id, category id, url and display order of a page of the active child categories
+     * of every category, ordered by the id of the {@code CategoryXref}, so that the site map can tell whether the
+     * category tree changed without loading the categories.
+     *
+     * @param limit the maximum number of results to return
+     * @param offset the starting point in the record set
+     * @return the {@code CategoryXref} id, parent category id, category id, url and display order of each child
+     * category, or null if this DAO cannot read them, which is what the default implementation returns
+     */
+    public default List<Object[]> readActiveSubCategoryUrls(@Nonnull int limit, @Nonnull int offset) {
+        return null;
+    }
+
+    /**
+     * Retrieve the number of active products of every category that has some, ordered by category id
+     *
+     * @return the category id and number of active products of each category, or null if this DAO cannot count them,
+     * which is what the default implementation returns
+     */
+    public default List<Object[]> readActiveProductCountsByCategory() {
+        return null;
+    }
+
     public Category findCategoryByURI(String uri);
 
     /**
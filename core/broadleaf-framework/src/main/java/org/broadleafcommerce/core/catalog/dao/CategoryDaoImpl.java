@@ -266,6 +266,25 @@ public class CategoryDaoImpl implements CategoryDao {
         return query.getResultList();
     }
 
+    @Override
+    public List<Object[]> readActiveSubCategoryUrls(int limit, int offset) {
+        TypedQuery<Object[]> query = em.createNamedQuery("BC_READ_ACTIVE_SUBCATEGORY_URLS", Object[].class);
+        query.setParameter("currentDate", getCurrentDateAfterFactoringInDateResolution());
+        //don't cache - this reads the whole category tree once per site map generation
+        query.setFirstResult(offset);
+        query.setMaxResults(limit);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Object[]> readActiveProductCountsByCategory() {
+        TypedQuery<Object[]> query = em.createNamedQuery("BC_COUNT_ACTIVE_PRODUCTS_BY_CATEGORY", Object[].class);
+        query.setParameter("currentDate", getCurrentDateAfterFactoringInDateResolution());
+
+        return query.getResultList();
+    }
+
     @Override
     public Long getCurrentDateResolution() {
         return currentDateResolution;
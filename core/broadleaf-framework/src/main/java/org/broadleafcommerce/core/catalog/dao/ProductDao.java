@@ -22,6 +22,8 @@ import org.broadleafcommerce.core.catalog.domain.ProductBundle;
 import org.broadleafcommerce.core.catalog.service.type.ProductType;
 import org.broadleafcommerce.core.search.domain.SearchCriteria;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 
@@ -347,4 +349,66 @@ public interface ProductDao {
     public List<Long> readAllActiveProductIds(Long lastId, int pageSize);
 
     List<Product> readAllActiveProductsForSiteMap(int page, int pageSize);
+
+    /**
+     * Reads a page of the active products to add to the site map, in ascending id order, starting immediately after
+     * the lastId. If the lastId is null, then this returns the first page.
+     * <p>
+     * The default implementation loads the products of a page of {@link #readAllActiveProductIds(Long, int)}, so it
+     * does not apply the restrictions that the site map adds to the active products.
+     *
+     * @param pageSize
+     * @param lastId
+     * @return
+     */
+    default List<Product> readAllActiveProductsForSiteMap(Integer pageSize, Long lastId) {
+        List<Long> ids = readAllActiveProductIds(lastId, pageSize);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Product> products = new ArrayList<>(readProductsByIds(ids));
+        products.sort(Comparator.comparing(Product::getId));
+        return products;
+    }
+
+    /**
+     * Reads a page of the active products to add to the site map, in ascending id order, starting immediately after
+     * the lastId and ending before the toId, so that a page never reads past the range of ids being generated.
+     * <p>
+     * The default implementation drops the products of {@link #readAllActiveProductsForSiteMap(Integer, Long)} from
+     * the toId on.
+     *
+     * @param pageSize
+     * @param lastId
+     * @param toId the id to stop before, or null to read to the end
+     * @return
+     */
+    default List<Product> readAllActiveProductsForSiteMap(Integer pageSize, Long lastId, Long toId) {
+        List<Product> products = new ArrayList<>();
+        for (Product product : readAllActiveProductsForSiteMap(pageSize, lastId)) {
+            if (toId == null || product.getId() < toId) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Reads the id and url of a page of the active products to add to the site map, in ascending id order, starting
+     * immediately after the lastId, so that the site map can tell whether its entries changed without loading the
+     * products.
+     * <p>
+     * The default implementation reads them from {@link #readAllActiveProductsForSiteMap(Integer, Long)}.
+     *
+     * @param pageSize
+     * @param lastId
+     * @return the id and url of each product
+     */
+    default List<Object[]> readAllActiveProductUrlsForSiteMap(Integer pageSize, Long lastId) {
+        List<Object[]> productUrls = new ArrayList<>();
+        for (Product product : readAllActiveProductsForSiteMap(pageSize, lastId)) {
+            productUrls.add(new Object[] { product.getId(), product.getUrl() });
+        }
+        return productUrls;
+    }
 }
@@ -568,6 +568,48 @@ public class ProductDaoImpl implements ProductDao {
         return getCriteriaForActiveProducts(currentDate, null, true);
     }
 
+    @Override
+    public List<Product> readAllActiveProductsForSiteMap(Integer pageSize, Long lastId) {
+        return readAllActiveProductsForSiteMap(pageSize, lastId, null);
+    }
+
+    @Override
+    public List<Product> readAllActiveProductsForSiteMap(Integer pageSize, Long lastId, Long toId) {
+        Date currentDate = DateUtil.getCurrentDateAfterFactoringInDateResolution(cachedDate, getCurrentDateResolution());
+        CriteriaQuery<Product> criteria = getCriteriaForActiveProducts(currentDate, lastId, toId, true);
+        TypedQuery<Product> query = em.createQuery(criteria);
+        query.setHint(QueryHints.HINT_CACHEABLE, true);
+        query.setHint(QueryHints.HINT_CACHE_REGION, "query.Catalog");
+
+        return query.setMaxResults(pageSize).getResultList();
+    }
+
+    @Override
+    public List<Object[]> readAllActiveProductUrlsForSiteMap(Integer pageSize, Long lastId) {
+        Date currentDate = DateUtil.getCurrentDateAfterFactoringInDateResolution(cachedDate, getCurrentDateResolution());
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> criteria = builder.createQuery(Object[].class);
+        Root<ProductImpl> product = criteria.from(ProductImpl.class);
+        Join<Product, Sku> sku = product.join("defaultSku");
+        criteria.multiselect(product.get("id"), product.get("url"));
+
+        List<Predicate> restrictions = new ArrayList<Predicate>();
+        attachActiveRestriction(currentDate, product, sku, restrictions);
+        if (lastId != null) {
+            restrictions.add(builder.gt(product.get("id").as(Long.class), lastId));
+        }
+        criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
+
+        if (productTypeSiteMapExtensionManager != null) {
+            productTypeSiteMapExtensionManager.getProxy().modifyQuery(criteria, builder, product);
+        }
+        criteria.orderBy(builder.asc(product.get("id")));
+
+        //Note that we are purposefully NOT caching results, as this reads the whole catalog once per site map generation
+        TypedQuery<Object[]> query = em.createQuery(criteria);
+        return query.setMaxResults(pageSize).getResultList();
+    }
+
     @Override
     public List<Long> readAllActiveProductIds(Long lastId, int pageSize) {
         Date currentDate = DateUtil.getCurrentDateAfterFactoringInDateResolution(cachedDate, getCurrentDateResolution());
@@ -693,6 +735,10 @@ public class ProductDaoImpl implements ProductDao {
     }
 
     protected CriteriaQuery<Product> getCriteriaForActiveProducts(Date currentDate, Long lastId, boolean forSiteMap) {
+        return getCriteriaForActiveProducts(currentDate, lastId, null, forSiteMap);
+    }
+
+    protected CriteriaQuery<Product> getCriteriaForActiveProducts(Date currentDate, Long lastId, Long toId, boolean forSiteMap) {
         // Set up the criteria query that specifies we want to return Products
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaQuery<Product> criteria = builder.createQuery(Product.class);
@@ -713,6 +759,9 @@ public class ProductDaoImpl implements ProductDao {
         if (lastId != null) {
             restrictions.add(builder.gt(product.get("id").as(Long.class), lastId));
         }
+        if (toId != null) {
+            restrictions.add(builder.lt(product.get("id").as(Long.class), toId));
+        }
 
         // Add the restrictions to the criteria query
         criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
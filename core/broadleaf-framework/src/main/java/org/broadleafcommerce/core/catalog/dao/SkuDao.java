@@ -17,10 +17,15 @@
  */
 package org.broadleafcommerce.core.catalog.dao;
 
+import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuFee;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 /**
  * {@code SkuDao} provides persistence access to {@code Sku} instances
@@ -157,6 +162,49 @@ public interface SkuDao {
      */
     List<Sku> readAllActiveSkus(Integer pageSize, Long lastId);
 
+    /**
+     * Reads the values the site map builds the url of a sku from for a page of the active skus, in ascending id order,
+     * starting immediately after the lastId, so that the site map can tell whether its entries changed without loading
+     * the skus.
+     * <p>
+     * The default implementation reads them from {@link #readAllActiveSkus(Integer, Long)}.
+     *
+     * @param pageSize the number of results per page
+     * @param lastId the last id from the previous page - can be null if this is the first page request
+     * @return the id, url key, default product url and additional sku product url of each sku
+     */
+    default List<Object[]> readAllActiveSkuUrls(Integer pageSize, Long lastId) {
+        List<Object[]> skuUrls = new ArrayList<>();
+        for (Sku sku : readAllActiveSkus(pageSize, lastId)) {
+            Product defaultProduct = sku.getDefaultProduct();
+            Product product = defaultProduct == null ? sku.getProduct() : null;
+            skuUrls.add(new Object[] { sku.getId(), sku.getUrlKey(), defaultProduct == null ? null : defaultProduct.getUrl(),
+                    product == null ? null : product.getUrl() });
+        }
+        return skuUrls;
+    }
+
+    /**
+     * Reads a page of the active skus, in ascending id order, starting immediately after the lastId and ending before
+     * the toId, so that a page never reads past the range of ids being generated.
+     * <p>
+     * The default implementation drops the skus of {@link #readAllActiveSkus(Integer, Long)} from the toId on.
+     *
+     * @param pageSize the number of results per page
+     * @param lastId the last id from the previous page - can be null if this is the first page request
+     * @param toId the id to stop before, or null to read to the end
+     * @return a list of active skus for the given page
+     */
+    default List<Sku> readAllActiveSkus(Integer pageSize, Long lastId, Long toId) {
+        List<Sku> skus = new ArrayList<>();
+        for (Sku sku : readAllActiveSkus(pageSize, lastId)) {
+            if (toId == null || sku.getId() < toId) {
+                skus.add(sku);
+            }
+        }
+        return skus;
+    }
+
     /**
      * Returns the number of milliseconds that the current date/time will be cached for queries before refreshing.
      * This aids in query caching, otherwise every query that utilized current date would be different and caching
@@ -183,4 +231,53 @@ public interface SkuDao {
      * 
      */
     List<Sku> findSkuByURI(String uri);
+
+    /**
+     * Atomically decrements the quantity available of each of the given skus with a single batch of conditional
+     * updates. A sku is only decremented if its current quantity available covers the requested quantity, so concurrent
+     * decrements can never oversell and no optimistic lock retries are required. Updates are issued in ascending sku id
+     * order so that concurrent batches acquire row locks in a consistent order.
+     * 
+     * If every sku could be decremented, any of the given skus that are managed by the current persistence context are
+     * refreshed so that they reflect the new quantity available.
+     * 
+     * @param skuQuantities the quantity to subtract, keyed by the sku to subtract it from
+     * @return the skus whose quantity available did not cover the requested quantity (empty if all were decremented)
+     */
+    default List<Sku> decrementQuantitiesAvailable(Map<Sku, Integer> skuQuantities) {
+        return decrementQuantitiesAvailable(skuQuantities, Collections.<Sku, Integer>emptyMap());
+    }
+
+    /**
+     * Same as {@link #decrementQuantitiesAvailable(Map)}, except that a sku is only decremented if its quantity available
+     * also covers the quantity that must be retained for it, such as inventory held on behalf of other orders.
+     * 
+     * The default implementation checks and saves each sku through {@link #save(Sku)}, which is not atomic; it only
+     * exists so that custom implementations of this interface keep compiling. Implementations should override it with
+     * a conditional update, as {@link SkuDaoImpl} does.
+     * 
+     * @param skuQuantities the quantity to subtract, keyed by the sku to subtract it from
+     * @param quantitiesToRetain the quantity that must remain available after the decrement, keyed by sku. Skus
+     * without an entry do not need to retain anything.
+     * @return the skus whose quantity available did not cover the requested quantity (empty if all were decremented)
+     */
+    default List<Sku> decrementQuantitiesAvailable(Map<Sku, Integer> skuQuantities, Map<Sku, Integer> quantitiesToRetain) {
+        List<Sku> shortfalls = new ArrayList<>();
+        for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
+            Sku sku = entry.getKey();
+            Integer quantityToRetain = quantitiesToRetain.get(sku);
+            int required = entry.getValue() + (quantityToRetain == null ? 0 : quantityToRetain);
+            if (sku.getQuantityAvailable() == null || sku.getQuantityAvailable() < required) {
+                shortfalls.add(sku);
+            }
+        }
+        if (shortfalls.isEmpty()) {
+            for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
+                Sku sku = entry.getKey();
+                sku.setQuantityAvailable(sku.getQuantityAvailable() - entry.getValue());
+                save(sku);
+            }
+        }
+        return shortfalls;
+    }
 }
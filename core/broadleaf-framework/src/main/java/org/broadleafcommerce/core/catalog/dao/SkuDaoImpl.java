@@ -27,16 +27,26 @@ import org.broadleafcommerce.common.sandbox.SandBoxHelper;
 import org.broadleafcommerce.common.time.SystemTime;
 import org.broadleafcommerce.common.util.DateUtil;
 import org.broadleafcommerce.common.util.dao.TypedQueryBuilder;
+import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuFee;
 import org.broadleafcommerce.core.catalog.domain.SkuImpl;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
 import org.hibernate.jpa.QueryHints;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
@@ -46,6 +56,8 @@ import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
@@ -60,6 +72,9 @@ public class SkuDaoImpl implements SkuDao {
 
     private static final SupportLogger logger = SupportLogManager.getLogger("Enterprise", SkuDaoImpl.class);
 
+    protected static final String DECREMENT_QUANTITY_AVAILABLE_SQL = "UPDATE BLC_SKU SET QUANTITY_AVAILABLE = QUANTITY_AVAILABLE - ? "
+            + "WHERE SKU_ID = ? AND QUANTITY_AVAILABLE >= ?";
+
     @PersistenceContext(unitName = "blPU")
     protected EntityManager em;
 
@@ -230,6 +245,12 @@ public class SkuDaoImpl implements SkuDao {
         return readAllActiveSkusInternal(pageSize, currentDate, lastId);
     }
 
+    @Override
+    public List<Sku> readAllActiveSkus(Integer pageSize, Long lastId, Long toId) {
+        Date currentDate = DateUtil.getCurrentDateAfterFactoringInDateResolution(cachedDate, getCurrentDateResolution());
+        return readAllActiveSkusInternal(pageSize, currentDate, lastId, toId);
+    }
+
     @Override
     public Long getCurrentDateResolution() {
         return currentDateResolution;
@@ -277,7 +298,11 @@ public class SkuDaoImpl implements SkuDao {
     }
 
     protected List<Sku> readAllActiveSkusInternal(Integer pageSize, Date currentDate, Long lastId) {
-        CriteriaQuery<Sku> criteria = getCriteriaForActiveSkus(currentDate, lastId);
+        return readAllActiveSkusInternal(pageSize, currentDate, lastId, null);
+    }
+
+    protected List<Sku> readAllActiveSkusInternal(Integer pageSize, Date currentDate, Long lastId, Long toId) {
+        CriteriaQuery<Sku> criteria = getCriteriaForActiveSkus(currentDate, lastId, toId);
         TypedQuery<Sku> query = em.createQuery(criteria);
         query.setHint(QueryHints.HINT_CACHEABLE, true);
         query.setHint(QueryHints.HINT_CACHE_REGION, "query.Catalog");
@@ -285,11 +310,41 @@ public class SkuDaoImpl implements SkuDao {
         return query.setMaxResults(pageSize).getResultList();
     }
 
+    @Override
+    public List<Object[]> readAllActiveSkuUrls(Integer pageSize, Long lastId) {
+        Date currentDate = DateUtil.getCurrentDateAfterFactoringInDateResolution(cachedDate, getCurrentDateResolution());
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> criteria = builder.createQuery(Object[].class);
+        Root<SkuImpl> sku = criteria.from(SkuImpl.class);
+        Join<Sku, Product> defaultProduct = sku.join("defaultProduct", JoinType.LEFT);
+        Join<Sku, Product> product = sku.join("product", JoinType.LEFT);
+        criteria.multiselect(sku.get("id"), sku.get("urlKey"), defaultProduct.get("url"), product.get("url"));
+
+        List<Predicate> restrictions = new ArrayList<Predicate>();
+        restrictions.add(builder.lessThan(sku.get("activeStartDate").as(Date.class), currentDate));
+        restrictions.add(builder.or(
+                builder.isNull(sku.get("activeEndDate")),
+                builder.greaterThan(sku.get("activeEndDate").as(Date.class), currentDate)));
+        if (lastId != null) {
+            restrictions.add(builder.gt(sku.get("id").as(Long.class), lastId));
+        }
+        criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
+        criteria.orderBy(builder.asc(sku.get("id")));
+
+        //Note that we are purposefully NOT caching results, as this reads every sku once per site map generation
+        TypedQuery<Object[]> query = em.createQuery(criteria);
+        return query.setMaxResults(pageSize).getResultList();
+    }
+
     protected CriteriaQuery<Sku> getCriteriaForActiveSkus(Date currentDate) {
         return getCriteriaForActiveSkus(currentDate, null);
     }
 
     protected CriteriaQuery<Sku> getCriteriaForActiveSkus(Date currentDate, Long lastId) {
+        return getCriteriaForActiveSkus(currentDate, lastId, null);
+    }
+
+    protected CriteriaQuery<Sku> getCriteriaForActiveSkus(Date currentDate, Long lastId, Long toId) {
         // Set up the criteria query that specifies we want to return Products
         CriteriaBuilder builder = em.getCriteriaBuilder();
         CriteriaQuery<Sku> criteria = builder.createQuery(Sku.class);
@@ -311,6 +366,9 @@ public class SkuDaoImpl implements SkuDao {
         if (lastId != null) {
             restrictions.add(builder.gt(sku.get("id").as(Long.class), lastId));
         }
+        if (toId != null) {
+            restrictions.add(builder.lt(sku.get("id").as(Long.class), toId));
+        }
 
         // Add the restrictions to the criteria query
         criteria.where(restrictions.toArray(new Predicate[restrictions.size()]));
@@ -319,4 +377,60 @@ public class SkuDaoImpl implements SkuDao {
         criteria.orderBy(builder.asc(sku.get("id")));
         return criteria;
     }
+
+    @Override
+    public List<Sku> decrementQuantitiesAvailable(Map<Sku, Integer> skuQuantities) {
+        return decrementQuantitiesAvailable(skuQuantities, Collections.<Sku, Integer>emptyMap());
+    }
+
+    @Override
+    public List<Sku> decrementQuantitiesAvailable(Map<Sku, Integer> skuQuantities, Map<Sku, Integer> quantitiesToRetain) {
+        final TreeMap<Long, Sku> skusById = new TreeMap<>();
+        for (Sku sku : skuQuantities.keySet()) {
+            skusById.put(sku.getId(), sku);
+        }
+        final List<Sku> shortfalls = new ArrayList<>();
+        if (skusById.isEmpty()) {
+            return shortfalls;
+        }
+
+        // make sure pending changes to these skus are written before they are updated underneath the persistence context
+        em.flush();
+        em.unwrap(Session.class).doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(DECREMENT_QUANTITY_AVAILABLE_SQL)) {
+                    for (Sku sku : skusById.values()) {
+                        int quantity = skuQuantities.get(sku);
+                        Integer quantityToRetain = quantitiesToRetain.get(sku);
+                        statement.setInt(1, quantity);
+                        statement.setLong(2, sku.getId());
+                        statement.setInt(3, quantityToRetain == null ? quantity : quantity + quantityToRetain);
+                        statement.addBatch();
+                    }
+                    int[] updateCounts = statement.executeBatch();
+                    int index = 0;
+                    for (Sku sku : skusById.values()) {
+                        int updateCount = updateCounts[index++];
+                        if (updateCount == Statement.SUCCESS_NO_INFO) {
+                            throw new IllegalStateException("The JDBC driver did not report update counts for the batched "
+                                    + "inventory decrement, so shortfalls cannot be detected");
+                        }
+                        if (updateCount == 0) {
+                            shortfalls.add(sku);
+                        }
+                    }
+                }
+            }
+        });
+
+        if (shortfalls.isEmpty()) {
+            for (Sku sku : skusById.values()) {
+                if (em.contains(sku)) {
+                    em.refresh(sku);
+                }
+            }
+        }
+        return shortfalls;
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.file.service.BroadleafFileUtils;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.service.SiteMapBuilder;
+import org.broadleafcommerce.common.sitemap.service.SiteMapFingerprint;
 import org.broadleafcommerce.common.sitemap.service.SiteMapGenerator;
 import org.broadleafcommerce.common.sitemap.service.type.SiteMapGeneratorType;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapImageWrapper;
@@ -69,6 +70,44 @@ public class CategorySiteMapGenerator implements SiteMapGenerator {
         return SiteMapGeneratorType.CATEGORY.equals(siteMapGeneratorConfiguration.getSiteMapGeneratorType());
     }
 
+    /**
+     * Fingerprints the parent, url and display order of every active category, and the number of active products of
+     * each category, which determines its number of pages. The entries are generated from the whole category tree, so
+     * they are not split into shards.
+     */
+    @Override
+    public String getFingerprint(SiteMapGeneratorConfiguration smgc) {
+        if (!CategorySiteMapGeneratorConfiguration.class.isAssignableFrom(smgc.getClass())) {
+            return null;
+        }
+        CategorySiteMapGeneratorConfiguration categorySMGC = (CategorySiteMapGeneratorConfiguration) smgc;
+        Category rootCategory = categoryDao.readCategoryById(categorySMGC.getRootCategory().getId());
+
+        SiteMapFingerprint fingerprint = new SiteMapFingerprint(Long.MAX_VALUE);
+        fingerprint.add(rootCategory.getId(), rootCategory.getUrl(), categorySMGC.getStartingDepth(),
+                categorySMGC.getEndingDepth(), getDefaultPageSize(), getCategoryPaginationParam());
+        int rowOffset = 0;
+        List<Object[]> subCategoryUrls;
+        do {
+            subCategoryUrls = categoryDao.readActiveSubCategoryUrls(rowLimit, rowOffset);
+            if (subCategoryUrls == null) {
+                return null;
+            }
+            rowOffset += subCategoryUrls.size();
+            for (Object[] subCategoryUrl : subCategoryUrls) {
+                fingerprint.add((Long) subCategoryUrl[0], subCategoryUrl[1], subCategoryUrl[2], subCategoryUrl[3], subCategoryUrl[4]);
+            }
+        } while (subCategoryUrls.size() == rowLimit);
+        List<Object[]> productCounts = categoryDao.readActiveProductCountsByCategory();
+        if (productCounts == null) {
+            return null;
+        }
+        for (Object[] productCount : productCounts) {
+            fingerprint.add((Long) productCount[0], productCount[1]);
+        }
+        return fingerprint.getFingerprint();
+    }
+
     @Override
     public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder) {
 
@@ -22,6 +22,7 @@ import org.broadleafcommerce.common.file.service.BroadleafFileUtils;
 import org.broadleafcommerce.common.media.domain.Media;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.service.SiteMapBuilder;
+import org.broadleafcommerce.common.sitemap.service.SiteMapFingerprint;
 import org.broadleafcommerce.common.sitemap.service.SiteMapGenerator;
 import org.broadleafcommerce.common.sitemap.service.type.SiteMapGeneratorType;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapImageWrapper;
@@ -34,11 +35,16 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.List;
+import java.util.SortedMap;
 
 import javax.annotation.Resource;
 
 /**
  * Responsible for generating site map entries for Product.
+ * <p>
+ * The entries are split into shards by product id. The fingerprint of a shard is built from the ids and urls of its
+ * active products, so a shard is regenerated when one of its products is added, removed, activated, expired or moved to
+ * another url.
  * 
  * @author Joshua Skorton (jskorton)
  */
@@ -65,29 +71,73 @@ public class ProductSiteMapGenerator implements SiteMapGenerator {
         do {
             products = productDao.readAllActiveProductsForSiteMap(pageNum++, pageSize);
             for (Product product : products) {
-                if (StringUtils.isEmpty(product.getUrl())) {
-                    continue;
-                }
+                addSiteMapEntry(smgc, siteMapBuilder, product);
+            }
+        } while (products.size() == pageSize);
+    }
 
-                SiteMapURLWrapper siteMapUrl = new SiteMapURLWrapper();
+    @Override
+    public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder, long fromId, long toId) {
 
-                // location
-                siteMapUrl.setLoc(generateUri(siteMapBuilder, product));
+        Long lastId = fromId - 1;
+        List<Product> products;
 
-                // change frequency
-                siteMapUrl.setChangeFreqType(smgc.getSiteMapChangeFreq());
+        do {
+            products = productDao.readAllActiveProductsForSiteMap(pageSize, lastId, toId);
+            for (Product product : products) {
+                lastId = product.getId();
+                addSiteMapEntry(smgc, siteMapBuilder, product);
+            }
+        } while (products.size() == pageSize);
+    }
 
-                // priority
-                siteMapUrl.setPriorityType(smgc.getSiteMapPriority());
+    @Override
+    public SortedMap<Long, String> readShardFingerprints(SiteMapGeneratorConfiguration smgc, long idsPerShard) {
+        return readFingerprint(idsPerShard).getShardFingerprints();
+    }
 
-                // lastModDate
-                siteMapUrl.setLastModDate(generateDate(product));
+    @Override
+    public String getFingerprint(SiteMapGeneratorConfiguration smgc) {
+        return readFingerprint(Long.MAX_VALUE).getFingerprint();
+    }
 
-                constructImageURLs(siteMapBuilder, siteMapUrl, product);
+    protected SiteMapFingerprint readFingerprint(long idsPerShard) {
+        SiteMapFingerprint fingerprint = new SiteMapFingerprint(idsPerShard);
+        Long lastId = null;
+        List<Object[]> productUrls;
 
-                siteMapBuilder.addUrl(siteMapUrl);
+        do {
+            productUrls = productDao.readAllActiveProductUrlsForSiteMap(pageSize, lastId);
+            for (Object[] productUrl : productUrls) {
+                lastId = (Long) productUrl[0];
+                fingerprint.add(lastId, productUrl[1]);
             }
-        } while (products.size() == pageSize);
+        } while (productUrls.size() == pageSize);
+        return fingerprint;
+    }
+
+    protected void addSiteMapEntry(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder, Product product) {
+        if (StringUtils.isEmpty(product.getUrl())) {
+            return;
+        }
+
+        SiteMapURLWrapper siteMapUrl = new SiteMapURLWrapper();
+
+        // location
+        siteMapUrl.setLoc(generateUri(siteMapBuilder, product));
+
+        // change frequency
+        siteMapUrl.setChangeFreqType(smgc.getSiteMapChangeFreq());
+
+        // priority
+        siteMapUrl.setPriorityType(smgc.getSiteMapPriority());
+
+        // lastModDate
+        siteMapUrl.setLastModDate(generateDate(product));
+
+        constructImageURLs(siteMapBuilder, siteMapUrl, product);
+
+        siteMapBuilder.addUrl(siteMapUrl);
     }
 
     protected void constructImageURLs(SiteMapBuilder siteMapBuilder, SiteMapURLWrapper siteMapUrl, Product product) {
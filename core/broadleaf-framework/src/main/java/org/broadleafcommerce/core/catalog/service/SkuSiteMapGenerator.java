@@ -22,6 +22,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.broadleafcommerce.common.file.service.BroadleafFileUtils;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.service.SiteMapBuilder;
+import org.broadleafcommerce.common.sitemap.service.SiteMapFingerprint;
 import org.broadleafcommerce.common.sitemap.service.SiteMapGenerator;
 import org.broadleafcommerce.common.sitemap.service.type.SiteMapGeneratorType;
 import org.broadleafcommerce.common.sitemap.wrapper.SiteMapImageWrapper;
@@ -37,11 +38,15 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.List;
+import java.util.SortedMap;
 
 import javax.annotation.Resource;
 
 /**
  * Responsible for generating site map entries for Sku.
+ * <p>
+ * The entries are split into shards by sku id. The fingerprint of a shard is built from the ids, url keys and product
+ * urls of its active skus.
  * 
  * @author Joshua Skorton (jskorton)
  */
@@ -68,38 +73,82 @@ public class SkuSiteMapGenerator implements SiteMapGenerator {
         do {
             skus = skuDao.readAllActiveSkus(pageNum++, pageSize);
             for (Sku sku : skus) {
-                Product defaultProduct = sku.getDefaultProduct();
-                if (defaultProduct != null && CollectionUtils.isNotEmpty(defaultProduct.getAdditionalSkus())) {
-                    continue;
-                }
-                if (defaultProduct instanceof ProductBundle) {
-                    continue;
-                }
-                if (StringUtils.isEmpty(sku.getProduct().getUrl() + sku.getUrlKey())) {
-                    continue;
-                }
-                
-                SiteMapURLWrapper siteMapUrl = new SiteMapURLWrapper();
-
-                // location
-                siteMapUrl.setLoc(generateUri(siteMapBuilder, sku));
-
-                // change frequency
-                siteMapUrl.setChangeFreqType(smgc.getSiteMapChangeFreq());
-
-                // priority
-                siteMapUrl.setPriorityType(smgc.getSiteMapPriority());
-
-                // lastModDate
-                siteMapUrl.setLastModDate(generateDate(sku));
-
-                constructImageURLs(siteMapBuilder, siteMapUrl, sku);
-
-                siteMapBuilder.addUrl(siteMapUrl);
+                addSiteMapEntry(smgc, siteMapBuilder, sku);
             }
         } while (skus.size() == pageSize);
     }
 
+    @Override
+    public void addSiteMapEntries(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder, long fromId, long toId) {
+
+        Long lastId = fromId - 1;
+        List<Sku> skus;
+
+        do {
+            skus = skuDao.readAllActiveSkus(pageSize, lastId, toId);
+            for (Sku sku : skus) {
+                lastId = sku.getId();
+                addSiteMapEntry(smgc, siteMapBuilder, sku);
+            }
+        } while (skus.size() == pageSize);
+    }
+
+    @Override
+    public SortedMap<Long, String> readShardFingerprints(SiteMapGeneratorConfiguration smgc, long idsPerShard) {
+        return readFingerprint(idsPerShard).getShardFingerprints();
+    }
+
+    @Override
+    public String getFingerprint(SiteMapGeneratorConfiguration smgc) {
+        return readFingerprint(Long.MAX_VALUE).getFingerprint();
+    }
+
+    protected SiteMapFingerprint readFingerprint(long idsPerShard) {
+        SiteMapFingerprint fingerprint = new SiteMapFingerprint(idsPerShard);
+        Long lastId = null;
+        List<Object[]> skuUrls;
+
+        do {
+            skuUrls = skuDao.readAllActiveSkuUrls(pageSize, lastId);
+            for (Object[] skuUrl : skuUrls) {
+                lastId = (Long) skuUrl[0];
+                fingerprint.add(lastId, skuUrl[1], skuUrl[2], skuUrl[3]);
+            }
+        } while (skuUrls.size() == pageSize);
+        return fingerprint;
+    }
+
+    protected void addSiteMapEntry(SiteMapGeneratorConfiguration smgc, SiteMapBuilder siteMapBuilder, Sku sku) {
+        Product defaultProduct = sku.getDefaultProduct();
+        if (defaultProduct != null && CollectionUtils.isNotEmpty(defaultProduct.getAdditionalSkus())) {
+            return;
+        }
+        if (defaultProduct instanceof ProductBundle) {
+            return;
+        }
+        if (StringUtils.isEmpty(sku.getProduct().getUrl() + sku.getUrlKey())) {
+            return;
+        }
+
+        SiteMapURLWrapper siteMapUrl = new SiteMapURLWrapper();
+
+        // location
+        siteMapUrl.setLoc(generateUri(siteMapBuilder, sku));
+
+        // change frequency
+        siteMapUrl.setChangeFreqType(smgc.getSiteMapChangeFreq());
+
+        // priority
+        siteMapUrl.setPriorityType(smgc.getSiteMapPriority());
+
+        // lastModDate
+        siteMapUrl.setLastModDate(generateDate(sku));
+
+        constructImageURLs(siteMapBuilder, siteMapUrl, sku);
+
+        siteMapBuilder.addUrl(siteMapUrl);
+    }
+
     protected void constructImageURLs(SiteMapBuilder siteMapBuilder, SiteMapURLWrapper siteMapUrl, Sku sku) {
         for (SkuMediaXref skuMediaXref : sku.getSkuMediaXref().values()) {
             SiteMapImageWrapper siteMapImage = new SiteMapImageWrapper();
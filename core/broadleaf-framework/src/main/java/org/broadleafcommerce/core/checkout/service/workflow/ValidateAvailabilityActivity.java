@@ -27,6 +27,8 @@ import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -53,6 +55,14 @@ public class ValidateAvailabilityActivity extends BaseActivity<ProcessContext<Ch
         setOrder(ORDER);
     }
 
+    @Autowired
+    public ValidateAvailabilityActivity(@Qualifier("blReleaseInventoryReservationRollbackHandler") ReleaseInventoryReservationRollbackHandler rollbackHandler) {
+        //The order whose holds need to be released is in the process context, so the handler can be registered automatically.
+        super.setAutomaticallyRegisterRollbackHandler(true);
+        setRollbackHandler(rollbackHandler);
+        setOrder(ORDER);
+    }
+
     @Override
     public ProcessContext<CheckoutSeed> execute(ProcessContext<CheckoutSeed> context) throws Exception {
         Order order = context.getSeedData().getOrder();
@@ -80,6 +90,11 @@ public class ValidateAvailabilityActivity extends BaseActivity<ProcessContext<Ch
             inventoryService.checkSkuAvailability(order, entry.getKey(), entry.getValue());
         }
 
+        // hold the inventory until it is decremented, so that it is not sold to another checkout in the meantime
+        Map<String, Object> inventoryContext = new HashMap<>();
+        inventoryContext.put(ContextualInventoryService.ORDER_KEY, order);
+        inventoryService.reserveInventory(skuItems, inventoryContext);
+
         return context;
     }
 }
@@ -0,0 +1,58 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.inventory.dao;
+
+import org.broadleafcommerce.core.inventory.domain.InventoryReservation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistence for the durable copy of the inventory reservation ledger.
+ *
+ * @see InventoryReservation
+ */
+public interface InventoryReservationDao {
+
+    /**
+     * @param currentTime the current time in milliseconds
+     * @return every reservation that has not expired as of <b>currentTime</b>
+     */
+    List<InventoryReservation> readActiveReservations(long currentTime);
+
+    /**
+     * Replaces all of the reservations held by the given order with the given quantities
+     *
+     * @param orderId the order holding the reservations
+     * @param skuQuantities the reserved quantity keyed by sku id
+     * @param expiration the time in milliseconds after which the reservations no longer apply
+     */
+    void replaceReservationsForOrder(Long orderId, Map<Long, Integer> skuQuantities, long expiration);
+
+    /**
+     * @param orderId the order holding the reservations
+     * @return the number of reservations removed
+     */
+    int deleteReservationsForOrder(Long orderId);
+
+    /**
+     * @param currentTime the current time in milliseconds
+     * @return the number of reservations removed
+     */
+    int deleteExpiredReservations(long currentTime);
+}
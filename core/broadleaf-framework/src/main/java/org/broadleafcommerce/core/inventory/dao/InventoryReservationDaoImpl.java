@@ -0,0 +1,77 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.inventory.dao;
+
+import org.broadleafcommerce.common.persistence.EntityConfiguration;
+import org.broadleafcommerce.core.inventory.domain.InventoryReservation;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+@Repository("blInventoryReservationDao")
+public class InventoryReservationDaoImpl implements InventoryReservationDao {
+
+    @PersistenceContext(unitName = "blPU")
+    protected EntityManager em;
+
+    @Resource(name = "blEntityConfiguration")
+    protected EntityConfiguration entityConfiguration;
+
+    @Override
+    public List<InventoryReservation> readActiveReservations(long currentTime) {
+        TypedQuery<InventoryReservation> query = em.createNamedQuery("BC_READ_ACTIVE_INVENTORY_RESERVATIONS", InventoryReservation.class);
+        query.setParameter("currentTime", currentTime);
+        query.setHint(QueryHints.HINT_CACHEABLE, false);
+        return query.getResultList();
+    }
+
+    @Override
+    public void replaceReservationsForOrder(Long orderId, Map<Long, Integer> skuQuantities, long expiration) {
+        deleteReservationsForOrder(orderId);
+        for (Map.Entry<Long, Integer> entry : skuQuantities.entrySet()) {
+            InventoryReservation reservation = (InventoryReservation) entityConfiguration.createEntityInstance(InventoryReservation.class.getName());
+            reservation.setOrderId(orderId);
+            reservation.setSkuId(entry.getKey());
+            reservation.setQuantity(entry.getValue());
+            reservation.setExpiration(expiration);
+            em.persist(reservation);
+        }
+    }
+
+    @Override
+    public int deleteReservationsForOrder(Long orderId) {
+        Query query = em.createNamedQuery("BC_DELETE_INVENTORY_RESERVATIONS_FOR_ORDER");
+        query.setParameter("orderId", orderId);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int deleteExpiredReservations(long currentTime) {
+        Query query = em.createNamedQuery("BC_DELETE_EXPIRED_INVENTORY_RESERVATIONS");
+        query.setParameter("currentTime", currentTime);
+        return query.executeUpdate();
+    }
+}
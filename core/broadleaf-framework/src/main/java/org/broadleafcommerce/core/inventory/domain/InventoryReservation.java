@@ -0,0 +1,49 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.inventory.domain;
+
+import java.io.Serializable;
+
+/**
+ * A short-lived hold on a quantity of a single {@link org.broadleafcommerce.core.catalog.domain.Sku} on behalf of an
+ * order that is being checked out. Holds are tracked in memory by the inventory service and this entity is the durable
+ * copy that the in-memory ledger is periodically reconciled to.
+ *
+ * @see org.broadleafcommerce.core.inventory.service.ContextualInventoryService#reserveInventory(java.util.Map, java.util.Map)
+ */
+public interface InventoryReservation extends Serializable {
+
+    Long getOrderId();
+
+    void setOrderId(Long orderId);
+
+    Long getSkuId();
+
+    void setSkuId(Long skuId);
+
+    Integer getQuantity();
+
+    void setQuantity(Integer quantity);
+
+    /**
+     * @return the time, in milliseconds since the epoch, after which this hold no longer applies
+     */
+    Long getExpiration();
+
+    void setExpiration(Long expiration);
+}
@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.inventory.domain;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "BLC_INVENTORY_RESERVATION")
+@Inheritance(strategy = InheritanceType.JOINED)
+public class InventoryReservationImpl implements InventoryReservation {
+
+    private static final long serialVersionUID = 1L;
+
+    @EmbeddedId
+    protected InventoryReservationPk reservationPK = new InventoryReservationPk();
+
+    @Column(name = "QUANTITY", nullable = false)
+    protected Integer quantity;
+
+    @Column(name = "EXPIRATION", nullable = false)
+    protected Long expiration;
+
+    @Override
+    public Long getOrderId() {
+        return reservationPK.getOrderId();
+    }
+
+    @Override
+    public void setOrderId(Long orderId) {
+        reservationPK.setOrderId(orderId);
+    }
+
+    @Override
+    public Long getSkuId() {
+        return reservationPK.getSkuId();
+    }
+
+    @Override
+    public void setSkuId(Long skuId) {
+        reservationPK.setSkuId(skuId);
+    }
+
+    @Override
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public Long getExpiration() {
+        return expiration;
+    }
+
+    @Override
+    public void setExpiration(Long expiration) {
+        this.expiration = expiration;
+    }
+
+    @Embeddable
+    public static class InventoryReservationPk implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "ORDER_ID")
+        protected Long orderId;
+
+        @Column(name = "SKU_ID")
+        protected Long skuId;
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public void setOrderId(Long orderId) {
+            this.orderId = orderId;
+        }
+
+        public Long getSkuId() {
+            return skuId;
+        }
+
+        public void setSkuId(Long skuId) {
+            this.skuId = skuId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj != null && getClass().isAssignableFrom(obj.getClass())) {
+                InventoryReservationPk other = (InventoryReservationPk) obj;
+                return new EqualsBuilder()
+                    .append(orderId, other.orderId)
+                    .append(skuId, other.skuId)
+                    .build();
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                .append(orderId)
+                .append(skuId)
+                .build();
+        }
+    }
+}
@@ -146,4 +146,33 @@ public interface ContextualInventoryService extends InventoryService {
      * @throws InventoryUnavailableException
      */
     public void checkSkuAvailability(Order order, Sku sku, Integer requestedQuantity) throws InventoryUnavailableException;
+
+    /**
+     * <p>Places short-lived holds on the given quantities on behalf of the order in the <b>context</b>, replacing any holds
+     * the order already had. While the holds are active, the held quantities are no longer available to other orders,
+     * and they are released once the order's inventory is decremented or the holds expire.</p>
+     * 
+     * <p>Usually invoked from {@link org.broadleafcommerce.core.checkout.service.workflow.ValidateAvailabilityActivity} so
+     * that a checkout that cannot be fulfilled fails before any payment work is done. This does nothing unless
+     * <code>inventory.reservation.enabled</code> is true.</p>
+     * 
+     * <p>By default, nothing is held.</p>
+     * 
+     * @param skuQuantities the quantities to hold, keyed by sku
+     * @param context must contain the {@link #ORDER_KEY}
+     * @throws InventoryUnavailableException if any of the quantities cannot be held
+     */
+    public default void reserveInventory(Map<Sku, Integer> skuQuantities, Map<String, Object> context) throws InventoryUnavailableException {
+        // nothing to hold
+    }
+
+    /**
+     * Releases all of the holds placed on behalf of the given order by {@link #reserveInventory(Map, Map)}. By default,
+     * there is nothing to release.
+     * 
+     * @param order the order whose holds should be released
+     */
+    public default void releaseInventoryReservation(Order order) {
+        // nothing to release
+    }
 }
@@ -0,0 +1,337 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory ledger of short-lived inventory holds, keyed by order. The orders holding each sku are indexed so that the
+ * quantity held on behalf of other orders can be read without scanning every hold while checking availability. Holds
+ * that have expired no longer count towards the held quantity, even before {@link #purgeExpired(long)} releases them.
+ * <p>
+ * Changes are guarded by a fixed set of lock stripes. Placing or releasing the holds of an order locks the stripes of
+ * the order and of every sku involved, always in stripe order, so that two orders competing for the last units of a sku
+ * are serialized while unrelated orders proceed in parallel. Reads of the running counters take no locks.
+ * <p>
+ * Every order whose holds change is remembered until {@link #drainDirtyOrders()} is called, which allows the ledger to
+ * be written behind to {@link org.broadleafcommerce.core.inventory.domain.InventoryReservation} rows.
+ * <p>
+ * The ledger is local to the node. The rows it is written behind to are only read back on startup, so holds placed on
+ * one node are not seen by availability checks on another. In a cluster, holds only keep checkouts on the same node
+ * from competing for the same units, and the conditional update done by the batched decrement is what keeps the
+ * nodes from overselling.
+ */
+public class InventoryReservationLedger {
+
+    protected final ReentrantLock[] stripes;
+    protected final Map<Long, Hold> holdsByOrder = new ConcurrentHashMap<>();
+    protected final Map<Long, Set<Long>> holdersBySku = new ConcurrentHashMap<>();
+    protected final Set<Long> dirtyOrders = ConcurrentHashMap.newKeySet();
+
+    public InventoryReservationLedger(int stripeCount) {
+        int size = 1;
+        while (size < Math.max(1, stripeCount)) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Places (or replaces) the holds of an order. The holds are only placed if every sku with a known quantity on hand
+     * still has enough quantity once the holds of all other orders are taken into account.
+     *
+     * @param orderId the order placing the holds
+     * @param quantities the quantity to hold, keyed by sku id
+     * @param quantitiesOnHand the quantity on hand keyed by sku id. Skus without an entry are not limited.
+     * @param expiration the time in milliseconds after which the holds no longer apply
+     * @return null if the holds were placed, otherwise the id of the first sku that could not be held
+     */
+    public Long reserve(Long orderId, Map<Long, Integer> quantities, Map<Long, Integer> quantitiesOnHand, long expiration) {
+        List<ReentrantLock> locks = lockOrder(orderId, quantities.keySet());
+        try {
+            long currentTime = System.currentTimeMillis();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Integer onHand = quantitiesOnHand.get(entry.getKey());
+                if (onHand != null) {
+                    int heldByOthers = getReservedQuantity(entry.getKey(), orderId, currentTime);
+                    if (onHand - heldByOthers < entry.getValue()) {
+                        return entry.getKey();
+                    }
+                }
+            }
+            putHold(orderId, new Hold(quantities, expiration));
+            return null;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /**
+     * Restores holds read back from the durable copy of the ledger. No availability check is performed and the order is
+     * not marked as changed.
+     */
+    public void restore(Long orderId, Map<Long, Integer> quantities, long expiration) {
+        List<ReentrantLock> locks = lockOrder(orderId, quantities.keySet());
+        try {
+            putHold(orderId, new Hold(quantities, expiration));
+            dirtyOrders.remove(orderId);
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /**
+     * Releases all of the holds of an order, for example because the held quantities have been decremented.
+     *
+     * @return the released quantities keyed by sku id, or an empty map if the order held nothing
+     */
+    public Map<Long, Integer> release(Long orderId) {
+        List<ReentrantLock> locks = lockOrder(orderId, Collections.<Long>emptySet());
+        try {
+            Hold existing = holdsByOrder.get(orderId);
+            if (existing == null) {
+                return Collections.emptyMap();
+            }
+            putHold(orderId, null);
+            return existing.getQuantities();
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /**
+     * Releases every hold that expired at or before the given time
+     *
+     * @return the ids of the orders whose holds were released
+     */
+    public List<Long> purgeExpired(long currentTime) {
+        List<Long> purged = new ArrayList<>();
+        for (Map.Entry<Long, Hold> entry : holdsByOrder.entrySet()) {
+            if (entry.getValue().isExpired(currentTime) && release(entry.getKey(), currentTime)) {
+                purged.add(entry.getKey());
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * @return the total quantity of the sku held by all orders whose holds have not expired
+     */
+    public int getReservedQuantity(Long skuId) {
+        return getReservedQuantity(skuId, null, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the quantity of the sku held by every order other than <b>excludedOrderId</b> whose holds have not expired
+     */
+    public int getReservedQuantity(Long skuId, Long excludedOrderId) {
+        return getReservedQuantity(skuId, excludedOrderId, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the quantity of the sku held by every order other than <b>excludedOrderId</b> whose holds have not
+     * expired at <b>currentTime</b>
+     */
+    public int getReservedQuantity(Long skuId, Long excludedOrderId, long currentTime) {
+        Set<Long> holders = holdersBySku.get(skuId);
+        if (holders == null) {
+            return 0;
+        }
+        int reserved = 0;
+        for (Long holder : holders) {
+            if (holder.equals(excludedOrderId)) {
+                continue;
+            }
+            Hold hold = holdsByOrder.get(holder);
+            if (hold != null && !hold.isExpired(currentTime)) {
+                reserved += getHeldQuantity(hold, skuId);
+            }
+        }
+        return reserved;
+    }
+
+    /**
+     * @return the holds of the order, or null if it holds nothing
+     */
+    public Hold getHold(Long orderId) {
+        return holdsByOrder.get(orderId);
+    }
+
+    /**
+     * @return the ids of the orders whose holds changed since the last call
+     */
+    public Set<Long> drainDirtyOrders() {
+        Set<Long> drained = new HashSet<>();
+        for (Long orderId : dirtyOrders) {
+            if (dirtyOrders.remove(orderId)) {
+                drained.add(orderId);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Marks orders as changed again, for example because writing their holds behind failed
+     */
+    public void markDirty(Collection<Long> orderIds) {
+        dirtyOrders.addAll(orderIds);
+    }
+
+    protected boolean release(Long orderId, long currentTime) {
+        Hold existing = holdsByOrder.get(orderId);
+        if (existing == null) {
+            return false;
+        }
+        List<ReentrantLock> locks = lockStripes(orderId, existing.getQuantities().keySet());
+        try {
+            // only release the hold that was seen to expire, not one that replaced it in the meantime
+            if (holdsByOrder.get(orderId) != existing || !existing.isExpired(currentTime)) {
+                return false;
+            }
+            putHold(orderId, null);
+            return true;
+        } finally {
+            unlock(locks);
+        }
+    }
+
+    /**
+     * Must be called while holding the stripes of the order and of the skus of both the old and the new holds
+     */
+    protected void putHold(Long orderId, Hold hold) {
+        Hold previous = hold == null ? holdsByOrder.remove(orderId) : holdsByOrder.put(orderId, hold);
+        removeHolder(orderId, previous);
+        addHolder(orderId, hold);
+        dirtyOrders.add(orderId);
+    }
+
+    protected void addHolder(Long orderId, Hold hold) {
+        if (hold == null) {
+            return;
+        }
+        for (Long skuId : hold.getQuantities().keySet()) {
+            holdersBySku.computeIfAbsent(skuId, k -> ConcurrentHashMap.newKeySet()).add(orderId);
+        }
+    }
+
+    protected void removeHolder(Long orderId, Hold hold) {
+        if (hold == null) {
+            return;
+        }
+        for (Long skuId : hold.getQuantities().keySet()) {
+            Set<Long> holders = holdersBySku.get(skuId);
+            if (holders != null && holders.remove(orderId) && holders.isEmpty()) {
+                // every change to this sku's holders happens under its stripe, so it cannot be added to concurrently
+                holdersBySku.remove(skuId);
+            }
+        }
+    }
+
+    protected int getHeldQuantity(Hold hold, Long skuId) {
+        if (hold == null) {
+            return 0;
+        }
+        Integer quantity = hold.getQuantities().get(skuId);
+        return quantity == null ? 0 : quantity;
+    }
+
+    protected int stripeIndex(Long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    }
+
+    /**
+     * Locks the stripes of the order, of the given skus and of the skus the order currently holds. Since replacing the
+     * holds of an order requires the order's stripe, the holds of the order cannot change until the locks are released.
+     */
+    protected List<ReentrantLock> lockOrder(Long orderId, Set<Long> skuIds) {
+        while (true) {
+            Hold existing = holdsByOrder.get(orderId);
+            Set<Long> allSkuIds = new HashSet<>(skuIds);
+            if (existing != null) {
+                allSkuIds.addAll(existing.getQuantities().keySet());
+            }
+            List<ReentrantLock> locks = lockStripes(orderId, allSkuIds);
+            if (holdsByOrder.get(orderId) == existing) {
+                return locks;
+            }
+            // the holds were replaced while the locks were being acquired, so they may involve other skus
+            unlock(locks);
+        }
+    }
+
+    protected List<ReentrantLock> lockStripes(Long orderId, Set<Long> skuIds) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        indexes.add(stripeIndex(orderId));
+        for (Long skuId : skuIds) {
+            indexes.add(stripeIndex(skuId));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            ReentrantLock lock = stripes[index];
+            lock.lock();
+            locks.add(lock);
+        }
+        return locks;
+    }
+
+    protected void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * The holds of a single order. Instances are immutable.
+     */
+    public static class Hold {
+
+        protected final Map<Long, Integer> quantities;
+        protected final long expiration;
+
+        public Hold(Map<Long, Integer> quantities, long expiration) {
+            this.quantities = Collections.unmodifiableMap(new HashMap<>(quantities));
+            this.expiration = expiration;
+        }
+
+        public Map<Long, Integer> getQuantities() {
+            return quantities;
+        }
+
+        public long getExpiration() {
+            return expiration;
+        }
+
+        public boolean isExpired(long currentTime) {
+            return expiration <= currentTime;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.broadleafcommerce.core.inventory.service;
 
 import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.common.event.BroadleafSystemEvent;
@@ -28,9 +29,12 @@ import org.broadleafcommerce.common.event.BroadleafSystemEventDetail;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
 import org.broadleafcommerce.common.util.TransactionUtils;
+import org.broadleafcommerce.core.catalog.dao.SkuDao;
 import org.broadleafcommerce.core.catalog.domain.ProductSkuUsage;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.service.CatalogService;
+import org.broadleafcommerce.core.inventory.dao.InventoryReservationDao;
+import org.broadleafcommerce.core.inventory.domain.InventoryReservation;
 import org.broadleafcommerce.core.inventory.service.type.InventoryType;
 import org.broadleafcommerce.core.order.domain.BundleOrderItem;
 import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
@@ -41,17 +45,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
 @Service("blInventoryService")
@@ -62,15 +78,62 @@ public class InventoryServiceImpl implements ContextualInventoryService {
     @Resource(name = "blCatalogService")
     protected CatalogService catalogService;
     
+    @Resource(name = "blSkuDao")
+    protected SkuDao skuDao;
+
+    @Resource(name = "blInventoryReservationDao")
+    protected InventoryReservationDao reservationDao;
+
     @Resource(name = "blInventoryServiceExtensionManager")
     protected InventoryServiceExtensionManager extensionManager;
 
+    @Resource(name = TransactionUtils.DEFAULT_TRANSACTION_MANAGER)
+    protected PlatformTransactionManager transactionManager;
+
     @Autowired
     protected ApplicationContext applicationContext;
 
     @Value("${enable.weave.use.default.sku.inventory:false}")
     protected boolean enableUseDefaultSkuInventory = false;
 
+    /**
+     * When true, inventory is decremented with a single batch of conditional updates rather than by reading, adjusting
+     * and saving each {@link Sku} in turn. See {@link #decrementSkusInBatch(Map, Map)}.
+     */
+    @Value("${inventory.decrement.batch.enabled:false}")
+    protected boolean batchDecrementEnabled = false;
+
+    /**
+     * When true, checkout places short-lived holds on inventory (see {@link #reserveInventory(Map, Map)}) and the
+     * quantities held by other orders are subtracted from the quantities available.
+     */
+    @Value("${inventory.reservation.enabled:false}")
+    protected boolean reservationEnabled = false;
+
+    /**
+     * Milliseconds a hold lasts before it expires
+     */
+    @Value("${inventory.reservation.time.to.live:600000}")
+    protected long reservationTimeToLive = 600000L;
+
+    @Value("${inventory.reservation.stripes:64}")
+    protected int reservationStripes = 64;
+
+    /**
+     * Milliseconds between writing the holds to the reservation table and purging expired holds
+     */
+    @Value("${inventory.reservation.reconcile.interval:10000}")
+    protected long reservationReconcileInterval = 10000L;
+
+    protected volatile InventoryReservationLedger reservationLedger;
+
+    protected ScheduledExecutorService reservationReconciler;
+
+    /**
+     * Key under which the skus awaiting cache invalidation are bound to the current transaction
+     */
+    protected final Object pendingInvalidationsKey = new Object();
+
     @Override
     public boolean checkBasicAvailablility(Sku sku) {
         if(sku != null) {
@@ -136,6 +199,19 @@ public class InventoryServiceImpl implements ContextualInventoryService {
 
     @Override
     public Map<Sku, Integer> retrieveQuantitiesAvailable(Collection<Sku> skus, Map<String, Object> context) {
+        Map<Sku, Integer> inventories = retrieveQuantitiesOnHand(skus, context);
+        if (reservationEnabled) {
+            inventories = new HashMap<>(inventories);
+            subtractReservedQuantities(inventories, context);
+        }
+        return inventories;
+    }
+
+    /**
+     * Retrieves the quantities available for the given skus without taking into account any inventory held by
+     * {@link #reserveInventory(Map, Map)}
+     */
+    protected Map<Sku, Integer> retrieveQuantitiesOnHand(Collection<Sku> skus, Map<String, Object> context) {
         ExtensionResultHolder<Map<Sku, Integer>> holder = new ExtensionResultHolder<Map<Sku, Integer>>();
         ExtensionResultStatusType res = extensionManager.getProxy().retrieveQuantitiesAvailable(skus, context, holder);
         if (ExtensionResultStatusType.NOT_HANDLED.equals(res)) {
@@ -204,9 +280,16 @@ public class InventoryServiceImpl implements ContextualInventoryService {
         if (ExtensionResultStatusType.NOT_HANDLED.equals(res)) {
             decrementSku(skuQuantities, context);
         }
+        if (reservationEnabled) {
+            convertInventoryReservation(context);
+        }
     }
 
     protected void decrementSku(Map<Sku, Integer> skuQuantities, Map<String, Object> context) throws InventoryUnavailableException {
+        if (batchDecrementEnabled) {
+            decrementSkusInBatch(skuQuantities, context);
+            return;
+        }
         for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
             Sku sku = entry.getKey();
             Sku skuForInventory = sku;
@@ -220,15 +303,26 @@ public class InventoryServiceImpl implements ContextualInventoryService {
 
             if (checkBasicAvailablility(skuForInventory)) {
                 if (InventoryType.CHECK_QUANTITY.equals(skuForInventory.getInventoryType())) {
-                    Integer inventoryAvailable = retrieveQuantityAvailable(skuForInventory, context);
-                    if (inventoryAvailable == null) {
-                        return;
+                    Integer inventoryOnHand;
+                    int inventoryAvailable;
+                    if (isCoveredByReservation(skuForInventory, quantity, context)) {
+                        // the hold was only placed if the holds of all other orders were covered as well, so it is
+                        // converted into the decrement without looking the quantity available up again
+                        inventoryOnHand = skuForInventory.getQuantityAvailable();
+                        inventoryAvailable = inventoryOnHand;
+                    } else {
+                        inventoryOnHand = retrieveQuantitiesOnHand(Arrays.asList(skuForInventory), context).get(skuForInventory);
+                        if (inventoryOnHand == null) {
+                            return;
+                        }
+                        inventoryAvailable = inventoryOnHand - getQuantityReservedForOtherOrders(skuForInventory, context);
                     }
                     if (inventoryAvailable < quantity) {
                         throw new InventoryUnavailableException(
-                                "There was not enough inventory to fulfill this request.", skuForInventory.getId(), quantity, inventoryAvailable);
+                                "There was not enough inventory to fulfill this request.", skuForInventory.getId(), quantity,
+                                Math.max(0, inventoryAvailable));
                     }
-                    int newInventory = inventoryAvailable - quantity;
+                    int newInventory = inventoryOnHand - quantity;
                     skuForInventory.setQuantityAvailable(newInventory);
                     catalogService.saveSku(skuForInventory);
                     invalidateSkuInventory(skuForInventory);
@@ -241,6 +335,63 @@ public class InventoryServiceImpl implements ContextualInventoryService {
         }
     }
 
+    /**
+     * Decrements the quantity available of all of the given skus at once via {@link SkuDao#decrementQuantitiesAvailable(Map)}.
+     * Each update only applies when the sku still has enough quantity available, so there is no read-modify-write
+     * window for concurrent checkouts to collide in. Any shortfall is detected from the update counts and reported
+     * with an {@link InventoryUnavailableException}, which rolls back the decrements already made in this transaction.
+     * 
+     * @param skuQuantities the quantity to decrement, keyed by sku
+     * @param context can be null
+     * @throws InventoryUnavailableException if any of the skus is unavailable or does not have enough quantity
+     */
+    protected void decrementSkusInBatch(Map<Sku, Integer> skuQuantities, Map<String, Object> context) throws InventoryUnavailableException {
+        Map<Sku, Integer> inventoryQuantities = new LinkedHashMap<>();
+        for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
+            Sku sku = entry.getKey();
+            Sku skuForInventory = sku;
+            if (enableUseDefaultSkuInventory && ((ProductSkuUsage) sku.getProduct()).getUseDefaultSkuInInventory()){
+                skuForInventory = sku.getProduct().getDefaultSku();
+            }
+            Integer quantity = entry.getValue();
+            if (quantity == null || quantity < 1) {
+                throw new IllegalArgumentException("Quantity " + quantity + " is not valid. Must be greater than zero and not null.");
+            }
+
+            if (checkBasicAvailablility(skuForInventory)) {
+                if (InventoryType.CHECK_QUANTITY.equals(skuForInventory.getInventoryType())) {
+                    // several skus can share the inventory of their product's default sku
+                    Integer existingQuantity = inventoryQuantities.get(skuForInventory);
+                    inventoryQuantities.put(skuForInventory, existingQuantity == null ? quantity : existingQuantity + quantity);
+                } else {
+                    LOG.info("Not decrementing inventory as the Sku has been marked as always available");
+                }
+            } else {
+                throw new InventoryUnavailableException("The Sku has been marked as unavailable", sku.getId(), quantity, 0);
+            }
+        }
+        if (inventoryQuantities.isEmpty()) {
+            return;
+        }
+
+        Map<Sku, Integer> reservedQuantities = new HashMap<>();
+        if (reservationEnabled) {
+            Long orderId = getContextOrderId(context);
+            for (Sku sku : inventoryQuantities.keySet()) {
+                reservedQuantities.put(sku, getReservationLedger().getReservedQuantity(sku.getId(), orderId));
+            }
+        }
+        List<Sku> shortfalls = reservedQuantities.isEmpty() ? skuDao.decrementQuantitiesAvailable(inventoryQuantities)
+                : skuDao.decrementQuantitiesAvailable(inventoryQuantities, reservedQuantities);
+        if (!shortfalls.isEmpty()) {
+            Sku sku = shortfalls.get(0);
+            Integer lastKnownQuantity = sku.getQuantityAvailable();
+            throw new InventoryUnavailableException("There was not enough inventory to fulfill this request.", sku.getId(),
+                    inventoryQuantities.get(sku), lastKnownQuantity == null ? 0 : lastKnownQuantity);
+        }
+        invalidateSkuInventory(inventoryQuantities.keySet());
+    }
+
     @Override
     @Transactional(TransactionUtils.DEFAULT_TRANSACTION_MANAGER)
     public void incrementInventory(Sku sku, int quantity, Map<String, Object> context) {
@@ -271,7 +422,8 @@ public class InventoryServiceImpl implements ContextualInventoryService {
                 throw new IllegalArgumentException("Quantity " + quantity + " is not valid. Must be greater than zero and not null.");
             }
             if (InventoryType.CHECK_QUANTITY.equals(sku.getInventoryType())) {
-                Integer currentInventoryAvailable = retrieveQuantityAvailable(skuForInventory, context);
+                // the quantities held for orders are not part of the quantity stored on the sku
+                Integer currentInventoryAvailable = retrieveQuantitiesOnHand(Arrays.asList(skuForInventory), context).get(skuForInventory);
                 if (currentInventoryAvailable == null) {
                     throw new IllegalArgumentException("The current inventory for this Sku is null");
                 }
@@ -360,19 +512,60 @@ public class InventoryServiceImpl implements ContextualInventoryService {
      * @param sku The Sku to be invalidated from cache
      */
     protected void invalidateSkuInventory(Sku sku) {
-        final Class<?> clazz = sku.getClass();
-        final String id = sku.getId().toString();
+        invalidateSkuInventory(Collections.singletonList(sku));
+    }
+
+    /**
+     * Invalidates the cache for the given skus. Within a transaction, the sku ids are collected and sent in a single
+     * event once the transaction commits, so a sku that is adjusted several times in the same transaction is only
+     * invalidated once.
+     * 
+     * @param skus The Skus to be invalidated from cache
+     */
+    protected void invalidateSkuInventory(Collection<Sku> skus) {
+        Map<Class<?>, Set<String>> invalidations;
         if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidations = getPendingInvalidations();
+        } else {
+            invalidations = new LinkedHashMap<>();
+        }
+        for (Sku sku : skus) {
+            invalidations.computeIfAbsent(sku.getClass(), k -> new LinkedHashSet<>()).add(sku.getId().toString());
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (Entry<Class<?>, Set<String>> invalidation : invalidations.entrySet()) {
+                invalidateEntities(invalidation.getKey(), invalidation.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the identifiers of the entities awaiting invalidation once the current transaction commits, keyed by
+     * entity class
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<Class<?>, Set<String>> getPendingInvalidations() {
+        Map<Class<?>, Set<String>> pendingInvalidations = (Map<Class<?>, Set<String>>) TransactionSynchronizationManager.getResource(pendingInvalidationsKey);
+        if (pendingInvalidations == null) {
+            final Map<Class<?>, Set<String>> invalidations = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(pendingInvalidationsKey, invalidations);
             TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
 
                 @Override
                 public void afterCommit() {
-                    invalidateEntity(clazz, id);
+                    for (Entry<Class<?>, Set<String>> invalidation : invalidations.entrySet()) {
+                        invalidateEntities(invalidation.getKey(), invalidation.getValue());
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingInvalidationsKey);
                 }
             });
-        } else {
-            invalidateEntity(clazz, id);
+            pendingInvalidations = invalidations;
         }
+        return pendingInvalidations;
     }
 
     /**
@@ -382,8 +575,24 @@ public class InventoryServiceImpl implements ContextualInventoryService {
      * @param id The id of the entity to invalidate the cache for
      */
     protected void invalidateEntity(Class<?> clazz, String id) {
+        invalidateEntities(clazz, Collections.singletonList(id));
+    }
+
+    /**
+     * Given the class and identifiers of several entities of that class, sends a single cache invalidation event per
+     * cache region for all of them. The event carries the identifiers comma separated in its IDENTIFIER detail and as
+     * a list in its IDENTIFIERS detail.
+     * 
+     * @param clazz The class of the entities to invalidate the cache for
+     * @param ids The ids of the entities to invalidate the cache for
+     */
+    protected void invalidateEntities(Class<?> clazz, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String id = StringUtils.join(ids, ',');
         if (LOG.isInfoEnabled()) {
-            LOG.info("Invalidating entity of type " + clazz.getName() + " with id " + id);
+            LOG.info("Invalidating entities of type " + clazz.getName() + " with ids " + id);
         }
         for (Class<?> superclazz : ClassUtils.hierarchy(clazz)) {
             Cache cacheAnnotation = superclazz.getAnnotation(Cache.class);
@@ -398,6 +607,7 @@ public class InventoryServiceImpl implements ContextualInventoryService {
                 detailMap.put("CACHE_REGION", new BroadleafSystemEventDetail("Cache Region", cacheAnnotation.region()));
                 detailMap.put("ENTITY_TYPE", new BroadleafSystemEventDetail("Entity Type", superclazz.getName()));
                 detailMap.put("IDENTIFIER", new BroadleafSystemEventDetail("Identifier", id));
+                detailMap.put("IDENTIFIERS", new BroadleafSystemEventDetail("Identifiers", new ArrayList<>(ids)));
                 BroadleafSystemEvent event = new BroadleafSystemEvent("CACHE", detailMap, BroadleafEventScopeType.GLOBAL, BroadleafEventWorkerType.ANY, true);
                 applicationContext.publishEvent(event);
             } else {
@@ -411,6 +621,233 @@ public class InventoryServiceImpl implements ContextualInventoryService {
         }
     }
 
+    @Override
+    public void reserveInventory(Map<Sku, Integer> skuQuantities, Map<String, Object> context) throws InventoryUnavailableException {
+        if (!reservationEnabled) {
+            return;
+        }
+        Long orderId = getContextOrderId(context);
+        if (orderId == null) {
+            throw new IllegalArgumentException("Inventory can only be reserved on behalf of a persisted order");
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Sku> skusById = new HashMap<>();
+        for (Entry<Sku, Integer> entry : skuQuantities.entrySet()) {
+            Sku sku = entry.getKey();
+            Sku skuForInventory = getSkuForInventory(sku);
+            Integer quantity = entry.getValue();
+            if (quantity == null || quantity < 1) {
+                throw new IllegalArgumentException("Quantity " + quantity + " is not valid. Must be greater than zero and not null.");
+            }
+            if (!checkBasicAvailablility(skuForInventory)) {
+                throw new InventoryUnavailableException("The Sku has been marked as unavailable", sku.getId(), quantity, 0);
+            }
+            if (InventoryType.CHECK_QUANTITY.equals(skuForInventory.getInventoryType())) {
+                quantities.merge(skuForInventory.getId(), quantity, Integer::sum);
+                skusById.put(skuForInventory.getId(), skuForInventory);
+            }
+        }
+
+        InventoryReservationLedger ledger = getReservationLedger();
+        if (quantities.isEmpty()) {
+            ledger.release(orderId);
+            return;
+        }
+        Map<Long, Integer> quantitiesOnHand = new HashMap<>();
+        for (Entry<Sku, Integer> entry : retrieveQuantitiesOnHand(skusById.values(), context).entrySet()) {
+            if (entry.getValue() != null) {
+                quantitiesOnHand.put(entry.getKey().getId(), entry.getValue());
+            }
+        }
+        Long shortfallSkuId = ledger.reserve(orderId, quantities, quantitiesOnHand, System.currentTimeMillis() + reservationTimeToLive);
+        if (shortfallSkuId != null) {
+            int quantityAvailable = Math.max(0, quantitiesOnHand.get(shortfallSkuId) - ledger.getReservedQuantity(shortfallSkuId, orderId));
+            throw new InventoryUnavailableException("There was not enough inventory to reserve for this request.",
+                    shortfallSkuId, quantities.get(shortfallSkuId), quantityAvailable);
+        }
+    }
+
+    @Override
+    public void releaseInventoryReservation(Order order) {
+        if (reservationEnabled && order != null && order.getId() != null) {
+            getReservationLedger().release(order.getId());
+        }
+    }
+
+    /**
+     * Releases the holds of the order in the <b>context</b> now that its inventory has been decremented. Within a
+     * transaction, the holds are only released once the decrement commits.
+     */
+    protected void convertInventoryReservation(Map<String, Object> context) {
+        final Long orderId = getContextOrderId(context);
+        if (orderId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    getReservationLedger().release(orderId);
+                }
+            });
+        } else {
+            getReservationLedger().release(orderId);
+        }
+    }
+
+    /**
+     * Subtracts the quantities held on behalf of every order other than the one in the <b>context</b>
+     */
+    protected void subtractReservedQuantities(Map<Sku, Integer> quantities, Map<String, Object> context) {
+        InventoryReservationLedger ledger = getReservationLedger();
+        Long orderId = getContextOrderId(context);
+        for (Entry<Sku, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() != null) {
+                int reserved = ledger.getReservedQuantity(getSkuForInventory(entry.getKey()).getId(), orderId);
+                if (reserved > 0) {
+                    entry.setValue(Math.max(0, entry.getValue() - reserved));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the quantity of the sku held on behalf of every order other than the one in the <b>context</b>
+     */
+    protected int getQuantityReservedForOtherOrders(Sku skuForInventory, Map<String, Object> context) {
+        if (!reservationEnabled) {
+            return 0;
+        }
+        return getReservationLedger().getReservedQuantity(skuForInventory.getId(), getContextOrderId(context));
+    }
+
+    /**
+     * @return whether the order in the <b>context</b> holds at least the given quantity of the sku, in which case the
+     * quantity can be decremented without checking the holds of other orders again
+     */
+    protected boolean isCoveredByReservation(Sku skuForInventory, int quantity, Map<String, Object> context) {
+        Long orderId = getContextOrderId(context);
+        if (!reservationEnabled || orderId == null || skuForInventory.getQuantityAvailable() == null) {
+            return false;
+        }
+        InventoryReservationLedger.Hold hold = getReservationLedger().getHold(orderId);
+        if (hold == null || hold.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+        Integer reserved = hold.getQuantities().get(skuForInventory.getId());
+        return reserved != null && reserved >= quantity;
+    }
+
+    protected Long getContextOrderId(Map<String, Object> context) {
+        if (context != null && context.get(ContextualInventoryService.ORDER_KEY) instanceof Order) {
+            return ((Order) context.get(ContextualInventoryService.ORDER_KEY)).getId();
+        }
+        return null;
+    }
+
+    protected Sku getSkuForInventory(Sku sku) {
+        if (enableUseDefaultSkuInventory && ((ProductSkuUsage) sku.getProduct()).getUseDefaultSkuInInventory()) {
+            return sku.getProduct().getDefaultSku();
+        }
+        return sku;
+    }
+
+    protected InventoryReservationLedger getReservationLedger() {
+        InventoryReservationLedger ledger = reservationLedger;
+        if (ledger == null) {
+            synchronized (this) {
+                ledger = reservationLedger;
+                if (ledger == null) {
+                    ledger = new InventoryReservationLedger(reservationStripes);
+                    loadInventoryReservations(ledger);
+                    reservationReconciler = createReservationReconciler();
+                    reservationLedger = ledger;
+                }
+            }
+        }
+        return ledger;
+    }
+
+    /**
+     * Restores the holds that had not yet expired from the reservation table, so that they survive a restart
+     */
+    protected void loadInventoryReservations(InventoryReservationLedger ledger) {
+        TransactionStatus status = TransactionUtils.createTransaction("loadInventoryReservations",
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW, transactionManager, true);
+        try {
+            Map<Long, Map<Long, Integer>> quantitiesByOrder = new HashMap<>();
+            Map<Long, Long> expirationsByOrder = new HashMap<>();
+            for (InventoryReservation reservation : reservationDao.readActiveReservations(System.currentTimeMillis())) {
+                quantitiesByOrder.computeIfAbsent(reservation.getOrderId(), k -> new HashMap<>())
+                        .put(reservation.getSkuId(), reservation.getQuantity());
+                expirationsByOrder.merge(reservation.getOrderId(), reservation.getExpiration(), Math::min);
+            }
+            for (Entry<Long, Map<Long, Integer>> entry : quantitiesByOrder.entrySet()) {
+                ledger.restore(entry.getKey(), entry.getValue(), expirationsByOrder.get(entry.getKey()));
+            }
+            TransactionUtils.finalizeTransaction(status, transactionManager, false);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                TransactionUtils.finalizeTransaction(status, transactionManager, true);
+            }
+            LOG.error("Unable to load the inventory reservations", e);
+        }
+    }
+
+    protected ScheduledExecutorService createReservationReconciler() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-reservation-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::reconcileInventoryReservations, reservationReconcileInterval,
+                reservationReconcileInterval, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    /**
+     * Purges the expired holds and writes the holds that changed since the last run to the reservation table
+     */
+    protected void reconcileInventoryReservations() {
+        InventoryReservationLedger ledger = reservationLedger;
+        if (ledger == null) {
+            return;
+        }
+        long currentTime = System.currentTimeMillis();
+        ledger.purgeExpired(currentTime);
+        Set<Long> dirtyOrders = ledger.drainDirtyOrders();
+        TransactionStatus status = TransactionUtils.createTransaction("reconcileInventoryReservations",
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW, transactionManager, false);
+        try {
+            for (Long orderId : dirtyOrders) {
+                InventoryReservationLedger.Hold hold = ledger.getHold(orderId);
+                if (hold == null) {
+                    reservationDao.deleteReservationsForOrder(orderId);
+                } else {
+                    reservationDao.replaceReservationsForOrder(orderId, hold.getQuantities(), hold.getExpiration());
+                }
+            }
+            reservationDao.deleteExpiredReservations(currentTime);
+            TransactionUtils.finalizeTransaction(status, transactionManager, false);
+        } catch (RuntimeException e) {
+            if (!status.isCompleted()) {
+                TransactionUtils.finalizeTransaction(status, transactionManager, true);
+            }
+            ledger.markDirty(dirtyOrders);
+            LOG.error("Unable to reconcile the inventory reservations", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdownReservationReconciler() {
+        if (reservationReconciler != null) {
+            reservationReconciler.shutdown();
+            reconcileInventoryReservations();
+        }
+    }
+
     @Override
     public void checkSkuAvailability(Order order, Sku sku, Integer requestedQuantity) throws InventoryUnavailableException {
         Sku skuForInventory = sku;
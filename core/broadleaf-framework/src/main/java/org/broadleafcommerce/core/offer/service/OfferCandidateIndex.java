@@ -0,0 +1,338 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.broadleafcommerce.core.catalog.domain.Category;
+import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
+import org.broadleafcommerce.core.offer.service.type.OfferType;
+import org.broadleafcommerce.core.order.domain.BundleOrderItem;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Buckets a set of offers by the sku, product and category ids that an order must contain for the offer to have any
+ * chance of applying, so that only the offers that could match an order's items need to be evaluated.
+ * <p>
+ * An offer is restricted to the ids referenced by one of its required item criteria: each qualifying criteria, and
+ * each target criteria of an {@link OfferType#ORDER_ITEM} offer that does not use a price list. The criteria's match rule
+ * must be a conjunction (or a disjunction of conjunctions) in which a term requires the item's sku, product or
+ * category id to be one of a list of ids, such as
+ * <code>orderItem.?product.?id==100</code> or
+ * <code>CollectionUtils.intersection(orderItem.?product.?allParentCategoryIds,["2002"]).size()>0</code>.
+ * Offers without such a criteria are always candidates.
+ * <p>
+ * The index only holds offer ids, so it can be shared across requests and persistence contexts.
+ */
+public class OfferCandidateIndex {
+
+    public static final String SKU_TERM = "sku:";
+    public static final String PRODUCT_TERM = "product:";
+    public static final String CATEGORY_TERM = "category:";
+
+    protected static final String ITEM_VARIABLE = "\\??(?:orderItem|discreteOrderItem|bundleOrderItem)";
+    protected static final Pattern ID_EQUALS = Pattern.compile("^" + ITEM_VARIABLE
+            + "(?:\\.\\?sku)?\\.\\?(sku|product|category)\\.\\?id\\s*==\\s*(\\d+)L?$");
+    protected static final Pattern ID_INTERSECTION = Pattern.compile("^CollectionUtils\\.intersection\\(\\s*" + ITEM_VARIABLE
+            + "(?:\\.\\?sku)?\\.\\?(sku|product|category)\\.\\?id\\s*,\\s*\\[([^\\]]*)\\]\\s*\\)\\.size\\(\\)\\s*>\\s*0$");
+    protected static final Pattern PARENT_CATEGORY_INTERSECTION = Pattern.compile("^CollectionUtils\\.intersection\\(\\s*" + ITEM_VARIABLE
+            + "(?:\\.\\?sku)?\\.\\?product\\.\\?allParentCategoryIds\\s*,\\s*\\[([^\\]]*)\\]\\s*\\)\\.size\\(\\)\\s*>\\s*0$");
+
+    protected final Set<Long> offerIds = new HashSet<>();
+    protected final Set<Long> unrestrictedOfferIds = new HashSet<>();
+    protected final Map<String, Set<Long>> offerIdsByTerm = new HashMap<>();
+    protected final long creationTime = System.currentTimeMillis();
+
+    public OfferCandidateIndex(Collection<Offer> offers) {
+        for (Offer offer : offers) {
+            offerIds.add(offer.getId());
+            Set<String> terms = getRequiredTerms(offer);
+            if (terms == null) {
+                unrestrictedOfferIds.add(offer.getId());
+            } else {
+                for (String term : terms) {
+                    offerIdsByTerm.computeIfAbsent(term, k -> new HashSet<>()).add(offer.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Only compares offer ids, as this is checked on every pricing call. Changes to the criteria of an indexed offer
+     * are picked up when the index is dropped after the change commits, or when it expires.
+     *
+     * @return true if this index was built from exactly the given offers
+     */
+    public boolean isIndexOf(Collection<Offer> offers) {
+        if (offers.size() != offerIds.size()) {
+            return false;
+        }
+        for (Offer offer : offers) {
+            if (!offerIds.contains(offer.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * @return the ids of the indexed offers that could apply to an order containing the given terms
+     * @see #getOrderTerms(Order)
+     */
+    public Set<Long> getCandidateOfferIds(Set<String> orderTerms) {
+        Set<Long> candidates = new HashSet<>(unrestrictedOfferIds);
+        for (String term : orderTerms) {
+            Set<Long> termOfferIds = offerIdsByTerm.get(term);
+            if (termOfferIds != null) {
+                candidates.addAll(termOfferIds);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return true if the offer could apply to an order containing the given terms. Offers that are not part of the index
+     * always could.
+     */
+    public boolean isCandidate(Offer offer, Set<Long> candidateOfferIds) {
+        return !offerIds.contains(offer.getId()) || candidateOfferIds.contains(offer.getId());
+    }
+
+    /**
+     * @return the sku, product and category terms of every item in the order, including bundled and child items
+     */
+    public Set<String> getOrderTerms(Order order) {
+        Set<String> terms = new HashSet<>();
+        if (order.getOrderItems() != null) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                addOrderItemTerms(orderItem, terms);
+            }
+        }
+        return terms;
+    }
+
+    protected void addOrderItemTerms(OrderItem orderItem, Set<String> terms) {
+        Sku sku = null;
+        Product product = null;
+        if (orderItem instanceof DiscreteOrderItem) {
+            sku = ((DiscreteOrderItem) orderItem).getSku();
+            product = ((DiscreteOrderItem) orderItem).getProduct();
+        } else if (orderItem instanceof BundleOrderItem) {
+            sku = ((BundleOrderItem) orderItem).getSku();
+            product = ((BundleOrderItem) orderItem).getProduct();
+            for (DiscreteOrderItem bundledItem : ((BundleOrderItem) orderItem).getDiscreteOrderItems()) {
+                addOrderItemTerms(bundledItem, terms);
+            }
+        }
+        if (sku != null) {
+            terms.add(SKU_TERM + sku.getId());
+            if (product == null) {
+                product = sku.getProduct();
+            }
+        }
+        if (product != null) {
+            terms.add(PRODUCT_TERM + product.getId());
+            for (String categoryId : product.getAllParentCategoryIds()) {
+                terms.add(CATEGORY_TERM + categoryId);
+            }
+        }
+        Category category = orderItem.getCategory();
+        if (category != null) {
+            terms.add(CATEGORY_TERM + category.getId());
+        }
+        if (orderItem.getChildOrderItems() != null) {
+            for (OrderItem childItem : orderItem.getChildOrderItems()) {
+                addOrderItemTerms(childItem, terms);
+            }
+        }
+    }
+
+    /**
+     * @return the terms of which an order must contain at least one for the offer to apply, or null if the offer is not
+     * restricted to any terms
+     */
+    protected Set<String> getRequiredTerms(Offer offer) {
+        Set<String> requiredTerms = null;
+        if (offer.getQualifyingItemCriteriaXref() != null) {
+            for (OfferQualifyingCriteriaXref xref : offer.getQualifyingItemCriteriaXref()) {
+                requiredTerms = narrowest(requiredTerms, getRequiredTerms(xref.getOfferItemCriteria()));
+            }
+        }
+        if (OfferType.ORDER_ITEM.equals(offer.getType()) && !BooleanUtils.isTrue(offer.getUseListForDiscounts())
+                && offer.getTargetItemCriteriaXref() != null) {
+            for (OfferTargetCriteriaXref xref : offer.getTargetItemCriteriaXref()) {
+                requiredTerms = narrowest(requiredTerms, getRequiredTerms(xref.getOfferItemCriteria()));
+            }
+        }
+        return requiredTerms;
+    }
+
+    protected Set<String> getRequiredTerms(OfferItemCriteria criteria) {
+        if (criteria == null || StringUtils.isBlank(criteria.getMatchRule())) {
+            return null;
+        }
+        return extractTerms(criteria.getMatchRule());
+    }
+
+    /**
+     * @return the terms of which an item must have at least one to satisfy the rule, or null if they cannot be determined
+     */
+    protected Set<String> extractTerms(String rule) {
+        String expression = stripEnclosingParentheses(rule.trim());
+        List<String> disjuncts = splitTopLevel(expression, "||");
+        if (disjuncts.size() > 1) {
+            Set<String> terms = new HashSet<>();
+            for (String disjunct : disjuncts) {
+                Set<String> disjunctTerms = extractTerms(disjunct);
+                if (disjunctTerms == null) {
+                    return null;
+                }
+                terms.addAll(disjunctTerms);
+            }
+            return terms;
+        }
+        List<String> conjuncts = splitTopLevel(expression, "&&");
+        if (conjuncts.size() > 1) {
+            Set<String> terms = null;
+            for (String conjunct : conjuncts) {
+                terms = narrowest(terms, extractTerms(conjunct));
+            }
+            return terms;
+        }
+        return extractSimpleTerms(expression);
+    }
+
+    protected Set<String> extractSimpleTerms(String expression) {
+        Matcher matcher = ID_EQUALS.matcher(expression);
+        if (matcher.matches()) {
+            Set<String> terms = new HashSet<>();
+            terms.add(matcher.group(1) + ":" + matcher.group(2));
+            return terms;
+        }
+        matcher = ID_INTERSECTION.matcher(expression);
+        if (matcher.matches()) {
+            return parseIds(matcher.group(1) + ":", matcher.group(2));
+        }
+        matcher = PARENT_CATEGORY_INTERSECTION.matcher(expression);
+        if (matcher.matches()) {
+            return parseIds(CATEGORY_TERM, matcher.group(1));
+        }
+        return null;
+    }
+
+    protected Set<String> parseIds(String prefix, String idList) {
+        Set<String> terms = new HashSet<>();
+        for (String id : StringUtils.split(idList, ',')) {
+            String value = StringUtils.removeEnd(StringUtils.strip(id.trim(), "\""), "L");
+            if (!StringUtils.isNumeric(value) || value.isEmpty()) {
+                return null;
+            }
+            terms.add(prefix + Long.valueOf(value));
+        }
+        return terms.isEmpty() ? null : terms;
+    }
+
+    protected Set<String> narrowest(Set<String> terms, Set<String> candidate) {
+        if (candidate == null) {
+            return terms;
+        }
+        return terms == null || candidate.size() < terms.size() ? candidate : terms;
+    }
+
+    protected String stripEnclosingParentheses(String expression) {
+        while (expression.startsWith("(") && findClosingParenthesis(expression) == expression.length() - 1) {
+            expression = expression.substring(1, expression.length() - 1).trim();
+        }
+        return expression;
+    }
+
+    protected int findClosingParenthesis(String expression) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits the expression on the operator wherever it is outside of parentheses, brackets and string literals
+     */
+    protected List<String> splitTopLevel(String expression, String operator) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (depth == 0 && expression.startsWith(operator, i)) {
+                parts.add(expression.substring(start, i).trim());
+                start = i + operator.length();
+                i = start - 1;
+            }
+        }
+        parts.add(expression.substring(start).trim());
+        return parts;
+    }
+}
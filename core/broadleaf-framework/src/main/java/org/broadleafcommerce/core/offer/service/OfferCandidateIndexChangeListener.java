@@ -0,0 +1,44 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service;
+
+import org.broadleafcommerce.common.util.ApplicationContextHolder;
+import org.springframework.context.ApplicationContext;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Announces changes to an offer or its item criteria, including those made through the admin, so that the
+ * {@link OfferCandidateIndex} is dropped on every node once the change commits.
+ *
+ * @see OfferService#invalidateOfferCandidateIndex()
+ */
+public class OfferCandidateIndexChangeListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void publishChange(Object entity) {
+        ApplicationContext applicationContext = ApplicationContextHolder.getApplicationContext();
+        if (applicationContext != null && applicationContext.containsBean("blOfferService")) {
+            applicationContext.getBean("blOfferService", OfferService.class).invalidateOfferCandidateIndex();
+        }
+    }
+}
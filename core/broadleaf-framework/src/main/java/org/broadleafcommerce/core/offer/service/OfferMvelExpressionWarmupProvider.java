@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.rule.MvelExpressionWarmupProvider;
+import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.core.offer.dao.OfferDao;
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferOfferRuleXref;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferTargetCriteriaXref;
+import org.broadleafcommerce.core.offer.service.processor.OrderOfferProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+/**
+ * Compiles the match rules and item criteria of every offer that has not ended into the offer processors' expression
+ * cache
+ */
+@Component("blOfferMvelExpressionWarmupProvider")
+public class OfferMvelExpressionWarmupProvider implements MvelExpressionWarmupProvider {
+
+    private static final Log LOG = LogFactory.getLog(OfferMvelExpressionWarmupProvider.class);
+
+    @Resource(name = "blOfferDao")
+    protected OfferDao offerDao;
+
+    @Resource(name = "blOrderOfferProcessor")
+    protected OrderOfferProcessor orderOfferProcessor;
+
+    @Override
+    @Transactional(value = "blTransactionManager", readOnly = true)
+    public int precompileExpressions() {
+        Set<String> rules = new LinkedHashSet<>();
+        Date now = SystemTime.asDate();
+        for (Offer offer : offerDao.readAllOffers()) {
+            if (offer.getEndDate() == null || offer.getEndDate().after(now)) {
+                collectRules(offer, rules);
+            }
+        }
+        int count = 0;
+        for (String rule : rules) {
+            try {
+                orderOfferProcessor.precompileExpression(rule);
+                count++;
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to precompile offer rule: " + rule, e);
+            }
+        }
+        return count;
+    }
+
+    protected void collectRules(Offer offer, Set<String> rules) {
+        for (OfferOfferRuleXref ruleXref : offer.getOfferMatchRulesXref().values()) {
+            if (ruleXref.getOfferRule() != null) {
+                addRule(ruleXref.getOfferRule().getMatchRule(), rules);
+            }
+        }
+        for (OfferQualifyingCriteriaXref criteriaXref : offer.getQualifyingItemCriteriaXref()) {
+            addCriteriaRule(criteriaXref.getOfferItemCriteria(), rules);
+        }
+        for (OfferTargetCriteriaXref criteriaXref : offer.getTargetItemCriteriaXref()) {
+            addCriteriaRule(criteriaXref.getOfferItemCriteria(), rules);
+        }
+    }
+
+    protected void addCriteriaRule(OfferItemCriteria criteria, Set<String> rules) {
+        if (criteria != null) {
+            addRule(criteria.getMatchRule(), rules);
+        }
+    }
+
+    protected void addRule(String rule, Set<String> rules) {
+        if (StringUtils.isNotBlank(rule)) {
+            rules.add(rule);
+        }
+    }
+}
@@ -300,4 +300,11 @@ public interface OfferService {
      */
     Offer duplicate(Long offerId);
 
+    /**
+     * Drops the {@link OfferCandidateIndex} on every node once the current transaction commits. Called whenever an
+     * offer or one of its item criteria is persisted, updated or removed.
+     */
+    default void invalidateOfferCandidateIndex() {
+    }
+
 }
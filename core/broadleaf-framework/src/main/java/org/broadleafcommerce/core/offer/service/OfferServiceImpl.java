@@ -21,6 +21,11 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Transformer;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.event.BroadleafApplicationEventPublisher;
+import org.broadleafcommerce.common.event.BroadleafApplicationListener;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent.BroadleafEventScopeType;
+import org.broadleafcommerce.common.event.BroadleafSystemEvent.BroadleafEventWorkerType;
 import org.broadleafcommerce.common.persistence.EntityDuplicateModifier;
 import org.broadleafcommerce.common.persistence.EntityDuplicator;
 import org.broadleafcommerce.common.sandbox.SandBoxHelper;
@@ -52,8 +57,11 @@ import org.broadleafcommerce.core.order.domain.OrderItemPriceDetail;
 import org.broadleafcommerce.core.order.service.OrderService;
 import org.broadleafcommerce.core.pricing.service.exception.PricingException;
 import org.broadleafcommerce.profile.core.domain.Customer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -64,6 +72,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
@@ -73,10 +83,12 @@ import javax.persistence.PersistenceContext;
  * The Class OfferServiceImpl.
  */
 @Service("blOfferService")
-public class OfferServiceImpl implements OfferService {
+public class OfferServiceImpl implements OfferService, BroadleafApplicationListener<BroadleafSystemEvent> {
     
     private static final Log LOG = LogFactory.getLog(OfferServiceImpl.class);
 
+    public static final String OFFER_CANDIDATE_INDEX_INVALIDATION_EVENT_TYPE = "OFFER_CANDIDATE_INDEX_INVALIDATION";
+
     // should be called outside of Offer service after Offer service is executed
     @Resource(name="blCustomerOfferDao")
     protected CustomerOfferDao customerOfferDao;
@@ -126,6 +138,29 @@ public class OfferServiceImpl implements OfferService {
     @Deprecated
     protected EntityDuplicateModifier<Offer> offerDuplicateModifier;
 
+    /**
+     * Whether automatic delivery offers are pre-filtered with an {@link OfferCandidateIndex} against the skus, products
+     * and categories in the order before being considered for it
+     */
+    @Value("${offer.candidate.index.enabled:false}")
+    protected boolean offerCandidateIndexEnabled = false;
+
+    /**
+     * Milliseconds after which the {@link OfferCandidateIndex} is rebuilt even if none of the automatic delivery offers
+     * has changed
+     */
+    @Value("${offer.candidate.index.ttl:60000}")
+    protected long offerCandidateIndexTtl = 60000L;
+
+    protected volatile OfferCandidateIndex offerCandidateIndex;
+
+    protected final Lock offerCandidateIndexLock = new ReentrantLock();
+
+    protected final Object offerCandidateIndexInvalidationKey = new Object();
+
+    @Resource(name = "blApplicationEventPublisher")
+    protected BroadleafApplicationEventPublisher eventPublisher;
+
     @Override
     public List<Offer> findAllOffers() {
         return offerDao.readAllOffers();
@@ -134,12 +169,14 @@ public class OfferServiceImpl implements OfferService {
     @Override
     @Transactional("blTransactionManager")
     public Offer save(Offer offer) {
+        invalidateOfferCandidateIndex();
         return offerDao.save(offer);
     }
 
     @Override
     @Transactional("blTransactionManager")
     public OfferCode saveOfferCode(OfferCode offerCode) {
+        invalidateOfferCandidateIndex();
         offerCode.setOffer(offerDao.save(offerCode.getOffer()));
         return offerCodeDao.save(offerCode);
     }
@@ -195,23 +232,26 @@ public class OfferServiceImpl implements OfferService {
     @Override
     public List<Offer> buildOfferListForOrder(Order order) {
         List<Offer> offers = new ArrayList<Offer>();
+        Set<Offer> addedOffers = new HashSet<Offer>();
         List<CustomerOffer> customerOffers = lookupOfferCustomerByCustomer(order.getCustomer());
         for (CustomerOffer customerOffer : customerOffers) {
-            if (!offers.contains(customerOffer.getOffer())) {
+            if (addedOffers.add(customerOffer.getOffer())) {
                 offers.add(customerOffer.getOffer());
             }
         }
         List<OfferCode> orderOfferCodes = refreshOfferCodesIfApplicable(order);
         orderOfferCodes = removeOutOfDateOfferCodes(orderOfferCodes);
         for (OfferCode orderOfferCode : orderOfferCodes) {
-            if (!offers.contains(orderOfferCode.getOffer())) {
+            if (addedOffers.add(orderOfferCode.getOffer())) {
                 offers.add(orderOfferCode.getOffer());
             }
             extensionManager.getProxy().addAdditionalOffersForCode(offers, orderOfferCode);
+            addedOffers.addAll(offers);
         }
-        List<Offer> globalOffers = lookupAutomaticDeliveryOffers();
+        List<Offer> globalOffers = filterAutomaticDeliveryOffers(order, lookupAutomaticDeliveryOffers());
         for (Offer globalOffer : globalOffers) {
-            if (!offers.contains(globalOffer) && verifyMaxCustomerUsageThreshold(order, globalOffer)) {
+            if (!addedOffers.contains(globalOffer) && verifyMaxCustomerUsageThreshold(order, globalOffer)) {
+                addedOffers.add(globalOffer);
                 offers.add(globalOffer);
             }
         }
@@ -223,6 +263,109 @@ public class OfferServiceImpl implements OfferService {
         return offers;
     }
 
+    /**
+     * Removes the automatic delivery offers whose item criteria cannot be satisfied by any sku, product or category in
+     * the order, using the {@link OfferCandidateIndex}. Returns the offers unchanged if the index is disabled.
+     *
+     * @param order
+     * @param globalOffers the automatic delivery offers
+     * @return the automatic delivery offers that could apply to this order
+     */
+    protected List<Offer> filterAutomaticDeliveryOffers(Order order, List<Offer> globalOffers) {
+        if (!offerCandidateIndexEnabled || globalOffers.isEmpty()) {
+            return globalOffers;
+        }
+        OfferCandidateIndex index = getOfferCandidateIndex(globalOffers);
+        Set<Long> candidateOfferIds = index.getCandidateOfferIds(index.getOrderTerms(order));
+        List<Offer> candidates = new ArrayList<Offer>(candidateOfferIds.size());
+        for (Offer globalOffer : globalOffers) {
+            if (index.isCandidate(globalOffer, candidateOfferIds)) {
+                candidates.add(globalOffer);
+            }
+        }
+        if (LOG.isTraceEnabled()) {
+            LOG.trace(String.format("Offer candidate index reduced %s automatic offers to %s for order %s",
+                    globalOffers.size(), candidates.size(), order.getId()));
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the current {@link OfferCandidateIndex}, rebuilding it if it was built from a different set of offers or
+     * is older than {@link #offerCandidateIndexTtl}. Edited offers are picked up once {@link #invalidateOfferCandidateIndex()}
+     * drops the index after the edit commits. Only one thread rebuilds the index at a time; the others keep
+     * using the previous index unless there is none or it does not cover the given offers.
+     *
+     * @param globalOffers the automatic delivery offers
+     * @return an index covering the given offers
+     */
+    protected OfferCandidateIndex getOfferCandidateIndex(List<Offer> globalOffers) {
+        OfferCandidateIndex index = offerCandidateIndex;
+        if (index != null && index.isIndexOf(globalOffers)) {
+            if (System.currentTimeMillis() - index.getCreationTime() < offerCandidateIndexTtl
+                    || !offerCandidateIndexLock.tryLock()) {
+                return index;
+            }
+        } else {
+            offerCandidateIndexLock.lock();
+        }
+        try {
+            index = offerCandidateIndex;
+            if (index == null || !index.isIndexOf(globalOffers)
+                    || System.currentTimeMillis() - index.getCreationTime() >= offerCandidateIndexTtl) {
+                index = createOfferCandidateIndex(globalOffers);
+                offerCandidateIndex = index;
+            }
+            return index;
+        } finally {
+            offerCandidateIndexLock.unlock();
+        }
+    }
+
+    protected OfferCandidateIndex createOfferCandidateIndex(List<Offer> globalOffers) {
+        return new OfferCandidateIndex(globalOffers);
+    }
+
+    /**
+     * Drops the {@link OfferCandidateIndex} on every node once the current transaction commits, so that no node
+     * rebuilds it from offers read before the change was committed. The event is GLOBAL, so with the
+     * ScheduledJobsAndEvents module installed it is also consumed by the other nodes of the cluster. Only one event is
+     * published per transaction, however many offers and criteria it changes.
+     */
+    @Override
+    public void invalidateOfferCandidateIndex() {
+        if (!offerCandidateIndexEnabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.hasResource(offerCandidateIndexInvalidationKey)) {
+                return;
+            }
+            TransactionSynchronizationManager.bindResource(offerCandidateIndexInvalidationKey, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(offerCandidateIndexInvalidationKey);
+                }
+            });
+        }
+        eventPublisher.publishEvent(new BroadleafSystemEvent(OFFER_CANDIDATE_INDEX_INVALIDATION_EVENT_TYPE,
+                new HashMap<>(), BroadleafEventScopeType.GLOBAL, BroadleafEventWorkerType.ANY, true));
+    }
+
+    @Override
+    public void onApplicationEvent(BroadleafSystemEvent event) {
+        if (OFFER_CANDIDATE_INDEX_INVALIDATION_EVENT_TYPE.equals(event.getType())) {
+            offerCandidateIndex = null;
+        }
+    }
+
+    @Override
+    public boolean isAsynchronous() {
+        return false;
+    }
+
     @Override
     public List<OfferCode> buildOfferCodeListForCustomer(Order order) {
         Customer customer = order.getCustomer();
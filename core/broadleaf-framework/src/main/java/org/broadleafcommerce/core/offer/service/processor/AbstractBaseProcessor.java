@@ -19,7 +19,6 @@ package org.broadleafcommerce.core.offer.service.processor;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.Predicate;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,6 +27,7 @@ import org.broadleafcommerce.common.TimeDTO;
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.common.rule.MvelHelper;
 import org.broadleafcommerce.common.time.SystemTime;
+import org.broadleafcommerce.common.util.ConcurrentTinyLFUMap;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
@@ -46,6 +46,7 @@ import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.service.type.FulfillmentType;
 import org.broadleafcommerce.profile.core.domain.Customer;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -69,7 +70,7 @@ import javax.annotation.Resource;
 public abstract class AbstractBaseProcessor implements BaseProcessor {
 
     private static final Log LOG = LogFactory.getLog(AbstractBaseProcessor.class);
-    private static final Map EXPRESSION_CACHE = new LRUMap(1000);
+    private static final Map<String, Serializable> EXPRESSION_CACHE = new ConcurrentTinyLFUMap<>(1000);
 
     @Resource(name = "blOfferTimeZoneProcessor")
     protected OfferTimeZoneProcessor offerTimeZoneProcessor;
@@ -289,13 +290,21 @@ public abstract class AbstractBaseProcessor implements BaseProcessor {
      * @return a Boolean object containing the result of executing the MVEL expression
      */
     public Boolean executeExpression(String expression, Map<String, Object> vars) {
-        Map<String, Class<?>> contextImports = new HashMap<>();
-
         expression = usePriceBeforeAdjustments(expression);
+        return MvelHelper.evaluateRule(expression, vars, EXPRESSION_CACHE, getContextImports());
+
+    }
+
+    @Override
+    public void precompileExpression(String expression) {
+        MvelHelper.compileRule(usePriceBeforeAdjustments(expression), null, EXPRESSION_CACHE, getContextImports());
+    }
+
+    protected Map<String, Class<?>> getContextImports() {
+        Map<String, Class<?>> contextImports = new HashMap<>();
         contextImports.put("OfferType", OfferType.class);
         contextImports.put("FulfillmentType", FulfillmentType.class);
-        return MvelHelper.evaluateRule(expression, vars, EXPRESSION_CACHE, contextImports);
-
+        return contextImports;
     }
 
     protected String usePriceBeforeAdjustments(String expression) {
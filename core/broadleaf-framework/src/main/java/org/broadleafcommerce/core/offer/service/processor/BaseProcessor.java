@@ -30,5 +30,14 @@ import java.util.List;
 public interface BaseProcessor {
     
     public List<Offer> filterOffers(List<Offer> offers, Customer customer);
+
+    /**
+     * Compiles an offer rule into the expression cache used when offer rules are evaluated, without evaluating it
+     * 
+     * @param expression the offer rule
+     */
+    public default void precompileExpression(String expression) {
+        // rules are compiled on their first evaluation unless the implementation supports precompiling them
+    }
     
 }
@@ -44,6 +44,7 @@ import org.broadleafcommerce.core.offer.service.type.OfferItemRestrictionRuleTyp
 import org.broadleafcommerce.core.offer.service.type.OfferType;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.domain.dto.OrderItemHolder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -69,6 +70,17 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
     
     protected static final Log LOG = LogFactory.getLog(ItemOfferProcessorImpl.class);
 
+    /**
+     * The most item offer permutations that {@link #determineBestPermutation(List, PromotableOrder)} evaluates for an
+     * order. The offers in their default order are always evaluated first, and when the limit is reached the best
+     * permutation found so far is used. Values below one leave the number unbounded.
+     * <p>
+     * The bound is a count rather than a time so that the same cart is always priced the same way, whatever the load
+     * on the machine.
+     */
+    @Value("${pricing.item.offer.permutations.max.evaluated:-1}")
+    protected int maxEvaluatedPermutations = -1;
+
     public ItemOfferProcessorImpl(PromotableOfferUtility promotableOfferUtility) {
         super(promotableOfferUtility);
     }
@@ -629,27 +641,8 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
         List<List<PromotableCandidateItemOffer>> permutations = buildItemOfferPermutations(itemOffers);
         removeDuplicatePermutations(permutations);
         List<PromotableCandidateItemOffer> bestOfferList = null;
-        Money lowestSubtotal = null;
         if (permutations.size() > 1) {
-            for (List<PromotableCandidateItemOffer> offerList : permutations) {
-                for (PromotableCandidateItemOffer offer : offerList) {
-                    offer.resetUses();
-                }
-                
-                applyAllItemOffers(offerList, order);
-                chooseSaleOrRetailAdjustments(order);
-                Money testSubtotal = order.calculateSubtotalWithAdjustments();
-
-                if (lowestSubtotal == null || testSubtotal.lessThan(lowestSubtotal)) {
-                    lowestSubtotal = testSubtotal;
-                    bestOfferList = offerList;
-                }
-
-                // clear price details
-                for (PromotableOrderItem item : order.getDiscountableOrderItems()) {
-                    item.resetPriceDetails();
-                }
-            }
+            bestOfferList = determineBestPermutationSequentially(permutations, order);
         } else {
             bestOfferList = permutations.get(0);
         }
@@ -661,6 +654,52 @@ public class ItemOfferProcessorImpl extends OrderOfferProcessorImpl implements I
         return bestOfferList;
     }
 
+    /**
+     * Applies each permutation in turn to the passed in order, resetting the price details of the order between tries.
+     * The first permutation yielding the lowest subtotal wins. The search stops early once
+     * {@link #isPermutationSearchExhausted(int)} says so, keeping the best permutation found up to that point.
+     */
+    protected List<PromotableCandidateItemOffer> determineBestPermutationSequentially(List<List<PromotableCandidateItemOffer>> permutations, PromotableOrder order) {
+        List<PromotableCandidateItemOffer> bestOfferList = null;
+        Money lowestSubtotal = null;
+        int evaluated = 0;
+        for (List<PromotableCandidateItemOffer> offerList : permutations) {
+            if (isPermutationSearchExhausted(evaluated)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Stopped evaluating item offer permutations after " + evaluated + " of " + permutations.size());
+                }
+                break;
+            }
+            evaluated++;
+            for (PromotableCandidateItemOffer offer : offerList) {
+                offer.resetUses();
+            }
+
+            applyAllItemOffers(offerList, order);
+            chooseSaleOrRetailAdjustments(order);
+            Money testSubtotal = order.calculateSubtotalWithAdjustments();
+
+            if (lowestSubtotal == null || testSubtotal.lessThan(lowestSubtotal)) {
+                lowestSubtotal = testSubtotal;
+                bestOfferList = offerList;
+            }
+
+            // clear price details
+            for (PromotableOrderItem item : order.getDiscountableOrderItems()) {
+                item.resetPriceDetails();
+            }
+        }
+        return bestOfferList;
+    }
+
+    /**
+     * @param evaluated the number of permutations evaluated so far
+     * @return whether no further permutations should be evaluated. The first permutation is always evaluated.
+     */
+    protected boolean isPermutationSearchExhausted(int evaluated) {
+        return evaluated > 0 && maxEvaluatedPermutations > 0 && evaluated >= maxEvaluatedPermutations;
+    }
+
     protected void removeDuplicatePermutations(List<List<PromotableCandidateItemOffer>> permutations) {
         Set<List<Long>> offerIdListSet = new HashSet<>();
 
@@ -406,6 +406,16 @@ public class NullOrderImpl implements Order {
         throw new UnsupportedOperationException("NullOrder does not support any modification operations.");
     }
 
+    @Override
+    public OrderChangeJournal getChangeJournal() {
+        return null;
+    }
+
+    @Override
+    public void setChangeJournal(OrderChangeJournal changeJournal) {
+        throw new UnsupportedOperationException("NullOrder does not support any modification operations.");
+    }
+
     @Override
     public Boolean getTaxOverride() {
         return false;
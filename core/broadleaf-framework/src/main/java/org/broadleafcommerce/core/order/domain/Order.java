@@ -537,6 +537,15 @@ public interface Order extends Serializable, MultiTenantCloneable<Order> {
      */
     void setOrderMessages(List<ActivityMessageDTO> orderMessages);
 
+    /**
+     * Transient record of the changes made to this order since it was last priced, or null if pricing results from
+     * a previous run may not be reused. Set once the instance has been priced, or rebuilt by the pricing service when
+     * an order priced in an earlier request is priced again.
+     */
+    OrderChangeJournal getChangeJournal();
+
+    void setChangeJournal(OrderChangeJournal changeJournal);
+
     /**
      * @return whether or not to override the tax calculation
      */
@@ -0,0 +1,149 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.order.domain;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Transient record of what changed on an {@link Order} since it was last priced. The pricing service attaches a journal
+ * to the order after a successful pricing run, the order and fulfillment group services record the kind of change they
+ * make, and the next pricing run only executes the pricing activities whose inputs are among the recorded changes (see
+ * {@link org.broadleafcommerce.core.pricing.service.workflow.IncrementalPricingActivity}).
+ * <p>
+ * An order without a journal, or a journal without any recorded change, is always priced in full. Code that modifies an
+ * order directly instead of going through the order services should call {@link #recordChange(Order, String)} with
+ * {@link #UNKNOWN} so that the next pricing run does not reuse stale results.
+ * <p>
+ * The journal itself is not persisted: it lives on the order instance that was priced. The cart is loaded again at the
+ * start of every request and merged when it is saved, so the pricing service rebuilds the journal of an order loaded in
+ * a later request by comparing the order with a fingerprint taken after its last pricing run (see
+ * {@link org.broadleafcommerce.core.pricing.service.PricingServiceImpl#restoreChangeJournal(Order)}).
+ * <p>
+ * Pricing activities that do not extend
+ * {@link org.broadleafcommerce.core.pricing.service.workflow.AbstractPricingActivity} do not declare what they change,
+ * so once one of them may have run, {@link #UNKNOWN} is recorded and every activity after it runs as well.
+ */
+public class OrderChangeJournal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ORDER_ITEMS = "orderItems";
+    public static final String FULFILLMENT_GROUPS = "fulfillmentGroups";
+    public static final String OFFER_CODES = "offerCodes";
+    public static final String CUSTOMER = "customer";
+    public static final String PAYMENTS = "payments";
+
+    /**
+     * Forces the next pricing run to execute every activity
+     */
+    public static final String UNKNOWN = "unknown";
+
+    // Results produced by the pricing activities themselves
+    public static final String OFFER_ADJUSTMENTS = "offerAdjustments";
+    public static final String FULFILLMENT_FEES = "fulfillmentFees";
+    public static final String FULFILLMENT_ITEMS = "fulfillmentItems";
+    public static final String MERCHANDISE_TOTALS = "merchandiseTotals";
+    public static final String SHIPPING = "shipping";
+    public static final String TAXES = "taxes";
+    public static final String TOTALS = "totals";
+
+    protected Set<String> changes = new LinkedHashSet<>();
+    protected boolean incrementalPricing = false;
+    protected transient Set<String> activitiesAfterUntrackedActivity = Collections.emptySet();
+
+    /**
+     * Records the change on the order's journal, if the order has one
+     */
+    public static void recordChange(Order order, String change) {
+        if (order != null) {
+            OrderChangeJournal journal = order.getChangeJournal();
+            if (journal != null) {
+                journal.recordChange(change);
+            }
+        }
+    }
+
+    public void recordChange(String change) {
+        changes.add(change);
+    }
+
+    public void recordChanges(Collection<String> changes) {
+        this.changes.addAll(changes);
+    }
+
+    public Set<String> getChanges() {
+        return Collections.unmodifiableSet(changes);
+    }
+
+    /**
+     * @return whether the recorded changes allow the order to be priced incrementally
+     */
+    public boolean canPriceIncrementally() {
+        return !changes.isEmpty() && !changes.contains(UNKNOWN);
+    }
+
+    /**
+     * @return whether an activity that depends on the given inputs has to run; an activity that does not declare any
+     * inputs always runs, and so does every activity once {@link #UNKNOWN} has been recorded
+     */
+    public boolean isAffectedBy(Collection<String> inputs) {
+        if (!incrementalPricing || inputs == null || inputs.isEmpty() || changes.contains(UNKNOWN)) {
+            return true;
+        }
+        for (String input : inputs) {
+            if (changes.contains(input)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isIncrementalPricing() {
+        return incrementalPricing;
+    }
+
+    public void setIncrementalPricing(boolean incrementalPricing) {
+        this.incrementalPricing = incrementalPricing;
+    }
+
+    /**
+     * @return whether an activity that does not declare its changes comes before the pricing activity with the given
+     * bean name in the workflow
+     */
+    public boolean isPrecededByUntrackedActivity(String activityName) {
+        return activitiesAfterUntrackedActivity.contains(activityName);
+    }
+
+    public void setActivitiesAfterUntrackedActivity(Set<String> activitiesAfterUntrackedActivity) {
+        this.activitiesAfterUntrackedActivity = activitiesAfterUntrackedActivity == null ? Collections.<String>emptySet()
+                : activitiesAfterUntrackedActivity;
+    }
+
+    /**
+     * Called once the order has been priced; everything recorded so far is reflected in the order's pricing results
+     */
+    public void reset() {
+        changes.clear();
+        incrementalPricing = false;
+    }
+
+}
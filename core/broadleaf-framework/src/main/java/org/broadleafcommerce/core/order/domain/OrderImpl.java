@@ -280,6 +280,9 @@ public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiab
     @Transient
     protected List<ActivityMessageDTO> orderMessages;
 
+    @Transient
+    protected OrderChangeJournal changeJournal;
+
     @Override
     public Long getId() {
         return id;
@@ -872,6 +875,16 @@ public class OrderImpl implements Order, AdminMainEntity, CurrencyCodeIdentifiab
         this.orderMessages = orderMessages;
     }
 
+    @Override
+    public OrderChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+
+    @Override
+    public void setChangeJournal(OrderChangeJournal changeJournal) {
+        this.changeJournal = changeJournal;
+    }
+
     @Override
     public <G extends Order> CreateResponse<G> createOrRetrieveCopyInstance(MultiTenantCopyContext context) throws CloneNotSupportedException {
         CreateResponse<G> createResponse = context.createOrRetrieveCopyInstance(this);
@@ -27,6 +27,7 @@ import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.FulfillmentOption;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.domain.OrderMultishipOption;
 import org.broadleafcommerce.core.order.service.call.FulfillmentGroupItemRequest;
@@ -66,6 +67,7 @@ public class FulfillmentGroupServiceImpl implements FulfillmentGroupService {
     @Override
     @Transactional("blTransactionManager")
     public FulfillmentGroup save(FulfillmentGroup fulfillmentGroup) {
+        OrderChangeJournal.recordChange(fulfillmentGroup.getOrder(), OrderChangeJournal.FULFILLMENT_GROUPS);
         if (fulfillmentGroup.getSequence() == null) {
             fulfillmentGroup.setSequence(
                     fulfillmentGroupDao.readNextFulfillmentGroupSequnceForOrder(
@@ -139,6 +141,7 @@ public class FulfillmentGroupServiceImpl implements FulfillmentGroupService {
                 throw new IllegalArgumentException("Order must not be null");
             }
         }
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.FULFILLMENT_GROUPS);
 
         // 1) Find the order item's existing fulfillment group, if any
         for (FulfillmentGroup fg : order.getFulfillmentGroups()) {
@@ -205,6 +208,7 @@ public class FulfillmentGroupServiceImpl implements FulfillmentGroupService {
     @Override
     @Transactional("blTransactionManager")
     public void removeOrderItemFromFullfillmentGroups(Order order, OrderItem orderItem) {
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.FULFILLMENT_GROUPS);
         List<FulfillmentGroup> fulfillmentGroups = order.getFulfillmentGroups();
         for (FulfillmentGroup fulfillmentGroup : fulfillmentGroups) {
             Iterator<FulfillmentGroupItem> itr = fulfillmentGroup.getFulfillmentGroupItems().iterator();
@@ -291,6 +295,7 @@ public class FulfillmentGroupServiceImpl implements FulfillmentGroupService {
         }
 
 
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.FULFILLMENT_GROUPS);
         return orderService.save(order, priceOrder);
     }
 
@@ -425,6 +430,7 @@ public class FulfillmentGroupServiceImpl implements FulfillmentGroupService {
             }
         }
 
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.FULFILLMENT_GROUPS);
         return orderService.save(order, priceOrder);
     }
 
@@ -452,6 +458,7 @@ public class FulfillmentGroupServiceImpl implements FulfillmentGroupService {
                 iterator.remove();
                 fulfillmentGroupDao.delete(fulfillmentGroup);
             }
+            OrderChangeJournal.recordChange(order, OrderChangeJournal.FULFILLMENT_GROUPS);
             order = orderService.save(order, priceOrder);
         }
         return order;
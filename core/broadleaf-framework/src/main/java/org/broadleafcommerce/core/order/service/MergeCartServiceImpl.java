@@ -22,6 +22,7 @@ import org.broadleafcommerce.core.order.domain.BundleOrderItem;
 import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
 import org.broadleafcommerce.core.order.domain.GiftWrapOrderItem;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.service.call.MergeCartResponse;
 import org.broadleafcommerce.core.order.service.call.ReconstructCartResponse;
@@ -181,6 +182,7 @@ public class MergeCartServiceImpl implements MergeCartService {
 
     protected void setNewCartOwnership(Order cart, Customer customer) {
         cart.setCustomer(customer);
+        OrderChangeJournal.recordChange(cart, OrderChangeJournal.CUSTOMER);
 
         // copy the customer's email to this order, overriding any previously set email
         if (cart != null && StringUtils.isNotBlank(customer.getEmailAddress())) {
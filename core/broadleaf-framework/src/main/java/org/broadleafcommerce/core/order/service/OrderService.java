@@ -26,6 +26,8 @@ import org.broadleafcommerce.core.order.dao.OrderDao;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.service.call.ActivityMessageDTO;
+import org.broadleafcommerce.core.order.service.call.AddItemsResponse;
+import org.broadleafcommerce.core.order.service.call.AddToCartItems;
 import org.broadleafcommerce.core.order.service.call.GiftWrapOrderItemRequest;
 import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
 import org.broadleafcommerce.core.order.service.exception.AddToCartException;
@@ -396,6 +398,43 @@ public interface OrderService {
      */
     public Order addItemWithPriceOverrides(Long orderId, OrderItemRequestDTO orderItemRequestDTO, boolean priceOrder) throws AddToCartException;
 
+    /**
+     * Adds several items to the Order at once, such as from a quick order form or a reorder. Each line goes through the
+     * same addItem workflow as {@link #addItem(Long, OrderItemRequestDTO, boolean)}, but the Order is only priced once,
+     * after the last line, instead of after every line. All of the lines are added within a single transaction, each in
+     * a savepoint of its own, and each line is flushed to the database once it is done.
+     * 
+     * A line that cannot be added does not prevent the others from being added; its {@link AddToCartException} is
+     * reported in the response under the index of the line. As with {@link #addItem(Long, OrderItemRequestDTO, boolean)},
+     * override prices on the requests are cleared.
+     * 
+     * A failed line is rolled back to its savepoint, including anything the workflow added for it before failing, such
+     * as its item when one of its child items fails. The persistence context is cleared at the same time, so entities
+     * loaded before the call are detached once a line fails. Callers that need all or nothing should check the errors of
+     * the response and roll back the surrounding transaction if there are any. The transaction manager must allow
+     * nested transactions.
+     *
+     * @param orderId
+     * @param orderItemRequestDTOs the lines to add, in order
+     * @param priceOrder whether to price the order once all of the lines have been added
+     * @return the order and the errors of the lines that could not be added
+     * @throws AddToCartException if the order does not exist or cannot be priced
+     */
+    public AddItemsResponse addItems(Long orderId, List<OrderItemRequestDTO> orderItemRequestDTOs, boolean priceOrder) throws AddToCartException;
+
+    /**
+     * Adds the rows of an {@link AddToCartItems} form through {@link #addItems(Long, List, boolean)}. Rows without a
+     * positive quantity are left out, as a form usually contains rows the customer did not fill in. The indexes of any
+     * errors in the response refer to the rows of the form.
+     *
+     * @param orderId
+     * @param addToCartItems
+     * @param priceOrder
+     * @return the order and the errors of the rows that could not be added
+     * @throws AddToCartException if the order does not exist or cannot be priced
+     */
+    public AddItemsResponse addItems(Long orderId, AddToCartItems addToCartItems, boolean priceOrder) throws AddToCartException;
+
     public int getTotalChildOrderItems(OrderItemRequestDTO orderItemRequestDTO);
 
     public void addChildItems(OrderItemRequestDTO orderItemRequestDTO, int numAdditionRequests, int currentAddition, ProcessContext<CartOperationRequest> context, List<ActivityMessageDTO> orderMessages) throws WorkflowException;
@@ -30,6 +30,7 @@ import org.broadleafcommerce.common.util.TypedPredicate;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.catalog.domain.Sku;
+import org.broadleafcommerce.core.inventory.service.ContextualInventoryService;
 import org.broadleafcommerce.core.offer.dao.OfferDao;
 import org.broadleafcommerce.core.offer.domain.Offer;
 import org.broadleafcommerce.core.offer.domain.OfferCode;
@@ -46,9 +47,12 @@ import org.broadleafcommerce.core.order.domain.GiftWrapOrderItem;
 import org.broadleafcommerce.core.order.domain.NullOrderFactory;
 import org.broadleafcommerce.core.order.domain.NullOrderImpl;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.domain.OrderItem;
 import org.broadleafcommerce.core.order.domain.OrderItemAttribute;
 import org.broadleafcommerce.core.order.service.call.ActivityMessageDTO;
+import org.broadleafcommerce.core.order.service.call.AddItemsResponse;
+import org.broadleafcommerce.core.order.service.call.AddToCartItems;
 import org.broadleafcommerce.core.order.service.call.GiftWrapOrderItemRequest;
 import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
 import org.broadleafcommerce.core.order.service.exception.AddToCartException;
@@ -81,12 +85,14 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -212,6 +218,9 @@ public class OrderServiceImpl implements OrderService {
     @Resource(name = "blOfferServiceExtensionManager")
     protected OfferServiceExtensionManager offerServiceExtensionManager;
 
+    @Resource(name = "blInventoryService")
+    protected ContextualInventoryService inventoryService;
+
 
     @Override
     @Transactional("blTransactionManager")
@@ -312,6 +321,7 @@ public class OrderServiceImpl implements OrderService {
     public OrderPayment addPaymentToOrder(Order order, OrderPayment payment, Referenced securePaymentInfo) {
         payment.setOrder(order);
         order.getPayments().add(payment);
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.PAYMENTS);
         order = persist(order);
         int paymentIndex = order.getPayments().size() - 1;
 
@@ -326,6 +336,7 @@ public class OrderServiceImpl implements OrderService {
     public Order save(Order order, boolean priceOrder, boolean repriceItems) throws PricingException {
         if (repriceItems) {
             order.updatePrices();
+            OrderChangeJournal.recordChange(order, OrderChangeJournal.ORDER_ITEMS);
         }
         return save(order, priceOrder);
     }
@@ -451,12 +462,14 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional("blTransactionManager")
     public void cancelOrder(Order order) {
+        inventoryService.releaseInventoryReservation(order);
         orderDao.delete(order);
     }
 
     @Override
     @Transactional("blTransactionManager")
     public void deleteOrder(Order order) {
+        inventoryService.releaseInventoryReservation(order);
         orderMultishipOptionService.deleteAllOrderMultishipOptions(order);
         orderDao.delete(order);
     }
@@ -491,6 +504,7 @@ public class OrderServiceImpl implements OrderService {
                 order.getAddedOfferCodes().add(offerCode);
 
             }
+            OrderChangeJournal.recordChange(order, OrderChangeJournal.OFFER_CODES);
             order = save(order, priceOrder);
         }
 
@@ -502,6 +516,7 @@ public class OrderServiceImpl implements OrderService {
     public Order removeOfferCode(Order order, OfferCode offerCode, boolean priceOrder) throws PricingException {
         order.getAddedOfferCodes().remove(offerCode);
         offerServiceExtensionManager.removeOfferCodeFromOrder(offerCode, order);
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.OFFER_CODES);
         order = save(order, priceOrder);
         return order;   
     }
@@ -510,6 +525,7 @@ public class OrderServiceImpl implements OrderService {
     @Transactional("blTransactionManager")
     public Order removeAllOfferCodes(Order order, boolean priceOrder) throws PricingException {
          order.getAddedOfferCodes().clear();
+         OrderChangeJournal.recordChange(order, OrderChangeJournal.OFFER_CODES);
          order = save(order, priceOrder);
          return order;  
     }
@@ -686,6 +702,7 @@ public class OrderServiceImpl implements OrderService {
             int currentAddition = 1;
 
             CartOperationRequest cartOpRequest = new CartOperationRequest(findOrderById(orderId), orderItemRequestDTO, currentAddition == numAdditionRequests);
+            OrderChangeJournal.recordChange(cartOpRequest.getOrder(), OrderChangeJournal.ORDER_ITEMS);
 
             Session session = em.unwrap(Session.class);
             FlushMode current = session.getHibernateFlushMode();
@@ -720,6 +737,121 @@ public class OrderServiceImpl implements OrderService {
 
     }
 
+    @Override
+    @Transactional(value = "blTransactionManager", rollbackFor = { AddToCartException.class })
+    public AddItemsResponse addItems(Long orderId, List<OrderItemRequestDTO> orderItemRequestDTOs, boolean priceOrder) throws AddToCartException {
+        Order order = findOrderById(orderId);
+        if (order == null) {
+            throw new AddToCartException("Could not add to cart", new IllegalArgumentException("Order could not be found"));
+        }
+        AddItemsResponse response = new AddItemsResponse();
+        List<ActivityMessageDTO> orderMessages = new ArrayList<ActivityMessageDTO>();
+
+        //Everything pending must reach the database before the first savepoint, so that discarding the persistence
+        //context after a failed line only discards the changes of that line
+        em.flush();
+        TransactionTemplate lineTemplate = new TransactionTemplate(transactionManager);
+        lineTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        Session session = em.unwrap(Session.class);
+        FlushMode current = session.getHibernateFlushMode();
+        if (!autoFlushAddToCart) {
+            //Each line is flushed once, when it is done, rather than by the queries issued while adding it
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+        }
+        try {
+            for (int i = 0; i < orderItemRequestDTOs.size(); i++) {
+                try {
+                    order = addItemInSavepoint(lineTemplate, orderId, orderItemRequestDTOs.get(i));
+                    if (order.getOrderMessages() != null) {
+                        orderMessages.addAll(order.getOrderMessages());
+                    }
+                } catch (AddToCartException e) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Could not add line " + i + " to order " + orderId, e);
+                    }
+                    response.getErrors().put(i, e);
+                    order = findOrderById(orderId);
+                }
+            }
+
+            if (priceOrder) {
+                try {
+                    order = save(order, true);
+                } catch (PricingException e) {
+                    throw new AddToCartException("Could not price the order after adding the items", e);
+                }
+            }
+        } finally {
+            if (!autoFlushAddToCart) {
+                session.setHibernateFlushMode(current);
+            }
+        }
+
+        order.setOrderMessages(orderMessages);
+        response.setOrder(order);
+        return response;
+    }
+
+    /**
+     * Adds a single line of {@link #addItems(Long, List, boolean)} within a savepoint. If the line fails, the database
+     * is rolled back to the savepoint and the persistence context is cleared, since it still holds whatever the
+     * workflow added for the line before it failed. The lines added before were flushed when they completed, so they
+     * are unaffected.
+     *
+     * @param lineTemplate a template with {@link TransactionDefinition#PROPAGATION_NESTED}
+     * @param orderId
+     * @param orderItemRequestDTO
+     * @return the order with the line added
+     * @throws AddToCartException if the line could not be added, after it has been undone
+     */
+    protected Order addItemInSavepoint(TransactionTemplate lineTemplate, final Long orderId, final OrderItemRequestDTO orderItemRequestDTO) throws AddToCartException {
+        final AddToCartException[] failure = new AddToCartException[1];
+        Order order = lineTemplate.execute(status -> {
+            try {
+                Order result = addItem(orderId, orderItemRequestDTO, false);
+                em.flush();
+                return result;
+            } catch (AddToCartException e) {
+                failure[0] = e;
+            } catch (RuntimeException e) {
+                failure[0] = new AddToCartException("Could not add to cart", e);
+            }
+            status.setRollbackOnly();
+            return null;
+        });
+        if (failure[0] != null) {
+            em.clear();
+            throw failure[0];
+        }
+        return order;
+    }
+
+    @Override
+    @Transactional(value = "blTransactionManager", rollbackFor = { AddToCartException.class })
+    public AddItemsResponse addItems(Long orderId, AddToCartItems addToCartItems, boolean priceOrder) throws AddToCartException {
+        List<OrderItemRequestDTO> orderItemRequestDTOs = new ArrayList<OrderItemRequestDTO>();
+        List<Integer> rows = new ArrayList<Integer>();
+        List<OrderItemRequestDTO> items = addToCartItems.getAddToCartItems();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemRequestDTO item = items.get(i);
+            if (item != null && item.getQuantity() != null && item.getQuantity() > 0) {
+                orderItemRequestDTOs.add(item);
+                rows.add(i);
+            }
+        }
+
+        AddItemsResponse response = addItems(orderId, orderItemRequestDTOs, priceOrder);
+
+        // Report the errors against the rows of the form rather than the filtered list
+        Map<Integer, AddToCartException> errors = new LinkedHashMap<Integer, AddToCartException>();
+        for (Map.Entry<Integer, AddToCartException> error : response.getErrors().entrySet()) {
+            errors.put(rows.get(error.getKey()), error.getValue());
+        }
+        response.setErrors(errors);
+        return response;
+    }
+
     @Override
     public int getTotalChildOrderItems(OrderItemRequestDTO orderItemRequestDTO) {
         int count = 1;
@@ -788,6 +920,7 @@ public class OrderServiceImpl implements OrderService {
         
         try {
             CartOperationRequest cartOpRequest = new CartOperationRequest(findOrderById(orderId), orderItemRequestDTO, priceOrder);
+            OrderChangeJournal.recordChange(cartOpRequest.getOrder(), OrderChangeJournal.ORDER_ITEMS);
             Session session = em.unwrap(Session.class);
             FlushMode current = session.getHibernateFlushMode();
             if (!autoFlushUpdateCart) {
@@ -852,6 +985,7 @@ public class OrderServiceImpl implements OrderService {
         OrderItemRequestDTO orderItemRequestDTO = new OrderItemRequestDTO();
         orderItemRequestDTO.setOrderItemId(orderItemId);
         CartOperationRequest cartOpRequest = new CartOperationRequest(findOrderById(orderId), orderItemRequestDTO, priceOrder);
+        OrderChangeJournal.recordChange(cartOpRequest.getOrder(), OrderChangeJournal.ORDER_ITEMS);
         Session session = em.unwrap(Session.class);
         FlushMode current = session.getHibernateFlushMode();
         if (!autoFlushRemoveFromCart) {
@@ -939,6 +1073,7 @@ public class OrderServiceImpl implements OrderService {
             }
         }
         order.getPayments().removeAll(infos);
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.PAYMENTS);
         for (OrderPayment paymentInfo : infos) {
             try {
                 securePaymentInfoService.findAndRemoveSecurePaymentInfo(paymentInfo.getReferenceNumber(), paymentInfo.getType());
@@ -962,6 +1097,7 @@ public class OrderServiceImpl implements OrderService {
             }
         }
         order.getPayments().removeAll(infos);
+        OrderChangeJournal.recordChange(order, OrderChangeJournal.PAYMENTS);
         for (OrderPayment paymentInfo : infos) {
             try {
                 securePaymentInfoService.findAndRemoveSecurePaymentInfo(paymentInfo.getReferenceNumber(), paymentInfo.getType());
@@ -992,6 +1128,7 @@ public class OrderServiceImpl implements OrderService {
                 LOG.debug("No secure payment is associated with the OrderPayment", e);
             }
             order.getPayments().remove(paymentToRemove);
+            OrderChangeJournal.recordChange(order, OrderChangeJournal.PAYMENTS);
             payment = paymentDao.readPaymentById(paymentToRemove.getId());
             paymentDao.delete(payment);
         }
@@ -1088,6 +1225,7 @@ public class OrderServiceImpl implements OrderService {
     public Order updateProductOptionsForItem(Long orderId, OrderItemRequestDTO orderItemRequestDTO, boolean priceOrder) throws UpdateCartException {
         try {
             CartOperationRequest cartOpRequest = new CartOperationRequest(findOrderById(orderId), orderItemRequestDTO, priceOrder);
+            OrderChangeJournal.recordChange(cartOpRequest.getOrder(), OrderChangeJournal.ORDER_ITEMS);
             ProcessContext<CartOperationRequest> context = (ProcessContext<CartOperationRequest>) updateProductOptionsForItemWorkflow.doActivities(cartOpRequest);
             context.getSeedData().getOrder().getOrderMessages().addAll(((ActivityMessages) context).getActivityMessages());
             return context.getSeedData().getOrder();
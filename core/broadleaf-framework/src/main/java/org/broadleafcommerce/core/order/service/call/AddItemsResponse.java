@@ -0,0 +1,62 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.order.service.call;
+
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.service.OrderService;
+import org.broadleafcommerce.core.order.service.exception.AddToCartException;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of {@link OrderService#addItems(Long, java.util.List, boolean)}: the order once every line that could be added
+ * has been added, and the reason each remaining line could not be, keyed by the position of the line in the request.
+ */
+public class AddItemsResponse implements Serializable {
+    protected static final long serialVersionUID = 1L;
+
+    protected Order order;
+
+    protected Map<Integer, AddToCartException> errors = new LinkedHashMap<Integer, AddToCartException>();
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    /**
+     * @return the exception raised for each line that could not be added, keyed by its index in the request
+     */
+    public Map<Integer, AddToCartException> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<Integer, AddToCartException> errors) {
+        this.errors = errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+}
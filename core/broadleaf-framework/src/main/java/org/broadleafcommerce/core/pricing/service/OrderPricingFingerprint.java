@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.pricing.service;
+
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Digests of the state of an order at the end of a pricing run: one per kind of change tracked by
+ * {@link OrderChangeJournal}, one of the remaining inputs that are not tracked separately, and one of the pricing
+ * results. Comparing the fingerprint taken after the last pricing run with one taken from the order as it was loaded in
+ * a later request tells which kinds of change happened in between, and whether the pricing results on the order are
+ * still the ones that run produced. Instances are immutable.
+ */
+public class OrderPricingFingerprint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final Map<String, String> inputs;
+    protected final String untrackedInputs;
+    protected final String results;
+
+    /**
+     * @param inputs the digest of each tracked input, keyed by the change constant of the journal
+     * @param untrackedInputs the digest of the inputs that are not tracked separately
+     * @param results the digest of the pricing results
+     */
+    public OrderPricingFingerprint(Map<String, String> inputs, String untrackedInputs, String results) {
+        this.inputs = Collections.unmodifiableMap(new HashMap<>(inputs));
+        this.untrackedInputs = untrackedInputs;
+        this.results = results;
+    }
+
+    /**
+     * @return whether the pricing results of both fingerprints are the same, in which case the results on the order
+     * can be built upon
+     */
+    public boolean hasSameResults(OrderPricingFingerprint other) {
+        return Objects.equals(results, other.results);
+    }
+
+    /**
+     * @return the tracked inputs whose digests differ between the fingerprints, or {@link OrderChangeJournal#UNKNOWN}
+     * alone if anything that is not tracked separately changed
+     */
+    public Set<String> getChangedInputs(OrderPricingFingerprint other) {
+        Set<String> changed = new LinkedHashSet<>();
+        if (!Objects.equals(untrackedInputs, other.untrackedInputs) || !inputs.keySet().equals(other.inputs.keySet())) {
+            changed.add(OrderChangeJournal.UNKNOWN);
+            return changed;
+        }
+        for (Map.Entry<String, String> entry : inputs.entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.inputs.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    public Map<String, String> getInputs() {
+        return inputs;
+    }
+
+    public String getUntrackedInputs() {
+        return untrackedInputs;
+    }
+
+    public String getResults() {
+        return results;
+    }
+
+}
@@ -17,32 +17,346 @@
  */
 package org.broadleafcommerce.core.pricing.service;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.broadleafcommerce.common.cache.SnapshotCache;
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.core.offer.domain.OfferCode;
+import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
+import org.broadleafcommerce.core.order.domain.NullOrderImpl;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderAttribute;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.domain.OrderItemAttribute;
+import org.broadleafcommerce.core.payment.domain.OrderPayment;
 import org.broadleafcommerce.core.pricing.service.exception.PricingException;
+import org.broadleafcommerce.core.pricing.service.workflow.AbstractPricingActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.OfferActivity;
+import org.broadleafcommerce.core.workflow.Activity;
+import org.broadleafcommerce.core.workflow.BaseProcessor;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.broadleafcommerce.core.workflow.Processor;
 import org.broadleafcommerce.core.workflow.WorkflowException;
+import org.broadleafcommerce.profile.core.domain.Address;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import javax.annotation.Resource;
 
 @Service("blPricingService")
 public class PricingServiceImpl implements PricingService {
 
+    protected static final String FINGERPRINT_CACHE_NAME = "blOrderPricingFingerprints";
+
     @Resource(name="blPricingWorkflow")
     protected Processor pricingWorkflow;
 
+    @Resource(name = "blSnapshotCacheManager")
+    protected SnapshotCacheManager snapshotCacheManager;
+
+    /**
+     * When enabled, an order that has already been priced is repriced by running only the pricing activities affected
+     * by the changes recorded on its {@link OrderChangeJournal} since then. Within a request, the journal travels with
+     * the order instance. When an order is loaded again in a later request, the journal is rebuilt from the
+     * {@link OrderPricingFingerprint} taken after its last pricing run, see {@link #restoreChangeJournal(Order)}.
+     */
+    @Value("${pricing.incremental.enabled:false}")
+    protected boolean incrementalPricingEnabled = false;
+
+    @Value("${pricing.incremental.fingerprint.ttl:1800000}")
+    protected long fingerprintTimeToLive = 1800000L;
+
+    @Value("${pricing.incremental.fingerprint.max.entries:10000}")
+    protected int fingerprintMaxEntries = 10000;
+
+    protected volatile Set<String> activitiesAfterUntrackedActivity;
+
     @Transactional(rollbackFor = PricingException.class)
     public Order executePricing(Order order) throws PricingException {
+        OrderChangeJournal journal = order.getChangeJournal();
+        if (journal == null) {
+            journal = restoreChangeJournal(order);
+        }
+        if (journal != null) {
+            journal.setIncrementalPricing(canPriceIncrementally(order, journal));
+            journal.setActivitiesAfterUntrackedActivity(getActivitiesAfterUntrackedActivity());
+        }
         try {
             ProcessContext<Order> context = (ProcessContext<Order>) pricingWorkflow.doActivities(order);
             Order response = context.getSeedData();
+            startChangeJournal(response);
 
             return response;
         } catch (WorkflowException e) {
+            discardChangeJournal(order);
             throw new PricingException("Unable to execute pricing for order -- id: " + order.getId(), e);
+        } catch (RuntimeException e) {
+            discardChangeJournal(order);
+            throw e;
+        }
+    }
+
+    /**
+     * Orders are priced in full unless incremental pricing is enabled, something was recorded since the last run and
+     * the order is not being priced for checkout, where offers are re-evaluated regardless of what changed.
+     */
+    protected boolean canPriceIncrementally(Order order, OrderChangeJournal journal) {
+        if (!incrementalPricingEnabled || !journal.canPriceIncrementally()) {
+            return false;
+        }
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        Boolean isCheckout = brc == null ? null : (Boolean) brc.getAdditionalProperties().get(OfferActivity.FINALIZE_CHECKOUT);
+        return isCheckout == null || !isCheckout;
+    }
+
+    /**
+     * The results now on the order reflect everything recorded so far, so later changes are tracked from here
+     */
+    protected void startChangeJournal(Order order) {
+        if (!incrementalPricingEnabled || order instanceof NullOrderImpl) {
+            return;
+        }
+        if (order.getChangeJournal() == null) {
+            order.setChangeJournal(new OrderChangeJournal());
+        } else {
+            order.getChangeJournal().reset();
+        }
+        rememberPricingFingerprint(order);
+    }
+
+    /**
+     * Whatever the failed run left on the order cannot be trusted, so the next run prices it in full
+     */
+    protected void discardChangeJournal(Order order) {
+        if (order.getChangeJournal() != null) {
+            order.setChangeJournal(null);
+        }
+        if (order.getId() != null && snapshotCacheManager != null) {
+            getFingerprints().remove(Collections.singletonList(order.getId()));
+        }
+    }
+
+    /**
+     * Rebuilds the journal of an order that was loaded without one, typically because it was priced in an earlier
+     * request. The fingerprint taken after that pricing run is compared with the order as loaded: if the pricing
+     * results on the order are still the ones that run produced, the inputs whose digests differ are recorded as the
+     * changes made since. This catches changes made by other requests, nodes or the admin as well, since it compares
+     * the state rather than relying on the changes having been recorded.
+     *
+     * @return the journal now attached to the order, or null if the order has to be priced in full
+     */
+    protected OrderChangeJournal restoreChangeJournal(Order order) {
+        if (!incrementalPricingEnabled || snapshotCacheManager == null || order.getId() == null
+                || order instanceof NullOrderImpl) {
+            return null;
+        }
+        OrderPricingFingerprint previous = getFingerprints().get(order.getId());
+        if (previous == null) {
+            return null;
+        }
+        OrderPricingFingerprint current = buildPricingFingerprint(order);
+        if (!previous.hasSameResults(current)) {
+            // the order was repriced elsewhere or the results of the last run were never saved
+            return null;
+        }
+        OrderChangeJournal journal = new OrderChangeJournal();
+        journal.recordChanges(previous.getChangedInputs(current));
+        order.setChangeJournal(journal);
+        return journal;
+    }
+
+    protected void rememberPricingFingerprint(Order order) {
+        if (snapshotCacheManager == null || order.getId() == null) {
+            return;
+        }
+        SnapshotCache<Long, OrderPricingFingerprint> fingerprints = getFingerprints();
+        long generation = fingerprints.getGeneration();
+        fingerprints.put(order.getId(), buildPricingFingerprint(order), generation);
+    }
+
+    protected SnapshotCache<Long, OrderPricingFingerprint> getFingerprints() {
+        return snapshotCacheManager.getCache(FINGERPRINT_CACHE_NAME, fingerprintMaxEntries, fingerprintTimeToLive);
+    }
+
+    /**
+     * @return the bean names of the pricing activities that come after an activity which does not extend
+     * {@link AbstractPricingActivity}. The changes such an activity makes are not known, so once it may have run, the
+     * activities after it run as well.
+     */
+    protected Set<String> getActivitiesAfterUntrackedActivity() {
+        Set<String> names = activitiesAfterUntrackedActivity;
+        if (names == null) {
+            names = new LinkedHashSet<>();
+            if (pricingWorkflow instanceof BaseProcessor) {
+                boolean afterUntracked = false;
+                for (Activity<?> activity : ((BaseProcessor<?, ?>) pricingWorkflow).getActivities()) {
+                    if (!(activity instanceof AbstractPricingActivity)) {
+                        afterUntracked = true;
+                    } else if (afterUntracked) {
+                        names.add(activity.getBeanName());
+                    }
+                }
+            }
+            names = Collections.unmodifiableSet(names);
+            activitiesAfterUntrackedActivity = names;
+        }
+        return names;
+    }
+
+    /**
+     * Digests everything the pricing activities read from the order, grouped by the change constants of
+     * {@link OrderChangeJournal}, and everything they write to it. Collections are sorted so that the digest does not
+     * depend on the order in which they were loaded.
+     */
+    protected OrderPricingFingerprint buildPricingFingerprint(Order order) {
+        Map<String, String> inputs = new HashMap<>();
+        inputs.put(OrderChangeJournal.ORDER_ITEMS, digest(describeOrderItems(order)));
+        inputs.put(OrderChangeJournal.FULFILLMENT_GROUPS, digest(describeFulfillmentGroups(order)));
+        inputs.put(OrderChangeJournal.OFFER_CODES, digest(describeOfferCodes(order)));
+        inputs.put(OrderChangeJournal.CUSTOMER, digest(describeCustomer(order)));
+        inputs.put(OrderChangeJournal.PAYMENTS, digest(describePayments(order)));
+        return new OrderPricingFingerprint(inputs, digest(describeUntrackedInputs(order)), digest(describeResults(order)));
+    }
+
+    protected List<String> describeOrderItems(Order order) {
+        List<String> items = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(item.getId()).append('|').append(item.getClass().getName()).append('|').append(item.getName())
+                .append('|').append(item.getQuantity()).append('|').append(money(item.getRetailPrice()))
+                .append('|').append(money(item.getSalePrice()));
+            if (item instanceof DiscreteOrderItem && ((DiscreteOrderItem) item).getSku() != null) {
+                sb.append("|sku ").append(((DiscreteOrderItem) item).getSku().getId());
+            }
+            List<String> attributes = new ArrayList<>();
+            for (OrderItemAttribute attribute : item.getOrderItemAttributes().values()) {
+                attributes.add(attribute.getName() + "=" + attribute.getValue());
+            }
+            Collections.sort(attributes);
+            items.add(sb.append('|').append(attributes).toString());
+        }
+        Collections.sort(items);
+        return items;
+    }
+
+    protected List<String> describeFulfillmentGroups(Order order) {
+        List<String> fulfillmentGroups = new ArrayList<>();
+        for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(fulfillmentGroup.getId()).append('|').append(fulfillmentGroup.getType() == null ? null : fulfillmentGroup.getType().getType())
+                .append('|').append(fulfillmentGroup.getFulfillmentOption() == null ? null : fulfillmentGroup.getFulfillmentOption().getId())
+                .append('|').append(fulfillmentGroup.getShippingOverride());
+            Address address = fulfillmentGroup.getAddress();
+            if (address != null) {
+                sb.append('|').append(address.getId()).append('|').append(address.getAddressLine1())
+                    .append('|').append(address.getCity()).append('|').append(address.getStateProvinceRegion())
+                    .append('|').append(address.getPostalCode())
+                    .append('|').append(address.getIsoCountryAlpha2() == null ? null : address.getIsoCountryAlpha2().getAlpha2());
+            }
+            List<String> items = new ArrayList<>();
+            for (FulfillmentGroupItem item : fulfillmentGroup.getFulfillmentGroupItems()) {
+                items.add((item.getOrderItem() == null ? null : item.getOrderItem().getId()) + "x" + item.getQuantity());
+            }
+            Collections.sort(items);
+            List<String> fees = new ArrayList<>();
+            for (FulfillmentGroupFee fee : fulfillmentGroup.getFulfillmentGroupFees()) {
+                fees.add(fee.getName() + "=" + money(fee.getAmount()));
+            }
+            Collections.sort(fees);
+            fulfillmentGroups.add(sb.append('|').append(items).append('|').append(fees).toString());
+        }
+        Collections.sort(fulfillmentGroups);
+        return fulfillmentGroups;
+    }
+
+    protected List<String> describeOfferCodes(Order order) {
+        List<String> codes = new ArrayList<>();
+        for (OfferCode offerCode : order.getAddedOfferCodes()) {
+            codes.add(offerCode.getOfferCode());
+        }
+        Collections.sort(codes);
+        return codes;
+    }
+
+    protected List<String> describeCustomer(Order order) {
+        if (order.getCustomer() == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(order.getCustomer().getId() + "|" + order.getCustomer().isRegistered());
+    }
+
+    protected List<String> describePayments(Order order) {
+        List<String> payments = new ArrayList<>();
+        for (OrderPayment payment : order.getPayments()) {
+            payments.add(payment.getId() + "|" + (payment.getType() == null ? null : payment.getType().getType())
+                    + "|" + money(payment.getAmount()));
+        }
+        Collections.sort(payments);
+        return payments;
+    }
+
+    /**
+     * Inputs that are not tracked by a change constant of their own. A difference in any of them is recorded as
+     * {@link OrderChangeJournal#UNKNOWN}.
+     */
+    protected List<String> describeUntrackedInputs(Order order) {
+        List<String> inputs = new ArrayList<>();
+        inputs.add("currency " + (order.getCurrency() == null ? null : order.getCurrency().getCurrencyCode()));
+        inputs.add("locale " + (order.getLocale() == null ? null : order.getLocale().getLocaleCode()));
+        inputs.add("status " + (order.getStatus() == null ? null : order.getStatus().getType()));
+        inputs.add("taxOverride " + order.getTaxOverride());
+        List<String> attributes = new ArrayList<>();
+        for (OrderAttribute attribute : order.getOrderAttributes().values()) {
+            attributes.add(attribute.getName() + "=" + attribute.getValue());
         }
+        Collections.sort(attributes);
+        inputs.add("attributes " + attributes);
+        return inputs;
+    }
+
+    /**
+     * Values that only the pricing activities write. Values that are also inputs, such as payment amounts, are covered
+     * by the input digests instead.
+     */
+    protected List<String> describeResults(Order order) {
+        List<String> results = new ArrayList<>();
+        results.add("order " + money(order.getSubTotal()) + "|" + money(order.getTotalShipping()) + "|"
+                + money(order.getTotalFulfillmentCharges()) + "|" + money(order.getTotalTax()) + "|" + money(order.getTotal())
+                + "|" + money(order.getOrderAdjustmentsValue()) + "|" + money(order.getItemAdjustmentsValue()));
+        List<String> fulfillmentGroups = new ArrayList<>();
+        for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            fulfillmentGroups.add(fulfillmentGroup.getId() + "|" + money(fulfillmentGroup.getMerchandiseTotal()) + "|"
+                    + money(fulfillmentGroup.getShippingPrice()) + "|" + money(fulfillmentGroup.getTotalTax()) + "|"
+                    + money(fulfillmentGroup.getTotal()));
+        }
+        Collections.sort(fulfillmentGroups);
+        results.add("fulfillmentGroups " + fulfillmentGroups);
+        return results;
+    }
+
+    /**
+     * The scale of an amount read back from the database can differ from the one it was calculated with
+     */
+    protected String money(Money money) {
+        return money == null ? null : money.getAmount().stripTrailingZeros().toPlainString() + money.getCurrency();
+    }
+
+    protected String digest(List<String> description) {
+        return DigestUtils.md5Hex(String.join("\n", description));
     }
 
 }
@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.pricing.service.workflow;
+
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
+import org.broadleafcommerce.core.workflow.BaseActivity;
+import org.broadleafcommerce.core.workflow.ProcessContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Base class for the pricing activities that can be skipped when an order is priced incrementally. The invalidating and
+ * result changes can be overridden per activity bean through their setters.
+ */
+public abstract class AbstractPricingActivity extends BaseActivity<ProcessContext<Order>> implements IncrementalPricingActivity {
+
+    protected Set<String> invalidatingChanges = Collections.emptySet();
+    protected Set<String> resultChanges = Collections.emptySet();
+
+    /**
+     * Runs the activity unless the order is being priced incrementally and none of its invalidating changes were
+     * recorded. When the activity runs, its result changes are recorded so that the activities after it see them. An
+     * activity that does not extend this class may have run before this one and changed anything, in which case
+     * {@link OrderChangeJournal#UNKNOWN} is recorded first.
+     */
+    @Override
+    public boolean shouldExecute(ProcessContext<Order> context) {
+        Order order = context.getSeedData();
+        OrderChangeJournal journal = order == null ? null : order.getChangeJournal();
+        if (journal == null || !journal.isIncrementalPricing()) {
+            return true;
+        }
+        if (journal.isPrecededByUntrackedActivity(getBeanName())) {
+            journal.recordChange(OrderChangeJournal.UNKNOWN);
+        }
+        if (journal.isAffectedBy(getInvalidatingChanges())) {
+            journal.recordChanges(getResultChanges());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<String> getInvalidatingChanges() {
+        return invalidatingChanges;
+    }
+
+    public void setInvalidatingChanges(Set<String> invalidatingChanges) {
+        this.invalidatingChanges = invalidatingChanges == null ? Collections.<String>emptySet() : new LinkedHashSet<>(invalidatingChanges);
+    }
+
+    @Override
+    public Set<String> getResultChanges() {
+        return resultChanges;
+    }
+
+    public void setResultChanges(Set<String> resultChanges) {
+        this.resultChanges = resultChanges == null ? Collections.<String>emptySet() : new LinkedHashSet<>(resultChanges);
+    }
+
+    protected static Set<String> changes(String... changes) {
+        return new LinkedHashSet<>(Arrays.asList(changes));
+    }
+
+}
@@ -19,8 +19,8 @@ package org.broadleafcommerce.core.pricing.service.workflow;
 
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.payment.domain.OrderPayment;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -66,12 +66,14 @@ import org.springframework.stereotype.Component;
  * @author Elbert Bautista (elbertbautista)
  */
 @Component("blAdjustOrderPaymentsActivity")
-public class AdjustOrderPaymentsActivity extends BaseActivity<ProcessContext<Order>> {
+public class AdjustOrderPaymentsActivity extends AbstractPricingActivity {
     
     public static final int ORDER = 9000;
     
     public AdjustOrderPaymentsActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.PAYMENTS, OrderChangeJournal.TOTALS));
+        setResultChanges(changes(OrderChangeJournal.PAYMENTS));
     }
 
     @Override
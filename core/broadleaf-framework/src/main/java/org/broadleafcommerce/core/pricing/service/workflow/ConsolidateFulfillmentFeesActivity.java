@@ -19,7 +19,7 @@ package org.broadleafcommerce.core.pricing.service.workflow;
 
 import org.apache.commons.lang.StringUtils;
 import org.broadleafcommerce.common.rule.MvelHelper;
-import org.broadleafcommerce.common.util.EfficientLRUMap;
+import org.broadleafcommerce.common.util.ConcurrentTinyLFUMap;
 import org.broadleafcommerce.core.catalog.domain.SkuFee;
 import org.broadleafcommerce.core.catalog.service.type.SkuFeeType;
 import org.broadleafcommerce.core.order.domain.BundleOrderItem;
@@ -28,8 +28,8 @@ import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.service.FulfillmentGroupService;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -44,18 +44,20 @@ import javax.annotation.Resource;
  * @author Phillip Verheyden
  */
 @Component("blConsolidateFulfillmentFeesActivity")
-public class ConsolidateFulfillmentFeesActivity extends BaseActivity<ProcessContext<Order>> {
+public class ConsolidateFulfillmentFeesActivity extends AbstractPricingActivity {
     
     public static final int ORDER = 2000;
     
     @SuppressWarnings("unchecked")
-    protected static final Map EXPRESSION_CACHE = new EfficientLRUMap(1000);
+    protected static final Map EXPRESSION_CACHE = new ConcurrentTinyLFUMap(1000);
     
     @Resource(name = "blFulfillmentGroupService")
     protected FulfillmentGroupService fulfillmentGroupService;
     
     public ConsolidateFulfillmentFeesActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.ORDER_ITEMS, OrderChangeJournal.FULFILLMENT_GROUPS));
+        setResultChanges(changes(OrderChangeJournal.FULFILLMENT_FEES));
     }
 
     @Override
@@ -110,11 +112,11 @@ public class ConsolidateFulfillmentFeesActivity extends BaseActivity<ProcessCont
         String feeExpression = fee.getExpression();
         
         if (StringUtils.isNotEmpty(feeExpression)) {
-            synchronized (EXPRESSION_CACHE) {
-                HashMap<String, Object> vars = new HashMap<>();
-                vars.put("fulfillmentGroup", fulfillmentGroup);
-                MvelHelper.evaluateRule(feeExpression, vars, EXPRESSION_CACHE);
-            }
+            // No lock is needed here: EXPRESSION_CACHE is a concurrent map (MvelHelper synchronizes on any other kind
+            // of cache while compiling), and each evaluation runs the shared compiled expression against its own vars
+            HashMap<String, Object> vars = new HashMap<>();
+            vars.put("fulfillmentGroup", fulfillmentGroup);
+            MvelHelper.evaluateRule(feeExpression, vars, EXPRESSION_CACHE);
         }
         
         return appliesToFulfillmentGroup;
@@ -22,8 +22,8 @@ import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.domain.OrderItem;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -37,12 +37,14 @@ import java.math.BigDecimal;
  * @see {@link FulfillmentGroup#setMerchandiseTotal(Money)}, {@link FulfillmentGroup#getMerchandiseTotal()}
  */
 @Component("blFulfillmentGroupMerchandiseTotalActivity")
-public class FulfillmentGroupMerchandiseTotalActivity extends BaseActivity<ProcessContext<Order>> {
+public class FulfillmentGroupMerchandiseTotalActivity extends AbstractPricingActivity {
 
     public static final int ORDER = 4000;
     
     public FulfillmentGroupMerchandiseTotalActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.FULFILLMENT_GROUPS, OrderChangeJournal.FULFILLMENT_ITEMS));
+        setResultChanges(changes(OrderChangeJournal.MERCHANDISE_TOTALS));
     }
     
     @Override
@@ -21,8 +21,8 @@ import org.broadleafcommerce.common.currency.util.BroadleafCurrencyUtils;
 import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.pricing.service.FulfillmentPricingService;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -39,7 +39,7 @@ import javax.annotation.Resource;
  * @see {@link FulfillmentGroup}, {@link Order}
  */
 @Component("blFulfillmentGroupPricingActivity")
-public class FulfillmentGroupPricingActivity extends BaseActivity<ProcessContext<Order>> {
+public class FulfillmentGroupPricingActivity extends AbstractPricingActivity {
 
     public static final int ORDER = 5000;
     
@@ -48,6 +48,9 @@ public class FulfillmentGroupPricingActivity extends BaseActivity<ProcessContext
 
     public FulfillmentGroupPricingActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.FULFILLMENT_GROUPS, OrderChangeJournal.FULFILLMENT_ITEMS,
+                OrderChangeJournal.MERCHANDISE_TOTALS));
+        setResultChanges(changes(OrderChangeJournal.SHIPPING));
     }
     
     public void setFulfillmentPricingService(FulfillmentPricingService fulfillmentPricingService) {
@@ -24,8 +24,8 @@ import org.broadleafcommerce.common.money.Money;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.domain.OrderItem;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -43,7 +43,7 @@ import java.util.Map;
  * @author Brian Polster 
  */
 @Component("blFulfillmentItemPricingActivity")
-public class FulfillmentItemPricingActivity extends BaseActivity<ProcessContext<Order>> {
+public class FulfillmentItemPricingActivity extends AbstractPricingActivity {
     
     private static final Log LOG = LogFactory.getLog(FulfillmentItemPricingActivity.class);
 
@@ -51,6 +51,9 @@ public class FulfillmentItemPricingActivity extends BaseActivity<ProcessContext<
     
     public FulfillmentItemPricingActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.ORDER_ITEMS, OrderChangeJournal.FULFILLMENT_GROUPS,
+                OrderChangeJournal.OFFER_ADJUSTMENTS));
+        setResultChanges(changes(OrderChangeJournal.FULFILLMENT_ITEMS));
     }
     
     protected BroadleafCurrency getCurrency(FulfillmentGroup fg) {
@@ -0,0 +1,44 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.pricing.service.workflow;
+
+import java.util.Set;
+
+/**
+ * A pricing activity that declares which order changes invalidate its previous results, and which results it
+ * changes when it runs. When an order is priced incrementally (see
+ * {@link org.broadleafcommerce.core.order.domain.OrderChangeJournal}), an activity is skipped unless one of its
+ * invalidating changes has been recorded, either on the order itself or as the result of an activity that ran before it,
+ * in which case the values it set on the order during the previous run are kept.
+ * <p>
+ * The names are the constants defined on {@link org.broadleafcommerce.core.order.domain.OrderChangeJournal}. An activity
+ * that does not declare any invalidating changes always runs.
+ */
+public interface IncrementalPricingActivity {
+
+    /**
+     * @return the changes that require this activity to run again, never null
+     */
+    Set<String> getInvalidatingChanges();
+
+    /**
+     * @return the results this activity changes when it runs, never null
+     */
+    Set<String> getResultChanges();
+
+}
@@ -23,8 +23,8 @@ import org.broadleafcommerce.core.offer.domain.OfferCode;
 import org.broadleafcommerce.core.offer.service.OfferService;
 import org.broadleafcommerce.core.offer.service.OfferValueModifierExtensionManager;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.service.OrderService;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -33,7 +33,7 @@ import java.util.List;
 import javax.annotation.Resource;
 
 @Component("blOfferActivity")
-public class OfferActivity extends BaseActivity<ProcessContext<Order>> {
+public class OfferActivity extends AbstractPricingActivity {
 
     public static final int ORDER = 1000;
     public static final String FINALIZE_CHECKOUT = "FINALIZE_CHECKOUT";
@@ -51,6 +51,9 @@ public class OfferActivity extends BaseActivity<ProcessContext<Order>> {
     
     public OfferActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.ORDER_ITEMS, OrderChangeJournal.OFFER_CODES,
+                OrderChangeJournal.CUSTOMER, OrderChangeJournal.FULFILLMENT_GROUPS));
+        setResultChanges(changes(OrderChangeJournal.OFFER_ADJUSTMENTS));
     }
 
     @Override
@@ -19,14 +19,14 @@ package org.broadleafcommerce.core.pricing.service.workflow;
 
 import org.broadleafcommerce.core.offer.service.ShippingOfferService;
 import org.broadleafcommerce.core.order.domain.Order;
-import org.broadleafcommerce.core.workflow.BaseActivity;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 
 @Component("blShippingOfferActivity")
-public class ShippingOfferActivity extends BaseActivity<ProcessContext<Order>> {
+public class ShippingOfferActivity extends AbstractPricingActivity {
 
     public static final int ORDER = 6000;
     
@@ -35,6 +35,10 @@ public class ShippingOfferActivity extends BaseActivity<ProcessContext<Order>> {
     
     public ShippingOfferActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.ORDER_ITEMS, OrderChangeJournal.OFFER_CODES,
+                OrderChangeJournal.CUSTOMER, OrderChangeJournal.FULFILLMENT_GROUPS,
+                OrderChangeJournal.OFFER_ADJUSTMENTS, OrderChangeJournal.SHIPPING));
+        setResultChanges(changes(OrderChangeJournal.SHIPPING));
     }
 
     @Override
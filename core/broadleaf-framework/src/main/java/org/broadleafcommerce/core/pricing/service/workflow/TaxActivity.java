@@ -18,9 +18,9 @@
 package org.broadleafcommerce.core.pricing.service.workflow;
 
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.pricing.service.TaxService;
 import org.broadleafcommerce.core.pricing.service.module.TaxModule;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -30,7 +30,7 @@ import javax.annotation.Resource;
  * Utilized within the blPricingWorkflow to calculate tax for an {@link Order}
  */
 @Component("blTaxActivity")
-public class TaxActivity extends BaseActivity<ProcessContext<Order>> {
+public class TaxActivity extends AbstractPricingActivity {
 
     public static final int ORDER = 7000;
     
@@ -41,6 +41,11 @@ public class TaxActivity extends BaseActivity<ProcessContext<Order>> {
     
     public TaxActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.ORDER_ITEMS, OrderChangeJournal.FULFILLMENT_GROUPS,
+                OrderChangeJournal.CUSTOMER, OrderChangeJournal.OFFER_ADJUSTMENTS, OrderChangeJournal.FULFILLMENT_FEES,
+                OrderChangeJournal.FULFILLMENT_ITEMS, OrderChangeJournal.MERCHANDISE_TOTALS,
+                OrderChangeJournal.SHIPPING));
+        setResultChanges(changes(OrderChangeJournal.TAXES));
     }
 
     @Override
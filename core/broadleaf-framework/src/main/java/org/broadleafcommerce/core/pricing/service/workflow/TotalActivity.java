@@ -23,8 +23,8 @@ import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
 import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
 import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
 import org.broadleafcommerce.core.order.domain.TaxDetail;
-import org.broadleafcommerce.core.workflow.BaseActivity;
 import org.broadleafcommerce.core.workflow.ProcessContext;
 import org.springframework.stereotype.Component;
 
@@ -39,12 +39,17 @@ import java.math.BigDecimal;
  *
  */
 @Component("blTotalActivity")
-public class TotalActivity extends BaseActivity<ProcessContext<Order>> {
+public class TotalActivity extends AbstractPricingActivity {
 
     public static final int ORDER = 8000;
     
     public TotalActivity() {
         setOrder(ORDER);
+        setInvalidatingChanges(changes(OrderChangeJournal.ORDER_ITEMS, OrderChangeJournal.FULFILLMENT_GROUPS,
+                OrderChangeJournal.OFFER_ADJUSTMENTS, OrderChangeJournal.FULFILLMENT_FEES,
+                OrderChangeJournal.FULFILLMENT_ITEMS, OrderChangeJournal.MERCHANDISE_TOTALS,
+                OrderChangeJournal.SHIPPING, OrderChangeJournal.TAXES));
+        setResultChanges(changes(OrderChangeJournal.TOTALS));
     }
     
     @Override
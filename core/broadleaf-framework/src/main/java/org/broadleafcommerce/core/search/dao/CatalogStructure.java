@@ -19,7 +19,9 @@ package org.broadleafcommerce.core.search.dao;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +33,10 @@ import java.util.Set;
  * (2) All the immediate parent categories for a give category and
  * (3) All the child products for a given category
  * </p>
+ * <p>
+ * Indexing code should prefer the id based accessors (for example {@link #getParentCategoryIdsForProduct(long)}) over the
+ * map getters, since those allow {@link CompactCatalogStructure} to avoid boxing.
+ * </p>
  *
  * @author Jeff Fischer
  */
@@ -67,4 +73,67 @@ public class CatalogStructure implements Serializable {
         this.displayOrdersByCategoryProduct = displayOrdersByCategoryProduct;
     }
 
+    public boolean containsProduct(long productId) {
+        return getParentCategoriesByProduct().containsKey(productId);
+    }
+
+    /**
+     * @return the immediate parent category ids for the product, or null if the product is not part of this structure.
+     * The returned array should not be modified.
+     */
+    public long[] getParentCategoryIdsForProduct(long productId) {
+        return toArray(getParentCategoriesByProduct().get(productId));
+    }
+
+    public void putParentCategoriesForProduct(long productId, Collection<Long> categoryIds) {
+        getParentCategoriesByProduct().put(productId, new HashSet<Long>(categoryIds));
+    }
+
+    public boolean containsCategory(long categoryId) {
+        return getParentCategoriesByCategory().containsKey(categoryId);
+    }
+
+    /**
+     * @return the immediate parent category ids for the category, or null if the category is not part of this structure.
+     * The returned array should not be modified.
+     */
+    public long[] getParentCategoryIdsForCategory(long categoryId) {
+        return toArray(getParentCategoriesByCategory().get(categoryId));
+    }
+
+    public void putParentCategoriesForCategory(long categoryId, Collection<Long> parentCategoryIds) {
+        getParentCategoriesByCategory().put(categoryId, new HashSet<Long>(parentCategoryIds));
+    }
+
+    /**
+     * @return the display order of the product in the category, or null if there is none
+     */
+    public BigDecimal getDisplayOrder(long categoryId, long productId) {
+        return getDisplayOrdersByCategoryProduct().get(categoryId + "-" + productId);
+    }
+
+    /**
+     * @param displayOrderKey a "categoryId-productId" key, as used by {@link #getDisplayOrdersByCategoryProduct()}
+     * @return the display order of the product in the category, or null if there is none
+     */
+    public BigDecimal getDisplayOrder(String displayOrderKey) {
+        return getDisplayOrdersByCategoryProduct().get(displayOrderKey);
+    }
+
+    public void putDisplayOrder(long categoryId, long productId, BigDecimal displayOrder) {
+        getDisplayOrdersByCategoryProduct().put(categoryId + "-" + productId, displayOrder);
+    }
+
+    protected long[] toArray(Collection<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        long[] result = new long[ids.size()];
+        int pos = 0;
+        for (Long id : ids) {
+            result[pos++] = id;
+        }
+        return result;
+    }
+
 }
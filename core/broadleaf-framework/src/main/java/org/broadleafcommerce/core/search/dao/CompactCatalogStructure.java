@@ -0,0 +1,280 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.dao;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link CatalogStructure} that keeps its data in primitive long keyed tables rather than boxed maps:
+ * <ul>
+ *     <li>product and category parents are kept as long[] adjacency lists in an open addressing table</li>
+ *     <li>display orders are kept in an open addressing table keyed by the (categoryId, productId) pair, with the value
+ *     stored as a long scaled by {@link #DISPLAY_ORDER_SCALE} decimal places</li>
+ * </ul>
+ * This keeps the heap used by a whole catalog's structure small enough that a single instance can be built up
+ * incrementally and shared by every page (and every thread) of a reindex run. Access is guarded by a read/write lock,
+ * since reads greatly outnumber writes once the structure is warm.
+ * <p>
+ * The map getters inherited from {@link CatalogStructure} build a read-only snapshot on every call and should be avoided
+ * on hot paths. Unlike the maps of {@link CatalogStructure}, the snapshots are not backed by the structure: code that
+ * used to add to or remove from the returned maps now gets an {@link UnsupportedOperationException}, and must use
+ * {@link #putParentCategoriesForProduct(long, Collection)}, {@link #putParentCategoriesForCategory(long, Collection)},
+ * {@link #putDisplayOrder(long, long, BigDecimal)} or the map setters instead.
+ */
+public class CompactCatalogStructure extends CatalogStructure {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DISPLAY_ORDER_SCALE = 6;
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    protected final LongArrayHashMap productParents;
+    protected final LongArrayHashMap categoryParents;
+    protected final LongPairLongHashMap displayOrders;
+
+    public CompactCatalogStructure() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedProducts a hint of the number of products this structure will hold
+     */
+    public CompactCatalogStructure(int expectedProducts) {
+        productParents = new LongArrayHashMap(expectedProducts);
+        categoryParents = new LongArrayHashMap(Math.max(64, expectedProducts / 16));
+        displayOrders = new LongPairLongHashMap(expectedProducts);
+    }
+
+    @Override
+    public boolean containsProduct(long productId) {
+        lock.readLock().lock();
+        try {
+            return productParents.containsKey(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long[] getParentCategoryIdsForProduct(long productId) {
+        lock.readLock().lock();
+        try {
+            return productParents.get(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void putParentCategoriesForProduct(long productId, Collection<Long> categoryIds) {
+        long[] ids = toArray(categoryIds);
+        lock.writeLock().lock();
+        try {
+            productParents.put(productId, ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsCategory(long categoryId) {
+        lock.readLock().lock();
+        try {
+            return categoryParents.containsKey(categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long[] getParentCategoryIdsForCategory(long categoryId) {
+        lock.readLock().lock();
+        try {
+            return categoryParents.get(categoryId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void putParentCategoriesForCategory(long categoryId, Collection<Long> parentCategoryIds) {
+        long[] ids = toArray(parentCategoryIds);
+        lock.writeLock().lock();
+        try {
+            categoryParents.put(categoryId, ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal getDisplayOrder(long categoryId, long productId) {
+        lock.readLock().lock();
+        try {
+            int index = displayOrders.indexOf(categoryId, productId);
+            return index < 0 ? null : BigDecimal.valueOf(displayOrders.values[index], DISPLAY_ORDER_SCALE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parses the key and looks it up in the primitive table, rather than building the map snapshot
+     */
+    @Override
+    public BigDecimal getDisplayOrder(String displayOrderKey) {
+        int separator = displayOrderKey == null ? -1 : displayOrderKey.indexOf('-', 1);
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            return getDisplayOrder(Long.parseLong(displayOrderKey.substring(0, separator)),
+                    Long.parseLong(displayOrderKey.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void putDisplayOrder(long categoryId, long productId, BigDecimal displayOrder) {
+        long scaled = displayOrder.setScale(DISPLAY_ORDER_SCALE, RoundingMode.DOWN).unscaledValue().longValue();
+        lock.writeLock().lock();
+        try {
+            displayOrders.put(categoryId, productId, scaled);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getProductCount() {
+        lock.readLock().lock();
+        try {
+            return productParents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a read-only snapshot, see the class documentation
+     */
+    @Override
+    public Map<Long, Set<Long>> getParentCategoriesByProduct() {
+        lock.readLock().lock();
+        try {
+            return snapshot(productParents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setParentCategoriesByProduct(Map<Long, Set<Long>> parentCategoriesByProduct) {
+        lock.writeLock().lock();
+        try {
+            productParents.clear();
+            for (Map.Entry<Long, Set<Long>> entry : parentCategoriesByProduct.entrySet()) {
+                productParents.put(entry.getKey(), toArray(entry.getValue()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return a read-only snapshot, see the class documentation
+     */
+    @Override
+    public Map<Long, Set<Long>> getParentCategoriesByCategory() {
+        lock.readLock().lock();
+        try {
+            return snapshot(categoryParents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setParentCategoriesByCategory(Map<Long, Set<Long>> parentCategoriesByCategory) {
+        lock.writeLock().lock();
+        try {
+            categoryParents.clear();
+            for (Map.Entry<Long, Set<Long>> entry : parentCategoriesByCategory.entrySet()) {
+                categoryParents.put(entry.getKey(), toArray(entry.getValue()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return a read-only snapshot, see the class documentation. Use {@link #getDisplayOrder(String)} to look up a
+     * single key.
+     */
+    @Override
+    public Map<String, BigDecimal> getDisplayOrdersByCategoryProduct() {
+        lock.readLock().lock();
+        try {
+            Map<String, BigDecimal> result = new HashMap<>();
+            for (int i = 0; i < displayOrders.used.length; i++) {
+                if (displayOrders.used[i]) {
+                    result.put(displayOrders.firstKeys[i] + "-" + displayOrders.secondKeys[i],
+                            BigDecimal.valueOf(displayOrders.values[i], DISPLAY_ORDER_SCALE));
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void setDisplayOrdersByCategoryProduct(Map<String, BigDecimal> displayOrdersByCategoryProduct) {
+        lock.writeLock().lock();
+        try {
+            displayOrders.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Map.Entry<String, BigDecimal> entry : displayOrdersByCategoryProduct.entrySet()) {
+            String[] ids = entry.getKey().split("-");
+            putDisplayOrder(Long.parseLong(ids[0]), Long.parseLong(ids[1]), entry.getValue());
+        }
+    }
+
+    protected Map<Long, Set<Long>> snapshot(LongArrayHashMap source) {
+        Map<Long, Set<Long>> result = new HashMap<>();
+        for (long key : source.keys()) {
+            Set<Long> ids = new HashSet<>();
+            for (long id : source.get(key)) {
+                ids.add(id);
+            }
+            result.put(key, ids);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.dao;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing (linear probing) map of primitive long keys to long[] values. Used by {@link CompactCatalogStructure}
+ * to hold the category adjacency for a whole catalog without boxing every id into a {@link Long} and every
+ * adjacency list into a {@link java.util.Set}.
+ * <p>
+ * This class is not thread safe. Null values are not supported.
+ */
+class LongArrayHashMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final float LOAD_FACTOR = 0.6f;
+
+    protected long[] keys;
+    protected long[][] values;
+    protected int mask;
+    protected int resizeThreshold;
+    protected int size;
+
+    LongArrayHashMap() {
+        this(64);
+    }
+
+    LongArrayHashMap(int expectedSize) {
+        allocate(LongHashing.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    public long[] get(long key) {
+        int index = LongHashing.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public void put(long key, long[] value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int index = LongHashing.mix(key) & mask;
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(values.length << 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the keys currently in the map, in no particular order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int pos = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result[pos++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    protected void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity][];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    protected void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[][] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
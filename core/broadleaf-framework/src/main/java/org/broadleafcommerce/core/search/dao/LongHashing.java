@@ -0,0 +1,54 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.dao;
+
+/**
+ * Hashing helpers shared by the primitive long keyed maps used by {@link CompactCatalogStructure}
+ */
+final class LongHashing {
+
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private LongHashing() {
+    }
+
+    /**
+     * Spreads sequential database ids across the table so that linear probing doesn't build long clusters
+     */
+    static int mix(long key) {
+        long h = key * GOLDEN_RATIO;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int mix(long first, long second) {
+        return mix(first * 31 + mix(second));
+    }
+
+    /**
+     * @return the smallest power of two table size that holds expectedSize entries without exceeding the load factor
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / loadFactor);
+        if (needed >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        int capacity = Integer.highestOneBit((int) needed);
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+}
@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.dao;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open addressing (linear probing) map of a pair of primitive long keys to a primitive long value. Used by
+ * {@link CompactCatalogStructure} to hold the display order of a product in a category without building a
+ * "categoryId-productId" String key for every entry.
+ * <p>
+ * This class is not thread safe.
+ */
+class LongPairLongHashMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final float LOAD_FACTOR = 0.6f;
+
+    protected long[] firstKeys;
+    protected long[] secondKeys;
+    protected long[] values;
+    protected boolean[] used;
+    protected int mask;
+    protected int resizeThreshold;
+    protected int size;
+
+    LongPairLongHashMap() {
+        this(64);
+    }
+
+    LongPairLongHashMap(int expectedSize) {
+        allocate(LongHashing.tableSizeFor(expectedSize, LOAD_FACTOR));
+    }
+
+    /**
+     * @return the index of the entry for the key pair, or -1 if there is no such entry
+     */
+    public int indexOf(long first, long second) {
+        int index = LongHashing.mix(first, second) & mask;
+        while (used[index]) {
+            if (firstKeys[index] == first && secondKeys[index] == second) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(long first, long second) {
+        return indexOf(first, second) >= 0;
+    }
+
+    /**
+     * @return the value for the key pair, or the defaultValue if there is no such entry
+     */
+    public long get(long first, long second, long defaultValue) {
+        int index = indexOf(first, second);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    public void put(long first, long second, long value) {
+        int index = LongHashing.mix(first, second) & mask;
+        while (used[index]) {
+            if (firstKeys[index] == first && secondKeys[index] == second) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        used[index] = true;
+        firstKeys[index] = first;
+        secondKeys[index] = second;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(values.length << 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    protected void allocate(int capacity) {
+        firstKeys = new long[capacity];
+        secondKeys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    protected void rehash(int capacity) {
+        long[] oldFirstKeys = firstKeys;
+        long[] oldSecondKeys = secondKeys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                put(oldFirstKeys[i], oldSecondKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.stereotype.Repository;
 import com.google.common.collect.BiMap;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,7 +63,17 @@ public class SolrIndexDaoImpl implements SolrIndexDao {
             Map<Long, Set<Long>> parentCategoriesByProduct = new HashMap<>();
             Map<Long, Set<Long>> parentCategoriesByCategory = new HashMap<>();
     
-            Long[] products = productIds.toArray(new Long[productIds.size()]);
+            // The structure may be shared across pages of a reindex, so only read products that it doesn't hold yet
+            List<Long> missingProductIds = new ArrayList<>(productIds.size());
+            for (Long productId : productIds) {
+                if (!catalogStructure.containsProduct(productId)) {
+                    missingProductIds.add(productId);
+                }
+            }
+            if (missingProductIds.isEmpty()) {
+                return;
+            }
+            Long[] products = missingProductIds.toArray(new Long[missingProductIds.size()]);
             BiMap<Long, Long> sandBoxProductToOriginalMap = sandBoxHelper.getSandBoxToOriginalMap(ProductImpl.class, products);
             int batchSize = 800;
             int count = 0;
@@ -85,7 +96,7 @@ public class SolrIndexDaoImpl implements SolrIndexDao {
                     if (reverse.containsKey(sandBoxProductVal)) {
                         sandBoxProductVal = reverse.get(sandBoxProductVal);
                     }
-                    if (!catalogStructure.getParentCategoriesByProduct().containsKey(sandBoxProductVal)) {
+                    if (!catalogStructure.containsProduct(sandBoxProductVal)) {
                         if (!parentCategoriesByProduct.containsKey(sandBoxProductVal)) {
                             parentCategoriesByProduct.put(sandBoxProductVal, new HashSet<Long>());
                         }
@@ -100,11 +111,11 @@ public class SolrIndexDaoImpl implements SolrIndexDao {
 
                     // Cache the display order bigdecimals
                     BigDecimal displayOrder = (item.getDisplayOrder() == null) ? new BigDecimal("100.00000") : item.getDisplayOrder();
-                    catalogStructure.getDisplayOrdersByCategoryProduct().put(item.getCategory() + "-" + item.getProduct(), displayOrder);
+                    catalogStructure.putDisplayOrder(item.getCategory(), item.getProduct(), displayOrder);
                 }
                 for (Map.Entry<Long, Set<Long>> entry : parentCategoriesByProduct.entrySet()) {
                     for (Long categoryId : entry.getValue()) {
-                        if (!catalogStructure.getParentCategoriesByCategory().containsKey(categoryId)) {
+                        if (!catalogStructure.containsCategory(categoryId)) {
                             Set<Long> hierarchy = new HashSet<>();
                             parentCategoriesByCategory.put(categoryId, hierarchy);
                         }
@@ -114,8 +125,12 @@ public class SolrIndexDaoImpl implements SolrIndexDao {
                 pos = (count * batchSize) < products.length ? (count * batchSize) : products.length;
             }
             readFullCategoryHierarchy(parentCategoriesByCategory, new HashSet<Long>());
-            catalogStructure.getParentCategoriesByProduct().putAll(parentCategoriesByProduct);
-            catalogStructure.getParentCategoriesByCategory().putAll(parentCategoriesByCategory);
+            for (Map.Entry<Long, Set<Long>> entry : parentCategoriesByProduct.entrySet()) {
+                catalogStructure.putParentCategoriesForProduct(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<Long, Set<Long>> entry : parentCategoriesByCategory.entrySet()) {
+                catalogStructure.putParentCategoriesForCategory(entry.getKey(), entry.getValue());
+            }
         } finally {
             context.setInternalIgnoreFilters(oldIgnoreFilters);
         }
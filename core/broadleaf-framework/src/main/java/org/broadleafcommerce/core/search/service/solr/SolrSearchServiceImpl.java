@@ -30,6 +30,7 @@ import org.apache.solr.common.SolrDocument;
 import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.common.extension.ExtensionResultHolder;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
+import org.broadleafcommerce.common.i18n.service.TranslationService;
 import org.broadleafcommerce.common.locale.domain.Locale;
 import org.broadleafcommerce.common.web.BroadleafRequestContext;
 import org.broadleafcommerce.core.catalog.dao.ProductDao;
@@ -38,6 +39,7 @@ import org.broadleafcommerce.core.catalog.domain.Category;
 import org.broadleafcommerce.core.catalog.domain.CategoryProductXref;
 import org.broadleafcommerce.core.catalog.domain.CategoryXref;
 import org.broadleafcommerce.core.catalog.domain.Product;
+import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.search.dao.FieldDao;
 import org.broadleafcommerce.core.search.dao.IndexFieldDao;
 import org.broadleafcommerce.core.search.dao.SearchFacetDao;
@@ -62,6 +64,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URLDecoder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -108,6 +111,16 @@ public class SolrSearchServiceImpl implements SearchService, DisposableBean {
     @Resource(name = "blSolrSearchServiceExtensionManager")
     protected SolrSearchServiceExtensionManager extensionManager;
 
+    @Resource(name = "blTranslationService")
+    protected TranslationService translationService;
+
+    /**
+     * The translatable fields of the default sku that are prefetched for every product of a search result, see
+     * {@link #prefetchTranslations(List)}. Empty by default, which disables the prefetch.
+     */
+    @Value("${solr.search.translation.prefetch.fields:}")
+    protected String[] translationPrefetchFields = new String[0];
+
     @Value("${solr.global.facets.category.search:false}")
     protected boolean globalFacetsForCategorySearch;
 
@@ -598,10 +611,32 @@ public class SolrSearchServiceImpl implements SearchService, DisposableBean {
         }
 
         extensionManager.getProxy().modifySearchResults(responseDocuments, products);
+        prefetchTranslations(products);
 
         return products;
     }
 
+    /**
+     * Loads the translations of the {@link #translationPrefetchFields} of the default skus of the given products in one
+     * query, rather than letting the template look them up one field at a time while rendering the result page.
+     */
+    protected void prefetchTranslations(List<Product> products) {
+        if (products == null || products.isEmpty() || translationPrefetchFields.length == 0) {
+            return;
+        }
+        BroadleafRequestContext brc = BroadleafRequestContext.getBroadleafRequestContext();
+        if (brc == null || brc.getJavaLocale() == null) {
+            return;
+        }
+        List<Sku> defaultSkus = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product.getDefaultSku() != null) {
+                defaultSkus.add(product.getDefaultSku());
+            }
+        }
+        translationService.prefetchTranslations(defaultSkus, Arrays.asList(translationPrefetchFields), brc.getJavaLocale());
+    }
+
     /**
      * Create the wrapper DTO around the SearchFacet
      * 
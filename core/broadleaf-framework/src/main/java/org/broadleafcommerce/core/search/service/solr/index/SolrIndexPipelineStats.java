@@ -0,0 +1,79 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ *
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.service.solr.index;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cross-thread counters for a pipelined reindex run (see {@link SolrIndexServiceImpl#executePipelinedIndexOperation(SolrIndexOperation, Long)}).
+ * The read stage records the number of ids it read and the builders record the number of pages they indexed, each with
+ * the time spent busy, which allows the per-stage throughput to be reported while the pipeline is running and once it
+ * completes.
+ */
+public class SolrIndexPipelineStats {
+
+    protected final long startTime = System.nanoTime();
+
+    protected final AtomicLong readItems = new AtomicLong();
+    protected final AtomicLong readNanos = new AtomicLong();
+    protected final AtomicLong builtPages = new AtomicLong();
+    protected final AtomicLong buildNanos = new AtomicLong();
+
+    public void recordRead(int items, long nanos) {
+        readItems.addAndGet(items);
+        readNanos.addAndGet(nanos);
+    }
+
+    public void recordBuild(int pages, long nanos) {
+        builtPages.addAndGet(pages);
+        buildNanos.addAndGet(nanos);
+    }
+
+    public long getReadItems() {
+        return readItems.get();
+    }
+
+    public long getBuiltPages() {
+        return builtPages.get();
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return a one line summary of the per stage throughput (items per second of wall time) and busy time
+     */
+    public String getThroughputSummary() {
+        long elapsed = Math.max(1L, getElapsedMillis());
+        return String.format("read: %s ids (%s/s, busy %sms), build: %s pages (%s/s, busy %sms), elapsed %sms",
+                readItems.get(), perSecond(readItems.get(), elapsed), TimeUnit.NANOSECONDS.toMillis(readNanos.get()),
+                builtPages.get(), perSecond(builtPages.get(), elapsed), TimeUnit.NANOSECONDS.toMillis(buildNanos.get()),
+                elapsed);
+    }
+
+    protected long perSecond(long count, long elapsedMillis) {
+        return count * 1000L / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return getThroughputSummary();
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
+import org.broadleafcommerce.common.classloader.release.ThreadLocalManager;
 import org.broadleafcommerce.common.exception.ExceptionHelper;
 import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.common.extension.ExtensionResultStatusType;
@@ -34,6 +35,7 @@ import org.broadleafcommerce.common.locale.service.LocaleService;
 import org.broadleafcommerce.common.sandbox.SandBoxHelper;
 import org.broadleafcommerce.common.site.domain.Catalog;
 import org.broadleafcommerce.common.util.BLCCollectionUtils;
+import org.broadleafcommerce.common.util.EntityManagerAwareRunnable;
 import org.broadleafcommerce.common.util.StopWatch;
 import org.broadleafcommerce.common.util.StringUtil;
 import org.broadleafcommerce.common.util.TransactionUtils;
@@ -47,6 +49,7 @@ import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPricingServi
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuActiveDateConsiderationContext;
 import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
 import org.broadleafcommerce.core.search.dao.CatalogStructure;
+import org.broadleafcommerce.core.search.dao.CompactCatalogStructure;
 import org.broadleafcommerce.core.search.dao.FieldDao;
 import org.broadleafcommerce.core.search.dao.IndexFieldDao;
 import org.broadleafcommerce.core.search.dao.SearchFacetDao;
@@ -62,6 +65,7 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -79,8 +83,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
+import javax.persistence.EntityManager;
 
 
 /**
@@ -94,6 +105,8 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
 
     private static final Log LOG = LogFactory.getLog(SolrIndexServiceImpl.class);
 
+    protected static final long PIPELINE_POLL_INTERVAL = 100L;
+
     @Qualifier("blCatalogSolrConfiguration")
     @Autowired(required = false)
     protected SolrConfiguration solrConfiguration;
@@ -119,6 +132,15 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
     @Value(value = "${solr.catalog.useLegacySolrIndexer:true}")
     protected boolean useLegacySolrIndexer = true;
 
+    @Value("${solr.index.product.pipeline.enabled:false}")
+    protected boolean pipelineEnabled = false;
+
+    @Value("${solr.index.product.pipeline.builderThreads:4}")
+    protected int pipelineBuilderThreads = 4;
+
+    @Value("${solr.index.product.pipeline.queueCapacity:8}")
+    protected int pipelineQueueCapacity = 8;
+
     @Resource(name = "blProductDao")
     protected ProductDao productDao;
 
@@ -168,7 +190,7 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
     @Override
     public void performCachedOperation(SolrIndexCachedOperation.CacheOperation cacheOperation) throws ServiceException {
         try {
-            CatalogStructure cache = new CatalogStructure();
+            CatalogStructure cache = new CompactCatalogStructure();
             SolrIndexCachedOperation.setCache(cache);
             cacheOperation.execute();
         } finally {
@@ -253,25 +275,29 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("There are at most " + numItemsToIndex + " items to index");
                 }
-                performCachedOperation(new SolrIndexCachedOperation.CacheOperation() {
-
-                    @Override
-                    public void execute() throws ServiceException {
-                        int page = 1;
-                        Long lastId = null;
-                        Long remainingNumItemsToIndex = numItemsToIndex;
-                        Long totalPages = getTotalPageCount(numItemsToIndex);
-
-                        while (remainingNumItemsToIndex > 0) {
-                            String pageNumberMessage = buildPageNumberMessage(page, totalPages);
-                            LOG.info(pageNumberMessage);
-
-                            lastId = buildIncrementalIndex(pageSize, lastId, operation);
-                            remainingNumItemsToIndex -= pageSize;
-                            page++;
+                if (isPipelinedIndexOperation(operation)) {
+                    executePipelinedIndexOperation(operation, numItemsToIndex);
+                } else {
+                    performCachedOperation(new SolrIndexCachedOperation.CacheOperation() {
+
+                        @Override
+                        public void execute() throws ServiceException {
+                            int page = 1;
+                            Long lastId = null;
+                            Long remainingNumItemsToIndex = numItemsToIndex;
+                            Long totalPages = getTotalPageCount(numItemsToIndex);
+
+                            while (remainingNumItemsToIndex > 0) {
+                                String pageNumberMessage = buildPageNumberMessage(page, totalPages);
+                                LOG.info(pageNumberMessage);
+
+                                lastId = buildIncrementalIndex(pageSize, lastId, operation);
+                                remainingNumItemsToIndex -= pageSize;
+                                page++;
+                            }
                         }
-                    }
-                });
+                    });
+                }
 
             } finally {
                 restoreState(pack);
@@ -283,6 +309,288 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
         }
     }
 
+    /**
+     * Whether or not the given operation should be executed with {@link #executePipelinedIndexOperation(SolrIndexOperation, Long)}
+     * rather than page by page on the calling thread. By default, only full reindex operations are pipelined and only when
+     * the "solr.index.product.pipeline.enabled" property is true.
+     * 
+     * @param operation
+     * @return
+     */
+    protected boolean isPipelinedIndexOperation(SolrIndexOperation operation) {
+        return pipelineEnabled && operation instanceof GlobalSolrFullReIndexOperation;
+    }
+
+    /**
+     * Executes a full reindex with several pages in flight at once rather than one page at a time:
+     * <ol>
+     *     <li>the calling thread reads pages of ids using keyset paging (see {@link #readIndexableIds(int, Long)}) and
+     *     splits the ids into ranges of roughly {@link #pageSize} items</li>
+     *     <li>a pool of "solr.index.product.pipeline.builderThreads" workers each take a range and index it with
+     *     {@link #buildIncrementalIndex(int, Long, SolrIndexOperation)}, exactly as the sequential path does for a page</li>
+     * </ol>
+     * The operation therefore still reads the {@link Indexable}s with {@link SolrIndexOperation#readIndexables(int, Long)}
+     * and indexes them with {@link SolrIndexOperation#buildPage(List)}, surrounded by the before and after hooks. The ids
+     * only decide where each builder starts and stops. A builder keeps reading pages until it reaches the end of its
+     * range, so ranges that do not line up with the pages of the operation can only cause an item to be indexed twice,
+     * never to be missed.
+     * <p>
+     * The stages are joined by a bounded queue of "solr.index.product.pipeline.queueCapacity" ranges, so slow builders
+     * apply backpressure to the reader. This runs inside of the lock already obtained by
+     * {@link #executeSolrIndexOperation(SolrIndexOperation)}.
+     * 
+     * @param operation
+     * @param numItemsToIndex
+     * @throws ServiceException
+     */
+    protected void executePipelinedIndexOperation(final SolrIndexOperation operation, final Long numItemsToIndex) throws ServiceException {
+        final BlockingQueue<PipelineRange> ranges = new ArrayBlockingQueue<>(pipelineQueueCapacity);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final SolrIndexPipelineStats stats = new SolrIndexPipelineStats();
+        final Object[] parentState = saveState();
+
+        ThreadPoolTaskExecutor executor = createPipelineExecutor();
+        try {
+            List<Future<?>> builders = new ArrayList<>();
+            for (int i = 0; i < pipelineBuilderThreads; i++) {
+                builders.add(executor.submit(createPipelineBuilder(operation, parentState, ranges, failure, stats)));
+            }
+
+            try {
+                readPipelinedRanges(ranges, failure, stats, numItemsToIndex);
+            } finally {
+                offerToPipeline(ranges, PipelineRange.END, failure);
+                awaitPipelineStage(builders, failure);
+            }
+        } finally {
+            executor.shutdown();
+            LOG.info(String.format("Pipelined indexing operation finished - %s", stats.getThroughputSummary()));
+        }
+
+        if (failure.get() != null) {
+            if (failure.get() instanceof ServiceException) {
+                throw (ServiceException) failure.get();
+            }
+            throw new ServiceException("Could not rebuild index", failure.get());
+        }
+    }
+
+    protected ThreadPoolTaskExecutor createPipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("solr-reindex-pipeline-");
+        executor.setCorePoolSize(pipelineBuilderThreads);
+        executor.setMaxPoolSize(pipelineBuilderThreads);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * The read stage of the pipeline. Reads pages of {@link #pageSize} ids and hands a range ending at the last id of
+     * each page to the builders. The final range is open ended, so anything the operation reads beyond the last id is
+     * still indexed.
+     */
+    protected void readPipelinedRanges(BlockingQueue<PipelineRange> ranges, AtomicReference<Exception> failure,
+            SolrIndexPipelineStats stats, Long numItemsToIndex) {
+        Long lastId = null;
+        while (failure.get() == null) {
+            long start = System.nanoTime();
+            List<Long> ids;
+            TransactionStatus status = TransactionUtils.createTransaction("readIdsToIndex",
+                    TransactionDefinition.PROPAGATION_REQUIRED, transactionManager, true);
+            try {
+                ids = readIndexableIds(pageSize, lastId);
+                TransactionUtils.finalizeTransaction(status, transactionManager, false);
+            } catch (RuntimeException e) {
+                TransactionUtils.finalizeTransaction(status, transactionManager, true);
+                failure.compareAndSet(null, e);
+                return;
+            }
+            if (CollectionUtils.isEmpty(ids)) {
+                offerToPipeline(ranges, new PipelineRange(lastId, null), failure);
+                return;
+            }
+            stats.recordRead(ids.size(), System.nanoTime() - start);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Read %s of at most %s ids to index - %s", stats.getReadItems(), numItemsToIndex, stats));
+            }
+            Long rangeEnd = ids.get(ids.size() - 1);
+            if (ids.size() < pageSize) {
+                offerToPipeline(ranges, new PipelineRange(lastId, null), failure);
+                return;
+            }
+            if (!offerToPipeline(ranges, new PipelineRange(lastId, rangeEnd), failure)) {
+                return;
+            }
+            lastId = rangeEnd;
+        }
+    }
+
+    /**
+     * The build stage of the pipeline. Each builder binds its own {@link EntityManager}, {@link BroadleafRequestContext}
+     * and {@link CatalogStructure} cache.
+     *
+     * @param parentState the state of the thread that started the reindex, as returned by {@link #saveState()}
+     */
+    protected Runnable createPipelineBuilder(final SolrIndexOperation operation, final Object[] parentState,
+            final BlockingQueue<PipelineRange> ranges, final AtomicReference<Exception> failure, final SolrIndexPipelineStats stats) {
+        return new EntityManagerAwareRunnable() {
+
+            @Override
+            protected void executeInternal() throws Exception {
+                buildPipelinedRanges(operation, parentState, ranges, failure, stats, getEntityManager());
+            }
+
+            @Override
+            protected void registerError(Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        };
+    }
+
+    /**
+     * Indexes ranges handed over by the reader until the reader is done or one of the stages has failed. The persistence
+     * context is cleared after every page so that memory stays flat.
+     * <p>
+     * The builder starts from the request context and the dynamic sku pricing and active date considerations of the
+     * thread that started the reindex, and removes them again when it is done, as its thread goes back to the pool.
+     * 
+     * @param parentState the state of the thread that started the reindex, as returned by {@link #saveState()}
+     * @param entityManager the entity manager bound to the builder thread, or null if there is none to clear
+     */
+    protected void buildPipelinedRanges(SolrIndexOperation operation, Object[] parentState,
+            BlockingQueue<PipelineRange> ranges, AtomicReference<Exception> failure, SolrIndexPipelineStats stats,
+            EntityManager entityManager) throws ServiceException {
+        restoreState(parentState);
+        BroadleafRequestContext parentContext = (BroadleafRequestContext) parentState[0];
+        if (parentContext != null) {
+            BroadleafRequestContext.setBroadleafRequestContext(parentContext.createLightWeightClone());
+        }
+        SolrIndexCachedOperation.setCache(new CompactCatalogStructure());
+        try {
+            while (failure.get() == null) {
+                PipelineRange range = pollFromPipeline(ranges, failure);
+                if (range == null) {
+                    return;
+                }
+                if (range == PipelineRange.END) {
+                    // leave the marker in place for the other builders
+                    offerToPipeline(ranges, PipelineRange.END, failure);
+                    return;
+                }
+                Long lastId = range.getLastId();
+                while (failure.get() == null) {
+                    long start = System.nanoTime();
+                    Long pageLastId = buildIncrementalIndex(pageSize, lastId, operation);
+                    stats.recordBuild(1, System.nanoTime() - start);
+                    if (entityManager != null) {
+                        entityManager.clear();
+                    }
+                    if (pageLastId == null || (range.getEndId() != null && pageLastId >= range.getEndId())) {
+                        break;
+                    }
+                    lastId = pageLastId;
+                }
+            }
+        } finally {
+            SolrIndexCachedOperation.clearCache();
+            ThreadLocalManager.remove();
+        }
+    }
+
+    /**
+     * Reads a page of ids to index, in ascending order, that are greater than the lastId. Used by the read stage of
+     * the pipelined reindex to split the work into ranges.
+     * 
+     * @param pageSize
+     * @param lastId the last id of the previous page, or null for the first page
+     * @return
+     */
+    protected List<Long> readIndexableIds(int pageSize, Long lastId) {
+        return productDao.readAllActiveProductIds(lastId, pageSize);
+    }
+
+    /**
+     * Blocks until the item could be handed to the next stage, giving up if the pipeline has failed in the meantime.
+     * 
+     * @return whether or not the item was queued
+     */
+    protected <T> boolean offerToPipeline(BlockingQueue<T> queue, T item, AtomicReference<Exception> failure) {
+        try {
+            while (failure.get() == null) {
+                if (queue.offer(item, PIPELINE_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        return false;
+    }
+
+    /**
+     * Blocks until an item is available from the previous stage, giving up if the pipeline has failed in the meantime.
+     * 
+     * @return the item, or null if the pipeline failed
+     */
+    protected <T> T pollFromPipeline(BlockingQueue<T> queue, AtomicReference<Exception> failure) {
+        try {
+            while (failure.get() == null) {
+                T item = queue.poll(PIPELINE_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        return null;
+    }
+
+    protected void awaitPipelineStage(List<Future<?>> stage, AtomicReference<Exception> failure) {
+        for (Future<?> future : stage) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * A range of ids handed from the read stage to the build stage of a pipelined reindex
+     */
+    protected static class PipelineRange {
+
+        protected static final PipelineRange END = new PipelineRange(null, null);
+
+        protected final Long lastId;
+        protected final Long endId;
+
+        protected PipelineRange(Long lastId, Long endId) {
+            this.lastId = lastId;
+            this.endId = endId;
+        }
+
+        /**
+         * @return the last id before the range, or null if the range starts at the beginning
+         */
+        public Long getLastId() {
+            return lastId;
+        }
+
+        /**
+         * @return the last id of the range, or null if the range is open ended
+         */
+        public Long getEndId() {
+            return endId;
+        }
+    }
+
     protected long getTotalPageCount(Long numItemsToIndex) {
         long numPagesToIndex = numItemsToIndex / pageSize;
         boolean hasRemainingItemsToIndex = numItemsToIndex % pageSize != 0;
@@ -584,17 +892,18 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
         extensionManager.getProxy().attachAdditionalBasicFields(indexable, document, shs);
 
         Long cacheKey = this.shs.getCurrentProductId(indexable); // current
-        if (!cache.getParentCategoriesByProduct().containsKey(cacheKey)) {
+        if (!containsProduct(cache, cacheKey)) {
             cacheKey = sandBoxHelper.getOriginalId(cacheKey); // parent
-            if (!cache.getParentCategoriesByProduct().containsKey(cacheKey)) {
+            if (!containsProduct(cache, cacheKey)) {
                 cacheKey = shs.getIndexableId(indexable); // master
             }
         }
 
         // TODO: figure this out more generally; this doesn't work for CMS content
         // The explicit categories are the ones defined by the product itself
-        if (cache.getParentCategoriesByProduct().containsKey(cacheKey)) {
-            for (Long categoryId : cache.getParentCategoriesByProduct().get(cacheKey)) {
+        long[] categoryIds = cacheKey == null ? null : cache.getParentCategoryIdsForProduct(cacheKey);
+        if (categoryIds != null) {
+            for (Long categoryId : categoryIds) {
                 document.addField(shs.getExplicitCategoryFieldName(), shs.getCategoryId(categoryId));
 
                 // Make sure that we're always referencing the parent for the sort field
@@ -603,12 +912,10 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
                 // by product id is the overridden versions. Need to always look at parent version for cache stuff, which
                 // is given from shs.getCategoryId
                 // First try the current level
-                String displayOrderKey = categoryId + "-" + cacheKey;
-                Long displayOrder = convertDisplayOrderToLong(cache, displayOrderKey);
+                Long displayOrder = convertDisplayOrderToLong(cache, categoryId, cacheKey);
                 if (displayOrder == null) {
                     // Didn't find the cache at the current level, this might be an override so look upwards
-                    displayOrderKey = shs.getCategoryId(categoryId) + "-" + cacheKey;
-                    displayOrder = convertDisplayOrderToLong(cache, displayOrderKey);
+                    displayOrder = convertDisplayOrderToLong(cache, shs.getCategoryId(categoryId), cacheKey);
                 }
                 
                 if (document.getField(categorySortFieldName) == null && displayOrder != null) {
@@ -636,7 +943,10 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
             document.addField(shs.getCategoryFieldName(), catIdToAdd);
         }
 
-        Set<Long> parents = cache.getParentCategoriesByCategory().get(categoryId);
+        long[] parents = cache.getParentCategoryIdsForCategory(categoryId);
+        if (parents == null) {
+            return;
+        }
         for (Long parent : parents) {
             if (!indexedParents.contains(parent)) {
                 indexedParents.add(parent);
@@ -726,7 +1036,8 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
              BroadleafRequestContext.getBroadleafRequestContext(),
              SkuPricingConsiderationContext.getSkuPricingConsiderationContext(),
              SkuPricingConsiderationContext.getSkuPricingService(),
-             SkuActiveDateConsiderationContext.getSkuActiveDatesService()
+             SkuActiveDateConsiderationContext.getSkuActiveDatesService(),
+             SkuActiveDateConsiderationContext.getSkuActiveDateConsiderationContext()
          };
      }
          
@@ -737,6 +1048,9 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
          SkuPricingConsiderationContext.setSkuPricingConsiderationContext((HashMap) pack[1]);
          SkuPricingConsiderationContext.setSkuPricingService((DynamicSkuPricingService) pack[2]);
          SkuActiveDateConsiderationContext.setSkuActiveDatesService((DynamicSkuActiveDatesService) pack[3]);
+         if (pack.length > 4) {
+             SkuActiveDateConsiderationContext.setSkuActiveDateConsiderationContext((HashMap) pack[4]);
+         }
      }
      
     @Override
@@ -789,7 +1103,7 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
      * @return
      */
     protected Long convertDisplayOrderToLong(CatalogStructure cache, String displayOrderKey) {
-        BigDecimal displayOrder = cache.getDisplayOrdersByCategoryProduct().get(displayOrderKey);
+        BigDecimal displayOrder = cache.getDisplayOrder(displayOrderKey);
 
         if (displayOrder == null) {
             return null;
@@ -798,6 +1112,32 @@ public class SolrIndexServiceImpl implements SolrIndexService, InitializingBean
         return displayOrder.multiply(BigDecimal.valueOf(1000000)).longValue();
     }
 
+    /**
+     * Same as {@link #convertDisplayOrderToLong(CatalogStructure, String)}, but looks up the display order by id
+     * rather than by a "categoryId-productId" key
+     *
+     * @param cache
+     * @param categoryId
+     * @param productId
+     * @return
+     */
+    protected Long convertDisplayOrderToLong(CatalogStructure cache, Long categoryId, Long productId) {
+        if (categoryId == null || productId == null) {
+            return null;
+        }
+        BigDecimal displayOrder = cache.getDisplayOrder(categoryId, productId);
+
+        if (displayOrder == null) {
+            return null;
+        }
+
+        return displayOrder.multiply(BigDecimal.valueOf(1000000)).longValue();
+    }
+
+    protected boolean containsProduct(CatalogStructure cache, Long productId) {
+        return productId != null && cache.containsProduct(productId);
+    }
+
     @Override
     public void deleteByQuery(String deleteQuery) throws SolrServerException, IOException {
         String productFilter = shs.getTypeFieldName() + ":" + shs.getPrimaryDocumentType();
@@ -164,17 +164,18 @@ public class CatalogDocumentBuilderImpl implements CatalogDocumentBuilder {
         extensionManager.getProxy().attachAdditionalBasicFields(indexable, document, shs);
 
         Long cacheKey = this.shs.getCurrentProductId(indexable); // current
-        if (!cache.getParentCategoriesByProduct().containsKey(cacheKey)) {
+        if (!containsProduct(cache, cacheKey)) {
             cacheKey = sandBoxHelper.getOriginalId(cacheKey); // parent
-            if (!cache.getParentCategoriesByProduct().containsKey(cacheKey)) {
+            if (!containsProduct(cache, cacheKey)) {
                 cacheKey = shs.getIndexableId(indexable); // master
             }
         }
 
         // TODO: figure this out more generally; this doesn't work for CMS content
         // The explicit categories are the ones defined by the product itself
-        if (cache.getParentCategoriesByProduct().containsKey(cacheKey)) {
-            for (Long categoryId : cache.getParentCategoriesByProduct().get(cacheKey)) {
+        long[] categoryIds = cacheKey == null ? null : cache.getParentCategoryIdsForProduct(cacheKey);
+        if (categoryIds != null) {
+            for (Long categoryId : categoryIds) {
                 document.addField(shs.getExplicitCategoryFieldName(), shs.getCategoryId(categoryId));
 
                 // Make sure that we're always referencing the parent for the sort field
@@ -183,12 +184,10 @@ public class CatalogDocumentBuilderImpl implements CatalogDocumentBuilder {
                 // by product id is the overridden versions. Need to always look at parent version for cache stuff, which
                 // is given from shs.getCategoryId
                 // First try the current level
-                String displayOrderKey = categoryId + "-" + cacheKey;
-                Long displayOrder = convertDisplayOrderToLong(cache, displayOrderKey);
+                Long displayOrder = convertDisplayOrderToLong(cache, categoryId, cacheKey);
                 if (displayOrder == null) {
                     // Didn't find the cache at the current level, this might be an override so look upwards
-                    displayOrderKey = shs.getCategoryId(categoryId) + "-" + cacheKey;
-                    displayOrder = convertDisplayOrderToLong(cache, displayOrderKey);
+                    displayOrder = convertDisplayOrderToLong(cache, shs.getCategoryId(categoryId), cacheKey);
                 }
                 
                 if (document.getField(categorySortFieldName) == null && displayOrder != null) {
@@ -209,7 +208,10 @@ public class CatalogDocumentBuilderImpl implements CatalogDocumentBuilder {
             document.addField(shs.getCategoryFieldName(), catIdToAdd);
         }
 
-        Set<Long> parents = cache.getParentCategoriesByCategory().get(categoryId);
+        long[] parents = cache.getParentCategoryIdsForCategory(categoryId);
+        if (parents == null) {
+            return;
+        }
         for (Long parent : parents) {
             if (!indexedParents.contains(parent)) {
                 indexedParents.add(parent);
@@ -248,7 +250,29 @@ public class CatalogDocumentBuilderImpl implements CatalogDocumentBuilder {
      * @return
      */
     protected Long convertDisplayOrderToLong(CatalogStructure cache, String displayOrderKey) {
-        BigDecimal displayOrder = cache.getDisplayOrdersByCategoryProduct().get(displayOrderKey);
+        BigDecimal displayOrder = cache.getDisplayOrder(displayOrderKey);
+
+        if (displayOrder == null) {
+            return null;
+        }
+
+        return displayOrder.multiply(BigDecimal.valueOf(1000000)).longValue();
+    }
+
+    /**
+     * Same as {@link #convertDisplayOrderToLong(CatalogStructure, String)}, but looks up the display order by id
+     * rather than by a "categoryId-productId" key
+     *
+     * @param cache
+     * @param categoryId
+     * @param productId
+     * @return
+     */
+    protected Long convertDisplayOrderToLong(CatalogStructure cache, Long categoryId, Long productId) {
+        if (categoryId == null || productId == null) {
+            return null;
+        }
+        BigDecimal displayOrder = cache.getDisplayOrder(categoryId, productId);
 
         if (displayOrder == null) {
             return null;
@@ -256,6 +280,10 @@ public class CatalogDocumentBuilderImpl implements CatalogDocumentBuilder {
 
         return displayOrder.multiply(BigDecimal.valueOf(1000000)).longValue();
     }
+
+    protected boolean containsProduct(CatalogStructure cache, Long productId) {
+        return productId != null && cache.containsProduct(productId);
+    }
     
     /**
      * This is a simple hook point to allow implementors to override and modify the documents after the default functionality has created them.
@@ -39,6 +39,7 @@ import org.broadleafcommerce.core.catalog.dao.ProductDao;
 import org.broadleafcommerce.core.catalog.domain.Indexable;
 import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.search.dao.CatalogStructure;
+import org.broadleafcommerce.core.search.dao.CompactCatalogStructure;
 import org.broadleafcommerce.core.search.dao.IndexFieldDao;
 import org.broadleafcommerce.core.search.dao.SolrIndexDao;
 import org.broadleafcommerce.core.search.domain.FieldEntity;
@@ -77,6 +78,8 @@ public class CatalogSolrIndexUpdateCommandHandlerImpl extends AbstractSolrIndexU
     
     private static final Log LOG = LogFactory.getLog(CatalogSolrIndexUpdateCommandHandlerImpl.class);
 
+    protected static final String SHARED_CATALOG_STRUCTURE_KEY = "sharedCatalogStructure";
+
     @Qualifier("blCatalogSolrConfiguration")
     @Autowired(required = false)
     protected SolrConfiguration solrConfiguration;
@@ -250,14 +253,35 @@ public class CatalogSolrIndexUpdateCommandHandlerImpl extends AbstractSolrIndexU
     }
     
     protected void performCachedOperation(SolrIndexCachedOperation.CacheOperation cacheOperation) throws ServiceException {
+        performCachedOperation(new CompactCatalogStructure(), cacheOperation);
+    }
+
+    protected void performCachedOperation(CatalogStructure cache, SolrIndexCachedOperation.CacheOperation cacheOperation) throws ServiceException {
         try {
-            CatalogStructure cache = new CatalogStructure();
             SolrIndexCachedOperation.setCache(cache);
             cacheOperation.execute();
         } finally {
             SolrIndexCachedOperation.clearCache();
         }
     }
+
+    /**
+     * Returns the {@link CatalogStructure} shared by every page of the reindex process tracked by the holder. The structure is
+     * thread safe and is filled in incrementally as pages are built, so category hierarchies are only read once per run.
+     * 
+     * @param holder
+     * @return
+     */
+    protected CatalogStructure getSharedCatalogStructure(ReindexStateHolder holder) {
+        synchronized (holder.getAdditionalState()) {
+            CatalogStructure cache = (CatalogStructure) holder.getAdditionalState().get(SHARED_CATALOG_STRUCTURE_KEY);
+            if (cache == null) {
+                cache = new CompactCatalogStructure();
+                holder.getAdditionalState().put(SHARED_CATALOG_STRUCTURE_KEY, cache);
+            }
+            return cache;
+        }
+    }
     
     /**
      * This method populates the index.
@@ -520,7 +544,7 @@ public class CatalogSolrIndexUpdateCommandHandlerImpl extends AbstractSolrIndexU
 
             @Override
             public Void execute() throws Exception {
-                performCachedOperation(new SolrIndexCachedOperation.CacheOperation() {
+                performCachedOperation(getSharedCatalogStructure(holder), new SolrIndexCachedOperation.CacheOperation() {
 
                     @Override
                     public void execute() throws ServiceException {
@@ -21,6 +21,7 @@ import org.broadleafcommerce.common.exception.ServiceException;
 import org.broadleafcommerce.common.site.domain.Catalog;
 import org.broadleafcommerce.common.site.domain.Site;
 import org.broadleafcommerce.core.search.dao.CatalogStructure;
+import org.broadleafcommerce.core.search.dao.CompactCatalogStructure;
 import org.broadleafcommerce.core.search.service.solr.index.SolrIndexCachedOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -63,7 +64,7 @@ public class CatalogSolrIndexUpdateServiceImpl extends AbstractSolrIndexUpdateSe
     @Override
     public void performCachedOperation(SolrIndexCachedOperation.CacheOperation cacheOperation) throws ServiceException {
         try {
-            CatalogStructure cache = new CatalogStructure();
+            CatalogStructure cache = new CompactCatalogStructure();
             SolrIndexCachedOperation.setCache(cache);
             cacheOperation.execute();
         } finally {
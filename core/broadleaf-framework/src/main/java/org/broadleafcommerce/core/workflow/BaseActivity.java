@@ -20,9 +20,12 @@ package org.broadleafcommerce.core.workflow;
 import org.broadleafcommerce.core.workflow.state.RollbackHandler;
 import org.springframework.core.Ordered;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
-public abstract class BaseActivity<T extends ProcessContext<?>> implements Activity<T> {
+public abstract class BaseActivity<T extends ProcessContext<?>> implements Activity<T>, DependentActivity {
     
     protected ErrorHandler errorHandler;
     protected String beanName;
@@ -32,6 +35,9 @@ public abstract class BaseActivity<T extends ProcessContext<?>> implements Activ
     protected Map<String, Object> stateConfiguration;
     protected boolean automaticallyRegisterRollbackHandler = false;
     protected int order = Ordered.LOWEST_PRECEDENCE;
+    protected Set<String> readSet = Collections.emptySet();
+    protected Set<String> writeSet = Collections.emptySet();
+    protected Set<String> dependsOn = Collections.emptySet();
     
     @Override
     public boolean shouldExecute(T context) {
@@ -107,4 +113,31 @@ public abstract class BaseActivity<T extends ProcessContext<?>> implements Activ
         this.order = order;
     }
 
+    @Override
+    public Set<String> getReadSet() {
+        return readSet;
+    }
+
+    public void setReadSet(Set<String> readSet) {
+        this.readSet = readSet == null ? Collections.<String>emptySet() : new LinkedHashSet<>(readSet);
+    }
+
+    @Override
+    public Set<String> getWriteSet() {
+        return writeSet;
+    }
+
+    public void setWriteSet(Set<String> writeSet) {
+        this.writeSet = writeSet == null ? Collections.<String>emptySet() : new LinkedHashSet<>(writeSet);
+    }
+
+    @Override
+    public Set<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public void setDependsOn(Set<String> dependsOn) {
+        this.dependsOn = dependsOn == null ? Collections.<String>emptySet() : new LinkedHashSet<>(dependsOn);
+    }
+
 }
@@ -0,0 +1,383 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.broadleafcommerce.common.web.BroadleafRequestContext;
+import org.broadleafcommerce.core.workflow.state.RollbackStateLocal;
+import org.broadleafcommerce.core.workflow.statistics.WorkflowTimeline;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * A {@link SequenceProcessor} that runs activities which do not depend on each other at the same time.
+ * <p>
+ * Activities that implement {@link DependentActivity} (every {@link BaseActivity} does) and declare a read or write set
+ * are grouped, in their configured order, into stages of mutually independent activities. Two activities conflict when
+ * one writes something the other reads or writes, or when one lists the other in {@link DependentActivity#getDependsOn()}.
+ * Activities that declare nothing are a stage of their own, so a workflow without any declarations behaves exactly like
+ * a {@link SequenceProcessor}.
+ * <p>
+ * The activities of a stage are submitted to a bounded pool shared by all executions of this workflow; the first one
+ * runs on the calling thread, and anything the pool cannot take is run on the calling thread as well. Once the whole
+ * stage is done the results are handled on the calling thread in the configured order, with the same semantics as
+ * {@link SequenceProcessor}: failures go through the rollback handlers and the activity's {@link ErrorHandler}, a stopped
+ * context ends the workflow, and automatic {@link org.broadleafcommerce.core.workflow.state.RollbackHandler}s are
+ * registered. Worker threads share the caller's rollback state and {@link WorkflowTimeline} and get a lightweight clone
+ * of the {@link BroadleafRequestContext}, but they do not take part in the caller's transaction or persistence context,
+ * so only activities that work on state already loaded into the context should declare themselves as independent.
+ * <p>
+ * Activities that run in the same stage must return the context they were given. Concurrency is off unless
+ * {@code workflow.concurrent.activity.threads} is greater than 0.
+ */
+public class DependencyGraphProcessor<U, T> extends SequenceProcessor<U, T> implements DisposableBean {
+
+    private static final Log LOG = LogFactory.getLog(DependencyGraphProcessor.class);
+
+    @Value("${workflow.concurrent.activity.threads:0}")
+    protected int concurrentActivityThreads = 0;
+
+    @Value("${workflow.concurrent.activity.queue.capacity:100}")
+    protected int concurrentActivityQueueCapacity = 100;
+
+    protected volatile List<List<Activity<ProcessContext<U>>>> activityStages;
+    protected volatile ThreadPoolTaskExecutor activityExecutor;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        super.onApplicationEvent(event);
+        activityStages = buildActivityStages(getActivities());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(getBeanName() + " activity stages: " + describeStages(activityStages));
+        }
+    }
+
+    @Override
+    protected ProcessContext<U> executeActivities(List<Activity<ProcessContext<U>>> activities, ProcessContext<U> context,
+                                                  RollbackStateLocal rollbackStateLocal) throws WorkflowException {
+        List<List<Activity<ProcessContext<U>>>> stages = activityStages;
+        if (concurrentActivityThreads <= 0 || stages == null || activities != getActivities()) {
+            return super.executeActivities(activities, context, rollbackStateLocal);
+        }
+        for (List<Activity<ProcessContext<U>>> stage : stages) {
+            List<Activity<ProcessContext<U>>> runnable = new ArrayList<>(stage.size());
+            for (Activity<ProcessContext<U>> activity : stage) {
+                if (activity.shouldExecute(context)) {
+                    runnable.add(activity);
+                } else {
+                    LOG.debug("Not executing activity: " + activity.getBeanName() + " based on the context: " + context);
+                    recordSkippedActivity(activity);
+                }
+            }
+            if (runnable.isEmpty()) {
+                continue;
+            }
+            if (runnable.size() == 1) {
+                Activity<ProcessContext<U>> activity = runnable.get(0);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("running activity:" + activity.getBeanName() + " using arguments:" + context);
+                }
+                Throwable activityException = null;
+                try {
+                    context = invokeActivity(activity, context);
+                } catch (Throwable t) {
+                    activityException = t;
+                }
+                if (completeActivity(activity, context, activityException, rollbackStateLocal)) {
+                    break;
+                }
+            } else {
+                StageResult<U> result = executeStage(runnable, context, rollbackStateLocal);
+                context = result.context;
+                if (result.stopped) {
+                    break;
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Runs the activities of one stage concurrently and then completes them in order on the calling thread
+     */
+    protected StageResult<U> executeStage(List<Activity<ProcessContext<U>>> activities, ProcessContext<U> context,
+                                          RollbackStateLocal rollbackStateLocal) throws WorkflowException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("running activities concurrently:" + describeStage(activities) + " using arguments:" + context);
+        }
+        BroadleafRequestContext parentContext = BroadleafRequestContext.getBroadleafRequestContext();
+        List<Future<Throwable>> futures = new ArrayList<>(activities.size());
+        ThreadPoolTaskExecutor executor = getActivityExecutor();
+        for (int i = 1; i < activities.size(); i++) {
+            futures.add(executor.submit(new ActivityTask(activities.get(i), context, rollbackStateLocal, parentContext)));
+        }
+
+        List<Throwable> exceptions = new ArrayList<>(activities.size());
+        exceptions.add(executeInStage(activities.get(0), context));
+        for (Future<Throwable> future : futures) {
+            exceptions.add(awaitActivity(future));
+        }
+
+        Set<Activity<ProcessContext<U>>> registered = new HashSet<>();
+        for (int i = 0; i < activities.size(); i++) {
+            Activity<ProcessContext<U>> activity = activities.get(i);
+            Throwable activityException = exceptions.get(i);
+            if (activityException != null) {
+                // activities later in the stage already ran, so their rollback handlers must be in place before a
+                // rollback is triggered by this failure
+                for (int j = i + 1; j < activities.size(); j++) {
+                    if (exceptions.get(j) == null && registered.add(activities.get(j))) {
+                        registerRollbackHandler(activities.get(j), context);
+                    }
+                }
+            }
+            boolean stop;
+            if (registered.contains(activity)) {
+                stop = processShouldStop(context, activity);
+            } else {
+                stop = completeActivity(activity, context, activityException, rollbackStateLocal);
+            }
+            if (stop) {
+                return new StageResult<>(context, true);
+            }
+        }
+        return new StageResult<>(context, false);
+    }
+
+    /**
+     * Executes one activity of a concurrent stage and reports its failure, if any
+     */
+    protected Throwable executeInStage(Activity<ProcessContext<U>> activity, ProcessContext<U> context) {
+        try {
+            ProcessContext<U> result = invokeActivity(activity, context);
+            if (result != context) {
+                return new WorkflowException("Activity " + activity.getBeanName() + " replaced the process context while "
+                        + "running concurrently with other activities. Activities that declare a read or write set must "
+                        + "return the context they are given.");
+            }
+            return null;
+        } catch (Throwable t) {
+            return t;
+        }
+    }
+
+    protected Throwable awaitActivity(Future<Throwable> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Splits the ordered activities into consecutive stages. An activity joins the current stage when it declares what
+     * it reads or writes and does not conflict with any activity already in that stage; otherwise it starts a new one.
+     */
+    protected List<List<Activity<ProcessContext<U>>>> buildActivityStages(List<Activity<ProcessContext<U>>> activities) {
+        List<List<Activity<ProcessContext<U>>>> stages = new ArrayList<>();
+        List<Activity<ProcessContext<U>>> current = null;
+        boolean currentIsBarrier = true;
+        for (Activity<ProcessContext<U>> activity : activities) {
+            boolean declared = isDeclared(activity);
+            if (current == null || currentIsBarrier || !declared || conflictsWithStage(activity, current)) {
+                current = new ArrayList<>();
+                stages.add(current);
+                currentIsBarrier = !declared;
+            }
+            current.add(activity);
+        }
+        return stages;
+    }
+
+    protected boolean isDeclared(Activity<ProcessContext<U>> activity) {
+        if (!(activity instanceof DependentActivity)) {
+            return false;
+        }
+        DependentActivity dependent = (DependentActivity) activity;
+        return !isEmpty(dependent.getReadSet()) || !isEmpty(dependent.getWriteSet());
+    }
+
+    protected boolean conflictsWithStage(Activity<ProcessContext<U>> activity, List<Activity<ProcessContext<U>>> stage) {
+        for (Activity<ProcessContext<U>> member : stage) {
+            if (conflicts((DependentActivity) member, member.getBeanName(), (DependentActivity) activity, activity.getBeanName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean conflicts(DependentActivity first, String firstName, DependentActivity second, String secondName) {
+        return contains(second.getDependsOn(), firstName)
+                || contains(first.getDependsOn(), secondName)
+                || intersects(first.getWriteSet(), second.getReadSet())
+                || intersects(first.getWriteSet(), second.getWriteSet())
+                || intersects(second.getWriteSet(), first.getReadSet());
+    }
+
+    protected ThreadPoolTaskExecutor getActivityExecutor() {
+        ThreadPoolTaskExecutor executor = activityExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = activityExecutor;
+                if (executor == null) {
+                    executor = createActivityExecutor();
+                    activityExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Bounded pool shared by all executions of this workflow. When it is saturated, the activity runs on the calling
+     * thread rather than being rejected.
+     */
+    protected ThreadPoolTaskExecutor createActivityExecutor() {
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setThreadNamePrefix(getBeanName() + "-activity-");
+        exec.setCorePoolSize(concurrentActivityThreads);
+        exec.setMaxPoolSize(concurrentActivityThreads);
+        exec.setQueueCapacity(concurrentActivityQueueCapacity);
+        exec.setDaemon(true);
+        exec.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        exec.initialize();
+        return exec;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (activityExecutor != null) {
+            activityExecutor.shutdown();
+        }
+    }
+
+    public List<List<Activity<ProcessContext<U>>>> getActivityStages() {
+        List<List<Activity<ProcessContext<U>>>> stages = activityStages;
+        return stages == null ? Collections.<List<Activity<ProcessContext<U>>>>emptyList() : stages;
+    }
+
+    public int getConcurrentActivityThreads() {
+        return concurrentActivityThreads;
+    }
+
+    public void setConcurrentActivityThreads(int concurrentActivityThreads) {
+        this.concurrentActivityThreads = concurrentActivityThreads;
+    }
+
+    public void setConcurrentActivityQueueCapacity(int concurrentActivityQueueCapacity) {
+        this.concurrentActivityQueueCapacity = concurrentActivityQueueCapacity;
+    }
+
+    protected String describeStages(List<List<Activity<ProcessContext<U>>>> stages) {
+        List<String> descriptions = new ArrayList<>(stages.size());
+        for (List<Activity<ProcessContext<U>>> stage : stages) {
+            descriptions.add(describeStage(stage));
+        }
+        return descriptions.toString();
+    }
+
+    protected String describeStage(List<Activity<ProcessContext<U>>> stage) {
+        List<String> names = new ArrayList<>(stage.size());
+        for (Activity<ProcessContext<U>> activity : stage) {
+            names.add(activity.getBeanName());
+        }
+        return names.toString();
+    }
+
+    protected static boolean isEmpty(Set<String> set) {
+        return set == null || set.isEmpty();
+    }
+
+    protected static boolean contains(Set<String> set, String name) {
+        return set != null && name != null && set.contains(name);
+    }
+
+    protected static boolean intersects(Set<String> first, Set<String> second) {
+        if (isEmpty(first) || isEmpty(second)) {
+            return false;
+        }
+        return !Collections.disjoint(first, second);
+    }
+
+    protected static class StageResult<U> {
+
+        protected final ProcessContext<U> context;
+        protected final boolean stopped;
+
+        public StageResult(ProcessContext<U> context, boolean stopped) {
+            this.context = context;
+            this.stopped = stopped;
+        }
+    }
+
+    /**
+     * Runs an activity on a pool thread with the caller's rollback state and a clone of its request context. As the pool
+     * runs saturated tasks on the submitting thread, whatever was bound before is restored afterwards.
+     */
+    protected class ActivityTask implements Callable<Throwable> {
+
+        protected final Activity<ProcessContext<U>> activity;
+        protected final ProcessContext<U> context;
+        protected final RollbackStateLocal rollbackStateLocal;
+        protected final BroadleafRequestContext parentContext;
+        protected final WorkflowTimeline timeline = WorkflowTimeline.getTimeline();
+
+        public ActivityTask(Activity<ProcessContext<U>> activity, ProcessContext<U> context, RollbackStateLocal rollbackStateLocal,
+                            BroadleafRequestContext parentContext) {
+            this.activity = activity;
+            this.context = context;
+            this.rollbackStateLocal = rollbackStateLocal;
+            this.parentContext = parentContext;
+        }
+
+        @Override
+        public Throwable call() {
+            BroadleafRequestContext previousContext = BroadleafRequestContext.getBroadleafRequestContext();
+            if (parentContext != null) {
+                BroadleafRequestContext.setBroadleafRequestContext(parentContext.createLightWeightClone());
+            }
+            RollbackStateLocal.setRollbackStateLocal(rollbackStateLocal);
+            WorkflowTimeline previousTimeline = WorkflowTimeline.getTimeline();
+            WorkflowTimeline.setTimeline(timeline);
+            try {
+                return executeInStage(activity, context);
+            } finally {
+                WorkflowTimeline.setTimeline(previousTimeline);
+                RollbackStateLocal.clearRollbackStateLocal();
+                BroadleafRequestContext.setBroadleafRequestContext(previousContext);
+            }
+        }
+    }
+
+}
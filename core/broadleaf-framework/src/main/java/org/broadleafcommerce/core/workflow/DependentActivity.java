@@ -0,0 +1,48 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow;
+
+import java.util.Set;
+
+/**
+ * Describes which parts of the {@link ProcessContext} an {@link Activity} reads and writes, and which other activities
+ * (by bean name) it has to run after. {@link DependencyGraphProcessor} uses these declarations to run activities that
+ * do not conflict with each other at the same time.
+ * <p>
+ * The names in the read and write sets are free-form; activities only need to agree on them within a workflow (for
+ * example "orderItems", "fulfillmentGroups", "taxes"). An activity that declares neither set is treated as touching
+ * everything and is never run alongside any other activity.
+ */
+public interface DependentActivity {
+
+    /**
+     * @return the names of the parts of the context this activity reads, never null
+     */
+    Set<String> getReadSet();
+
+    /**
+     * @return the names of the parts of the context this activity modifies, never null
+     */
+    Set<String> getWriteSet();
+
+    /**
+     * @return the bean names of the activities that have to complete before this one starts, never null
+     */
+    Set<String> getDependsOn();
+
+}
@@ -22,7 +22,11 @@ import org.apache.commons.logging.LogFactory;
 import org.broadleafcommerce.core.workflow.state.ActivityStateManager;
 import org.broadleafcommerce.core.workflow.state.ActivityStateManagerImpl;
 import org.broadleafcommerce.core.workflow.state.RollbackFailureException;
+import org.broadleafcommerce.core.workflow.state.RollbackHandler;
 import org.broadleafcommerce.core.workflow.state.RollbackStateLocal;
+import org.broadleafcommerce.core.workflow.statistics.WorkflowStatisticsService;
+import org.broadleafcommerce.core.workflow.statistics.WorkflowTimeline;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
 
@@ -32,6 +36,14 @@ public class SequenceProcessor<U, T> extends BaseProcessor<U, T> {
 
     private ProcessContextFactory<U, T> processContextFactory;
 
+    protected volatile ActivityStateManager activityStateManager;
+
+    /**
+     * Optional so that processors created outside of the Broadleaf application context still run, without statistics
+     */
+    @Autowired(required = false)
+    protected WorkflowStatisticsService workflowStatisticsService;
+
     @Override
     public boolean supports(Activity<? extends ProcessContext<U>> activity) {
         return true;
@@ -47,87 +59,175 @@ public class SequenceProcessor<U, T> extends BaseProcessor<U, T> {
         if (LOG.isDebugEnabled()) {
             LOG.debug(getBeanName() + " processor is running..");
         }
-        ActivityStateManager activityStateManager = getBeanFactory().getBean(ActivityStateManager.class, "blActivityStateManager");
-        if (activityStateManager == null) {
-            throw new IllegalStateException("Unable to find an instance of ActivityStateManager registered under bean id blActivityStateManager");
-        }
+        ActivityStateManager activityStateManager = getActivityStateManager();
         ProcessContext<U> context = null;
         
         RollbackStateLocal rollbackStateLocal = new RollbackStateLocal();
         rollbackStateLocal.setThreadId(String.valueOf(Thread.currentThread().getId()));
         rollbackStateLocal.setWorkflowId(getBeanName());
         RollbackStateLocal.setRollbackStateLocal(rollbackStateLocal);
+
+        WorkflowTimeline previousTimeline = WorkflowTimeline.getTimeline();
+        WorkflowStatisticsService statisticsService = workflowStatisticsService;
+        WorkflowTimeline timeline = statisticsService == null ? null : statisticsService.startWorkflow(getBeanName());
+        WorkflowTimeline.setTimeline(timeline);
         
         try {
-            //retrieve injected by Spring
-            List<Activity<ProcessContext<U>>> activities = getActivities();
-
             //retrieve a new instance of the Workflow ProcessContext
             context = createContext(seedData);
 
-            for (Activity<ProcessContext<U>> activity : activities) {
-                if (activity.shouldExecute(context)) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("running activity:" + activity.getBeanName() + " using arguments:" + context);
-                    }
-    
-                    try {
-                        context = activity.execute(context);
-                    } catch (Throwable activityException) {
-                        RollbackFailureException rollbackFailure = null;
-                        if (getAutoRollbackOnError()) {
-                            LOG.info(String.format("Exception ocurred in %s, executing rollback handlers", rollbackStateLocal.getWorkflowId()));
-                            
-                            try {
-                                ActivityStateManagerImpl.getStateManager().rollbackAllState();
-                            } catch (Throwable rollbackException) {
-                                LOG.fatal(String.format("There was an exception rolling back %s", rollbackStateLocal.getWorkflowId()), rollbackException);
-                                
-                                if (rollbackException instanceof RollbackFailureException) {
-                                    rollbackFailure = (RollbackFailureException) rollbackException;
-                                } else {
-                                    rollbackFailure = new RollbackFailureException(rollbackException);
-                                }
-                                
-                                LOG.error(String.format("The original cause of the rollback for %s was", rollbackStateLocal.getWorkflowId()), activityException);
-                                rollbackFailure.setOriginalWorkflowException(activityException);
-                                throw rollbackFailure;
-                            }
-                        }
-                        
-                        ErrorHandler errorHandler = activity.getErrorHandler();
-                        if (errorHandler == null) {
-                            getDefaultErrorHandler().handleError(context, activityException);
-                            break;
-                        } else {
-                            errorHandler.handleError(context, activityException);
-                        }
-                    }
-    
-                    //ensure its ok to continue the process
-                    if (processShouldStop(context, activity)) {
-                        break;
-                    }
-    
-                    //register the RollbackHandler
-                    if (activity.getRollbackHandler() != null && activity.getAutomaticallyRegisterRollbackHandler()) {
-                        ActivityStateManagerImpl.getStateManager().registerState(activity, context, activity.getRollbackRegion(), activity.getRollbackHandler(), activity.getStateConfiguration());
-                    }
-                } else {
-                    LOG.debug("Not executing activity: " + activity.getBeanName() + " based on the context: " + context);
-                }
-            }
+            //execute the activities injected by Spring
+            context = executeActivities(getActivities(), context, rollbackStateLocal);
         } finally {
             rollbackStateLocal = RollbackStateLocal.getRollbackStateLocal();
             if (rollbackStateLocal != null && rollbackStateLocal.getWorkflowId().equals(getBeanName())) {
                 activityStateManager.clearAllState();
             }
+            WorkflowTimeline.setTimeline(previousTimeline);
+            if (timeline != null) {
+                statisticsService.completeWorkflow(timeline);
+            }
         }
         LOG.debug(getBeanName() + " processor is done.");
 
         return (P) context;
     }
 
+    /**
+     * Runs the given activities one after the other against the context, stopping as soon as an activity asks for
+     * the workflow to stop or fails without a dedicated {@link ErrorHandler}.
+     *
+     * @return the context as returned by the last activity that was executed
+     */
+    protected ProcessContext<U> executeActivities(List<Activity<ProcessContext<U>>> activities, ProcessContext<U> context,
+                                                  RollbackStateLocal rollbackStateLocal) throws WorkflowException {
+        for (Activity<ProcessContext<U>> activity : activities) {
+            if (activity.shouldExecute(context)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("running activity:" + activity.getBeanName() + " using arguments:" + context);
+                }
+
+                Throwable activityException = null;
+                try {
+                    context = invokeActivity(activity, context);
+                } catch (Throwable t) {
+                    activityException = t;
+                }
+
+                if (completeActivity(activity, context, activityException, rollbackStateLocal)) {
+                    break;
+                }
+            } else {
+                LOG.debug("Not executing activity: " + activity.getBeanName() + " based on the context: " + context);
+                recordSkippedActivity(activity);
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Executes the activity, recording it on the current {@link WorkflowTimeline} when workflow statistics are being
+     * collected. The measurements are taken on the thread that runs the activity.
+     */
+    protected ProcessContext<U> invokeActivity(Activity<ProcessContext<U>> activity, ProcessContext<U> context) throws Exception {
+        WorkflowTimeline timeline = WorkflowTimeline.getTimeline();
+        if (timeline == null) {
+            return activity.execute(context);
+        }
+        WorkflowTimeline.ActivitySample sample = timeline.startActivity(activity.getBeanName());
+        boolean failed = true;
+        try {
+            ProcessContext<U> result = activity.execute(context);
+            failed = false;
+            return result;
+        } finally {
+            timeline.endActivity(sample, failed);
+        }
+    }
+
+    protected void recordSkippedActivity(Activity<ProcessContext<U>> activity) {
+        WorkflowTimeline timeline = WorkflowTimeline.getTimeline();
+        if (timeline != null) {
+            timeline.activitySkipped(activity.getBeanName());
+        }
+    }
+
+    /**
+     * Handles the outcome of an executed activity: a failure is routed through the rollback handlers (when
+     * {@link #getAutoRollbackOnError()} is set) and the activity's {@link ErrorHandler}, after which the activity's
+     * {@link RollbackHandler} is registered if the workflow is allowed to continue.
+     *
+     * @param activityException the exception thrown by the activity, or null if it completed normally
+     * @return true if no further activities should be executed
+     */
+    protected boolean completeActivity(Activity<ProcessContext<U>> activity, ProcessContext<U> context, Throwable activityException,
+                                       RollbackStateLocal rollbackStateLocal) throws WorkflowException {
+        if (activityException != null) {
+            RollbackFailureException rollbackFailure = null;
+            if (getAutoRollbackOnError()) {
+                LOG.info(String.format("Exception ocurred in %s, executing rollback handlers", rollbackStateLocal.getWorkflowId()));
+                
+                try {
+                    ActivityStateManagerImpl.getStateManager().rollbackAllState();
+                } catch (Throwable rollbackException) {
+                    LOG.fatal(String.format("There was an exception rolling back %s", rollbackStateLocal.getWorkflowId()), rollbackException);
+                    
+                    if (rollbackException instanceof RollbackFailureException) {
+                        rollbackFailure = (RollbackFailureException) rollbackException;
+                    } else {
+                        rollbackFailure = new RollbackFailureException(rollbackException);
+                    }
+                    
+                    LOG.error(String.format("The original cause of the rollback for %s was", rollbackStateLocal.getWorkflowId()), activityException);
+                    rollbackFailure.setOriginalWorkflowException(activityException);
+                    throw rollbackFailure;
+                }
+            }
+            
+            ErrorHandler errorHandler = activity.getErrorHandler();
+            if (errorHandler == null) {
+                getDefaultErrorHandler().handleError(context, activityException);
+                return true;
+            } else {
+                errorHandler.handleError(context, activityException);
+            }
+        }
+
+        //ensure its ok to continue the process
+        if (processShouldStop(context, activity)) {
+            return true;
+        }
+
+        registerRollbackHandler(activity, context);
+        return false;
+    }
+
+    /**
+     * Registers the activity's {@link RollbackHandler} with the {@link ActivityStateManager}, if it has one and asked for
+     * it to be registered automatically
+     */
+    protected void registerRollbackHandler(Activity<ProcessContext<U>> activity, ProcessContext<U> context) {
+        if (activity.getRollbackHandler() != null && activity.getAutomaticallyRegisterRollbackHandler()) {
+            ActivityStateManagerImpl.getStateManager().registerState(activity, context, activity.getRollbackRegion(), activity.getRollbackHandler(), activity.getStateConfiguration());
+        }
+    }
+
+    /**
+     * The {@link ActivityStateManager} is looked up from the bean factory on first use and held on to afterwards, rather
+     * than being resolved again for every workflow execution.
+     */
+    protected ActivityStateManager getActivityStateManager() {
+        ActivityStateManager manager = activityStateManager;
+        if (manager == null) {
+            manager = getBeanFactory().getBean(ActivityStateManager.class, "blActivityStateManager");
+            if (manager == null) {
+                throw new IllegalStateException("Unable to find an instance of ActivityStateManager registered under bean id blActivityStateManager");
+            }
+            activityStateManager = manager;
+        }
+        return manager;
+    }
+
     /**
      * Determine if the process should stop
      *
@@ -81,10 +81,14 @@ public class ActivityStateManagerImpl<T extends ProcessContext<?>> implements Ac
     @Override
     public void registerState(Activity<T> activity, T processContext, String region, RollbackHandler<T> rollbackHandler, Map<String, Object> stateItems) {
         RollbackStateLocal rollbackStateLocal = getRollbackStateLocal();
-        Stack<StateContainer> containers = stateMap.get(rollbackStateLocal.getThreadId() + "_" + rollbackStateLocal.getWorkflowId());
-        if (containers == null) {
-            containers = new Stack<>();
-            stateMap.put(rollbackStateLocal.getThreadId() + "_" + rollbackStateLocal.getWorkflowId(), containers);
+        Stack<StateContainer> containers;
+        // activities run by a DependencyGraphProcessor may register state for the same workflow from several threads
+        synchronized (stateMap) {
+            containers = stateMap.get(rollbackStateLocal.getThreadId() + "_" + rollbackStateLocal.getWorkflowId());
+            if (containers == null) {
+                containers = new Stack<>();
+                stateMap.put(rollbackStateLocal.getThreadId() + "_" + rollbackStateLocal.getWorkflowId(), containers);
+            }
         }
 
         StateContainer stateContainer = new StateContainer();
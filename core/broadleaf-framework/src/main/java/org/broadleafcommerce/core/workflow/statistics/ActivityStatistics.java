@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow.statistics;
+
+import org.broadleafcommerce.common.cache.HistogramStat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated measurements of one activity (or of a whole workflow) across executions
+ */
+public class ActivityStatistics {
+
+    protected final HistogramStat wallNanos = new HistogramStat();
+    protected final HistogramStat cpuNanos = new HistogramStat();
+    protected final HistogramStat allocatedBytes = new HistogramStat();
+    protected final LongAdder skips = new LongAdder();
+    protected final LongAdder failures = new LongAdder();
+
+    public void record(WorkflowTimeline.ActivitySample sample) {
+        wallNanos.record(sample.getWallNanos());
+        if (sample.getCpuNanos() >= 0) {
+            cpuNanos.record(sample.getCpuNanos());
+        }
+        if (sample.getAllocatedBytes() >= 0) {
+            allocatedBytes.record(sample.getAllocatedBytes());
+        }
+        if (sample.isFailed()) {
+            failures.increment();
+        }
+    }
+
+    public void recordWallTime(long nanos) {
+        wallNanos.record(nanos);
+    }
+
+    public void recordSkip() {
+        skips.increment();
+    }
+
+    public HistogramStat getWallNanos() {
+        return wallNanos;
+    }
+
+    public HistogramStat getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public HistogramStat getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getExecutions() {
+        return wallNanos.getCount();
+    }
+
+    public long getSkips() {
+        return skips.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return a one line summary of the execution counts, wall time percentiles, mean CPU time and mean allocation
+     */
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("executions=").append(getExecutions())
+                .append(", skips=").append(getSkips())
+                .append(", failures=").append(getFailures())
+                .append(", wall p50=").append(millis(wallNanos.getValueAtPercentile(50)))
+                .append("ms p99=").append(millis(wallNanos.getValueAtPercentile(99)))
+                .append("ms max=").append(millis(wallNanos.getMax())).append("ms");
+        if (cpuNanos.getCount() > 0) {
+            sb.append(", cpu mean=").append(millis((long) cpuNanos.getMean())).append("ms");
+        }
+        if (allocatedBytes.getCount() > 0) {
+            sb.append(", allocated mean=").append((long) allocatedBytes.getMean() / 1024).append("KB");
+        }
+        return sb.toString();
+    }
+
+    protected String millis(long nanos) {
+        return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,46 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow.statistics;
+
+import java.util.Map;
+
+/**
+ * Collects per-activity timing, CPU time, allocation and skip statistics from workflow executions
+ */
+public interface WorkflowStatisticsService {
+
+    boolean isEnabled();
+
+    /**
+     * @return a new timeline for an execution of the given workflow, or null if statistics are not being collected
+     */
+    WorkflowTimeline startWorkflow(String workflowName);
+
+    /**
+     * Folds a finished timeline into the aggregated statistics and logs it if the workflow was slow
+     */
+    void completeWorkflow(WorkflowTimeline timeline);
+
+    /**
+     * @return the statistics keyed by "workflowName.activityName", plus "workflowName" for the workflow as a whole
+     */
+    Map<String, ActivityStatistics> getActivityStatistics();
+
+    void reset();
+
+}
@@ -0,0 +1,171 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow.statistics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default {@link WorkflowStatisticsService}. Statistics are kept in lock free histograms per workflow and per activity,
+ * and are reported through JMX alongside the {@link org.broadleafcommerce.common.cache.StatisticsServiceImpl} cache
+ * statistics. Executions that take longer than {@code workflow.statistics.slow.threshold.millis} have their whole
+ * activity timeline logged.
+ */
+@Service("blWorkflowStatisticsService")
+@ManagedResource(objectName = "org.broadleafcommerce:name=WorkflowStatistics", description = "Workflow Activity Statistics", currencyTimeLimit = 15)
+public class WorkflowStatisticsServiceImpl implements WorkflowStatisticsService {
+
+    private static final Log LOG = LogFactory.getLog(WorkflowStatisticsServiceImpl.class);
+
+    @Value("${workflow.statistics.enabled:false}")
+    protected volatile boolean enabled = false;
+
+    @Value("${workflow.statistics.resource.tracking.enabled:true}")
+    protected volatile boolean resourceTrackingEnabled = true;
+
+    @Value("${workflow.statistics.slow.threshold.millis:0}")
+    protected volatile long slowWorkflowThresholdMillis = 0L;
+
+    protected final ConcurrentMap<String, ActivityStatistics> statistics = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public WorkflowTimeline startWorkflow(String workflowName) {
+        if (!enabled) {
+            return null;
+        }
+        return new WorkflowTimeline(workflowName, resourceTrackingEnabled);
+    }
+
+    @Override
+    public void completeWorkflow(WorkflowTimeline timeline) {
+        if (timeline == null) {
+            return;
+        }
+        timeline.complete();
+        String workflowName = timeline.getWorkflowName();
+        getStatistics(workflowName).recordWallTime(timeline.getWallNanos());
+        for (WorkflowTimeline.ActivitySample sample : timeline.getSamples()) {
+            getStatistics(workflowName + "." + sample.getActivityName()).record(sample);
+        }
+        for (String skipped : timeline.getSkippedActivities()) {
+            getStatistics(workflowName + "." + skipped).recordSkip();
+        }
+        long threshold = slowWorkflowThresholdMillis;
+        if (threshold > 0 && TimeUnit.NANOSECONDS.toMillis(timeline.getWallNanos()) >= threshold) {
+            logSlowWorkflow(timeline);
+        }
+    }
+
+    protected void logSlowWorkflow(WorkflowTimeline timeline) {
+        if (LOG.isWarnEnabled()) {
+            LOG.warn("Slow workflow execution: " + timeline.describe());
+        }
+    }
+
+    protected ActivityStatistics getStatistics(String key) {
+        ActivityStatistics stats = statistics.get(key);
+        if (stats == null) {
+            stats = statistics.computeIfAbsent(key, k -> new ActivityStatistics());
+        }
+        return stats;
+    }
+
+    @Override
+    public Map<String, ActivityStatistics> getActivityStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    @ManagedOperation(description = "Clear all collected workflow statistics")
+    public void reset() {
+        statistics.clear();
+    }
+
+    @ManagedAttribute(description = "Per workflow and per activity execution statistics", currencyTimeLimit = 15)
+    public String getSummary() {
+        return summarize(null);
+    }
+
+    @ManagedOperation(description = "Execution statistics of a single workflow and its activities")
+    @ManagedOperationParameters({
+        @ManagedOperationParameter(name = "workflowName", description = "The bean name of the workflow, e.g. blPricingWorkflow")
+    })
+    public String getWorkflowSummary(String workflowName) {
+        return summarize(workflowName);
+    }
+
+    protected String summarize(String workflowName) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, ActivityStatistics> entry : new TreeMap<>(statistics).entrySet()) {
+            String key = entry.getKey();
+            if (workflowName == null || key.equals(workflowName) || key.startsWith(workflowName + ".")) {
+                sb.append(key).append(": ").append(entry.getValue().getSummary()).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    @ManagedAttribute(description = "Whether workflow statistics are being collected", currencyTimeLimit = 15)
+    public boolean getEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute(description = "Whether workflow statistics are being collected")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @ManagedAttribute(description = "Whether CPU time and allocated bytes are measured per activity", currencyTimeLimit = 15)
+    public boolean getResourceTrackingEnabled() {
+        return resourceTrackingEnabled;
+    }
+
+    @ManagedAttribute(description = "Whether CPU time and allocated bytes are measured per activity")
+    public void setResourceTrackingEnabled(boolean resourceTrackingEnabled) {
+        this.resourceTrackingEnabled = resourceTrackingEnabled;
+    }
+
+    @ManagedAttribute(description = "Workflow executions taking at least this many milliseconds are logged with their activity timeline, 0 disables", currencyTimeLimit = 15)
+    public long getSlowWorkflowThresholdMillis() {
+        return slowWorkflowThresholdMillis;
+    }
+
+    @ManagedAttribute(description = "Workflow executions taking at least this many milliseconds are logged with their activity timeline, 0 disables")
+    public void setSlowWorkflowThresholdMillis(long slowWorkflowThresholdMillis) {
+        this.slowWorkflowThresholdMillis = slowWorkflowThresholdMillis;
+    }
+}
@@ -0,0 +1,217 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow.statistics;
+
+import org.broadleafcommerce.common.classloader.release.ThreadLocalManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records what happened during a single workflow execution: when each activity ran, how long it took, how much CPU
+ * time it used and how many bytes it allocated on the thread that ran it, and which activities were skipped because
+ * {@link org.broadleafcommerce.core.workflow.Activity#shouldExecute} returned false.
+ * <p>
+ * The timeline of the workflow that is currently running is bound to the thread, so that nested workflows and worker
+ * threads of a {@link org.broadleafcommerce.core.workflow.DependencyGraphProcessor} can find it.
+ */
+public class WorkflowTimeline {
+
+    private static final ThreadLocal<WorkflowTimeline> TIMELINE = ThreadLocalManager.createThreadLocal(WorkflowTimeline.class, false);
+
+    protected static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static WorkflowTimeline getTimeline() {
+        return TIMELINE.get();
+    }
+
+    public static void setTimeline(WorkflowTimeline timeline) {
+        if (timeline == null) {
+            TIMELINE.remove();
+        } else {
+            TIMELINE.set(timeline);
+        }
+    }
+
+    protected final String workflowName;
+    protected final boolean trackResources;
+    protected final long startNanos = System.nanoTime();
+    protected volatile long endNanos = -1L;
+    protected final List<ActivitySample> samples = Collections.synchronizedList(new ArrayList<ActivitySample>());
+    protected final List<String> skippedActivities = Collections.synchronizedList(new ArrayList<String>());
+
+    public WorkflowTimeline(String workflowName, boolean trackResources) {
+        this.workflowName = workflowName;
+        this.trackResources = trackResources;
+    }
+
+    public ActivitySample startActivity(String activityName) {
+        return new ActivitySample(activityName, System.nanoTime() - startNanos, currentThreadCpuNanos(), currentThreadAllocatedBytes());
+    }
+
+    /**
+     * Must be called on the same thread as the {@link #startActivity(String)} that created the sample
+     */
+    public void endActivity(ActivitySample sample, boolean failed) {
+        sample.wallNanos = System.nanoTime() - startNanos - sample.startOffsetNanos;
+        if (sample.cpuNanos >= 0) {
+            sample.cpuNanos = currentThreadCpuNanos() - sample.cpuNanos;
+        }
+        if (sample.allocatedBytes >= 0) {
+            sample.allocatedBytes = currentThreadAllocatedBytes() - sample.allocatedBytes;
+        }
+        sample.failed = failed;
+        samples.add(sample);
+    }
+
+    public void activitySkipped(String activityName) {
+        skippedActivities.add(activityName);
+    }
+
+    public void complete() {
+        if (endNanos < 0) {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    public String getWorkflowName() {
+        return workflowName;
+    }
+
+    public long getWallNanos() {
+        return (endNanos < 0 ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    public List<ActivitySample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    public List<String> getSkippedActivities() {
+        synchronized (skippedActivities) {
+            return new ArrayList<>(skippedActivities);
+        }
+    }
+
+    /**
+     * @return a multi-line description of the activities in the order they started, suitable for a log message
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(workflowName).append(" took ").append(TimeUnit.NANOSECONDS.toMillis(getWallNanos())).append("ms");
+        List<ActivitySample> ordered = getSamples();
+        Collections.sort(ordered, (a, b) -> Long.compare(a.startOffsetNanos, b.startOffsetNanos));
+        for (ActivitySample sample : ordered) {
+            sb.append("\n  +").append(TimeUnit.NANOSECONDS.toMillis(sample.startOffsetNanos)).append("ms ")
+                    .append(sample.activityName).append(": ").append(TimeUnit.NANOSECONDS.toMillis(sample.wallNanos)).append("ms");
+            if (sample.cpuNanos >= 0) {
+                sb.append(", cpu ").append(TimeUnit.NANOSECONDS.toMillis(sample.cpuNanos)).append("ms");
+            }
+            if (sample.allocatedBytes >= 0) {
+                sb.append(", allocated ").append(sample.allocatedBytes / 1024).append("KB");
+            }
+            sb.append(" on ").append(sample.threadName);
+            if (sample.failed) {
+                sb.append(" (failed)");
+            }
+        }
+        List<String> skipped = getSkippedActivities();
+        if (!skipped.isEmpty()) {
+            sb.append("\n  skipped: ").append(skipped);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+    protected long currentThreadCpuNanos() {
+        if (!trackResources || !THREADS.isCurrentThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) {
+            return -1L;
+        }
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    protected long currentThreadAllocatedBytes() {
+        if (!trackResources || !(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return -1L;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1L;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * The measurements for one activity execution. CPU time and allocated bytes are -1 when the JVM cannot provide them
+     * or resource tracking is off.
+     */
+    public static class ActivitySample {
+
+        protected final String activityName;
+        protected final String threadName = Thread.currentThread().getName();
+        protected final long startOffsetNanos;
+        protected long wallNanos;
+        protected long cpuNanos;
+        protected long allocatedBytes;
+        protected boolean failed;
+
+        public ActivitySample(String activityName, long startOffsetNanos, long cpuNanos, long allocatedBytes) {
+            this.activityName = activityName;
+            this.startOffsetNanos = startOffsetNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String getActivityName() {
+            return activityName;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getStartOffsetNanos() {
+            return startOffsetNanos;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+    }
+}
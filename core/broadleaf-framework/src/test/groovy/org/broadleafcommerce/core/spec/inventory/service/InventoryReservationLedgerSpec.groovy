@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.spec.inventory.service
+
+import org.broadleafcommerce.core.inventory.service.InventoryReservationLedger
+
+import spock.lang.Specification
+
+class InventoryReservationLedgerSpec extends Specification {
+
+    InventoryReservationLedger ledger = new InventoryReservationLedger(4)
+
+    def "Holds of other orders limit what can be reserved"() {
+        when: "Two orders reserve a sku with 5 on hand"
+        Long first = ledger.reserve(1L, [10L: 3], [10L: 5], Long.MAX_VALUE)
+        Long second = ledger.reserve(2L, [10L: 3], [10L: 5], Long.MAX_VALUE)
+
+        then: "Only the first order's hold is placed"
+        first == null
+        second == 10L
+        ledger.getReservedQuantity(10L) == 3
+        ledger.getReservedQuantity(10L, 1L) == 0
+        ledger.getReservedQuantity(10L, 2L) == 3
+    }
+
+    def "Reserving again replaces the order's holds"() {
+        given:
+        ledger.reserve(1L, [10L: 3, 11L: 1], [10L: 5], Long.MAX_VALUE)
+
+        when:
+        Long shortfall = ledger.reserve(1L, [10L: 5], [10L: 5], Long.MAX_VALUE)
+
+        then:
+        shortfall == null
+        ledger.getReservedQuantity(10L) == 5
+        ledger.getReservedQuantity(11L) == 0
+    }
+
+    def "Released and expired holds no longer count"() {
+        given:
+        ledger.reserve(1L, [10L: 2], [:], 1000L)
+        ledger.reserve(2L, [10L: 3], [:], Long.MAX_VALUE)
+        ledger.drainDirtyOrders()
+
+        when:
+        List<Long> purged = ledger.purgeExpired(1000L)
+        Map<Long, Integer> released = ledger.release(2L)
+
+        then:
+        purged == [1L]
+        released == [10L: 3]
+        ledger.getReservedQuantity(10L) == 0
+        ledger.getHold(1L) == null
+        ledger.drainDirtyOrders() == [1L, 2L] as Set
+    }
+
+    def "Expired holds no longer count before they are purged"() {
+        given: "One order's hold has expired and another's has not"
+        ledger.reserve(1L, [10L: 2], [:], 1000L)
+        ledger.reserve(2L, [10L: 3], [:], Long.MAX_VALUE)
+
+        expect: "Only the live hold is counted"
+        ledger.getReservedQuantity(10L, null, 999L) == 5
+        ledger.getReservedQuantity(10L, null, 1000L) == 3
+        ledger.getReservedQuantity(10L, 2L, 1000L) == 0
+        ledger.getReservedQuantity(10L) == 3
+
+        and: "The expired hold does not keep another order from reserving"
+        ledger.reserve(3L, [10L: 2], [10L: 5], Long.MAX_VALUE) == null
+    }
+
+    def "Restored holds count without being marked as changed"() {
+        when:
+        ledger.restore(1L, [10L: 4], Long.MAX_VALUE)
+
+        then:
+        ledger.getReservedQuantity(10L) == 4
+        ledger.drainDirtyOrders().isEmpty()
+    }
+}
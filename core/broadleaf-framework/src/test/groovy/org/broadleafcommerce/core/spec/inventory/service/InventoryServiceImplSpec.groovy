@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.spec.inventory.service
+
+import org.broadleafcommerce.common.extension.ExtensionResultStatusType
+import org.broadleafcommerce.core.catalog.dao.SkuDao
+import org.broadleafcommerce.core.catalog.domain.Sku
+import org.broadleafcommerce.core.catalog.domain.SkuImpl
+import org.broadleafcommerce.core.catalog.service.CatalogService
+import org.broadleafcommerce.core.inventory.service.ContextualInventoryService
+import org.broadleafcommerce.core.inventory.service.InventoryReservationLedger
+import org.broadleafcommerce.core.inventory.service.InventoryServiceExtensionHandler
+import org.broadleafcommerce.core.inventory.service.InventoryServiceExtensionManager
+import org.broadleafcommerce.core.inventory.service.InventoryServiceImpl
+import org.broadleafcommerce.core.inventory.service.InventoryUnavailableException
+import org.broadleafcommerce.core.inventory.service.type.InventoryType
+import org.broadleafcommerce.core.order.domain.Order
+import org.broadleafcommerce.core.order.domain.OrderImpl
+import org.springframework.context.ApplicationContext
+
+import spock.lang.Specification
+
+class InventoryServiceImplSpec extends Specification {
+
+    SkuDao mockSkuDao = Mock()
+    CatalogService mockCatalogService = Mock()
+    ApplicationContext mockApplicationContext = Mock()
+    InventoryServiceExtensionHandler mockExtensionHandler = Mock() {
+        retrieveQuantitiesAvailable(*_) >> ExtensionResultStatusType.NOT_HANDLED
+    }
+    InventoryServiceExtensionManager mockExtensionManager = Mock() {
+        getProxy() >> mockExtensionHandler
+    }
+    InventoryReservationLedger ledger = new InventoryReservationLedger(4)
+    InventoryServiceImpl inventoryService
+
+    def setup() {
+        inventoryService = new InventoryServiceImpl().with {
+            skuDao = mockSkuDao
+            catalogService = mockCatalogService
+            applicationContext = mockApplicationContext
+            extensionManager = mockExtensionManager
+            reservationLedger = ledger
+            batchDecrementEnabled = true
+            it
+        }
+    }
+
+    Map<String, Object> buildOrderContext(Long orderId) {
+        Order order = new OrderImpl()
+        order.setId(orderId)
+        return [(ContextualInventoryService.ORDER_KEY): order]
+    }
+
+    Sku buildSku(Long id, InventoryType inventoryType, Integer quantityAvailable) {
+        SkuImpl sku = Spy(SkuImpl)
+        sku.setId(id)
+        sku.isActive() >> true
+        sku.getInventoryType() >> inventoryType
+        sku.getQuantityAvailable() >> quantityAvailable
+        return sku
+    }
+
+    def "Batched decrement sends every checked sku to the dao in one call and invalidates each once"() {
+        setup: "two checked skus and one that is always available"
+        Sku first = buildSku(1L, InventoryType.CHECK_QUANTITY, 10)
+        Sku second = buildSku(2L, InventoryType.CHECK_QUANTITY, 5)
+        Sku unlimited = buildSku(3L, InventoryType.ALWAYS_AVAILABLE, null)
+        Map<Sku, Integer> quantities = [(first): 2, (second): 5, (unlimited): 1]
+
+        when: "inventory is decremented"
+        inventoryService.decrementSku(quantities, null)
+
+        then: "only the checked skus are decremented, in a single batch"
+        1 * mockSkuDao.decrementQuantitiesAvailable({ it == [(first): 2, (second): 5] }) >> []
+        2 * mockApplicationContext.publishEvent(_)
+    }
+
+    def "A shortfall reported by the dao is raised as an InventoryUnavailableException"() {
+        setup: "a sku without enough inventory"
+        Sku sku = buildSku(1L, InventoryType.CHECK_QUANTITY, 1)
+
+        when: "inventory is decremented"
+        inventoryService.decrementSku([(sku): 2], null)
+
+        then: "the exception describes the shortfall and no cache invalidation is sent"
+        1 * mockSkuDao.decrementQuantitiesAvailable(_) >> [sku]
+        0 * mockApplicationContext.publishEvent(_)
+        InventoryUnavailableException e = thrown()
+        e.skuId == 1L
+        e.quantityRequested == 2
+        e.quantityAvailable == 1
+    }
+
+    def "An unavailable sku is rejected before anything is decremented"() {
+        setup: "an inactive sku"
+        SkuImpl sku = Spy(SkuImpl)
+        sku.setId(1L)
+        sku.isActive() >> false
+
+        when: "inventory is decremented"
+        inventoryService.decrementSku([(sku): 1], null)
+
+        then: "the dao is never called"
+        0 * mockSkuDao.decrementQuantitiesAvailable(_)
+        thrown(InventoryUnavailableException)
+    }
+
+    def "Batched decrement retains the quantities held by other orders"() {
+        setup: "a sku of which another order holds 8"
+        inventoryService.reservationEnabled = true
+        ledger.reserve(2L, [(1L): 8], [(1L): 10], System.currentTimeMillis() + 60000L)
+        Sku sku = buildSku(1L, InventoryType.CHECK_QUANTITY, 10)
+
+        when: "inventory is decremented for another order"
+        inventoryService.decrementSku([(sku): 3], buildOrderContext(1L))
+
+        then: "the held quantity must remain after the decrement"
+        1 * mockSkuDao.decrementQuantitiesAvailable([(sku): 3], [(sku): 8]) >> [sku]
+        thrown(InventoryUnavailableException)
+    }
+
+    def "Unbatched decrement subtracts the quantities held by other orders from the quantity available"() {
+        setup: "a sku of which another order holds 8"
+        inventoryService.batchDecrementEnabled = false
+        inventoryService.reservationEnabled = true
+        ledger.reserve(2L, [(1L): 8], [(1L): 10], System.currentTimeMillis() + 60000L)
+        Sku sku = buildSku(1L, InventoryType.CHECK_QUANTITY, 10)
+
+        when: "more than the unheld quantity is decremented"
+        inventoryService.decrementSku([(sku): 3], buildOrderContext(1L))
+
+        then: "the sku is not saved"
+        0 * mockCatalogService.saveSku(_)
+        InventoryUnavailableException e = thrown()
+        e.quantityAvailable == 2
+    }
+
+    def "Unbatched decrement converts the hold of the order into the decrement"() {
+        setup: "a sku of which the order itself holds 3 and another order holds 7"
+        inventoryService.batchDecrementEnabled = false
+        inventoryService.reservationEnabled = true
+        ledger.reserve(1L, [(1L): 3], [(1L): 10], System.currentTimeMillis() + 60000L)
+        ledger.reserve(2L, [(1L): 7], [(1L): 10], System.currentTimeMillis() + 60000L)
+        Sku sku = buildSku(1L, InventoryType.CHECK_QUANTITY, 10)
+
+        when: "the held quantity is decremented"
+        inventoryService.decrementSku([(sku): 3], buildOrderContext(1L))
+
+        then: "the quantity stored on the sku keeps the quantity held by the other order"
+        0 * mockExtensionHandler.retrieveQuantitiesAvailable(*_)
+        1 * sku.setQuantityAvailable(7)
+        1 * mockCatalogService.saveSku(sku)
+    }
+}
@@ -17,25 +17,32 @@
  */
 package org.broadleafcommerce.core.catalog.service;
 
+import org.broadleafcommerce.common.sitemap.domain.SiteMapConfiguration;
+import org.broadleafcommerce.common.sitemap.domain.SiteMapConfigurationImpl;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfiguration;
 import org.broadleafcommerce.common.sitemap.domain.SiteMapGeneratorConfigurationImpl;
 import org.broadleafcommerce.common.sitemap.exception.SiteMapException;
+import org.broadleafcommerce.common.sitemap.service.SiteMapBuilder;
 import org.broadleafcommerce.common.sitemap.service.SiteMapGeneratorTest;
 import org.broadleafcommerce.common.sitemap.service.type.SiteMapChangeFreqType;
 import org.broadleafcommerce.common.sitemap.service.type.SiteMapGeneratorType;
 import org.broadleafcommerce.common.sitemap.service.type.SiteMapPriorityType;
+import org.broadleafcommerce.common.sitemap.wrapper.SiteMapURLWrapper;
 import org.broadleafcommerce.core.catalog.dao.ProductDao;
 import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.catalog.domain.ProductImpl;
 import org.broadleafcommerce.core.catalog.domain.Sku;
 import org.broadleafcommerce.core.catalog.domain.SkuImpl;
 import org.easymock.EasyMock;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SortedMap;
 
 /**
  * Product site map generator tests
@@ -96,4 +103,74 @@ public class ProductSiteMapGeneratorTest extends SiteMapGeneratorTest {
 
     }
 
+    @Test
+    public void testShardFingerprintsOnlyChangeForTheChangedIdRange() {
+        ProductDao productDao = EasyMock.createMock(ProductDao.class);
+        EasyMock.expect(productDao.readAllActiveProductUrlsForSiteMap(EasyMock.eq(2), (Long) EasyMock.isNull()))
+                .andReturn(Arrays.asList(new Object[] { 1L, "/a" }, new Object[] { 2L, "/b" })).times(2);
+        EasyMock.expect(productDao.readAllActiveProductUrlsForSiteMap(EasyMock.eq(2), EasyMock.eq(2L)))
+                .andReturn(Arrays.asList(new Object[] { 12L, "/c" }, new Object[] { 25L, "/d" }));
+        EasyMock.expect(productDao.readAllActiveProductUrlsForSiteMap(EasyMock.eq(2), EasyMock.eq(2L)))
+                .andReturn(Arrays.asList(new Object[] { 12L, "/moved" }, new Object[] { 25L, "/d" }));
+        EasyMock.expect(productDao.readAllActiveProductUrlsForSiteMap(EasyMock.eq(2), EasyMock.eq(25L)))
+                .andReturn(new ArrayList<Object[]>()).times(2);
+        EasyMock.replay(productDao);
+
+        ProductSiteMapGenerator psmg = new ProductSiteMapGenerator();
+        psmg.setProductDao(productDao);
+        psmg.setPageSize(2);
+
+        SortedMap<Long, String> before = psmg.readShardFingerprints(new SiteMapGeneratorConfigurationImpl(), 10L);
+        SortedMap<Long, String> after = psmg.readShardFingerprints(new SiteMapGeneratorConfigurationImpl(), 10L);
+
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L), new ArrayList<Long>(before.keySet()));
+        Assert.assertEquals(before.get(0L), after.get(0L));
+        Assert.assertNotEquals(before.get(1L), after.get(1L));
+        Assert.assertEquals(before.get(2L), after.get(2L));
+        EasyMock.verify(productDao);
+    }
+
+    @Test
+    public void testIdRangeOnlyAddsItsProducts() {
+        ProductDao productDao = EasyMock.createMock(ProductDao.class);
+        // the pages stop before the end of the range, so the last one is short
+        EasyMock.expect(productDao.readAllActiveProductsForSiteMap(EasyMock.eq(2), EasyMock.eq(9L), EasyMock.eq(20L)))
+                .andReturn(Arrays.asList(buildProduct(10L, "/a"), buildProduct(12L, "/b")));
+        EasyMock.expect(productDao.readAllActiveProductsForSiteMap(EasyMock.eq(2), EasyMock.eq(12L), EasyMock.eq(20L)))
+                .andReturn(Arrays.asList(buildProduct(19L, "/c")));
+        EasyMock.replay(productDao);
+
+        ProductSiteMapGenerator psmg = new ProductSiteMapGenerator();
+        psmg.setProductDao(productDao);
+        psmg.setPageSize(2);
+
+        SiteMapGeneratorConfiguration smgc = new SiteMapGeneratorConfigurationImpl();
+        smgc.setSiteMapChangeFreq(SiteMapChangeFreqType.HOURLY);
+        smgc.setSiteMapPriority(SiteMapPriorityType.POINT5);
+        SiteMapConfiguration smc = new SiteMapConfigurationImpl();
+        smc.setMaximumUrlEntriesPerFile(10);
+        final List<String> locs = new ArrayList<String>();
+        SiteMapBuilder siteMapBuilder = new SiteMapBuilder(smc, null, "http://www.heatclinic.com", false, "1-r1") {
+
+            @Override
+            public void addUrl(SiteMapURLWrapper urlWrapper) {
+                locs.add(urlWrapper.getLoc());
+            }
+        };
+
+        psmg.addSiteMapEntries(smgc, siteMapBuilder, 10L, 20L);
+
+        Assert.assertEquals(Arrays.asList("http://www.heatclinic.com/a", "http://www.heatclinic.com/b",
+                "http://www.heatclinic.com/c"), locs);
+        EasyMock.verify(productDao);
+    }
+
+    protected Product buildProduct(Long id, String url) {
+        Product product = new ProductImpl();
+        product.setId(id);
+        product.setUrl(url);
+        product.setDefaultSku(new SkuImpl());
+        return product;
+    }
+
 }
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service;
+
+import junit.framework.TestCase;
+
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferImpl;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteria;
+import org.broadleafcommerce.core.offer.domain.OfferItemCriteriaImpl;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXref;
+import org.broadleafcommerce.core.offer.domain.OfferQualifyingCriteriaXrefImpl;
+import org.broadleafcommerce.core.offer.service.type.OfferType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class OfferCandidateIndexTest extends TestCase {
+
+    protected OfferCandidateIndex emptyIndex = new OfferCandidateIndex(Collections.<Offer>emptyList());
+
+    public void testExtractTerms() {
+        assertEquals(terms("product:100"), emptyIndex.extractTerms("orderItem.?product.?id==100"));
+        assertEquals(terms("sku:5"), emptyIndex.extractTerms("discreteOrderItem.?sku.?id==5L && orderItem.?quantity>1"));
+        assertEquals(terms("category:2002", "category:2003"), emptyIndex.extractTerms(
+                "CollectionUtils.intersection(orderItem.?product.?allParentCategoryIds,[\"2002\",\"2003\"]).size()>0"));
+        assertEquals(terms("product:1", "product:2"),
+                emptyIndex.extractTerms("(orderItem.?product.?id==1 || orderItem.?product.?id==2)"));
+        assertEquals(terms("product:9"), emptyIndex.extractTerms(
+                "CollectionUtils.intersection(orderItem.?sku.?id,[1,2,3]).size()>0 && orderItem.?product.?id==9"));
+        assertEquals(terms("product:3"), emptyIndex.extractTerms(
+                "orderItem.?product.?manufacturer==\"a||b\" && orderItem.?product.?id==3"));
+    }
+
+    public void testUnindexableRules() {
+        assertNull(emptyIndex.extractTerms("orderItem.?product.?id==1 || orderItem.?quantity>1"));
+        assertNull(emptyIndex.extractTerms("!(orderItem.?product.?id==1)"));
+        assertNull(emptyIndex.extractTerms("orderItem.?product.?id!=1"));
+        assertNull(emptyIndex.extractTerms("orderItem.?quantity>1"));
+    }
+
+    public void testCandidateOfferIds() {
+        Offer productOffer = buildOffer(1L, "orderItem.?product.?id==100");
+        Offer categoryOffer = buildOffer(2L,
+                "CollectionUtils.intersection(orderItem.?product.?allParentCategoryIds,[\"2002\"]).size()>0");
+        Offer unrestrictedOffer = buildOffer(3L, "orderItem.?quantity>1");
+        Offer orderOffer = buildOffer(4L, null);
+        OfferCandidateIndex index = new OfferCandidateIndex(Arrays.asList(productOffer, categoryOffer, unrestrictedOffer, orderOffer));
+
+        assertTrue(index.isIndexOf(Arrays.asList(orderOffer, unrestrictedOffer, categoryOffer, productOffer)));
+        assertFalse(index.isIndexOf(Arrays.asList(productOffer, categoryOffer, unrestrictedOffer)));
+        assertFalse(index.isIndexOf(Arrays.asList(orderOffer, unrestrictedOffer, categoryOffer,
+                buildOffer(5L, "orderItem.?product.?id==100"))));
+
+        assertEquals(new HashSet<>(Arrays.asList(3L, 4L)), index.getCandidateOfferIds(terms("product:200", "category:2001")));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 3L, 4L)), index.getCandidateOfferIds(terms("product:100")));
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L, 4L)), index.getCandidateOfferIds(terms("sku:100", "category:2002")));
+
+        Set<Long> candidates = index.getCandidateOfferIds(terms("product:200"));
+        assertFalse(index.isCandidate(productOffer, candidates));
+        assertTrue(index.isCandidate(buildOffer(5L, "orderItem.?product.?id==100"), candidates));
+    }
+
+    protected Offer buildOffer(Long id, String qualifyingRule) {
+        OfferImpl offer = new OfferImpl();
+        offer.setId(id);
+        offer.setType(OfferType.ORDER_ITEM);
+        Set<OfferQualifyingCriteriaXref> qualifyingCriteria = new HashSet<>();
+        if (qualifyingRule != null) {
+            OfferItemCriteria criteria = new OfferItemCriteriaImpl();
+            criteria.setId(id);
+            criteria.setMatchRule(qualifyingRule);
+            qualifyingCriteria.add(new OfferQualifyingCriteriaXrefImpl(offer, criteria));
+        }
+        offer.setQualifyingItemCriteriaXref(qualifyingCriteria);
+        return offer;
+    }
+
+    protected Set<String> terms(String... terms) {
+        return new HashSet<>(Arrays.asList(terms));
+    }
+}
@@ -0,0 +1,59 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.offer.service.processor;
+
+import org.broadleafcommerce.core.offer.domain.Offer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time {@link ItemOfferProcessorImpl#determineBestPermutation} takes with an unbounded search and with
+ * the search bounded by {@link ItemOfferProcessorImpl#maxEvaluatedPermutations}, on the multi-offer order of
+ * {@link ItemOfferProcessorTest#testBoundedPermutationSearchChoosesTheSameBestPermutation()}, and prints the
+ * permutation each one chose. This is not part of the test suite since the timings depend on the machine. Run it as a
+ * java main application.
+ */
+public class ItemOfferPermutationHarness extends ItemOfferProcessorTest {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        ItemOfferPermutationHarness harness = new ItemOfferPermutationHarness();
+        harness.setUp();
+        harness.replay();
+        List<Offer> offers = harness.createPermutationTestOffers();
+        System.out.println("permutations: " + harness.buildPermutationIds(offers));
+
+        for (int maxEvaluated : new int[] { -1, 1, 2 }) {
+            // warm up before timing
+            for (int i = 0; i < iterations / 10; i++) {
+                harness.determineBestPermutationIds(offers, maxEvaluated);
+            }
+            List<Long> best = null;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                best = harness.determineBestPermutationIds(offers, maxEvaluated);
+            }
+            long elapsed = System.nanoTime() - startTime;
+
+            System.out.println(String.format("max.evaluated=%s: chose %s, %sus per order over %s orders",
+                    maxEvaluated, best, TimeUnit.NANOSECONDS.toMicros(elapsed / iterations), iterations));
+        }
+    }
+
+}
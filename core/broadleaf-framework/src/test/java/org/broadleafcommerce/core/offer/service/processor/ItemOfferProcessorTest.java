@@ -37,6 +37,7 @@ import org.broadleafcommerce.core.offer.service.OfferDataItemProvider;
 import org.broadleafcommerce.core.offer.service.OfferServiceImpl;
 import org.broadleafcommerce.core.offer.service.OfferServiceUtilitiesImpl;
 import org.broadleafcommerce.core.offer.service.discount.CandidatePromotionItems;
+import org.broadleafcommerce.core.offer.service.discount.ItemOfferComparator;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableCandidateItemOffer;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableItemFactoryImpl;
 import org.broadleafcommerce.core.offer.service.discount.domain.PromotableOfferUtility;
@@ -60,7 +61,9 @@ import org.broadleafcommerce.core.order.service.OrderService;
 import org.broadleafcommerce.core.order.service.call.FulfillmentGroupItemRequest;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -542,6 +545,104 @@ public class ItemOfferProcessorTest extends TestCase {
         verify();
     }
 
+    public void testPermutationSearchIsBounded() throws Exception {
+        assertFalse(itemProcessor.isPermutationSearchExhausted(5));
+
+        itemProcessor.maxEvaluatedPermutations = 2;
+        try {
+            assertFalse(itemProcessor.isPermutationSearchExhausted(0));
+            assertFalse(itemProcessor.isPermutationSearchExhausted(1));
+            assertTrue(itemProcessor.isPermutationSearchExhausted(2));
+        } finally {
+            itemProcessor.maxEvaluatedPermutations = -1;
+        }
+    }
+
+    public void testBoundedPermutationSearchChoosesTheSameBestPermutation() throws Exception {
+        replay();
+
+        List<Offer> offers = createPermutationTestOffers();
+        List<Long> fullSearch = determineBestPermutationIds(offers, -1);
+
+        List<List<Long>> permutations = buildPermutationIds(offers);
+        assertTrue("The order should have several distinct offer permutations", permutations.size() > 1);
+        int bestPosition = permutations.indexOf(fullSearch);
+        assertTrue(bestPosition >= 0);
+
+        // any bound that reaches the best permutation finds it, and the same bound always gives the same answer
+        for (int maxEvaluated = bestPosition + 1; maxEvaluated <= permutations.size(); maxEvaluated++) {
+            assertEquals(fullSearch, determineBestPermutationIds(offers, maxEvaluated));
+            assertEquals(fullSearch, determineBestPermutationIds(offers, maxEvaluated));
+        }
+        for (int maxEvaluated = 1; maxEvaluated <= bestPosition; maxEvaluated++) {
+            assertEquals(determineBestPermutationIds(offers, maxEvaluated), determineBestPermutationIds(offers, maxEvaluated));
+        }
+
+        verify();
+    }
+
+    /**
+     * Three item offers on the test1 and test2 items of the basic order, the first of which is not combinable, so that
+     * their orderings give different subtotals
+     */
+    protected List<Offer> createPermutationTestOffers() {
+        String itemRule = "([MVEL.eval(\"toUpperCase()\",\"test1\"), MVEL.eval(\"toUpperCase()\",\"test2\")] contains MVEL.eval(\"toUpperCase()\", discreteOrderItem.category.name))";
+        List<Offer> offers = new ArrayList<Offer>();
+        OfferDiscountType[] discountTypes = { OfferDiscountType.PERCENT_OFF, OfferDiscountType.PERCENT_OFF, OfferDiscountType.AMOUNT_OFF };
+        for (int i = 0; i < discountTypes.length; i++) {
+            Offer offer = dataProvider.createItemBasedOfferWithItemCriteria("order.subTotal.getAmount()>20", discountTypes[i], itemRule, itemRule).get(0);
+            offer.setId((long) i + 1);
+            offers.add(offer);
+        }
+        offers.get(0).setCombinableWithOtherOffers(false);
+        offers.get(0).setValue(BigDecimal.valueOf(50));
+        offers.get(0).getQualifyingItemCriteriaXref().iterator().next().getOfferItemCriteria().setQuantity(2);
+        offers.get(2).setValue(BigDecimal.valueOf(3));
+        return offers;
+    }
+
+    /**
+     * Runs the permutation search of {@link ItemOfferProcessorImpl#applyAndCompareOrderAndItemOffers} on a new basic
+     * order with the given bound
+     *
+     * @return the ids of the offers of the chosen permutation, in order
+     */
+    protected List<Long> determineBestPermutationIds(List<Offer> offers, int maxEvaluated) {
+        int previousMaxEvaluated = itemProcessor.maxEvaluatedPermutations;
+        itemProcessor.maxEvaluatedPermutations = maxEvaluated;
+        try {
+            PromotableOrder order = dataProvider.createBasicPromotableOrder(promotableOfferUtility);
+            List<PromotableCandidateItemOffer> qualifiedOffers = qualifyOffers(offers, order);
+            return itemProcessor.convertToIdList(itemProcessor.determineBestPermutation(qualifiedOffers, order));
+        } finally {
+            itemProcessor.maxEvaluatedPermutations = previousMaxEvaluated;
+        }
+    }
+
+    protected List<List<Long>> buildPermutationIds(List<Offer> offers) {
+        PromotableOrder order = dataProvider.createBasicPromotableOrder(promotableOfferUtility);
+        List<List<PromotableCandidateItemOffer>> permutations = itemProcessor.buildItemOfferPermutations(qualifyOffers(offers, order));
+        itemProcessor.removeDuplicatePermutations(permutations);
+        List<List<Long>> permutationIds = new ArrayList<List<Long>>();
+        for (List<PromotableCandidateItemOffer> permutation : permutations) {
+            permutationIds.add(itemProcessor.convertToIdList(permutation));
+        }
+        return permutationIds;
+    }
+
+    protected List<PromotableCandidateItemOffer> qualifyOffers(List<Offer> offers, PromotableOrder order) {
+        List<PromotableCandidateItemOffer> qualifiedOffers = new ArrayList<PromotableCandidateItemOffer>();
+        for (Offer offer : offers) {
+            itemProcessor.filterItemLevelOffer(order, qualifiedOffers, offer);
+        }
+        itemProcessor.calculatePotentialSavings(qualifiedOffers, order);
+        for (PromotableCandidateItemOffer itemOffer : qualifiedOffers) {
+            itemOffer.resetUses();
+        }
+        Collections.sort(qualifiedOffers, ItemOfferComparator.INSTANCE);
+        return qualifiedOffers;
+    }
+
     public void testApplyItemQualifiersAndTargets() throws Exception {
         replay();
 
@@ -0,0 +1,490 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.pricing.service;
+
+import org.broadleafcommerce.common.cache.SnapshotCacheManager;
+import org.broadleafcommerce.common.money.Money;
+import org.broadleafcommerce.common.payment.PaymentType;
+import org.broadleafcommerce.core.offer.domain.Offer;
+import org.broadleafcommerce.core.offer.domain.OfferCode;
+import org.broadleafcommerce.core.offer.service.OfferDataItemProvider;
+import org.broadleafcommerce.core.offer.service.OfferService;
+import org.broadleafcommerce.core.offer.service.ShippingOfferService;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroup;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupFee;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupFeeImpl;
+import org.broadleafcommerce.core.order.domain.FulfillmentGroupItem;
+import org.broadleafcommerce.core.order.domain.FulfillmentOption;
+import org.broadleafcommerce.core.order.domain.Order;
+import org.broadleafcommerce.core.order.domain.OrderChangeJournal;
+import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.domain.TaxDetail;
+import org.broadleafcommerce.core.order.domain.TaxDetailImpl;
+import org.broadleafcommerce.core.order.domain.TaxType;
+import org.broadleafcommerce.core.payment.domain.OrderPayment;
+import org.broadleafcommerce.core.payment.domain.OrderPaymentImpl;
+import org.broadleafcommerce.core.pricing.service.fulfillment.provider.FulfillmentEstimationResponse;
+import org.broadleafcommerce.core.pricing.service.fulfillment.provider.FulfillmentPricingProvider;
+import org.broadleafcommerce.core.pricing.service.exception.PricingException;
+import org.broadleafcommerce.core.pricing.service.module.TaxModule;
+import org.broadleafcommerce.core.pricing.service.workflow.AdjustOrderPaymentsActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.FulfillmentGroupMerchandiseTotalActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.FulfillmentGroupPricingActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.FulfillmentItemPricingActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.OfferActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.PricingProcessContextFactory;
+import org.broadleafcommerce.core.pricing.service.workflow.ShippingOfferActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.TaxActivity;
+import org.broadleafcommerce.core.pricing.service.workflow.TotalActivity;
+import org.broadleafcommerce.core.workflow.Activity;
+import org.broadleafcommerce.core.workflow.BaseActivity;
+import org.broadleafcommerce.core.workflow.DefaultErrorHandler;
+import org.broadleafcommerce.core.workflow.ProcessContext;
+import org.broadleafcommerce.core.workflow.SequenceProcessor;
+import org.broadleafcommerce.core.workflow.WorkflowException;
+import org.broadleafcommerce.core.workflow.state.RollbackStateLocal;
+import org.easymock.EasyMock;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Differential test for incremental pricing: two copies of the same order go through the same sequence of changes, one
+ * of them priced incrementally and the other one priced in full every time, and their pricing results are compared after
+ * every step. The workflow is made of the real pricing activities; the services behind the offer, shipping offer,
+ * fulfillment pricing and tax activities are replaced by simple calculations that only depend on the order.
+ */
+public class IncrementalPricingTest extends TestCase {
+
+    protected OfferDataItemProvider dataProvider = new OfferDataItemProvider();
+
+    protected TestPricingWorkflow incrementalWorkflow;
+    protected TestPricingWorkflow fullWorkflow;
+    protected PricingServiceImpl incrementalPricingService;
+    protected PricingServiceImpl fullPricingService;
+    protected Order incrementalOrder;
+    protected Order fullOrder;
+
+    @Override
+    protected void setUp() throws Exception {
+        incrementalWorkflow = new TestPricingWorkflow();
+        incrementalPricingService = pricingService(incrementalWorkflow, true);
+        fullWorkflow = new TestPricingWorkflow();
+        fullPricingService = pricingService(fullWorkflow, false);
+
+        incrementalOrder = createOrder();
+        fullOrder = createOrder();
+        incrementalOrder = incrementalPricingService.executePricing(incrementalOrder);
+        fullOrder = fullPricingService.executePricing(fullOrder);
+    }
+
+    public void testFirstPricingRunsEverything() {
+        assertEquals(fullWorkflow.executed, incrementalWorkflow.executed);
+        assertNotNull(incrementalOrder.getChangeJournal());
+        assertNull(fullOrder.getChangeJournal());
+        assertPricingMatches();
+    }
+
+    public void testPaymentChangeOnlyAdjustsPayments() throws Exception {
+        applyChange(4, 12.5D);
+
+        assertEquals(Arrays.asList("adjustOrderPayments"), incrementalWorkflow.executed);
+        assertPricingMatches();
+    }
+
+    public void testItemChangeRepricesDependentActivities() throws Exception {
+        applyChange(0, 7.25D);
+
+        assertEquals(fullWorkflow.executed, incrementalWorkflow.executed);
+        assertPricingMatches();
+    }
+
+    public void testConsecutivePaymentChangesOnlyAdjustPayments() throws Exception {
+        applyChange(4, 20D);
+        applyChange(5, 15D);
+
+        assertEquals(Arrays.asList("adjustOrderPayments"), incrementalWorkflow.executed);
+        assertPricingMatches();
+    }
+
+    public void testNothingRecordedPricesInFull() throws Exception {
+        incrementalWorkflow.executed.clear();
+        incrementalOrder.getFulfillmentGroups().get(0).setShippingOverride(true);
+        incrementalPricingService.executePricing(incrementalOrder);
+
+        assertEquals(fullWorkflow.activityNames(), incrementalWorkflow.executed);
+    }
+
+    public void testFailedPricingDiscardsJournal() throws Exception {
+        OrderChangeJournal.recordChange(incrementalOrder, OrderChangeJournal.ORDER_ITEMS);
+        incrementalWorkflow.failing = true;
+        try {
+            incrementalPricingService.executePricing(incrementalOrder);
+            fail("Pricing should have failed");
+        } catch (PricingException e) {
+            // expected
+        }
+        assertNull(incrementalOrder.getChangeJournal());
+    }
+
+    public void testUntrackedActivityRunsLaterActivities() throws Exception {
+        List<Activity<ProcessContext<Order>>> activities = incrementalWorkflow.getActivities();
+        activities.add(activities.size() - 2, named("untracked", new UntrackedActivity()));
+        incrementalPricingService.activitiesAfterUntrackedActivity = null;
+
+        applyChange(4, 12.5D);
+
+        assertEquals(Arrays.asList("untracked", "total", "adjustOrderPayments"), incrementalWorkflow.executed);
+        assertTrue(incrementalOrder.getChangeJournal().getChanges().isEmpty());
+        assertPricingMatches();
+    }
+
+    public void testJournalIsRestoredForOrderLoadedLater() throws Exception {
+        enableFingerprints();
+
+        // a later request loads the order without a journal, and the change is not recorded anywhere
+        incrementalOrder.setChangeJournal(null);
+        applyUnrecordedChange(4, 12.5D);
+
+        assertEquals(Arrays.asList("adjustOrderPayments"), incrementalWorkflow.executed);
+        assertPricingMatches();
+
+        incrementalOrder.setChangeJournal(null);
+        applyUnrecordedChange(0, 7.25D);
+
+        assertEquals(fullWorkflow.executed, incrementalWorkflow.executed);
+        assertPricingMatches();
+    }
+
+    public void testOrderRepricedElsewhereIsPricedInFull() throws Exception {
+        enableFingerprints();
+
+        incrementalOrder.setChangeJournal(null);
+        incrementalOrder.setTotal(new Money(1D));
+        applyUnrecordedChange(4, 12.5D);
+
+        assertEquals(fullWorkflow.activityNames(), incrementalWorkflow.executed);
+        assertPricingMatches();
+    }
+
+    public void testRandomChangesMatchFullRepricing() throws Exception {
+        Random random = new Random(20261017L);
+        for (int i = 0; i < 200; i++) {
+            int change = random.nextInt(6);
+            double amount = 1 + random.nextInt(5000) / 100D;
+            applyChange(change, amount);
+            assertPricingMatches();
+        }
+    }
+
+    /**
+     * Applies the same change to both orders, records it on the incrementally priced one and reprices both
+     */
+    protected void applyChange(int change, double amount) throws Exception {
+        String recorded = null;
+        for (Order order : Arrays.asList(incrementalOrder, fullOrder)) {
+            recorded = applyChange(order, change, amount);
+        }
+        OrderChangeJournal.recordChange(incrementalOrder, recorded);
+
+        incrementalWorkflow.executed.clear();
+        fullWorkflow.executed.clear();
+        incrementalOrder = incrementalPricingService.executePricing(incrementalOrder);
+        fullOrder = fullPricingService.executePricing(fullOrder);
+    }
+
+    /**
+     * Applies the same change to both orders and reprices both without recording the change
+     */
+    protected void applyUnrecordedChange(int change, double amount) throws Exception {
+        for (Order order : Arrays.asList(incrementalOrder, fullOrder)) {
+            applyChange(order, change, amount);
+        }
+        incrementalWorkflow.executed.clear();
+        fullWorkflow.executed.clear();
+        incrementalOrder = incrementalPricingService.executePricing(incrementalOrder);
+        fullOrder = fullPricingService.executePricing(fullOrder);
+    }
+
+    /**
+     * Gives the incremental pricing service a fingerprint cache and prices the order once more to fill it
+     */
+    protected void enableFingerprints() throws Exception {
+        incrementalPricingService.snapshotCacheManager = new SnapshotCacheManager();
+        incrementalOrder.setChangeJournal(null);
+        incrementalOrder = incrementalPricingService.executePricing(incrementalOrder);
+    }
+
+    protected String applyChange(Order order, int change, double amount) {
+        switch (change) {
+            case 0: {
+                OrderItem item = order.getOrderItems().get((int) amount % order.getOrderItems().size());
+                item.setSalePrice(new Money(amount));
+                return OrderChangeJournal.ORDER_ITEMS;
+            }
+            case 1: {
+                FulfillmentGroup fulfillmentGroup = order.getFulfillmentGroups().get((int) amount % order.getFulfillmentGroups().size());
+                FulfillmentGroupFee fee = new FulfillmentGroupFeeImpl();
+                fee.setName("fee");
+                fee.setAmount(new Money(amount));
+                fee.setFulfillmentGroup(fulfillmentGroup);
+                fulfillmentGroup.addFulfillmentGroupFee(fee);
+                return OrderChangeJournal.FULFILLMENT_GROUPS;
+            }
+            case 2: {
+                FulfillmentGroup fulfillmentGroup = order.getFulfillmentGroups().get((int) amount % order.getFulfillmentGroups().size());
+                fulfillmentGroup.getFulfillmentGroupFees().clear();
+                return OrderChangeJournal.FULFILLMENT_GROUPS;
+            }
+            case 3:
+                // Recorded without changing anything, which must not change the results either
+                return OrderChangeJournal.OFFER_CODES;
+            case 4:
+                addPayment(order, PaymentType.GIFT_CARD, amount);
+                return OrderChangeJournal.PAYMENTS;
+            default: {
+                for (OrderPayment payment : order.getPayments()) {
+                    if (PaymentType.GIFT_CARD.equals(payment.getType())) {
+                        payment.setAmount(new Money(amount));
+                    }
+                }
+                return OrderChangeJournal.PAYMENTS;
+            }
+        }
+    }
+
+    protected void assertPricingMatches() {
+        assertEquals(describePricing(fullOrder), describePricing(incrementalOrder));
+    }
+
+    protected String describePricing(Order order) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("subTotal=").append(order.getSubTotal())
+            .append(" shipping=").append(order.getTotalShipping())
+            .append(" tax=").append(order.getTotalTax())
+            .append(" total=").append(order.getTotal());
+        for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+            sb.append("\n fg merchandise=").append(fulfillmentGroup.getMerchandiseTotal())
+                .append(" shipping=").append(fulfillmentGroup.getShippingPrice())
+                .append(" total=").append(fulfillmentGroup.getTotal());
+            for (FulfillmentGroupItem item : fulfillmentGroup.getFulfillmentGroupItems()) {
+                sb.append("\n  item adjustment=").append(item.getProratedOrderAdjustmentAmount())
+                    .append(" tax=").append(item.getTotalTax());
+            }
+        }
+        for (OrderPayment payment : order.getPayments()) {
+            sb.append("\n payment ").append(payment.getType().getType()).append('=').append(payment.getAmount());
+        }
+        return sb.toString();
+    }
+
+    protected Order createOrder() {
+        Order order = dataProvider.createBasicOrder();
+        for (OrderItem item : order.getOrderItems()) {
+            item.setSalePrice(new Money(10D));
+            item.getOrderItemPriceDetails().clear();
+        }
+        addPayment(order, PaymentType.CREDIT_CARD, 0D);
+        return order;
+    }
+
+    protected void addPayment(Order order, PaymentType type, double amount) {
+        OrderPayment payment = new OrderPaymentImpl();
+        payment.setType(type);
+        payment.setAmount(new Money(amount));
+        payment.setOrder(order);
+        order.getPayments().add(payment);
+    }
+
+    protected PricingServiceImpl pricingService(TestPricingWorkflow workflow, boolean incremental) throws PricingException {
+        List<Activity<ProcessContext<Order>>> activities = new ArrayList<>();
+        OfferActivity offer = new OfferActivity();
+        ReflectionTestUtils.setField(offer, "offerService", createOfferService());
+        activities.add(named("offer", offer));
+        activities.add(named("fulfillmentItemPricing", new FulfillmentItemPricingActivity()));
+        activities.add(named("fulfillmentGroupMerchandiseTotal", new FulfillmentGroupMerchandiseTotalActivity()));
+        FulfillmentGroupPricingActivity fulfillmentGroupPricing = new FulfillmentGroupPricingActivity();
+        fulfillmentGroupPricing.setFulfillmentPricingService(new PercentageFulfillmentPricingService());
+        activities.add(named("fulfillmentGroupPricing", fulfillmentGroupPricing));
+        ShippingOfferActivity shippingOffer = new ShippingOfferActivity();
+        ReflectionTestUtils.setField(shippingOffer, "shippingOfferService", new HalfShippingOfferService());
+        activities.add(named("shippingOffer", shippingOffer));
+        TaxActivity tax = new TaxActivity();
+        tax.setTaxModule(new PercentageTaxModule());
+        activities.add(named("tax", tax));
+        activities.add(named("total", new TotalActivity()));
+        activities.add(named("adjustOrderPayments", new AdjustOrderPaymentsActivity()));
+        workflow.setActivities(activities);
+        workflow.setDefaultErrorHandler(new DefaultErrorHandler());
+        workflow.setAutoRollbackOnError(false);
+
+        PricingServiceImpl pricingService = new PricingServiceImpl();
+        pricingService.pricingWorkflow = workflow;
+        pricingService.incrementalPricingEnabled = incremental;
+        return pricingService;
+    }
+
+    /**
+     * Offer service that finds no offers and only sets the subtotal when they are applied
+     */
+    protected OfferService createOfferService() throws PricingException {
+        OfferService offerService = EasyMock.createNiceMock(OfferService.class);
+        EasyMock.expect(offerService.buildOfferCodeListForCustomer(EasyMock.isA(Order.class)))
+            .andAnswer(() -> new ArrayList<OfferCode>()).anyTimes();
+        EasyMock.expect(offerService.buildOfferListForOrder(EasyMock.isA(Order.class)))
+            .andAnswer(() -> new ArrayList<Offer>()).anyTimes();
+        EasyMock.expect(offerService.applyAndSaveOffersToOrder(EasyMock.<List<Offer>>anyObject(), EasyMock.isA(Order.class)))
+            .andAnswer(() -> {
+                Order order = (Order) EasyMock.getCurrentArguments()[1];
+                order.setSubTotal(order.calculateSubTotal());
+                return order;
+            }).anyTimes();
+        EasyMock.replay(offerService);
+        return offerService;
+    }
+
+    protected Activity<ProcessContext<Order>> named(String name, Activity<ProcessContext<Order>> activity) {
+        activity.setBeanName(name);
+        return activity;
+    }
+
+    /**
+     * Runs the activities directly instead of going through the state manager that needs a bean factory, and records
+     * which ones were executed
+     */
+    protected static class TestPricingWorkflow extends SequenceProcessor<Order, Order> {
+
+        protected List<String> executed = new ArrayList<>();
+        protected boolean failing = false;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <P extends ProcessContext<Order>> P doActivities(Order seedData) throws WorkflowException {
+            if (failing) {
+                throw new WorkflowException("Failing on purpose");
+            }
+            RollbackStateLocal rollbackStateLocal = new RollbackStateLocal();
+            rollbackStateLocal.setThreadId(String.valueOf(Thread.currentThread().getId()));
+            rollbackStateLocal.setWorkflowId("testPricingWorkflow");
+            ProcessContext<Order> context = new PricingProcessContextFactory().createContext(seedData);
+            return (P) executeActivities(getActivities(), context, rollbackStateLocal);
+        }
+
+        @Override
+        protected ProcessContext<Order> invokeActivity(Activity<ProcessContext<Order>> activity, ProcessContext<Order> context) throws Exception {
+            executed.add(activity.getBeanName());
+            return super.invokeActivity(activity, context);
+        }
+
+        protected List<String> activityNames() {
+            List<String> names = new ArrayList<>();
+            for (Activity<ProcessContext<Order>> activity : getActivities()) {
+                names.add(activity.getBeanName());
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Stands in for a custom pricing activity that does not declare what it changes
+     */
+    protected static class UntrackedActivity extends BaseActivity<ProcessContext<Order>> {
+
+        @Override
+        public ProcessContext<Order> execute(ProcessContext<Order> context) throws Exception {
+            return context;
+        }
+    }
+
+    /**
+     * Halves the shipping price of the fulfillment groups whose merchandise total is over 25, like a shipping offer would.
+     * Applying it twice without repricing the fulfillment group in between halves the price twice, so the harness notices
+     * when the shipping offer activity runs without the fulfillment group pricing activity before it.
+     */
+    protected static class HalfShippingOfferService implements ShippingOfferService {
+
+        @Override
+        public void reviewOffers(Order order) {
+            for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+                if (fulfillmentGroup.getMerchandiseTotal().greaterThan(new Money(25D))) {
+                    fulfillmentGroup.setShippingPrice(fulfillmentGroup.getShippingPrice().divide(2));
+                }
+            }
+        }
+    }
+
+    /**
+     * Taxes the merchandise total and shipping price of each fulfillment group at five percent
+     */
+    protected static class PercentageTaxModule implements TaxModule {
+
+        @Override
+        public String getName() {
+            return "percentage";
+        }
+
+        @Override
+        public void setName(String name) {
+        }
+
+        @Override
+        public Order calculateTaxForOrder(Order order) {
+            for (FulfillmentGroup fulfillmentGroup : order.getFulfillmentGroups()) {
+                Money taxable = fulfillmentGroup.getMerchandiseTotal().add(fulfillmentGroup.getShippingPrice());
+                List<TaxDetail> taxes = new ArrayList<>();
+                taxes.add(new TaxDetailImpl(TaxType.STATE, taxable.multiply(0.05D), new BigDecimal("0.05")));
+                fulfillmentGroup.setTaxes(taxes);
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Charges a tenth of the merchandise total plus the fees of each fulfillment group
+     */
+    protected static class PercentageFulfillmentPricingService implements FulfillmentPricingService {
+
+        @Override
+        public FulfillmentGroup calculateCostForFulfillmentGroup(FulfillmentGroup fulfillmentGroup) {
+            Money price = fulfillmentGroup.getMerchandiseTotal().multiply(0.1D);
+            for (FulfillmentGroupFee fee : fulfillmentGroup.getFulfillmentGroupFees()) {
+                price = price.add(fee.getAmount());
+            }
+            fulfillmentGroup.setShippingPrice(price);
+            return fulfillmentGroup;
+        }
+
+        @Override
+        public FulfillmentEstimationResponse estimateCostForFulfillmentGroup(FulfillmentGroup fulfillmentGroup, Set<FulfillmentOption> options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<FulfillmentPricingProvider> getProviders() {
+            return new ArrayList<>();
+        }
+    }
+
+}
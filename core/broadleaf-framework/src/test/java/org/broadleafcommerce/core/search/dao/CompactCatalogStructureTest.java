@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.dao;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class CompactCatalogStructureTest extends TestCase {
+
+    public void testAdjacencyMatchesMapBasedStructure() {
+        CatalogStructure legacy = new CatalogStructure();
+        CompactCatalogStructure compact = new CompactCatalogStructure(4);
+
+        for (long productId = 1; productId <= 5000; productId++) {
+            legacy.putParentCategoriesForProduct(productId, Arrays.asList(productId % 7, productId % 11 + 100));
+            compact.putParentCategoriesForProduct(productId, Arrays.asList(productId % 7, productId % 11 + 100));
+        }
+        compact.putParentCategoriesForCategory(3L, Arrays.asList(1L, 2L));
+        legacy.putParentCategoriesForCategory(3L, Arrays.asList(1L, 2L));
+
+        assertEquals("All products should survive resizing", 5000, compact.getProductCount());
+        for (long productId = 1; productId <= 5000; productId++) {
+            long[] expected = legacy.getParentCategoryIdsForProduct(productId);
+            long[] actual = compact.getParentCategoryIdsForProduct(productId);
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertTrue("Parents of product " + productId + " should match", Arrays.equals(expected, actual));
+        }
+        assertFalse(compact.containsProduct(5001L));
+        assertNull(compact.getParentCategoryIdsForProduct(5001L));
+        assertTrue(compact.containsCategory(3L));
+        assertFalse(compact.containsCategory(4L));
+
+        Set<Long> parents = compact.getParentCategoriesByCategory().get(3L);
+        assertEquals("The legacy map getter should expose the same data", 2, parents.size());
+        assertTrue(parents.contains(1L) && parents.contains(2L));
+    }
+
+    public void testDisplayOrders() {
+        CompactCatalogStructure compact = new CompactCatalogStructure();
+
+        compact.putDisplayOrder(10L, 20L, new BigDecimal("100.00000"));
+        compact.putDisplayOrder(20L, 10L, new BigDecimal("1.5"));
+        compact.putDisplayOrder(10L, 20L, new BigDecimal("2.1234567"));
+
+        assertEquals("Later values should replace earlier ones and keep 6 decimals",
+                new BigDecimal("2.123456"), compact.getDisplayOrder(10L, 20L));
+        assertEquals("Key order should matter", 0, new BigDecimal("1.5").compareTo(compact.getDisplayOrder(20L, 10L)));
+        assertNull(compact.getDisplayOrder(10L, 21L));
+        assertEquals(0, new BigDecimal("1.5").compareTo(compact.getDisplayOrdersByCategoryProduct().get("20-10")));
+    }
+
+    public void testDisplayOrderByKey() {
+        CatalogStructure legacy = new CatalogStructure();
+        CompactCatalogStructure compact = new CompactCatalogStructure();
+        legacy.putDisplayOrder(10L, 20L, new BigDecimal("1.5"));
+        compact.putDisplayOrder(10L, 20L, new BigDecimal("1.5"));
+
+        assertEquals(0, legacy.getDisplayOrder("10-20").compareTo(compact.getDisplayOrder("10-20")));
+        assertNull(compact.getDisplayOrder("20-10"));
+        assertNull(compact.getDisplayOrder("10"));
+        assertNull(compact.getDisplayOrder("ten-20"));
+        assertNull(compact.getDisplayOrder((String) null));
+    }
+
+    public void testMapGettersAreReadOnly() {
+        CompactCatalogStructure compact = new CompactCatalogStructure();
+        compact.putDisplayOrder(10L, 20L, BigDecimal.ONE);
+
+        try {
+            compact.getDisplayOrdersByCategoryProduct().put("10-21", BigDecimal.ONE);
+            fail("The display order snapshot should not accept changes");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertNull(compact.getDisplayOrder(10L, 21L));
+    }
+}
@@ -0,0 +1,338 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.search.service.solr.index;
+
+import org.broadleafcommerce.common.exception.ServiceException;
+import org.broadleafcommerce.core.catalog.domain.Indexable;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuActiveDatesService;
+import org.broadleafcommerce.core.catalog.service.dynamic.DynamicSkuPricingService;
+import org.broadleafcommerce.core.catalog.service.dynamic.SkuActiveDateConsiderationContext;
+import org.broadleafcommerce.core.catalog.service.dynamic.SkuPricingConsiderationContext;
+import org.broadleafcommerce.core.search.domain.FieldEntity;
+import org.easymock.EasyMock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+public class SolrIndexServiceImplTest extends TestCase {
+
+    protected static final int PAGE_SIZE = 10;
+
+    public void testPipelinedReindexIndexesTheSameDocuments() throws Exception {
+        List<Long> ids = createIds(257);
+
+        RecordingOperation sequential = new RecordingOperation(ids);
+        createService(ids, false).executeSolrIndexOperation(sequential);
+
+        RecordingOperation pipelined = new RecordingOperation(ids);
+        createService(ids, true).executeSolrIndexOperation(pipelined);
+
+        assertEquals("The sequential path should index every item once", ids, sorted(sequential.built));
+        assertEquals("The pipelined path should index the same items", sorted(sequential.built), sorted(pipelined.built));
+        assertEquals("Ranges lined up with the pages should index every item once", ids.size(), pipelined.built.size());
+        pipelined.assertHooksBalanced();
+        assertEquals("Pages should only be built between the build hooks", 0, pipelined.buildsOutsideHooks.get());
+    }
+
+    public void testPipelinedReindexCoversRangesThatDoNotLineUpWithThePages() throws Exception {
+        List<Long> ids = createIds(257);
+        // the ids splitting the work into ranges only know about every third item
+        List<Long> rangeIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += 3) {
+            rangeIds.add(ids.get(i));
+        }
+
+        RecordingOperation pipelined = new RecordingOperation(ids);
+        createService(rangeIds, true).executeSolrIndexOperation(pipelined);
+
+        assertEquals("Every item read by the operation should be indexed", ids, new ArrayList<>(new TreeSet<>(pipelined.built)));
+        pipelined.assertHooksBalanced();
+    }
+
+    public void testPipelinedReindexWithoutItems() throws Exception {
+        List<Long> ids = Collections.emptyList();
+
+        RecordingOperation pipelined = new RecordingOperation(ids);
+        createService(ids, true).executeSolrIndexOperation(pipelined);
+
+        assertTrue(pipelined.built.isEmpty());
+        pipelined.assertHooksBalanced();
+    }
+
+    public void testPipelinedReindexReportsBuildFailures() throws Exception {
+        List<Long> ids = createIds(100);
+        RecordingOperation failing = new RecordingOperation(ids) {
+            @Override
+            public void buildPage(List<? extends Indexable> indexables) throws ServiceException {
+                throw new ServiceException("Unable to build the page");
+            }
+        };
+
+        try {
+            createService(ids, true).executeSolrIndexOperation(failing);
+            fail("The failure of a builder should fail the reindex");
+        } catch (ServiceException e) {
+            assertEquals("Unable to build the page", e.getMessage());
+        }
+    }
+
+    public void testPipelinedBuildersCopyTheSkuConsiderationContexts() throws Exception {
+        List<Long> ids = createIds(50);
+        final List<Object> expectedState = bindSkuConsiderationContexts();
+        final List<List<Object>> builderStates = Collections.synchronizedList(new ArrayList<List<Object>>());
+        RecordingOperation pipelined = new RecordingOperation(ids) {
+            @Override
+            public void buildPage(List<? extends Indexable> indexables) throws ServiceException {
+                builderStates.add(getSkuConsiderationContexts());
+                super.buildPage(indexables);
+            }
+        };
+
+        try {
+            createService(ids, true).executeSolrIndexOperation(pipelined);
+        } finally {
+            clearSkuConsiderationContexts();
+        }
+
+        assertFalse(builderStates.isEmpty());
+        for (List<Object> builderState : builderStates) {
+            assertEquals(expectedState, builderState);
+        }
+    }
+
+    public void testPipelinedBuildersClearTheSkuConsiderationContexts() throws Exception {
+        final SolrIndexServiceImpl service = createService(createIds(10), true);
+        final Object[] parentState;
+        bindSkuConsiderationContexts();
+        try {
+            parentState = service.saveState();
+        } finally {
+            clearSkuConsiderationContexts();
+        }
+        final BlockingQueue<SolrIndexServiceImpl.PipelineRange> ranges = new ArrayBlockingQueue<>(1);
+        ranges.add(SolrIndexServiceImpl.PipelineRange.END);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final List<List<Object>> builderStates = new ArrayList<>();
+
+        Thread builder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    service.buildPipelinedRanges(new RecordingOperation(createIds(10)), parentState, ranges, failure,
+                            new SolrIndexPipelineStats(), null);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+                builderStates.add(getSkuConsiderationContexts());
+            }
+        });
+        builder.start();
+        builder.join();
+
+        assertNull(failure.get());
+        assertEquals(Arrays.asList(null, null, null, null), builderStates.get(0));
+    }
+
+    /**
+     * Binds dynamic sku pricing and active date considerations to the current thread
+     *
+     * @return the bound considerations, in the order of {@link #getSkuConsiderationContexts()}
+     */
+    protected List<Object> bindSkuConsiderationContexts() {
+        HashMap<String, Object> pricingConsiderations = new HashMap<>();
+        pricingConsiderations.put("priceList", "wholesale");
+        HashMap<String, Object> activeDateConsiderations = new HashMap<>();
+        activeDateConsiderations.put("market", "EU");
+        DynamicSkuPricingService pricingService = EasyMock.createNiceMock(DynamicSkuPricingService.class);
+        DynamicSkuActiveDatesService activeDatesService = EasyMock.createNiceMock(DynamicSkuActiveDatesService.class);
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(pricingConsiderations);
+        SkuPricingConsiderationContext.setSkuPricingService(pricingService);
+        SkuActiveDateConsiderationContext.setSkuActiveDateConsiderationContext(activeDateConsiderations);
+        SkuActiveDateConsiderationContext.setSkuActiveDatesService(activeDatesService);
+        return Arrays.<Object>asList(pricingConsiderations, pricingService, activeDateConsiderations, activeDatesService);
+    }
+
+    protected void clearSkuConsiderationContexts() {
+        SkuPricingConsiderationContext.setSkuPricingConsiderationContext(null);
+        SkuPricingConsiderationContext.setSkuPricingService(null);
+        SkuActiveDateConsiderationContext.setSkuActiveDateConsiderationContext(null);
+        SkuActiveDateConsiderationContext.setSkuActiveDatesService(null);
+    }
+
+    protected List<Object> getSkuConsiderationContexts() {
+        return Arrays.<Object>asList(SkuPricingConsiderationContext.getSkuPricingConsiderationContext(),
+                SkuPricingConsiderationContext.getSkuPricingService(),
+                SkuActiveDateConsiderationContext.getSkuActiveDateConsiderationContext(),
+                SkuActiveDateConsiderationContext.getSkuActiveDatesService());
+    }
+
+    protected SolrIndexServiceImpl createService(final List<Long> rangeIds, boolean pipelined) {
+        SolrIndexServiceImpl service = new SolrIndexServiceImpl() {
+            @Override
+            protected List<Long> readIndexableIds(int pageSize, Long lastId) {
+                return nextPage(rangeIds, pageSize, lastId);
+            }
+
+            @Override
+            protected Runnable createPipelineBuilder(final SolrIndexOperation operation, final Object[] parentState,
+                    final BlockingQueue<PipelineRange> ranges, final AtomicReference<Exception> failure, final SolrIndexPipelineStats stats) {
+                // no entity manager to bind outside of a container
+                return new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            buildPipelinedRanges(operation, parentState, ranges, failure, stats, null);
+                        } catch (Exception e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                };
+            }
+        };
+        PlatformTransactionManager transactionManager = EasyMock.createNiceMock(PlatformTransactionManager.class);
+        EasyMock.replay(transactionManager);
+        service.transactionManager = transactionManager;
+        service.pageSize = PAGE_SIZE;
+        service.pipelineEnabled = pipelined;
+        service.pipelineBuilderThreads = 3;
+        service.pipelineQueueCapacity = 2;
+        return service;
+    }
+
+    protected static List<Long> createIds(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; ids.size() < count; id++) {
+            if (id % 7 != 0) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    protected static List<Long> nextPage(List<Long> ids, int pageSize, Long lastId) {
+        List<Long> page = new ArrayList<>();
+        for (Long id : ids) {
+            if ((lastId == null || id > lastId) && page.size() < pageSize) {
+                page.add(id);
+            }
+        }
+        return page;
+    }
+
+    protected static List<Long> sorted(List<Long> ids) {
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Reindex operation over an in memory list of ids that records the items it was asked to build
+     */
+    protected static class RecordingOperation extends GlobalSolrFullReIndexOperation {
+
+        protected final List<Long> ids;
+        protected final List<Long> built = Collections.synchronizedList(new ArrayList<Long>());
+        protected final AtomicInteger reads = new AtomicInteger();
+        protected final AtomicInteger beforeReads = new AtomicInteger();
+        protected final AtomicInteger afterReads = new AtomicInteger();
+        protected final AtomicInteger beforeBuilds = new AtomicInteger();
+        protected final AtomicInteger afterBuilds = new AtomicInteger();
+        protected final AtomicInteger buildsOutsideHooks = new AtomicInteger();
+        protected final ThreadLocal<Boolean> building = new ThreadLocal<>();
+
+        public RecordingOperation(List<Long> ids) {
+            super(null, null, null, true);
+            this.ids = ids;
+        }
+
+        @Override
+        public Long countIndexables() {
+            return (long) ids.size();
+        }
+
+        @Override
+        public void beforeReadIndexables() {
+            beforeReads.incrementAndGet();
+        }
+
+        @Override
+        public List<? extends Indexable> readIndexables(int pageSize, Long lastId) {
+            reads.incrementAndGet();
+            List<Indexable> indexables = new ArrayList<>();
+            for (final Long id : nextPage(ids, pageSize, lastId)) {
+                indexables.add(new Indexable() {
+                    @Override
+                    public Long getId() {
+                        return id;
+                    }
+
+                    @Override
+                    public FieldEntity getFieldEntityType() {
+                        return FieldEntity.PRODUCT;
+                    }
+                });
+            }
+            return indexables;
+        }
+
+        @Override
+        public void afterReadIndexables() {
+            afterReads.incrementAndGet();
+        }
+
+        @Override
+        public void beforeBuildPage() {
+            beforeBuilds.incrementAndGet();
+            building.set(Boolean.TRUE);
+        }
+
+        @Override
+        public void buildPage(List<? extends Indexable> indexables) throws ServiceException {
+            if (!Boolean.TRUE.equals(building.get())) {
+                buildsOutsideHooks.incrementAndGet();
+            }
+            for (Indexable indexable : indexables) {
+                built.add(indexable.getId());
+            }
+        }
+
+        @Override
+        public void afterBuildPage() {
+            building.remove();
+            afterBuilds.incrementAndGet();
+        }
+
+        public void assertHooksBalanced() {
+            assertEquals("Every read should be surrounded by the read hooks", reads.get(), beforeReads.get());
+            assertEquals(reads.get(), afterReads.get());
+            assertEquals("Every read page should be built", reads.get(), beforeBuilds.get());
+            assertEquals(reads.get(), afterBuilds.get());
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow;
+
+import junit.framework.TestCase;
+
+import org.broadleafcommerce.core.workflow.state.ActivityStateManagerImpl;
+import org.broadleafcommerce.core.workflow.state.RollbackHandler;
+import org.broadleafcommerce.core.workflow.state.RollbackStateLocal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class DependencyGraphProcessorTest extends TestCase {
+
+    protected DependencyGraphProcessor<String, String> processor;
+    protected RollbackStateLocal rollbackStateLocal;
+
+    @Override
+    protected void setUp() throws Exception {
+        processor = new DependencyGraphProcessor<>();
+        processor.setBeanName("testWorkflow");
+        processor.setAutoRollbackOnError(false);
+        rollbackStateLocal = new RollbackStateLocal();
+        rollbackStateLocal.setThreadId(String.valueOf(Thread.currentThread().getId()));
+        rollbackStateLocal.setWorkflowId("testWorkflow");
+        RollbackStateLocal.setRollbackStateLocal(rollbackStateLocal);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        RollbackStateLocal.clearRollbackStateLocal();
+        processor.destroy();
+    }
+
+    public void testStagesSplitOnConflicts() {
+        TestActivity readerA = activity("readerA", reads("items"), writes());
+        TestActivity readerB = activity("readerB", reads("items"), writes("messages"));
+        TestActivity writer = activity("writer", reads(), writes("items"));
+        TestActivity undeclared = activity("undeclared", reads(), writes());
+        TestActivity other = activity("other", reads("taxes"), writes());
+        TestActivity dependent = activity("dependent", reads("shipping"), writes());
+        dependent.setDependsOn(new HashSet<>(Arrays.asList("other")));
+
+        List<List<Activity<ProcessContext<String>>>> stages = processor.buildActivityStages(
+                list(readerA, readerB, writer, undeclared, other, dependent));
+
+        assertEquals(5, stages.size());
+        assertEquals(list(readerA, readerB), stages.get(0));
+        assertEquals(list(writer), stages.get(1));
+        assertEquals(list(undeclared), stages.get(2));
+        assertEquals(list(other), stages.get(3));
+        assertEquals(list(dependent), stages.get(4));
+    }
+
+    public void testUndeclaredActivitiesAreNeverGrouped() {
+        TestActivity first = activity("first", reads(), writes());
+        TestActivity second = activity("second", reads(), writes());
+        TestActivity declared = activity("declared", reads("items"), writes());
+
+        List<List<Activity<ProcessContext<String>>>> stages = processor.buildActivityStages(list(first, second, declared));
+
+        assertEquals(3, stages.size());
+    }
+
+    public void testIndependentActivitiesRunConcurrently() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        TestActivity first = new LatchActivity("first", bothRunning);
+        first.setReadSet(reads("items"));
+        TestActivity second = new LatchActivity("second", bothRunning);
+        second.setReadSet(reads("taxes"));
+        TestActivity last = activity("last", reads(), writes());
+        List<Activity<ProcessContext<String>>> activities = list(first, second, last);
+        initialize(activities, 2);
+
+        ProcessContext<String> context = new DefaultProcessContextImpl<>();
+        ProcessContext<String> result = processor.executeActivities(activities, context, rollbackStateLocal);
+
+        assertSame(context, result);
+        assertTrue(first.executed);
+        assertTrue(second.executed);
+        assertTrue(last.executed);
+        assertEquals(0, bothRunning.getCount());
+    }
+
+    public void testFailureInStageUsesErrorHandlerAndStopsWorkflow() throws Exception {
+        TestActivity first = activity("first", reads("items"), writes());
+        TestActivity failing = new FailingActivity("failing");
+        failing.setReadSet(reads("taxes"));
+        TestActivity last = activity("last", reads(), writes());
+        List<Activity<ProcessContext<String>>> activities = list(first, failing, last);
+        initialize(activities, 2);
+
+        try {
+            processor.executeActivities(activities, new DefaultProcessContextImpl<String>(), rollbackStateLocal);
+            fail("The failure should have been passed to the default error handler");
+        } catch (WorkflowException e) {
+            assertEquals("failing", e.getCause().getMessage());
+        }
+        assertTrue(first.executed);
+        assertFalse(last.executed);
+    }
+
+    public void testFailureInStageRollsBackActivitiesThatAlreadyFinished() throws Exception {
+        new ActivityStateManagerImpl<ProcessContext<String>>().init();
+        processor.setAutoRollbackOnError(true);
+        List<String> rolledBack = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch othersFinished = new CountDownLatch(2);
+        TestActivity failing = new FailingActivity("failing", othersFinished);
+        failing.setReadSet(reads("items"));
+        TestActivity second = new LatchActivity("second", null, othersFinished);
+        second.setReadSet(reads("taxes"));
+        TestActivity third = new LatchActivity("third", null, othersFinished);
+        third.setReadSet(reads("shipping"));
+        TestActivity last = activity("last", reads(), writes());
+        for (TestActivity activity : Arrays.asList(failing, second, third, last)) {
+            activity.setRollbackHandler(new RecordingRollbackHandler(rolledBack));
+            activity.setAutomaticallyRegisterRollbackHandler(true);
+        }
+        List<Activity<ProcessContext<String>>> activities = list(failing, second, third, last);
+        initialize(activities, 2);
+        assertEquals(list(failing, second, third), processor.activityStages.get(0));
+
+        try {
+            processor.executeActivities(activities, new DefaultProcessContextImpl<String>(), rollbackStateLocal);
+            fail("The failure should have been passed to the default error handler");
+        } catch (WorkflowException e) {
+            assertEquals("failing", e.getCause().getMessage());
+        }
+        assertTrue(second.executed);
+        assertTrue(third.executed);
+        assertFalse(last.executed);
+        // the members that finished alongside the failing activity are registered in stage order and rolled back in
+        // reverse, while the failing activity never registered its own handler
+        assertEquals(Arrays.asList("third", "second"), rolledBack);
+    }
+
+    public void testSequentialWhenNoThreadsConfigured() throws Exception {
+        TestActivity first = activity("first", reads("items"), writes());
+        TestActivity second = activity("second", reads("items"), writes());
+        List<Activity<ProcessContext<String>>> activities = list(first, second);
+        initialize(activities, 0);
+
+        processor.executeActivities(activities, new DefaultProcessContextImpl<String>(), rollbackStateLocal);
+
+        assertTrue(first.executed);
+        assertTrue(second.executed);
+        assertEquals(first.thread, second.thread);
+        assertEquals(Thread.currentThread(), first.thread);
+    }
+
+    protected void initialize(List<Activity<ProcessContext<String>>> activities, int threads) {
+        processor.setActivities(activities);
+        processor.setDefaultErrorHandler(new DefaultErrorHandler());
+        processor.setConcurrentActivityThreads(threads);
+        processor.activityStages = processor.buildActivityStages(processor.getActivities());
+    }
+
+    protected TestActivity activity(String name, HashSet<String> readSet, HashSet<String> writeSet) {
+        TestActivity activity = new TestActivity(name);
+        activity.setReadSet(readSet);
+        activity.setWriteSet(writeSet);
+        return activity;
+    }
+
+    protected HashSet<String> reads(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    protected HashSet<String> writes(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    @SafeVarargs
+    protected final List<Activity<ProcessContext<String>>> list(Activity<ProcessContext<String>>... activities) {
+        return new ArrayList<>(Arrays.asList(activities));
+    }
+
+    protected static class TestActivity extends BaseActivity<ProcessContext<String>> {
+
+        protected volatile boolean executed;
+        protected volatile Thread thread;
+
+        public TestActivity(String name) {
+            setBeanName(name);
+        }
+
+        @Override
+        public ProcessContext<String> execute(ProcessContext<String> context) throws Exception {
+            executed = true;
+            thread = Thread.currentThread();
+            return context;
+        }
+    }
+
+    protected static class LatchActivity extends TestActivity {
+
+        protected final CountDownLatch latch;
+        protected final CountDownLatch finished;
+
+        public LatchActivity(String name, CountDownLatch latch) {
+            this(name, latch, null);
+        }
+
+        /**
+         * @param latch counted down and awaited when the activity runs, if any
+         * @param finished counted down once the activity is done, if any
+         */
+        public LatchActivity(String name, CountDownLatch latch, CountDownLatch finished) {
+            super(name);
+            this.latch = latch;
+            this.finished = finished;
+        }
+
+        @Override
+        public ProcessContext<String> execute(ProcessContext<String> context) throws Exception {
+            super.execute(context);
+            if (latch != null) {
+                latch.countDown();
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Activities in the same stage did not run concurrently");
+                }
+            }
+            if (finished != null) {
+                finished.countDown();
+            }
+            return context;
+        }
+    }
+
+    protected static class FailingActivity extends TestActivity {
+
+        protected final CountDownLatch othersFinished;
+
+        public FailingActivity(String name) {
+            this(name, null);
+        }
+
+        /**
+         * @param othersFinished awaited before failing, if given
+         */
+        public FailingActivity(String name, CountDownLatch othersFinished) {
+            super(name);
+            this.othersFinished = othersFinished;
+        }
+
+        @Override
+        public ProcessContext<String> execute(ProcessContext<String> context) throws Exception {
+            super.execute(context);
+            if (othersFinished != null && !othersFinished.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("The other activities in the stage did not finish");
+            }
+            throw new IllegalStateException(getBeanName());
+        }
+    }
+
+    protected static class RecordingRollbackHandler implements RollbackHandler<ProcessContext<String>> {
+
+        protected final List<String> rolledBack;
+
+        public RecordingRollbackHandler(List<String> rolledBack) {
+            this.rolledBack = rolledBack;
+        }
+
+        @Override
+        public void rollbackState(Activity<ProcessContext<String>> activity, ProcessContext<String> processContext,
+                                  Map<String, Object> stateConfiguration) {
+            rolledBack.add(activity.getBeanName());
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow;
+
+import junit.framework.TestCase;
+
+import org.broadleafcommerce.core.workflow.state.ActivityStateManagerImpl;
+import org.broadleafcommerce.core.workflow.statistics.ActivityStatistics;
+import org.broadleafcommerce.core.workflow.statistics.WorkflowStatisticsServiceImpl;
+import org.broadleafcommerce.core.workflow.statistics.WorkflowTimeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class SequenceProcessorTest extends TestCase {
+
+    protected SequenceProcessor<String, String> processor;
+    protected WorkflowStatisticsServiceImpl statisticsService;
+
+    @Override
+    protected void setUp() throws Exception {
+        statisticsService = new WorkflowStatisticsServiceImpl();
+        statisticsService.setEnabled(true);
+        ActivityStateManagerImpl<ProcessContext<String>> activityStateManager = new ActivityStateManagerImpl<>();
+        activityStateManager.init();
+
+        processor = new SequenceProcessor<>();
+        processor.setBeanName("testWorkflow");
+        processor.setAutoRollbackOnError(false);
+        processor.setDefaultErrorHandler(new DefaultErrorHandler());
+        processor.setProcessContextFactory(seedData -> new DefaultProcessContextImpl<String>());
+        processor.activityStateManager = activityStateManager;
+        processor.workflowStatisticsService = statisticsService;
+    }
+
+    public void testActivitiesAreTimed() throws Exception {
+        TestActivity first = new TestActivity("first", true);
+        TestActivity second = new TestActivity("second", true);
+        processor.setActivities(list(first, second));
+
+        processor.doActivities("seed");
+
+        Map<String, ActivityStatistics> statistics = statisticsService.getActivityStatistics();
+        assertEquals(1, statistics.get("testWorkflow").getExecutions());
+        assertEquals(1, statistics.get("testWorkflow.first").getExecutions());
+        assertEquals(1, statistics.get("testWorkflow.second").getExecutions());
+        assertEquals(0, statistics.get("testWorkflow.first").getFailures());
+        assertNull("The timeline should not outlive the workflow", WorkflowTimeline.getTimeline());
+    }
+
+    public void testSkippedActivitiesAreRecorded() throws Exception {
+        TestActivity executed = new TestActivity("executed", true);
+        TestActivity skipped = new TestActivity("skipped", false);
+        processor.setActivities(list(executed, skipped));
+
+        processor.doActivities("seed");
+        processor.doActivities("seed");
+
+        assertFalse(skipped.executed);
+        ActivityStatistics skippedStatistics = statisticsService.getActivityStatistics().get("testWorkflow.skipped");
+        assertEquals(0, skippedStatistics.getExecutions());
+        assertEquals(2, skippedStatistics.getSkips());
+        assertEquals(2, statisticsService.getActivityStatistics().get("testWorkflow.executed").getExecutions());
+    }
+
+    public void testFailedActivitiesAreRecorded() throws Exception {
+        TestActivity failing = new FailingActivity("failing");
+        TestActivity last = new TestActivity("last", true);
+        processor.setActivities(list(failing, last));
+
+        try {
+            processor.doActivities("seed");
+            fail("The failure should have been passed to the default error handler");
+        } catch (WorkflowException e) {
+            assertEquals("failing", e.getCause().getMessage());
+        }
+
+        Map<String, ActivityStatistics> statistics = statisticsService.getActivityStatistics();
+        assertEquals(1, statistics.get("testWorkflow.failing").getExecutions());
+        assertEquals(1, statistics.get("testWorkflow.failing").getFailures());
+        assertNull(statistics.get("testWorkflow.last"));
+        assertEquals(1, statistics.get("testWorkflow").getExecutions());
+        assertNull(WorkflowTimeline.getTimeline());
+    }
+
+    public void testNothingIsRecordedWhenDisabled() throws Exception {
+        statisticsService.setEnabled(false);
+        TestActivity first = new TestActivity("first", true);
+        processor.setActivities(list(first));
+
+        processor.doActivities("seed");
+
+        assertTrue(first.executed);
+        assertTrue(statisticsService.getActivityStatistics().isEmpty());
+    }
+
+    public void testRunsWithoutStatisticsService() throws Exception {
+        processor.workflowStatisticsService = null;
+        TestActivity first = new TestActivity("first", true);
+        processor.setActivities(list(first));
+
+        processor.doActivities("seed");
+
+        assertTrue(first.executed);
+        assertNull(WorkflowTimeline.getTimeline());
+    }
+
+    @SafeVarargs
+    protected final List<Activity<ProcessContext<String>>> list(Activity<ProcessContext<String>>... activities) {
+        return new ArrayList<>(Arrays.asList(activities));
+    }
+
+    protected static class TestActivity extends BaseActivity<ProcessContext<String>> {
+
+        protected final boolean shouldExecute;
+        protected volatile boolean executed;
+
+        public TestActivity(String name, boolean shouldExecute) {
+            setBeanName(name);
+            this.shouldExecute = shouldExecute;
+        }
+
+        @Override
+        public boolean shouldExecute(ProcessContext<String> context) {
+            return shouldExecute;
+        }
+
+        @Override
+        public ProcessContext<String> execute(ProcessContext<String> context) throws Exception {
+            executed = true;
+            return context;
+        }
+    }
+
+    protected static class FailingActivity extends TestActivity {
+
+        public FailingActivity(String name) {
+            super(name, true);
+        }
+
+        @Override
+        public ProcessContext<String> execute(ProcessContext<String> context) throws Exception {
+            super.execute(context);
+            throw new IllegalStateException(getBeanName());
+        }
+    }
+
+}
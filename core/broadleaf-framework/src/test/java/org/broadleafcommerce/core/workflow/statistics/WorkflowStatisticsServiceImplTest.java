@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * BroadleafCommerce Framework
+ * %%
+ * Copyright (C) 2009 - 2024 Broadleaf Commerce
+ * %%
+ * Licensed under the Broadleaf Fair Use License Agreement, Version 1.0
+ * (the "Fair Use License" located  at http://license.broadleafcommerce.org/fair_use_license-1.0.txt)
+ * unless the restrictions on use therein are violated and require payment to Broadleaf in which case
+ * the Broadleaf End User License Agreement (EULA), Version 1.1
+ * (the "Commercial License" located at http://license.broadleafcommerce.org/commercial_license-1.1.txt)
+ * shall apply.
+ * 
+ * Alternatively, the Commercial License may be replaced with a mutually agreed upon license (the "Custom License")
+ * between you and Broadleaf Commerce. You may not use this file except in compliance with the applicable license.
+ * #L%
+ */
+package org.broadleafcommerce.core.workflow.statistics;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WorkflowStatisticsServiceImplTest extends TestCase {
+
+    protected RecordingStatisticsService service;
+
+    @Override
+    protected void setUp() throws Exception {
+        service = new RecordingStatisticsService();
+        service.setEnabled(true);
+    }
+
+    public void testSlowExecutionsAreLogged() throws Exception {
+        service.setSlowWorkflowThresholdMillis(20L);
+
+        service.completeWorkflow(runWorkflow("fastWorkflow", 0L));
+        service.completeWorkflow(runWorkflow("slowWorkflow", 40L));
+
+        assertEquals(1, service.slowTimelines.size());
+        WorkflowTimeline logged = service.slowTimelines.get(0);
+        assertEquals("slowWorkflow", logged.getWorkflowName());
+        assertTrue(logged.describe().contains("activity: "));
+    }
+
+    public void testZeroThresholdDisablesSlowLogging() throws Exception {
+        service.setSlowWorkflowThresholdMillis(0L);
+
+        service.completeWorkflow(runWorkflow("slowWorkflow", 20L));
+
+        assertTrue(service.slowTimelines.isEmpty());
+        assertEquals(1, service.getActivityStatistics().get("slowWorkflow").getExecutions());
+    }
+
+    public void testDisabledServiceHandsOutNoTimeline() {
+        service.setEnabled(false);
+
+        assertNull(service.startWorkflow("workflow"));
+        assertFalse(service.getEnabled());
+    }
+
+    public void testManagedSummaries() throws Exception {
+        WorkflowTimeline first = runWorkflow("firstWorkflow", 0L);
+        first.activitySkipped("skipped");
+        service.completeWorkflow(first);
+        service.completeWorkflow(runWorkflow("firstWorkflow", 0L));
+        service.completeWorkflow(runWorkflow("secondWorkflow", 0L));
+
+        String summary = service.getSummary();
+        assertTrue(summary.contains("firstWorkflow: executions=2"));
+        assertTrue(summary.contains("firstWorkflow.activity: executions=2, skips=0, failures=0"));
+        assertTrue(summary.contains("firstWorkflow.skipped: executions=0, skips=1"));
+        assertTrue(summary.contains("secondWorkflow: executions=1"));
+
+        String workflowSummary = service.getWorkflowSummary("secondWorkflow");
+        assertTrue(workflowSummary.contains("secondWorkflow.activity: executions=1"));
+        assertFalse(workflowSummary.contains("firstWorkflow"));
+
+        service.reset();
+        assertEquals("", service.getSummary());
+    }
+
+    public void testResourceTrackingCanBeTurnedOff() throws Exception {
+        service.setResourceTrackingEnabled(false);
+
+        WorkflowTimeline timeline = runWorkflow("workflow", 0L);
+
+        WorkflowTimeline.ActivitySample sample = timeline.getSamples().get(0);
+        assertEquals(-1L, sample.getCpuNanos());
+        assertEquals(-1L, sample.getAllocatedBytes());
+        service.completeWorkflow(timeline);
+        assertEquals(0, service.getActivityStatistics().get("workflow.activity").getCpuNanos().getCount());
+    }
+
+    protected WorkflowTimeline runWorkflow(String workflowName, long activityMillis) throws InterruptedException {
+        WorkflowTimeline timeline = service.startWorkflow(workflowName);
+        WorkflowTimeline.ActivitySample sample = timeline.startActivity("activity");
+        if (activityMillis > 0) {
+            Thread.sleep(activityMillis);
+        }
+        timeline.endActivity(sample, false);
+        return timeline;
+    }
+
+    protected static class RecordingStatisticsService extends WorkflowStatisticsServiceImpl {
+
+        protected final List<WorkflowTimeline> slowTimelines = new ArrayList<>();
+
+        @Override
+        protected void logSlowWorkflow(WorkflowTimeline timeline) {
+            slowTimelines.add(timeline);
+        }
+    }
+
+}
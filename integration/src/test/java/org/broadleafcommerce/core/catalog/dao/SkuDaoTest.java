@@ -28,8 +28,14 @@ import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 public class SkuDaoTest extends TestNGSiteIntegrationSetup {
 
@@ -37,6 +43,9 @@ public class SkuDaoTest extends TestNGSiteIntegrationSetup {
 
     @Resource
     private SkuDao skuDao;
+
+    @PersistenceContext(unitName = "blPU")
+    private EntityManager em;
     
     @Resource
     private CatalogService catalogService;
@@ -72,4 +81,66 @@ public class SkuDaoTest extends TestNGSiteIntegrationSetup {
         assert item.getId() == skuId;
     }
 
+    @Test(groups = { "decrementQuantitiesAvailable" }, dependsOnGroups = { "createSku" })
+    @Transactional
+    public void decrementQuantitiesAvailable() {
+        Sku first = createSkuWithQuantity("decrement sku 1", 5);
+        Sku second = createSkuWithQuantity("decrement sku 2", 3);
+        Map<Sku, Integer> quantities = new HashMap<>();
+        quantities.put(first, 2);
+        quantities.put(second, 3);
+
+        List<Sku> shortfalls = skuDao.decrementQuantitiesAvailable(quantities);
+
+        assert shortfalls.isEmpty();
+        assert readQuantityAvailable(first) == 3;
+        assert readQuantityAvailable(second) == 0;
+    }
+
+    @Test(groups = { "decrementQuantitiesAvailableShortfall" }, dependsOnGroups = { "createSku" })
+    @Transactional
+    public void decrementQuantitiesAvailableShortfall() {
+        Sku sku = createSkuWithQuantity("decrement shortfall sku", 2);
+
+        List<Sku> shortfalls = skuDao.decrementQuantitiesAvailable(Collections.singletonMap(sku, 3));
+
+        assert shortfalls.size() == 1;
+        assert shortfalls.get(0).getId().equals(sku.getId());
+        assert readQuantityAvailable(sku) == 2;
+    }
+
+    @Test(groups = { "decrementQuantitiesAvailableRetained" }, dependsOnGroups = { "createSku" })
+    @Transactional
+    public void decrementQuantitiesAvailableRetained() {
+        Sku covered = createSkuWithQuantity("decrement retained sku 1", 5);
+        Sku held = createSkuWithQuantity("decrement retained sku 2", 5);
+        Map<Sku, Integer> quantities = new HashMap<>();
+        quantities.put(covered, 2);
+        quantities.put(held, 2);
+
+        List<Sku> shortfalls = skuDao.decrementQuantitiesAvailable(quantities, Collections.singletonMap(held, 4));
+
+        // the conditional update is per row, so the sku that covers its quantity is still decremented
+        assert shortfalls.size() == 1;
+        assert shortfalls.get(0).getId().equals(held.getId());
+        assert readQuantityAvailable(covered) == 3;
+        assert readQuantityAvailable(held) == 5;
+    }
+
+    protected Sku createSkuWithQuantity(String name, int quantityAvailable) {
+        Sku sku = catalogService.createSku();
+        sku.setName(name);
+        sku.setRetailPrice(new Money(BigDecimal.valueOf(15.0)));
+        sku.setQuantityAvailable(quantityAvailable);
+        return catalogService.saveSku(sku);
+    }
+
+    protected int readQuantityAvailable(Sku sku) {
+        // read the row rather than the persistence context, which the conditional update bypasses
+        Number quantityAvailable = (Number) em.createNativeQuery("SELECT QUANTITY_AVAILABLE FROM BLC_SKU WHERE SKU_ID = ?")
+                .setParameter(1, sku.getId())
+                .getSingleResult();
+        return quantityAvailable.intValue();
+    }
+
 }
@@ -17,18 +17,23 @@
  */
 package org.broadleafcommerce.core.order.service;
 
+import org.broadleafcommerce.core.catalog.domain.Product;
 import org.broadleafcommerce.core.order.domain.DiscreteOrderItem;
 import org.broadleafcommerce.core.order.domain.Order;
 import org.broadleafcommerce.core.order.domain.OrderItem;
+import org.broadleafcommerce.core.order.service.call.AddItemsResponse;
 import org.broadleafcommerce.core.order.service.call.MergeCartResponse;
+import org.broadleafcommerce.core.order.service.call.OrderItemRequestDTO;
 import org.broadleafcommerce.core.order.service.exception.AddToCartException;
 import org.broadleafcommerce.core.order.service.exception.RemoveFromCartException;
 import org.broadleafcommerce.core.order.service.type.OrderStatus;
 import org.broadleafcommerce.core.pricing.service.exception.PricingException;
 import org.broadleafcommerce.profile.core.domain.Customer;
+import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import org.testng.annotations.Test;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
@@ -39,6 +44,9 @@ public class CartTest extends OrderBaseTest {
     
     @Resource(name="blMergeCartService")
     private MergeCartService mergeCartService;
+
+    protected Long committedBulkCartId;
+    protected Long failedBulkSkuId;
     
     protected boolean cartContainsOnlyTheseItems(Order cart, List<OrderItem> orderItems) {
         List<OrderItem> cartOrderItems = new ArrayList<>(cart.getOrderItems());
@@ -226,5 +234,83 @@ public class CartTest extends OrderBaseTest {
         assert response.getOrder().getId().equals(customerCart.getId());
         assert response.isMerged() == false;
     }
+
+    @Transactional
+    @Test(groups = { "testAddItems" })
+    public void testAddItemsReportsErrorsPerLine() throws AddToCartException {
+        Customer customer = customerService.saveCustomer(createNamedCustomer());
+        Order cart = orderService.createNewCartForCustomer(customer);
+
+        Product box = addTestProduct("Bulk Box", "Boxes");
+        Product crate = addTestProduct("Bulk Crate", "Crates");
+        Product inactive = addTestProduct("Bulk Inactive Crate", "Crates", false);
+
+        List<OrderItemRequestDTO> lines = new ArrayList<>();
+        lines.add(new OrderItemRequestDTO().setQuantity(2).setSkuId(box.getDefaultSku().getId()));
+        lines.add(new OrderItemRequestDTO().setQuantity(1).setSkuId(inactive.getDefaultSku().getId()));
+        lines.add(new OrderItemRequestDTO().setQuantity(3).setSkuId(crate.getDefaultSku().getId()));
+        lines.add(new OrderItemRequestDTO().setQuantity(-1).setSkuId(crate.getDefaultSku().getId()));
+
+        // With like items merged, the negative line would be added to the quantity of the previous crate line instead
+        // of being rejected on its own
+        boolean automaticallyMergeLikeItems = orderService.getAutomaticallyMergeLikeItems();
+        AddItemsResponse response;
+        try {
+            orderService.setAutomaticallyMergeLikeItems(false);
+            response = orderService.addItems(cart.getId(), lines, true);
+        } finally {
+            orderService.setAutomaticallyMergeLikeItems(automaticallyMergeLikeItems);
+        }
+
+        assert response.getErrors().size() == 2;
+        assert response.getErrors().containsKey(1) && response.getErrors().containsKey(3);
+        Order order = response.getOrder();
+        assert order.getOrderItems().size() == 2;
+        assert order.getItemCount() == 5;
+        assert order.getSubTotal() != null && order.getSubTotal().getAmount().compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    @Transactional
+    @Commit
+    @Test(groups = { "testAddItemsCommit" })
+    public void testAddItemsCommitsOnlyTheLinesThatWereAdded() throws AddToCartException {
+        Customer customer = customerService.saveCustomer(createNamedCustomer());
+        Order cart = orderService.createNewCartForCustomer(customer);
+
+        Product box = addTestProduct("Committed Bulk Box", "Boxes");
+        Product tube = addTestProduct("Committed Bulk Tube", "Tubes");
+        Product inactiveLid = addTestProduct("Committed Bulk Inactive Lid", "Tubes", false);
+        Product crate = addTestProduct("Committed Bulk Crate", "Crates");
+
+        // The tube is added to the order before its child fails, so the whole line has to be rolled back
+        OrderItemRequestDTO tubeLine = new OrderItemRequestDTO().setQuantity(1).setSkuId(tube.getDefaultSku().getId());
+        tubeLine.getChildOrderItems().add(new OrderItemRequestDTO().setQuantity(1).setSkuId(inactiveLid.getDefaultSku().getId()));
+
+        List<OrderItemRequestDTO> lines = new ArrayList<>();
+        lines.add(new OrderItemRequestDTO().setQuantity(2).setSkuId(box.getDefaultSku().getId()));
+        lines.add(tubeLine);
+        lines.add(new OrderItemRequestDTO().setQuantity(3).setSkuId(crate.getDefaultSku().getId()));
+
+        AddItemsResponse response = orderService.addItems(cart.getId(), lines, true);
+
+        assert response.getErrors().size() == 1;
+        assert response.getErrors().containsKey(1);
+        assert response.getOrder().getOrderItems().size() == 2;
+        committedBulkCartId = cart.getId();
+        failedBulkSkuId = tube.getDefaultSku().getId();
+    }
+
+    @Transactional
+    @Test(groups = { "testAddItemsCommitRead" }, dependsOnGroups = { "testAddItemsCommit" })
+    public void testAddItemsLeavesNothingOfTheFailedLineAfterCommit() {
+        Order order = orderService.findOrderById(committedBulkCartId);
+
+        assert order.getOrderItems().size() == 2;
+        assert order.getItemCount() == 5;
+        for (OrderItem item : order.getOrderItems()) {
+            assert !failedBulkSkuId.equals(((DiscreteOrderItem) item).getSku().getId());
+        }
+        assert order.getSubTotal() != null && order.getSubTotal().getAmount().compareTo(BigDecimal.ZERO) > 0;
+    }
     
 }